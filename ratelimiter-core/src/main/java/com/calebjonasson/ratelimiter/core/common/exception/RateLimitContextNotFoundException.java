@@ -22,4 +22,13 @@ public class RateLimitContextNotFoundException extends RateLimitException {
 	public RateLimitContextNotFoundException(String contextKey) {
 		super(String.format(DEFAULT_CONTEXT_KEY_MESSAGE, contextKey));
 	}
+
+	/**
+	 * Throw a context not found exception with a context key as a reference.
+	 * @param contextKey The context key we are making the implementor aware of via the message member.
+	 * @param writableStackTrace false to skip recording the stack trace so the exception is cheap to throw again.
+	 */
+	public RateLimitContextNotFoundException(String contextKey, boolean writableStackTrace) {
+		super(String.format(DEFAULT_CONTEXT_KEY_MESSAGE, contextKey), writableStackTrace);
+	}
 }
\ No newline at end of file
@@ -30,4 +30,14 @@ public class RateLimitException extends Exception {
 	public RateLimitException(String message, Throwable throwable) {
 		super(message, throwable);
 	}
+
+	/**
+	 * Create a new rate limit exception that does not record a stack trace, eg: for an exception that is thrown often
+	 * and reused.
+	 * @param message A custom message.
+	 * @param writableStackTrace false to skip recording the stack trace.
+	 */
+	protected RateLimitException(String message, boolean writableStackTrace) {
+		super(message, null, false, writableStackTrace);
+	}
 }
\ No newline at end of file
@@ -1,7 +1,9 @@
 package com.calebjonasson.ratelimiter.core.context;
 
 import com.calebjonasson.ratelimiter.core.common.exception.RateLimitContextNotFoundException;
+import com.calebjonasson.ratelimiter.core.context.cache.CreatedContextCache;
 import com.calebjonasson.ratelimiter.core.context.configuration.AbstractContextConfiguration;
+import com.calebjonasson.ratelimiter.core.model.context.AbstractRateLimitContext;
 import com.calebjonasson.ratelimiter.core.model.context.RateLimitContext;
 import com.calebjonasson.ratelimiter.core.type.strategy.RateLimiterTypeStrategy;
 
@@ -23,12 +25,21 @@ public abstract class AbstractContextProvider<
 	 */
 	protected final CONFIGURATION contextConfiguration;
 
+	/**
+	 * The contexts created for context keys without a stored context and the context keys that could not be created.
+	 */
+	protected final CreatedContextCache<CONTEXT> createdContexts;
+
 	/**
 	 * Create a new {@link AbstractContextProvider} from the provided configuration.
 	 * @param contextConfiguration The context configuration.
 	 */
 	public AbstractContextProvider(final CONFIGURATION contextConfiguration) {
 		this.contextConfiguration = contextConfiguration;
+		this.createdContexts = new CreatedContextCache<>(
+				contextConfiguration.getCreatedContextCacheSize(),
+				contextConfiguration.getCreatedContextIdleTimeout(),
+				contextConfiguration.getMissingContextTtl());
 	}
 
 	/**
@@ -51,13 +62,43 @@ public abstract class AbstractContextProvider<
 
 		if(optionalContext.isPresent()) {
 			return optionalContext.get();
-		}else if(this.contextConfiguration.isCreateContextIfMissing()) {
-			// If the configuration has a createContextIfMissing value we will create a context.
-			return this.createContext(contextKey);
 		}
+		return this.getCreatedContext(contextKey);
+	}
 
-		// Final scenario we will throw an exception.
-		throw new RateLimitContextNotFoundException(contextKey);
+	/**
+	 * Get the context created for a context key that has no stored context. The context is created once and
+	 * remembered, as is a context key that no context can be created for.
+	 * @param contextKey The context key that has no stored context.
+	 * @return A new context if the configuration allows us to create one. Otherwise exception.
+	 * @throws RateLimitContextNotFoundException Thrown if we are unable to create a context.
+	 */
+	protected CONTEXT getCreatedContext(String contextKey) throws RateLimitContextNotFoundException {
+		return this.createdContexts.get(contextKey, key -> {
+			if(this.contextConfiguration.isCreateContextIfMissing()) {
+				// If the configuration has a createContextIfMissing value we will create a context.
+				return withContextKey(this.createContext(key), key);
+			}
+			// Final scenario the missing context is remembered and thrown.
+			return null;
+		});
+	}
+
+	/**
+	 * Get a context that carries the context key it is stored under, so rate limiters group its states under that key
+	 * even if the same context object is stored under several keys or carries another key, see
+	 * {@link AbstractRateLimitContext#withContextKey(String)}. The passed in context is never changed.
+	 * @param context The context.
+	 * @param contextKey The context key the context is stored under.
+	 * @param <C> The type of context.
+	 * @return The passed in context if it carries the context key, otherwise a copy that does.
+	 */
+	@SuppressWarnings("unchecked")
+	protected static <C> C withContextKey(C context, String contextKey) {
+		if(context instanceof AbstractRateLimitContext) {
+			return (C) ((AbstractRateLimitContext<?>) context).withContextKey(contextKey);
+		}
+		return context;
 	}
 
 	/**
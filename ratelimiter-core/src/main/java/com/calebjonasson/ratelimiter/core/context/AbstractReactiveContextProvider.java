@@ -0,0 +1,84 @@
+package com.calebjonasson.ratelimiter.core.context;
+
+import com.calebjonasson.ratelimiter.core.common.exception.RateLimitContextNotFoundException;
+import com.calebjonasson.ratelimiter.core.context.cache.CreatedContextCache;
+import com.calebjonasson.ratelimiter.core.context.configuration.AbstractContextConfiguration;
+import com.calebjonasson.ratelimiter.core.model.context.RateLimitContext;
+import com.calebjonasson.ratelimiter.core.type.strategy.RateLimiterTypeStrategy;
+import reactor.core.publisher.Mono;
+
+/**
+ * The non blocking counterpart of the {@link AbstractContextProvider}.
+ * @param <CONTEXT> The type of context that this provider will be able to handle.
+ * @param <CONFIGURATION> The configuration that this context provider will be able to handle.
+ */
+public abstract class AbstractReactiveContextProvider<
+		TYPE extends RateLimiterTypeStrategy,
+		CONTEXT extends RateLimitContext<TYPE>,
+		CONFIGURATION extends AbstractContextConfiguration<TYPE>>
+		implements ReactiveContextProvider<TYPE, CONTEXT> {
+
+	/**
+	 * The context configuration that we will access from the provider.
+	 */
+	protected final CONFIGURATION contextConfiguration;
+
+	/**
+	 * The contexts created for context keys without a stored context and the context keys that could not be created.
+	 */
+	protected final CreatedContextCache<CONTEXT> createdContexts;
+
+	/**
+	 * Create a new {@link AbstractReactiveContextProvider} from the provided configuration.
+	 * @param contextConfiguration The context configuration.
+	 */
+	public AbstractReactiveContextProvider(final CONFIGURATION contextConfiguration) {
+		this.contextConfiguration = contextConfiguration;
+		this.createdContexts = new CreatedContextCache<>(
+				contextConfiguration.getCreatedContextCacheSize(),
+				contextConfiguration.getCreatedContextIdleTimeout(),
+				contextConfiguration.getMissingContextTtl());
+	}
+
+	/**
+	 * Get the configuration class that has been stored within this context.
+	 * @return The configuration class that extends {@link AbstractContextConfiguration}
+	 */
+	public CONFIGURATION getContextConfiguration() {
+		return this.contextConfiguration;
+	}
+
+	/**
+	 * Get a context using the contextKey
+	 * @param contextKey The context key that we are loading from the datasource.
+	 * @return The Context if one is found, a new context if we setting is configured to do so. Otherwise a
+	 * {@link RateLimitContextNotFoundException}.
+	 */
+	public Mono<CONTEXT> getContext(String contextKey) {
+		return this.getContextInternal(contextKey).switchIfEmpty(Mono.defer(() -> {
+			try {
+				// Created once per context key, a missing context is remembered and signalled without a stack trace.
+				return Mono.just(this.createdContexts.get(contextKey,
+						key -> this.contextConfiguration.isCreateContextIfMissing()
+								? AbstractContextProvider.withContextKey(this.createContext(key), key)
+								: null));
+			} catch (RateLimitContextNotFoundException e) {
+				return Mono.error(e);
+			}
+		}));
+	}
+
+	/**
+	 * Get the context from whatever the concrete implementation decides. memory, database, redis, etc..
+	 * @param contextKey The context key we are looking to load.
+	 * @return A {@link Mono} of the context, empty if there is none.
+	 */
+	protected abstract Mono<CONTEXT> getContextInternal(String contextKey);
+
+	/**
+	 * The implementation of this method should simply instantiate a CONTEXT
+	 * @param contextKey The key for the created context.
+	 * @return A new context to be associated with the request.
+	 */
+	protected abstract CONTEXT createContext(String contextKey);
+}
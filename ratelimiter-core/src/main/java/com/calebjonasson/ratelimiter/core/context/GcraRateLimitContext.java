@@ -0,0 +1,36 @@
+package com.calebjonasson.ratelimiter.core.context;
+
+import com.calebjonasson.ratelimiter.core.common.model.IntervalMemberContainer;
+import com.calebjonasson.ratelimiter.core.common.model.LimitMemberContainer;
+import com.calebjonasson.ratelimiter.core.model.context.AbstractRateLimitContext;
+import com.calebjonasson.ratelimiter.core.type.strategy.GcraRateLimiterTypeStrategy;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * A context for the generic cell rate algorithm rate limit type.
+ *
+ * Permits are emitted at a steady rate of {@code limit} per {@code interval} and up to {@code burstCapacity} of them
+ * can be taken at once, which admits the same requests as a token bucket with the same rate and capacity.
+ */
+@Data
+@Builder
+public class GcraRateLimitContext
+		extends AbstractRateLimitContext<GcraRateLimiterTypeStrategy>
+		implements LimitMemberContainer, IntervalMemberContainer {
+
+	/**
+	 * The amount of permits emitted over the interval.
+	 */
+	private long limit;
+
+	/**
+	 * The amount of time in miliseconds over which the limit is emitted.
+	 */
+	private long interval;
+
+	/**
+	 * The amount of permits that can be taken at once, the upper bound of a burst.
+	 */
+	private long burstCapacity;
+}
@@ -0,0 +1,33 @@
+package com.calebjonasson.ratelimiter.core.context;
+
+import com.calebjonasson.ratelimiter.core.common.exception.RateLimitContextNotFoundException;
+import com.calebjonasson.ratelimiter.core.context.configuration.AbstractContextConfiguration;
+import com.calebjonasson.ratelimiter.core.model.context.RateLimitContext;
+import com.calebjonasson.ratelimiter.core.type.strategy.RateLimiterTypeStrategy;
+import reactor.core.publisher.Mono;
+
+/**
+ * The non blocking counterpart of the {@link ContextProvider}.
+ *
+ * Implementations must not block the subscribing thread or take monitors while loading a context so they can be used
+ * from event loop threads.
+ */
+public interface ReactiveContextProvider<
+		TYPE extends RateLimiterTypeStrategy,
+		CONTEXT extends RateLimitContext<TYPE>> {
+
+	/**
+	 * Load the context from whatever the data store is.
+	 * @param contextKey The context key that we are loading from the datasource.
+	 * @return A {@link Mono} of the context. If the implementation needs to create a context on the fly it should do so
+	 * here. Fails with a {@link RateLimitContextNotFoundException} if unable to find or create a context by the key.
+	 */
+	public Mono<CONTEXT> getContext(String contextKey);
+
+	/**
+	 * Get the configuration class that has been stored within this context.
+	 * @param <T> The type of context configuration defined largely by the class TYPE.
+	 * @return The configuration class that extends {@link AbstractContextConfiguration}
+	 */
+	public <T extends AbstractContextConfiguration<TYPE>> T getContextConfiguration();
+}
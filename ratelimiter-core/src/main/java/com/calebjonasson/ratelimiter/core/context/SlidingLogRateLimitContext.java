@@ -0,0 +1,36 @@
+package com.calebjonasson.ratelimiter.core.context;
+
+import com.calebjonasson.ratelimiter.core.common.model.IntervalMemberContainer;
+import com.calebjonasson.ratelimiter.core.common.model.LimitMemberContainer;
+import com.calebjonasson.ratelimiter.core.model.context.AbstractRateLimitContext;
+import com.calebjonasson.ratelimiter.core.type.strategy.SlidingLogRateLimiterTypeStrategy;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * A context for the sliding log rate limit type.
+ *
+ * The time of every admitted request is kept until it is an interval old, so the limit is exact for the window ending
+ * at every request, eg: 100 exports per rolling 24 hours. A state holds up to the limit of timestamps.
+ */
+@Data
+@Builder
+public class SlidingLogRateLimitContext
+		extends AbstractRateLimitContext<SlidingLogRateLimiterTypeStrategy>
+		implements LimitMemberContainer, IntervalMemberContainer {
+
+	/**
+	 * The longest interval in miliseconds, about 24 days, timestamps are kept as int offsets in miliseconds.
+	 */
+	public static final long MAX_INTERVAL = Integer.MAX_VALUE;
+
+	/**
+	 * The limit of requests to be made within any window of the interval.
+	 */
+	private long limit;
+
+	/**
+	 * The length of the window in miliseconds, at most {@link #MAX_INTERVAL}.
+	 */
+	private long interval;
+}
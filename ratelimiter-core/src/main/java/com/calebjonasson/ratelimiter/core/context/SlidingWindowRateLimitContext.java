@@ -0,0 +1,43 @@
+package com.calebjonasson.ratelimiter.core.context;
+
+import com.calebjonasson.ratelimiter.core.common.model.IntervalMemberContainer;
+import com.calebjonasson.ratelimiter.core.common.model.LimitMemberContainer;
+import com.calebjonasson.ratelimiter.core.model.context.AbstractRateLimitContext;
+import com.calebjonasson.ratelimiter.core.type.strategy.SlidingWindowRateLimiterTypeStrategy;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * A context for the sliding window rate limit type.
+ *
+ * The limit applies to any interval long window ending now, not to fixed windows, so a burst at the end of one window
+ * and the start of the next cannot admit twice the limit. The window is tracked as a ring of {@code subWindows} counters
+ * and the counter leaving the window is weighted by how much of it is still inside, so more sub windows cost more memory
+ * per state and give a closer estimate.
+ */
+@Data
+@Builder
+public class SlidingWindowRateLimitContext
+		extends AbstractRateLimitContext<SlidingWindowRateLimiterTypeStrategy>
+		implements LimitMemberContainer, IntervalMemberContainer {
+
+	/**
+	 * The default amount of counters the window is divided into.
+	 */
+	public static final int DEFAULT_SUB_WINDOWS = 10;
+
+	/**
+	 * The limit of requests to be made within any window of the interval.
+	 */
+	private long limit;
+
+	/**
+	 * The length of the window in miliseconds.
+	 */
+	private long interval;
+
+	/**
+	 * The amount of counters the window is divided into, less than 1 is the same as 1.
+	 */
+	private int subWindows;
+}
@@ -0,0 +1,265 @@
+package com.calebjonasson.ratelimiter.core.context.cache;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded local cache in front of a remote context store, see {@link NearCacheConfiguration}.
+ *
+ * A hit is a lock free map read. Contexts are loaded on a miss, reloaded in the background once they are older than the
+ * refresh time and dropped once they are older than the ttl. {@link #invalidate(String)} drops a context right away,
+ * eg: when another node announces that it changed. A load that was started before an invalidation is not cached so an
+ * invalidated context is never brought back by a load that was already in flight.
+ *
+ * The cache is bounded without bookkeeping on every hit: when it is full a small sample of contexts is taken from a
+ * cursor that moves around the map and the expired ones in the sample are dropped, or the least recently used one if
+ * none have expired. Making room is a constant amount of work however large the cache is.
+ *
+ * How contexts are loaded is left to the implementation, see {@link ContextNearCache} and
+ * {@link ReactiveContextNearCache}.
+ * @param <CONTEXT> The type of context being cached.
+ */
+public abstract class AbstractContextNearCache<CONTEXT> {
+
+	/**
+	 * How much time in nanos has to pass before the access time of a context is updated again.
+	 */
+	private static final long ACCESS_GRANULARITY = TimeUnit.MILLISECONDS.toNanos(1);
+
+	/**
+	 * The amount of contexts compared when the cache is full.
+	 */
+	private static final int EVICTION_SAMPLE = 8;
+
+	/**
+	 * The size, ttl and refresh rules of the cache.
+	 */
+	private final NearCacheConfiguration configuration;
+
+	/**
+	 * The cached contexts by context key.
+	 */
+	private final Map<String, Entry<CONTEXT>> entries = new ConcurrentHashMap<>();
+
+	/**
+	 * Incremented by every invalidation. Loads that saw a different value when they started are not cached.
+	 */
+	private final AtomicLong invalidations = new AtomicLong();
+
+	/**
+	 * The amount of contexts loaded on a miss.
+	 */
+	private final AtomicLong loads = new AtomicLong();
+
+	/**
+	 * The amount of contexts reloaded in the background.
+	 */
+	private final AtomicLong refreshes = new AtomicLong();
+
+	/**
+	 * The position of the last eviction sample. Weakly consistent so it stays valid while the map is being modified.
+	 */
+	private Iterator<Map.Entry<String, Entry<CONTEXT>>> cursor;
+
+	/**
+	 * Create a near cache.
+	 * @param configuration The size, ttl and refresh rules of the cache.
+	 */
+	protected AbstractContextNearCache(final NearCacheConfiguration configuration) {
+		if(configuration.getMaximumSize() < 1) {
+			throw new IllegalArgumentException("The maximum size must be greater than 0.");
+		}
+		this.configuration = configuration;
+	}
+
+	/**
+	 * Drop a context so the next request loads it again.
+	 * @param contextKey The context key to drop.
+	 */
+	public void invalidate(String contextKey) {
+		this.invalidations.incrementAndGet();
+		this.entries.remove(contextKey);
+	}
+
+	/**
+	 * Drop every context, eg: after invalidations could have been missed.
+	 */
+	public void invalidateAll() {
+		this.invalidations.incrementAndGet();
+		this.entries.clear();
+	}
+
+	/**
+	 * @return The amount of contexts held.
+	 */
+	public int size() {
+		return this.entries.size();
+	}
+
+	/**
+	 * @return The amount of contexts loaded on a miss.
+	 */
+	public long getLoads() {
+		return this.loads.get();
+	}
+
+	/**
+	 * @return The amount of contexts reloaded in the background.
+	 */
+	public long getRefreshes() {
+		return this.refreshes.get();
+	}
+
+	/**
+	 * @return The size, ttl and refresh rules of the cache.
+	 */
+	public NearCacheConfiguration getConfiguration() {
+		return this.configuration;
+	}
+
+	/**
+	 * Get a context that has not expired, starting a background refresh if it is past the refresh time.
+	 * @param contextKey The context key we are looking for.
+	 * @return The cached context, null if it has to be loaded.
+	 */
+	protected CONTEXT getIfPresent(String contextKey) {
+		long now = System.nanoTime();
+		Entry<CONTEXT> entry = this.entries.get(contextKey);
+		if(entry == null || now - entry.expiresAt >= 0) {
+			return null;
+		}
+		if(now - entry.accessedAt > ACCESS_GRANULARITY) {
+			entry.accessedAt = now;
+		}
+		if(entry.refreshAt != Long.MIN_VALUE && now - entry.refreshAt >= 0 && entry.refreshing.compareAndSet(false, true)) {
+			this.refresh(contextKey, this.invalidations.get(), () -> entry.refreshing.set(false));
+		}
+		return entry.context;
+	}
+
+	/**
+	 * Reload a context in the background. The cached context is kept if the reload fails, a reloaded context is
+	 * stored with {@link #refreshed(String, Object, long)}.
+	 * @param contextKey The context key to reload.
+	 * @param generation The invalidation count when the reload was started, see {@link #generation()}.
+	 * @param completion Must be run once the reload is done, succeeded or not, so the context can be refreshed again.
+	 */
+	protected abstract void refresh(String contextKey, long generation, Runnable completion);
+
+	/**
+	 * @return The invalidation count, read before a load is started and handed back when the loaded context is stored.
+	 */
+	protected long generation() {
+		return this.invalidations.get();
+	}
+
+	/**
+	 * Cache a context that was loaded on a miss.
+	 * @param contextKey The context key of the context.
+	 * @param context The loaded context.
+	 * @param generation The invalidation count when the load started.
+	 */
+	protected void loaded(String contextKey, CONTEXT context, long generation) {
+		this.loads.incrementAndGet();
+		this.put(contextKey, context, generation);
+	}
+
+	/**
+	 * Cache a context that was reloaded in the background.
+	 * @param contextKey The context key of the context.
+	 * @param context The reloaded context.
+	 * @param generation The invalidation count when the reload started.
+	 */
+	protected void refreshed(String contextKey, CONTEXT context, long generation) {
+		this.refreshes.incrementAndGet();
+		this.put(contextKey, context, generation);
+	}
+
+	/**
+	 * Cache a loaded context unless it was invalidated while it was loading.
+	 * @param contextKey The context key of the context.
+	 * @param context The loaded context.
+	 * @param generation The invalidation count when the load started.
+	 */
+	private void put(String contextKey, CONTEXT context, long generation) {
+		long now = System.nanoTime();
+		long refreshAfter = this.configuration.getRefreshAfter();
+		Entry<CONTEXT> entry = new Entry<>(context, now,
+				now + TimeUnit.MILLISECONDS.toNanos(this.configuration.getTtl()),
+				refreshAfter > 0 ? now + TimeUnit.MILLISECONDS.toNanos(refreshAfter) : Long.MIN_VALUE);
+
+		this.entries.put(contextKey, entry);
+		if(this.invalidations.get() != generation) {
+			// Invalidated while loading, the loaded context may already be stale.
+			this.entries.remove(contextKey, entry);
+			return;
+		}
+		if(this.entries.size() > this.configuration.getMaximumSize()) {
+			this.evict(contextKey, now);
+		}
+	}
+
+	/**
+	 * Make room by removing the expired contexts of a sample, or the least recently used one of the sample if none have
+	 * expired.
+	 * @param keep The context key that was just inserted.
+	 * @param now The current nano time.
+	 */
+	private synchronized void evict(String keep, long now) {
+		String eldestKey = null;
+		Entry<CONTEXT> eldest = null;
+		boolean removed = false;
+		boolean restarted = false;
+		for(int seen = 0; seen < EVICTION_SAMPLE; seen++) {
+			if(this.cursor == null || !this.cursor.hasNext()) {
+				// Only wrap around once per call so a small map is not visited repeatedly.
+				if(restarted) break;
+				this.cursor = this.entries.entrySet().iterator();
+				restarted = true;
+				if(!this.cursor.hasNext()) break;
+			}
+
+			Map.Entry<String, Entry<CONTEXT>> candidate = this.cursor.next();
+			if(candidate.getKey().equals(keep)) continue;
+			if(now - candidate.getValue().expiresAt >= 0) {
+				removed |= this.entries.remove(candidate.getKey(), candidate.getValue());
+			} else if(eldest == null || candidate.getValue().accessedAt - eldest.accessedAt < 0) {
+				eldestKey = candidate.getKey();
+				eldest = candidate.getValue();
+			}
+		}
+		if(!removed && eldest != null) {
+			this.entries.remove(eldestKey, eldest);
+		}
+	}
+
+	/**
+	 * A cached context.
+	 */
+	private static final class Entry<CONTEXT> {
+
+		private final CONTEXT context;
+
+		private final long expiresAt;
+
+		/**
+		 * The nano time after which the context is refreshed, {@link Long#MIN_VALUE} if it is never refreshed.
+		 */
+		private final long refreshAt;
+
+		private final AtomicBoolean refreshing = new AtomicBoolean();
+
+		private volatile long accessedAt;
+
+		private Entry(CONTEXT context, long now, long expiresAt, long refreshAt) {
+			this.context = context;
+			this.accessedAt = now;
+			this.expiresAt = expiresAt;
+			this.refreshAt = refreshAt;
+		}
+	}
+}
@@ -0,0 +1,19 @@
+package com.calebjonasson.ratelimiter.core.context.cache;
+
+import com.calebjonasson.ratelimiter.core.common.exception.RateLimitContextNotFoundException;
+
+/**
+ * Loads a context from its source of truth for a {@link ContextNearCache}.
+ * @param <CONTEXT> The type of context that is loaded.
+ */
+@FunctionalInterface
+public interface ContextLoader<CONTEXT> {
+
+	/**
+	 * Load a context.
+	 * @param contextKey The context key we are looking to load.
+	 * @return The context, never null.
+	 * @throws RateLimitContextNotFoundException Thrown if there is no context for the key.
+	 */
+	CONTEXT load(String contextKey) throws RateLimitContextNotFoundException;
+}
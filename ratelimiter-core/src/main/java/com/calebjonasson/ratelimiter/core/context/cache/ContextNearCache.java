@@ -0,0 +1,82 @@
+package com.calebjonasson.ratelimiter.core.context.cache;
+
+import com.calebjonasson.ratelimiter.core.common.exception.RateLimitContextNotFoundException;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * A near cache that loads contexts with a blocking {@link ContextLoader}, see {@link AbstractContextNearCache}.
+ * Background refreshes run on the refresh executor.
+ * @param <CONTEXT> The type of context being cached.
+ */
+public class ContextNearCache<CONTEXT> extends AbstractContextNearCache<CONTEXT> {
+
+	/**
+	 * Loads the contexts that are missing, expired or refreshed.
+	 */
+	private final ContextLoader<CONTEXT> loader;
+
+	/**
+	 * Runs the background refreshes.
+	 */
+	private final Executor refreshExecutor;
+
+	/**
+	 * Create a near cache that refreshes on the common pool.
+	 * @param loader Loads the contexts that are missing, expired or refreshed.
+	 * @param configuration The size, ttl and refresh rules of the cache.
+	 */
+	public ContextNearCache(final ContextLoader<CONTEXT> loader, final NearCacheConfiguration configuration) {
+		this(loader, configuration, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Create a near cache.
+	 * @param loader Loads the contexts that are missing, expired or refreshed.
+	 * @param configuration The size, ttl and refresh rules of the cache.
+	 * @param refreshExecutor Runs the background refreshes.
+	 */
+	public ContextNearCache(final ContextLoader<CONTEXT> loader, final NearCacheConfiguration configuration,
+			final Executor refreshExecutor) {
+		super(configuration);
+		this.loader = loader;
+		this.refreshExecutor = refreshExecutor;
+	}
+
+	/**
+	 * Get a context from the cache, loading it if it is missing or expired.
+	 * @param contextKey The context key we are looking to load.
+	 * @return The context.
+	 * @throws RateLimitContextNotFoundException Thrown if the context is not cached and cannot be loaded.
+	 */
+	public CONTEXT get(String contextKey) throws RateLimitContextNotFoundException {
+		CONTEXT cached = this.getIfPresent(contextKey);
+		if(cached != null) {
+			return cached;
+		}
+
+		long generation = this.generation();
+		CONTEXT context = this.loader.load(contextKey);
+		this.loaded(contextKey, context, generation);
+		return context;
+	}
+
+	@Override
+	protected void refresh(String contextKey, long generation, Runnable completion) {
+		try {
+			this.refreshExecutor.execute(() -> {
+				try {
+					this.refreshed(contextKey, this.loader.load(contextKey), generation);
+				} catch (RateLimitContextNotFoundException | RuntimeException e) {
+					// Serve the cached context until it expires, the next request past the refresh time retries.
+				} finally {
+					completion.run();
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			completion.run();
+		}
+	}
+}
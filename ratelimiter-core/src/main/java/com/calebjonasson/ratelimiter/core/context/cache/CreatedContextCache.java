@@ -0,0 +1,235 @@
+package com.calebjonasson.ratelimiter.core.context.cache;
+
+import com.calebjonasson.ratelimiter.core.common.exception.RateLimitContextNotFoundException;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Remembers the contexts a provider created for context keys it has no stored context for, and the context keys it
+ * could not create a context for.
+ *
+ * A created context is built once per context key and returned from a single map read afterwards. Contexts that have
+ * not been used for the idle timeout are dropped when they are read. When the cache is full a small sample of contexts
+ * is taken from a cursor that moves around the map: the idle ones in the sample are dropped, or the least recently used
+ * one if none are idle. Making room is a constant amount of work however large the cache is, so a flood of unknown
+ * context keys cannot turn every request into a scan of the whole cache. A missing context is remembered for the
+ * missing ttl and rethrown as an exception without a stack trace, so such a flood neither rebuilds nor fills stack
+ * traces.
+ * @param <CONTEXT> The type of context being cached.
+ */
+public class CreatedContextCache<CONTEXT> {
+
+	/**
+	 * The default maximum amount of contexts held.
+	 */
+	public static final int DEFAULT_MAXIMUM_SIZE = 10000;
+
+	/**
+	 * The default time in millis an unused context is held.
+	 */
+	public static final long DEFAULT_IDLE_TIMEOUT = 600000;
+
+	/**
+	 * The default time in millis a missing context is remembered.
+	 */
+	public static final long DEFAULT_MISSING_TTL = 5000;
+
+	/**
+	 * How much time in nanos has to pass before the access time of a context is updated again.
+	 */
+	private static final long ACCESS_GRANULARITY = TimeUnit.MILLISECONDS.toNanos(1);
+
+	/**
+	 * The amount of contexts compared when the cache is full.
+	 */
+	private static final int EVICTION_SAMPLE = 8;
+
+	/**
+	 * The created and missing contexts by context key.
+	 */
+	private final Map<String, Entry<CONTEXT>> entries = new ConcurrentHashMap<>();
+
+	/**
+	 * The maximum amount of contexts held, 0 to disable the cache.
+	 */
+	private final int maximumSize;
+
+	/**
+	 * The time in nanos an unused context is held.
+	 */
+	private final long idleTimeout;
+
+	/**
+	 * The time in nanos a missing context is remembered.
+	 */
+	private final long missingTtl;
+
+	/**
+	 * The position of the last eviction sample. Weakly consistent so it stays valid while the map is being modified.
+	 */
+	private Iterator<Map.Entry<String, Entry<CONTEXT>>> cursor;
+
+	/**
+	 * Create a cache with the default limits.
+	 */
+	public CreatedContextCache() {
+		this(DEFAULT_MAXIMUM_SIZE, DEFAULT_IDLE_TIMEOUT, DEFAULT_MISSING_TTL);
+	}
+
+	/**
+	 * Create a cache.
+	 * @param maximumSize The maximum amount of contexts held, 0 to disable the cache.
+	 * @param idleTimeout The time in millis an unused context is held.
+	 * @param missingTtl The time in millis a missing context is remembered.
+	 */
+	public CreatedContextCache(int maximumSize, long idleTimeout, long missingTtl) {
+		if(maximumSize < 0 || idleTimeout < 0 || missingTtl < 0) {
+			throw new IllegalArgumentException("The maximum size, idle timeout and missing ttl cannot be negative.");
+		}
+		this.maximumSize = maximumSize;
+		this.idleTimeout = TimeUnit.MILLISECONDS.toNanos(idleTimeout);
+		this.missingTtl = TimeUnit.MILLISECONDS.toNanos(missingTtl);
+	}
+
+	/**
+	 * Get the created context of a context key, creating it once if there is none.
+	 * @param contextKey The context key of the context.
+	 * @param creator Creates the context, returns null if no context can be created for the context key.
+	 * @return The created context.
+	 * @throws RateLimitContextNotFoundException Thrown if no context can be created for the context key.
+	 */
+	public CONTEXT get(String contextKey, Function<String, CONTEXT> creator) throws RateLimitContextNotFoundException {
+		if(this.maximumSize == 0) {
+			CONTEXT context = creator.apply(contextKey);
+			if(context == null) {
+				throw new RateLimitContextNotFoundException(contextKey);
+			}
+			return context;
+		}
+
+		long now = System.nanoTime();
+		Entry<CONTEXT> entry = this.entries.get(contextKey);
+		if(entry == null || entry.isExpired(now, this.idleTimeout)) {
+			if(entry != null) {
+				this.entries.remove(contextKey, entry);
+			}
+			entry = this.entries.computeIfAbsent(contextKey, key -> this.create(key, creator, now));
+			if(this.entries.size() > this.maximumSize) {
+				this.evict(contextKey, now);
+			}
+		} else if(now - entry.accessedAt > ACCESS_GRANULARITY) {
+			entry.accessedAt = now;
+		}
+
+		if(entry.missing != null) {
+			throw entry.missing;
+		}
+		return entry.context;
+	}
+
+	/**
+	 * Forget a context key, eg: once a context was stored for it.
+	 * @param contextKey The context key to forget.
+	 */
+	public void invalidate(String contextKey) {
+		this.entries.remove(contextKey);
+	}
+
+	/**
+	 * Forget every context key.
+	 */
+	public void invalidateAll() {
+		this.entries.clear();
+	}
+
+	/**
+	 * Remove the contexts that have not been used for the idle timeout and the expired missing contexts.
+	 */
+	public void pruneIdle() {
+		long now = System.nanoTime();
+		this.entries.values().removeIf(entry -> entry.isExpired(now, this.idleTimeout));
+	}
+
+	/**
+	 * @return The amount of created and missing contexts held.
+	 */
+	public int size() {
+		return this.entries.size();
+	}
+
+	private Entry<CONTEXT> create(String contextKey, Function<String, CONTEXT> creator, long now) {
+		CONTEXT context = creator.apply(contextKey);
+		if(context == null) {
+			return new Entry<>(null, new RateLimitContextNotFoundException(contextKey, false), now, now + this.missingTtl);
+		}
+		return new Entry<>(context, null, now, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Make room by removing the idle contexts of a sample, or the least recently used one of the sample if none are idle.
+	 * @param keep The context key that was just inserted.
+	 * @param now The current nano time.
+	 */
+	private synchronized void evict(String keep, long now) {
+		String eldestKey = null;
+		Entry<CONTEXT> eldest = null;
+		boolean removed = false;
+		boolean restarted = false;
+		for(int seen = 0; seen < EVICTION_SAMPLE; seen++) {
+			if(this.cursor == null || !this.cursor.hasNext()) {
+				// Only wrap around once per call so a small map is not visited repeatedly.
+				if(restarted) break;
+				this.cursor = this.entries.entrySet().iterator();
+				restarted = true;
+				if(!this.cursor.hasNext()) break;
+			}
+
+			Map.Entry<String, Entry<CONTEXT>> candidate = this.cursor.next();
+			if(candidate.getKey().equals(keep)) continue;
+			if(candidate.getValue().isExpired(now, this.idleTimeout)) {
+				removed |= this.entries.remove(candidate.getKey(), candidate.getValue());
+			} else if(eldest == null || candidate.getValue().accessedAt - eldest.accessedAt < 0) {
+				eldestKey = candidate.getKey();
+				eldest = candidate.getValue();
+			}
+		}
+		if(!removed && eldest != null) {
+			this.entries.remove(eldestKey, eldest);
+		}
+	}
+
+	/**
+	 * A created context, or the exception of a missing context.
+	 */
+	private static final class Entry<CONTEXT> {
+
+		private final CONTEXT context;
+
+		private final RateLimitContextNotFoundException missing;
+
+		/**
+		 * The nano time at which a missing context is forgotten, {@link Long#MAX_VALUE} for a created context.
+		 */
+		private final long expiresAt;
+
+		private volatile long accessedAt;
+
+		private Entry(CONTEXT context, RateLimitContextNotFoundException missing, long now, long expiresAt) {
+			this.context = context;
+			this.missing = missing;
+			this.accessedAt = now;
+			this.expiresAt = expiresAt;
+		}
+
+		private boolean isExpired(long now, long idleTimeout) {
+			if(this.missing != null) {
+				return now - this.expiresAt >= 0;
+			}
+			return now - this.accessedAt >= idleTimeout;
+		}
+	}
+}
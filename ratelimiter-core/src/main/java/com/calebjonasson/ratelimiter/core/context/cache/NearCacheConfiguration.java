@@ -0,0 +1,44 @@
+package com.calebjonasson.ratelimiter.core.context.cache;
+
+import lombok.Data;
+
+/**
+ * Configuration for a {@link ContextNearCache}.
+ *
+ * A context is served from the cache for the ttl after it was loaded. Once it is older than the refresh time it is
+ * reloaded in the background while the cached context is still served, so a context that is used keeps being served
+ * from memory.
+ */
+@Data
+public class NearCacheConfiguration {
+
+	/**
+	 * The default maximum amount of contexts held.
+	 */
+	public static final int DEFAULT_MAXIMUM_SIZE = 10000;
+
+	/**
+	 * The default time in millis a context is served after it was loaded.
+	 */
+	public static final long DEFAULT_TTL = 60000;
+
+	/**
+	 * The default time in millis after which a context is reloaded in the background.
+	 */
+	public static final long DEFAULT_REFRESH_AFTER = 45000;
+
+	/**
+	 * The maximum amount of contexts held. The least recently used context is evicted to make room.
+	 */
+	protected int maximumSize = DEFAULT_MAXIMUM_SIZE;
+
+	/**
+	 * The time in millis a context is served after it was loaded.
+	 */
+	protected long ttl = DEFAULT_TTL;
+
+	/**
+	 * The time in millis after which a context is reloaded in the background, 0 to only reload once it expired.
+	 */
+	protected long refreshAfter = DEFAULT_REFRESH_AFTER;
+}
@@ -0,0 +1,20 @@
+package com.calebjonasson.ratelimiter.core.context.cache;
+
+import com.calebjonasson.ratelimiter.core.common.exception.RateLimitContextNotFoundException;
+import reactor.core.publisher.Mono;
+
+/**
+ * The non blocking counterpart of the {@link ContextLoader}, loads a context for a {@link ReactiveContextNearCache}.
+ * @param <CONTEXT> The type of context that is loaded.
+ */
+@FunctionalInterface
+public interface ReactiveContextLoader<CONTEXT> {
+
+	/**
+	 * Load a context.
+	 * @param contextKey The context key we are looking to load.
+	 * @return A {@link Mono} of the context, a {@link RateLimitContextNotFoundException} if there is no context for the
+	 * key.
+	 */
+	Mono<CONTEXT> load(String contextKey);
+}
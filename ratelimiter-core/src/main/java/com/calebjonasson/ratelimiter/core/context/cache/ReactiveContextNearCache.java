@@ -0,0 +1,53 @@
+package com.calebjonasson.ratelimiter.core.context.cache;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * The non blocking counterpart of the {@link ContextNearCache}, contexts are loaded with a {@link ReactiveContextLoader}
+ * as part of the returned {@link Mono}, see {@link AbstractContextNearCache}. Background refreshes are subscribed to
+ * without being waited on.
+ * @param <CONTEXT> The type of context being cached.
+ */
+public class ReactiveContextNearCache<CONTEXT> extends AbstractContextNearCache<CONTEXT> {
+
+	/**
+	 * Loads the contexts that are missing, expired or refreshed.
+	 */
+	private final ReactiveContextLoader<CONTEXT> loader;
+
+	/**
+	 * Create a near cache.
+	 * @param loader Loads the contexts that are missing, expired or refreshed.
+	 * @param configuration The size, ttl and refresh rules of the cache.
+	 */
+	public ReactiveContextNearCache(final ReactiveContextLoader<CONTEXT> loader, final NearCacheConfiguration configuration) {
+		super(configuration);
+		this.loader = loader;
+	}
+
+	/**
+	 * Get a context from the cache, loading it if it is missing or expired.
+	 * @param contextKey The context key we are looking to load.
+	 * @return A {@link Mono} of the context, the error of the loader if the context is not cached and cannot be loaded.
+	 */
+	public Mono<CONTEXT> get(String contextKey) {
+		CONTEXT cached = this.getIfPresent(contextKey);
+		if(cached != null) {
+			return Mono.just(cached);
+		}
+
+		return Mono.defer(() -> {
+			long generation = this.generation();
+			return this.loader.load(contextKey).doOnNext(context -> this.loaded(contextKey, context, generation));
+		});
+	}
+
+	@Override
+	protected void refresh(String contextKey, long generation, Runnable completion) {
+		this.loader.load(contextKey)
+				.doFinally(signal -> completion.run())
+				.subscribe(context -> this.refreshed(contextKey, context, generation), e -> {
+					// Serve the cached context until it expires, the next request past the refresh time retries.
+				});
+	}
+}
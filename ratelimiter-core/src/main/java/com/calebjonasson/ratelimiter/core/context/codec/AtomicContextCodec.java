@@ -0,0 +1,33 @@
+package com.calebjonasson.ratelimiter.core.context.codec;
+
+import com.calebjonasson.ratelimiter.core.context.AtomicRateLimitContext;
+
+/**
+ * Encodes an {@link AtomicRateLimitContext} as {@code A1,<enabled>,<limit>,<interval>}, eg: {@code A1,1,10,60000}.
+ */
+public class AtomicContextCodec implements ContextCodec<AtomicRateLimitContext> {
+
+	/**
+	 * The tag of the format.
+	 */
+	public static final String TAG = "A1";
+
+	@Override
+	public String encode(AtomicRateLimitContext context) {
+		return TAG + SEPARATOR + (context.isEnabled() ? 1 : 0)
+				+ SEPARATOR + context.getLimit()
+				+ SEPARATOR + context.getInterval();
+	}
+
+	@Override
+	public AtomicRateLimitContext decode(String contextKey, String value) {
+		String[] fields = ContextCodecs.split(TAG, value, 4);
+		AtomicRateLimitContext context = AtomicRateLimitContext.builder()
+				.limit(ContextCodecs.parseLong(fields[2], value))
+				.interval(ContextCodecs.parseLong(fields[3], value))
+				.build();
+		context.setContextKey(contextKey);
+		context.setEnabled(ContextCodecs.parseFlag(fields[1], value));
+		return context;
+	}
+}
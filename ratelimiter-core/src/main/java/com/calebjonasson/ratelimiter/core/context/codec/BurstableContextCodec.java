@@ -0,0 +1,33 @@
+package com.calebjonasson.ratelimiter.core.context.codec;
+
+import com.calebjonasson.ratelimiter.core.context.BurstableRateLimitContext;
+
+/**
+ * Encodes a {@link BurstableRateLimitContext} as {@code B1,<enabled>,<replenishRate>,<burstCapacity>}, eg: {@code B1,1,10,20}.
+ */
+public class BurstableContextCodec implements ContextCodec<BurstableRateLimitContext> {
+
+	/**
+	 * The tag of the format.
+	 */
+	public static final String TAG = "B1";
+
+	@Override
+	public String encode(BurstableRateLimitContext context) {
+		return TAG + SEPARATOR + (context.isEnabled() ? 1 : 0)
+				+ SEPARATOR + context.getReplenishRate()
+				+ SEPARATOR + context.getBurstCapacity();
+	}
+
+	@Override
+	public BurstableRateLimitContext decode(String contextKey, String value) {
+		String[] fields = ContextCodecs.split(TAG, value, 4);
+		BurstableRateLimitContext context = BurstableRateLimitContext.builder()
+				.replenishRate(ContextCodecs.parseLong(fields[2], value))
+				.burstCapacity(ContextCodecs.parseLong(fields[3], value))
+				.build();
+		context.setContextKey(contextKey);
+		context.setEnabled(ContextCodecs.parseFlag(fields[1], value));
+		return context;
+	}
+}
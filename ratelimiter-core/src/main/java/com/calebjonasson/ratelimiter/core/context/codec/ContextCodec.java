@@ -0,0 +1,34 @@
+package com.calebjonasson.ratelimiter.core.context.codec;
+
+import com.calebjonasson.ratelimiter.core.model.context.RateLimitContext;
+
+/**
+ * Converts a context to and from a compact string so it can be stored in a remote store, eg: redis.
+ *
+ * The encoded form starts with a tag that names the type and version of the format so a decoder can reject values it
+ * does not understand instead of misreading them.
+ * @param <CONTEXT> The type of context being converted.
+ */
+public interface ContextCodec<CONTEXT extends RateLimitContext> {
+
+	/**
+	 * The separator between the fields of an encoded context.
+	 */
+	String SEPARATOR = ",";
+
+	/**
+	 * Encode a context. The context key is not part of the value, it is the key the value is stored under.
+	 * @param context The context to encode.
+	 * @return The encoded context.
+	 */
+	String encode(CONTEXT context);
+
+	/**
+	 * Decode a context.
+	 * @param contextKey The key the value was stored under.
+	 * @param value The encoded context.
+	 * @return The decoded context with its context key set.
+	 * @throws IllegalArgumentException thrown if the value is not a context of this codec.
+	 */
+	CONTEXT decode(String contextKey, String value);
+}
@@ -0,0 +1,71 @@
+package com.calebjonasson.ratelimiter.core.context.codec;
+
+/**
+ * Factory class for the {@link ContextCodec}s of the built in contexts and the parsing they share.
+ */
+public class ContextCodecs {
+
+	/**
+	 * @return A codec for burstable contexts.
+	 */
+	public static BurstableContextCodec burstableCodec() {
+		return new BurstableContextCodec();
+	}
+
+	/**
+	 * @return A codec for atomic contexts.
+	 */
+	public static AtomicContextCodec atomicCodec() {
+		return new AtomicContextCodec();
+	}
+
+	/**
+	 * @return A codec for generic cell rate algorithm contexts.
+	 */
+	public static GcraContextCodec gcraCodec() {
+		return new GcraContextCodec();
+	}
+
+	/**
+	 * @return A codec for sliding window contexts.
+	 */
+	public static SlidingWindowContextCodec slidingWindowCodec() {
+		return new SlidingWindowContextCodec();
+	}
+
+	/**
+	 * @return A codec for sliding log contexts.
+	 */
+	public static SlidingLogContextCodec slidingLogCodec() {
+		return new SlidingLogContextCodec();
+	}
+
+	/**
+	 * Split an encoded context into its fields and check its tag.
+	 * @param tag The tag the value must start with.
+	 * @param value The encoded context.
+	 * @param fieldCount The amount of fields including the tag.
+	 * @return The fields of the value.
+	 */
+	static String[] split(String tag, String value, int fieldCount) {
+		String[] fields = value == null ? new String[0] : value.split(ContextCodec.SEPARATOR, -1);
+		if(fields.length != fieldCount || !tag.equals(fields[0])) {
+			throw new IllegalArgumentException("Unable to decode the context '" + value + "', expected the format " + tag + ".");
+		}
+		return fields;
+	}
+
+	static long parseLong(String field, String value) {
+		try {
+			return Long.parseLong(field);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Unable to decode the context '" + value + "'.", e);
+		}
+	}
+
+	static boolean parseFlag(String field, String value) {
+		if("1".equals(field)) return true;
+		if("0".equals(field)) return false;
+		throw new IllegalArgumentException("Unable to decode the context '" + value + "'.");
+	}
+}
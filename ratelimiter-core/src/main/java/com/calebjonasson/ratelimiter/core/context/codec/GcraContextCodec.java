@@ -0,0 +1,36 @@
+package com.calebjonasson.ratelimiter.core.context.codec;
+
+import com.calebjonasson.ratelimiter.core.context.GcraRateLimitContext;
+
+/**
+ * Encodes a {@link GcraRateLimitContext} as {@code G1,<enabled>,<limit>,<interval>,<burstCapacity>}, eg:
+ * {@code G1,1,10,1000,20}.
+ */
+public class GcraContextCodec implements ContextCodec<GcraRateLimitContext> {
+
+	/**
+	 * The tag of the format.
+	 */
+	public static final String TAG = "G1";
+
+	@Override
+	public String encode(GcraRateLimitContext context) {
+		return TAG + SEPARATOR + (context.isEnabled() ? 1 : 0)
+				+ SEPARATOR + context.getLimit()
+				+ SEPARATOR + context.getInterval()
+				+ SEPARATOR + context.getBurstCapacity();
+	}
+
+	@Override
+	public GcraRateLimitContext decode(String contextKey, String value) {
+		String[] fields = ContextCodecs.split(TAG, value, 5);
+		GcraRateLimitContext context = GcraRateLimitContext.builder()
+				.limit(ContextCodecs.parseLong(fields[2], value))
+				.interval(ContextCodecs.parseLong(fields[3], value))
+				.burstCapacity(ContextCodecs.parseLong(fields[4], value))
+				.build();
+		context.setContextKey(contextKey);
+		context.setEnabled(ContextCodecs.parseFlag(fields[1], value));
+		return context;
+	}
+}
@@ -0,0 +1,33 @@
+package com.calebjonasson.ratelimiter.core.context.codec;
+
+import com.calebjonasson.ratelimiter.core.context.SlidingLogRateLimitContext;
+
+/**
+ * Encodes a {@link SlidingLogRateLimitContext} as {@code L1,<enabled>,<limit>,<interval>}, eg: {@code L1,1,100,86400000}.
+ */
+public class SlidingLogContextCodec implements ContextCodec<SlidingLogRateLimitContext> {
+
+	/**
+	 * The tag of the format.
+	 */
+	public static final String TAG = "L1";
+
+	@Override
+	public String encode(SlidingLogRateLimitContext context) {
+		return TAG + SEPARATOR + (context.isEnabled() ? 1 : 0)
+				+ SEPARATOR + context.getLimit()
+				+ SEPARATOR + context.getInterval();
+	}
+
+	@Override
+	public SlidingLogRateLimitContext decode(String contextKey, String value) {
+		String[] fields = ContextCodecs.split(TAG, value, 4);
+		SlidingLogRateLimitContext context = SlidingLogRateLimitContext.builder()
+				.limit(ContextCodecs.parseLong(fields[2], value))
+				.interval(ContextCodecs.parseLong(fields[3], value))
+				.build();
+		context.setContextKey(contextKey);
+		context.setEnabled(ContextCodecs.parseFlag(fields[1], value));
+		return context;
+	}
+}
@@ -0,0 +1,40 @@
+package com.calebjonasson.ratelimiter.core.context.codec;
+
+import com.calebjonasson.ratelimiter.core.context.SlidingWindowRateLimitContext;
+
+/**
+ * Encodes a {@link SlidingWindowRateLimitContext} as {@code S1,<enabled>,<limit>,<interval>,<subWindows>}, eg:
+ * {@code S1,1,100,60000,10}.
+ */
+public class SlidingWindowContextCodec implements ContextCodec<SlidingWindowRateLimitContext> {
+
+	/**
+	 * The tag of the format.
+	 */
+	public static final String TAG = "S1";
+
+	@Override
+	public String encode(SlidingWindowRateLimitContext context) {
+		return TAG + SEPARATOR + (context.isEnabled() ? 1 : 0)
+				+ SEPARATOR + context.getLimit()
+				+ SEPARATOR + context.getInterval()
+				+ SEPARATOR + context.getSubWindows();
+	}
+
+	@Override
+	public SlidingWindowRateLimitContext decode(String contextKey, String value) {
+		String[] fields = ContextCodecs.split(TAG, value, 5);
+		long subWindows = ContextCodecs.parseLong(fields[4], value);
+		if(subWindows < 1 || subWindows > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Unable to decode the context '" + value + "'.");
+		}
+		SlidingWindowRateLimitContext context = SlidingWindowRateLimitContext.builder()
+				.limit(ContextCodecs.parseLong(fields[2], value))
+				.interval(ContextCodecs.parseLong(fields[3], value))
+				.subWindows((int) subWindows)
+				.build();
+		context.setContextKey(contextKey);
+		context.setEnabled(ContextCodecs.parseFlag(fields[1], value));
+		return context;
+	}
+}
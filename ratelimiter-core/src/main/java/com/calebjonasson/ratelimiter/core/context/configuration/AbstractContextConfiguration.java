@@ -1,5 +1,6 @@
 package com.calebjonasson.ratelimiter.core.context.configuration;
 
+import com.calebjonasson.ratelimiter.core.context.cache.CreatedContextCache;
 import com.calebjonasson.ratelimiter.core.type.strategy.RateLimiterTypeStrategy;
 import lombok.Data;
 
@@ -22,4 +23,19 @@ public abstract class AbstractContextConfiguration<
 	 * A switch to turn all rate limiting contexts off.
 	 */
 	protected boolean contextEnabled = true;
+
+	/**
+	 * The maximum amount of created and missing contexts a provider remembers, 0 to create a context on every request.
+	 */
+	protected int createdContextCacheSize = CreatedContextCache.DEFAULT_MAXIMUM_SIZE;
+
+	/**
+	 * The time in millis a created context that is not used is remembered.
+	 */
+	protected long createdContextIdleTimeout = CreatedContextCache.DEFAULT_IDLE_TIMEOUT;
+
+	/**
+	 * The time in millis a context key without a context is remembered when contexts are not created.
+	 */
+	protected long missingContextTtl = CreatedContextCache.DEFAULT_MISSING_TTL;
 }
\ No newline at end of file
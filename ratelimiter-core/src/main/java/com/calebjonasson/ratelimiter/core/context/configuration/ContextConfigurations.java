@@ -53,4 +53,72 @@ public class ContextConfigurations {
 		return new AtomicContextConfiguration(limit, interval, createContextIfMissing);
 	}
 
+	/**
+	 * Create a custom generic cell rate algorithm configuration
+	 * @param limit The amount of permits emitted over the interval.
+	 * @param interval The interval in milliseconds the limit is emitted over.
+	 * @param burstCapacity The amount of permits that can be taken at once.
+	 * @return A new {@link GcraContextConfiguration}
+	 */
+	public static GcraContextConfiguration gcraConfiguration(long limit, long interval, long burstCapacity) {
+		return new GcraContextConfiguration(limit, interval, burstCapacity);
+	}
+
+	/**
+	 * Create a custom generic cell rate algorithm configuration
+	 * @param limit The amount of permits emitted over the interval.
+	 * @param interval The interval in milliseconds the limit is emitted over.
+	 * @param burstCapacity The amount of permits that can be taken at once.
+	 * @param createContextIfMissing A rule to override the default createContextIfMissing value.
+	 * @return A new {@link GcraContextConfiguration}
+	 */
+	public static GcraContextConfiguration gcraConfiguration(long limit, long interval, long burstCapacity, boolean createContextIfMissing) {
+		return new GcraContextConfiguration(limit, interval, burstCapacity, createContextIfMissing);
+	}
+
+	/**
+	 * Create a custom sliding window configuration
+	 * @param limit The limit of requests we want to support in any window of the interval.
+	 * @param interval The length of the window in milliseconds.
+	 * @param subWindows The amount of counters the window is divided into.
+	 * @return A new {@link SlidingWindowContextConfiguration}
+	 */
+	public static SlidingWindowContextConfiguration slidingWindowConfiguration(long limit, long interval, int subWindows) {
+		return new SlidingWindowContextConfiguration(limit, interval, subWindows);
+	}
+
+	/**
+	 * Create a custom sliding window configuration
+	 * @param limit The limit of requests we want to support in any window of the interval.
+	 * @param interval The length of the window in milliseconds.
+	 * @param subWindows The amount of counters the window is divided into.
+	 * @param createContextIfMissing A rule to override the default createContextIfMissing value.
+	 * @return A new {@link SlidingWindowContextConfiguration}
+	 */
+	public static SlidingWindowContextConfiguration slidingWindowConfiguration(long limit, long interval, int subWindows,
+			boolean createContextIfMissing) {
+		return new SlidingWindowContextConfiguration(limit, interval, subWindows, createContextIfMissing);
+	}
+
+	/**
+	 * Create a custom sliding log configuration
+	 * @param limit The limit of requests we want to support in any window of the interval.
+	 * @param interval The length of the window in milliseconds.
+	 * @return A new {@link SlidingLogContextConfiguration}
+	 */
+	public static SlidingLogContextConfiguration slidingLogConfiguration(long limit, long interval) {
+		return new SlidingLogContextConfiguration(limit, interval);
+	}
+
+	/**
+	 * Create a custom sliding log configuration
+	 * @param limit The limit of requests we want to support in any window of the interval.
+	 * @param interval The length of the window in milliseconds.
+	 * @param createContextIfMissing A rule to override the default createContextIfMissing value.
+	 * @return A new {@link SlidingLogContextConfiguration}
+	 */
+	public static SlidingLogContextConfiguration slidingLogConfiguration(long limit, long interval, boolean createContextIfMissing) {
+		return new SlidingLogContextConfiguration(limit, interval, createContextIfMissing);
+	}
+
 }
\ No newline at end of file
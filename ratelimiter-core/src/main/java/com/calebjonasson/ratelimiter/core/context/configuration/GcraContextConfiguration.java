@@ -0,0 +1,56 @@
+package com.calebjonasson.ratelimiter.core.context.configuration;
+
+import com.calebjonasson.ratelimiter.core.common.model.IntervalMemberContainer;
+import com.calebjonasson.ratelimiter.core.common.model.LimitMemberContainer;
+import com.calebjonasson.ratelimiter.core.type.strategy.GcraRateLimiterTypeStrategy;
+import lombok.Data;
+
+/**
+ * Configurations for generic cell rate algorithm contexts.
+ */
+@Data
+public class GcraContextConfiguration
+		extends AbstractContextConfiguration<GcraRateLimiterTypeStrategy>
+		implements IntervalMemberContainer, LimitMemberContainer {
+
+	/**
+	 * The amount of permits emitted over the interval.
+	 */
+	protected long limit;
+
+	/**
+	 * The amount of time in miliseconds over which the limit is emitted.
+	 */
+	protected long interval;
+
+	/**
+	 * The amount of permits that can be taken at once.
+	 */
+	protected long burstCapacity;
+
+	/**
+	 *
+	 * @param limit The amount of permits emitted per interval duration.
+	 * @param interval The amount of time in milliseconds.
+	 * @param burstCapacity The amount of permits that can be taken at once.
+	 */
+	public GcraContextConfiguration(long limit, long interval, long burstCapacity) {
+		this.limit = limit;
+		this.interval = interval;
+		this.burstCapacity = burstCapacity;
+	}
+
+	/**
+	 *
+	 * @param limit The amount of permits emitted per interval duration.
+	 * @param interval The amount of time in milliseconds.
+	 * @param burstCapacity The amount of permits that can be taken at once.
+	 * @param createContextIfMissing A rule to override the default createContextIfMissing value.
+	 */
+	public GcraContextConfiguration(long limit, long interval, long burstCapacity, boolean createContextIfMissing) {
+		this.limit = limit;
+		this.interval = interval;
+		this.burstCapacity = burstCapacity;
+		this.createContextIfMissing = createContextIfMissing;
+	}
+}
@@ -0,0 +1,47 @@
+package com.calebjonasson.ratelimiter.core.context.configuration;
+
+import com.calebjonasson.ratelimiter.core.common.model.IntervalMemberContainer;
+import com.calebjonasson.ratelimiter.core.common.model.LimitMemberContainer;
+import com.calebjonasson.ratelimiter.core.type.strategy.SlidingLogRateLimiterTypeStrategy;
+import lombok.Data;
+
+/**
+ * Configurations for sliding log contexts.
+ */
+@Data
+public class SlidingLogContextConfiguration
+		extends AbstractContextConfiguration<SlidingLogRateLimiterTypeStrategy>
+		implements IntervalMemberContainer, LimitMemberContainer {
+
+	/**
+	 * The limit of requests to be made within any window of the interval.
+	 */
+	protected long limit;
+
+	/**
+	 * The length of the window in miliseconds.
+	 */
+	protected long interval;
+
+	/**
+	 *
+	 * @param limit The amount of requests per interval duration.
+	 * @param interval The amount of time in milliseconds.
+	 */
+	public SlidingLogContextConfiguration(long limit, long interval) {
+		this.limit = limit;
+		this.interval = interval;
+	}
+
+	/**
+	 *
+	 * @param limit The amount of requests per interval duration.
+	 * @param interval The amount of time in milliseconds.
+	 * @param createContextIfMissing A rule to override the default createContextIfMissing value.
+	 */
+	public SlidingLogContextConfiguration(long limit, long interval, boolean createContextIfMissing) {
+		this.limit = limit;
+		this.interval = interval;
+		this.createContextIfMissing = createContextIfMissing;
+	}
+}
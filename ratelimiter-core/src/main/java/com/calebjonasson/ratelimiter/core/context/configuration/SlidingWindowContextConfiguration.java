@@ -0,0 +1,56 @@
+package com.calebjonasson.ratelimiter.core.context.configuration;
+
+import com.calebjonasson.ratelimiter.core.common.model.IntervalMemberContainer;
+import com.calebjonasson.ratelimiter.core.common.model.LimitMemberContainer;
+import com.calebjonasson.ratelimiter.core.type.strategy.SlidingWindowRateLimiterTypeStrategy;
+import lombok.Data;
+
+/**
+ * Configurations for sliding window contexts.
+ */
+@Data
+public class SlidingWindowContextConfiguration
+		extends AbstractContextConfiguration<SlidingWindowRateLimiterTypeStrategy>
+		implements IntervalMemberContainer, LimitMemberContainer {
+
+	/**
+	 * The limit of requests to be made within any window of the interval.
+	 */
+	protected long limit;
+
+	/**
+	 * The length of the window in miliseconds.
+	 */
+	protected long interval;
+
+	/**
+	 * The amount of counters the window is divided into.
+	 */
+	protected int subWindows;
+
+	/**
+	 *
+	 * @param limit The amount of requests per interval duration.
+	 * @param interval The amount of time in milliseconds.
+	 * @param subWindows The amount of counters the window is divided into.
+	 */
+	public SlidingWindowContextConfiguration(long limit, long interval, int subWindows) {
+		this.limit = limit;
+		this.interval = interval;
+		this.subWindows = subWindows;
+	}
+
+	/**
+	 *
+	 * @param limit The amount of requests per interval duration.
+	 * @param interval The amount of time in milliseconds.
+	 * @param subWindows The amount of counters the window is divided into.
+	 * @param createContextIfMissing A rule to override the default createContextIfMissing value.
+	 */
+	public SlidingWindowContextConfiguration(long limit, long interval, int subWindows, boolean createContextIfMissing) {
+		this.limit = limit;
+		this.interval = interval;
+		this.subWindows = subWindows;
+		this.createContextIfMissing = createContextIfMissing;
+	}
+}
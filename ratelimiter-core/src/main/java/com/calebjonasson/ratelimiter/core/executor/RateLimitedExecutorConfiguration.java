@@ -0,0 +1,36 @@
+package com.calebjonasson.ratelimiter.core.executor;
+
+import lombok.Data;
+
+/**
+ * Configuration for a {@link RateLimitedExecutorService}.
+ */
+@Data
+public class RateLimitedExecutorConfiguration {
+
+	/**
+	 * The default most tasks waiting in the queue of a single state key.
+	 */
+	public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+	/**
+	 * The default time in millis to wait before trying again when the limiter does not know when the permits will be
+	 * available, eg: the context is disabled or could not be loaded.
+	 */
+	public static final long DEFAULT_RETRY_DELAY = 1000;
+
+	/**
+	 * The most tasks waiting in the queue of a single state key. Tasks submitted to a full queue are rejected.
+	 */
+	protected int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+
+	/**
+	 * What is done with the tasks that are rejected.
+	 */
+	protected RejectionPolicy rejectionPolicy = RejectionPolicy.ABORT;
+
+	/**
+	 * The time in millis to wait before trying again when the limiter does not know when the permits will be available.
+	 */
+	protected long retryDelay = DEFAULT_RETRY_DELAY;
+}
@@ -0,0 +1,489 @@
+package com.calebjonasson.ratelimiter.core.executor;
+
+import com.calebjonasson.ratelimiter.core.common.exception.RateLimitContextNotFoundException;
+import com.calebjonasson.ratelimiter.core.common.exception.RateLimitException;
+import com.calebjonasson.ratelimiter.core.common.exception.RateLimitExceededException;
+import com.calebjonasson.ratelimiter.core.limiter.ReservingRateLimiter;
+import com.calebjonasson.ratelimiter.core.request.ContextStateRateLimitRequest;
+import com.calebjonasson.ratelimiter.core.response.RateLimitDecision;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An {@link ExecutorService} that queues the submitted tasks and hands them to a delegate executor at the rate a
+ * {@link ReservingRateLimiter} admits them, a permit per task, eg: to pace calls to a partner api without retry loops.
+ *
+ * Tasks are queued per state key under a single context, so a key that is out of permits only holds back its own
+ * tasks. Each key has at most one reservation in flight: the permit of the oldest task is reserved and the task is
+ * handed to the delegate when the reservation is due, then the permit of the next task is reserved. The waits are timed
+ * by a single scheduler thread, no thread sleeps per task, and the tasks run on the delegate, which can be a virtual
+ * thread per task executor. The first reservation of an idle key is made on the submitting thread and the following
+ * ones on the scheduler thread, so a limiter backed by a remote store should answer reservations quickly.
+ *
+ * The queue of each key is bounded, see {@link RateLimitedExecutorConfiguration#queueCapacity}, and tasks that do
+ * not fit are handled by the {@link RejectionPolicy}. When the limiter cannot be reached, or denies a task without
+ * saying when to retry, the key is tried again after {@link RateLimitedExecutorConfiguration#retryDelay} millis. A task
+ * that can never be admitted, eg: its context is missing or disabled, is dropped instead of being retried forever and
+ * its {@link Future}, if it was submitted, completes with the reason. So does the future of a task the delegate
+ * rejects.
+ *
+ * Shutting down stops new tasks from being accepted, releases the queued tasks at the same rate and then shuts the
+ * delegate down.
+ */
+public class RateLimitedExecutorService extends AbstractExecutorService {
+
+	/**
+	 * The limiter the permits of the tasks are reserved from.
+	 */
+	private final ReservingRateLimiter rateLimiter;
+
+	/**
+	 * The context the permits are reserved under.
+	 */
+	private final String contextKey;
+
+	/**
+	 * The state key of the tasks submitted without one.
+	 */
+	private final String stateKey;
+
+	/**
+	 * The executor the tasks run on once they are released.
+	 */
+	private final ExecutorService delegate;
+
+	/**
+	 * The scheduler that times the release of reserved tasks.
+	 */
+	private final ScheduledExecutorService scheduler;
+
+	/**
+	 * true if the scheduler was created by this executor and is shut down with it.
+	 */
+	private final boolean ownsScheduler;
+
+	/**
+	 * The configuration of the queues.
+	 */
+	private final RateLimitedExecutorConfiguration configuration;
+
+	/**
+	 * The queue of each state key that has tasks waiting.
+	 */
+	private final ConcurrentMap<String, KeyQueue> queues = new ConcurrentHashMap<>();
+
+	/**
+	 * The amount of tasks accepted and not yet handed to the delegate.
+	 */
+	private final AtomicLong queued = new AtomicLong();
+
+	/**
+	 * Set once the delegate has been shut down.
+	 */
+	private final AtomicBoolean terminating = new AtomicBoolean();
+
+	/**
+	 * Released once every queued task has been handed to the delegate after shutdown.
+	 */
+	private final CountDownLatch drained = new CountDownLatch(1);
+
+	/**
+	 * Set once no more tasks are accepted.
+	 */
+	private volatile boolean shutdown;
+
+	/**
+	 * Create a new rate limited executor that times its releases on its own daemon thread.
+	 * @param rateLimiter The limiter the permits of the tasks are reserved from.
+	 * @param contextKey The context the permits are reserved under.
+	 * @param stateKey The state key of the tasks submitted without one.
+	 * @param delegate The executor the tasks run on once they are released, shut down with this executor.
+	 * @param configuration The configuration of the queues.
+	 */
+	public RateLimitedExecutorService(final ReservingRateLimiter rateLimiter,
+			final String contextKey,
+			final String stateKey,
+			final ExecutorService delegate,
+			final RateLimitedExecutorConfiguration configuration) {
+		this(rateLimiter, contextKey, stateKey, delegate, Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "ratelimiter-executor-scheduler");
+			thread.setDaemon(true);
+			return thread;
+		}), true, configuration);
+	}
+
+	/**
+	 * Create a new rate limited executor.
+	 * @param rateLimiter The limiter the permits of the tasks are reserved from.
+	 * @param contextKey The context the permits are reserved under.
+	 * @param stateKey The state key of the tasks submitted without one.
+	 * @param delegate The executor the tasks run on once they are released, shut down with this executor.
+	 * @param scheduler The scheduler that times the release of reserved tasks, it is not shut down with this executor.
+	 * @param configuration The configuration of the queues.
+	 */
+	public RateLimitedExecutorService(final ReservingRateLimiter rateLimiter,
+			final String contextKey,
+			final String stateKey,
+			final ExecutorService delegate,
+			final ScheduledExecutorService scheduler,
+			final RateLimitedExecutorConfiguration configuration) {
+		this(rateLimiter, contextKey, stateKey, delegate, scheduler, false, configuration);
+	}
+
+	private RateLimitedExecutorService(final ReservingRateLimiter rateLimiter,
+			final String contextKey,
+			final String stateKey,
+			final ExecutorService delegate,
+			final ScheduledExecutorService scheduler,
+			final boolean ownsScheduler,
+			final RateLimitedExecutorConfiguration configuration) {
+		this.rateLimiter = rateLimiter;
+		this.contextKey = contextKey;
+		this.stateKey = stateKey;
+		this.delegate = delegate;
+		this.scheduler = scheduler;
+		this.ownsScheduler = ownsScheduler;
+		this.configuration = configuration;
+	}
+
+	/**
+	 * Queue a task under the default state key.
+	 * @param task The task to run once a permit is available.
+	 * @throws RejectedExecutionException thrown if the task is rejected under {@link RejectionPolicy#ABORT}.
+	 */
+	@Override
+	public void execute(Runnable task) {
+		this.execute(this.stateKey, task);
+	}
+
+	/**
+	 * Queue a task under a state key.
+	 * @param stateKey The state key the permit of the task is reserved under.
+	 * @param task The task to run once a permit is available.
+	 * @throws RejectedExecutionException thrown if the task is rejected under {@link RejectionPolicy#ABORT}.
+	 */
+	public void execute(String stateKey, Runnable task) {
+		Objects.requireNonNull(task);
+		KeyQueue queue;
+		while(true) {
+			queue = this.queues.computeIfAbsent(stateKey, key -> new KeyQueue(ContextStateRateLimitRequest.of(this.contextKey, key)));
+			synchronized(queue) {
+				if(queue.closed) {
+					// The queue emptied and was removed after it was looked up.
+					continue;
+				}
+
+				// Counted before checking for shutdown so a shutdown never terminates while a task is being added.
+				this.queued.incrementAndGet();
+				if(this.shutdown) {
+					this.queued.decrementAndGet();
+					this.tryTerminate();
+					this.reject(task, "the executor has been shut down");
+					return;
+				}
+				if(queue.tasks.size() >= this.configuration.getQueueCapacity()) {
+					if(this.configuration.getRejectionPolicy() != RejectionPolicy.DISCARD_OLDEST || queue.tasks.isEmpty()) {
+						this.queued.decrementAndGet();
+						this.reject(task, "the queue of " + stateKey + " is full");
+						return;
+					}
+					queue.tasks.poll();
+					this.queued.decrementAndGet();
+				}
+
+				queue.tasks.add(task);
+				if(queue.releasing) {
+					return;
+				}
+				queue.releasing = true;
+				break;
+			}
+		}
+		this.release(queue);
+	}
+
+	/**
+	 * Queue a task under a state key.
+	 * @param stateKey The state key the permit of the task is reserved under.
+	 * @param task The task to run once a permit is available.
+	 * @param <T> The type of the result of the task.
+	 * @return A {@link Future} completed with the result of the task.
+	 */
+	public <T> Future<T> submit(String stateKey, Callable<T> task) {
+		RunnableFuture<T> future = this.newTaskFor(task);
+		this.execute(stateKey, future);
+		return future;
+	}
+
+	/**
+	 * Queue a task under a state key.
+	 * @param stateKey The state key the permit of the task is reserved under.
+	 * @param task The task to run once a permit is available.
+	 * @return A {@link Future} completed once the task has run.
+	 */
+	public Future<?> submit(String stateKey, Runnable task) {
+		RunnableFuture<Void> future = this.newTaskFor(task, null);
+		this.execute(stateKey, future);
+		return future;
+	}
+
+	/**
+	 * Reserve the permit of the oldest task of a queue and release it when it is due, until the queue is empty or has to
+	 * wait. Only one release runs per queue at a time, guarded by {@link KeyQueue#releasing}.
+	 * @param queue The queue to release.
+	 */
+	private void release(KeyQueue queue) {
+		while(true) {
+			synchronized(queue) {
+				if(queue.tasks.isEmpty()) {
+					queue.releasing = false;
+					queue.closed = true;
+					this.queues.remove(queue.request.getStateKey(), queue);
+					return;
+				}
+			}
+
+			RateLimitDecision decision;
+			try {
+				decision = this.rateLimiter.reserve(queue.request, Long.MAX_VALUE, queue.decision);
+			} catch (RateLimitContextNotFoundException e) {
+				this.failOldest(queue, e);
+				continue;
+			} catch (RateLimitException | RuntimeException e) {
+				this.schedule(() -> this.release(queue), TimeUnit.MILLISECONDS.toNanos(this.configuration.getRetryDelay()));
+				return;
+			}
+
+			if(!decision.isAllowed()) {
+				long retryAfter = decision.getRetryAfterMillis();
+				if(retryAfter == RateLimitDecision.RETRY_AFTER_NEVER
+						|| (decision.getContext() != null && !decision.getContext().isEnabled())) {
+					// Retrying would hold the queue, and a shutdown, forever.
+					this.failOldest(queue, new RateLimitExceededException(decision.getContext(), decision.getState()));
+					continue;
+				}
+				if(retryAfter <= 0) {
+					retryAfter = this.configuration.getRetryDelay();
+				}
+				this.schedule(() -> this.release(queue), TimeUnit.MILLISECONDS.toNanos(retryAfter));
+				return;
+			}
+			if(decision.getWaitNanos() > 0) {
+				this.schedule(() -> {
+					this.dispatch(queue);
+					this.release(queue);
+				}, decision.getWaitNanos());
+				return;
+			}
+			this.dispatch(queue);
+		}
+	}
+
+	/**
+	 * Hand the oldest task of a queue to the delegate, its permit has been reserved.
+	 * @param queue The queue to take the task from.
+	 */
+	private void dispatch(KeyQueue queue) {
+		Runnable task;
+		synchronized(queue) {
+			task = queue.tasks.poll();
+		}
+		if(task == null) {
+			// The queue was drained by shutdownNow while the permit was reserved.
+			return;
+		}
+
+		try {
+			this.delegate.execute(task);
+		} catch (RejectedExecutionException e) {
+			// The delegate was shut down by its owner, there is nowhere left to run the task.
+			fail(task, e);
+		} finally {
+			if(this.queued.decrementAndGet() == 0) {
+				this.tryTerminate();
+			}
+		}
+	}
+
+	/**
+	 * Drop the oldest task of a queue that can never be admitted.
+	 * @param queue The queue to take the task from.
+	 * @param cause Why the task is dropped, the future of the task completes with it.
+	 */
+	private void failOldest(KeyQueue queue, Throwable cause) {
+		Runnable task;
+		synchronized(queue) {
+			task = queue.tasks.poll();
+		}
+		if(task == null) {
+			return;
+		}
+
+		fail(task, cause);
+		if(this.queued.decrementAndGet() == 0) {
+			this.tryTerminate();
+		}
+	}
+
+	/**
+	 * Complete the future of a task that will never run. A future that was not created by this executor is cancelled,
+	 * a plain task has no one to tell.
+	 * @param task The task that will never run.
+	 * @param cause Why the task will never run.
+	 */
+	private static void fail(Runnable task, Throwable cause) {
+		if(task instanceof RateLimitedTask) {
+			((RateLimitedTask<?>) task).fail(cause);
+		} else if(task instanceof Future) {
+			((Future<?>) task).cancel(false);
+		}
+	}
+
+	private void schedule(Runnable command, long delayNanos) {
+		try {
+			this.scheduler.schedule(command, delayNanos, TimeUnit.NANOSECONDS);
+		} catch (RejectedExecutionException e) {
+			// The scheduler has been shut down, the executor is terminating.
+		}
+	}
+
+	private void reject(Runnable task, String reason) {
+		if(this.configuration.getRejectionPolicy() == RejectionPolicy.ABORT) {
+			throw new RejectedExecutionException("Task " + task + " rejected, " + reason + ".");
+		}
+	}
+
+	/**
+	 * Shut the delegate down once the executor is shut down and every queued task has been handed over.
+	 */
+	private void tryTerminate() {
+		if(this.shutdown && this.queued.get() == 0 && this.terminating.compareAndSet(false, true)) {
+			this.delegate.shutdown();
+			if(this.ownsScheduler) {
+				this.scheduler.shutdownNow();
+			}
+			this.drained.countDown();
+		}
+	}
+
+	/**
+	 * @return The amount of tasks waiting for a permit.
+	 */
+	public long getQueuedTasks() {
+		return this.queued.get();
+	}
+
+	@Override
+	protected <T> RunnableFuture<T> newTaskFor(Callable<T> callable) {
+		return new RateLimitedTask<>(callable);
+	}
+
+	@Override
+	protected <T> RunnableFuture<T> newTaskFor(Runnable runnable, T value) {
+		return new RateLimitedTask<>(runnable, value);
+	}
+
+	@Override
+	public void shutdown() {
+		this.shutdown = true;
+		this.tryTerminate();
+	}
+
+	@Override
+	public List<Runnable> shutdownNow() {
+		this.shutdown = true;
+		List<Runnable> tasks = new ArrayList<>();
+		for(KeyQueue queue : this.queues.values()) {
+			synchronized(queue) {
+				tasks.addAll(queue.tasks);
+				this.queued.addAndGet(-queue.tasks.size());
+				queue.tasks.clear();
+			}
+		}
+		this.tryTerminate();
+		tasks.addAll(this.delegate.shutdownNow());
+		return tasks;
+	}
+
+	@Override
+	public boolean isShutdown() {
+		return this.shutdown;
+	}
+
+	@Override
+	public boolean isTerminated() {
+		return this.drained.getCount() == 0 && this.delegate.isTerminated();
+	}
+
+	@Override
+	public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		if(!this.drained.await(timeout, unit)) {
+			return false;
+		}
+		return this.delegate.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * A submitted task whose future can be completed with an exception when the task will never run.
+	 */
+	private static class RateLimitedTask<T> extends FutureTask<T> {
+
+		RateLimitedTask(Callable<T> callable) {
+			super(callable);
+		}
+
+		RateLimitedTask(Runnable runnable, T value) {
+			super(runnable, value);
+		}
+
+		void fail(Throwable cause) {
+			this.setException(cause);
+		}
+	}
+
+	/**
+	 * The tasks of a single state key. The tasks and flags are guarded by the monitor of the queue, the request and
+	 * decision are only used by the release that holds {@link #releasing}.
+	 */
+	private static class KeyQueue {
+
+		final ContextStateRateLimitRequest request;
+
+		final RateLimitDecision decision = new RateLimitDecision();
+
+		final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+
+		/**
+		 * Set while a release of the queue is running or scheduled.
+		 */
+		boolean releasing;
+
+		/**
+		 * Set once the queue has emptied and been removed, tasks are added to a new queue instead.
+		 */
+		boolean closed;
+
+		KeyQueue(ContextStateRateLimitRequest request) {
+			this.request = request;
+		}
+	}
+}
@@ -0,0 +1,22 @@
+package com.calebjonasson.ratelimiter.core.executor;
+
+/**
+ * What a {@link RateLimitedExecutorService} does with a task submitted to a full queue or after it has been shut down.
+ */
+public enum RejectionPolicy {
+
+	/**
+	 * Throw a {@link java.util.concurrent.RejectedExecutionException} to the caller.
+	 */
+	ABORT,
+
+	/**
+	 * Silently drop the submitted task.
+	 */
+	DISCARD,
+
+	/**
+	 * Drop the oldest task of the queue to make room for the submitted task. A task submitted after shutdown is dropped.
+	 */
+	DISCARD_OLDEST
+}
@@ -0,0 +1,64 @@
+package com.calebjonasson.ratelimiter.core.lease;
+
+import lombok.Data;
+
+/**
+ * Configuration for a {@link TokenLeaseCache}.
+ *
+ * The size of a lease follows the request rate of its state: it is sized to cover {@link #leaseTarget} millis of the
+ * traffic observed since the previous lease, within the minimum and maximum lease size.
+ */
+@Data
+public class LeaseConfiguration {
+
+	/**
+	 * The default smallest amount of tokens leased at once.
+	 */
+	public static final long DEFAULT_MIN_LEASE_SIZE = 1;
+
+	/**
+	 * The default largest amount of tokens a lease holds.
+	 */
+	public static final long DEFAULT_MAX_LEASE_SIZE = 64;
+
+	/**
+	 * The default time in millis of traffic a lease is sized to cover.
+	 */
+	public static final long DEFAULT_LEASE_TARGET = 100;
+
+	/**
+	 * The default time in millis leased tokens can be used for.
+	 */
+	public static final long DEFAULT_LEASE_TTL = 1000;
+
+	/**
+	 * The default share of a lease that is left when it is renewed in the background.
+	 */
+	public static final double DEFAULT_RENEW_THRESHOLD = 0.25;
+
+	/**
+	 * The smallest amount of tokens leased at once.
+	 */
+	protected long minLeaseSize = DEFAULT_MIN_LEASE_SIZE;
+
+	/**
+	 * The largest amount of tokens a lease holds. A node never holds more unexpired tokens of a state than this, or than
+	 * the permits of a single request when those are larger.
+	 */
+	protected long maxLeaseSize = DEFAULT_MAX_LEASE_SIZE;
+
+	/**
+	 * The time in millis of traffic a lease is sized to cover.
+	 */
+	protected long leaseTarget = DEFAULT_LEASE_TARGET;
+
+	/**
+	 * The time in millis leased tokens can be used for. Tokens that are not used in time are dropped.
+	 */
+	protected long leaseTtl = DEFAULT_LEASE_TTL;
+
+	/**
+	 * The share of a lease that is left when it is renewed in the background.
+	 */
+	protected double renewThreshold = DEFAULT_RENEW_THRESHOLD;
+}
@@ -0,0 +1,21 @@
+package com.calebjonasson.ratelimiter.core.lease;
+
+import lombok.Data;
+
+/**
+ * The tokens handed out by a {@link TokenLeaseSource}.
+ */
+@Data
+public class LeaseGrant {
+
+	/**
+	 * The amount of tokens granted, 0 if fewer than the minimum were available.
+	 */
+	private final long granted;
+
+	/**
+	 * The time in millis until the minimum would be available if none were granted, or one of the retry after
+	 * constants of the {@link com.calebjonasson.ratelimiter.core.response.RateLimitDecision}.
+	 */
+	private final long retryAfterMillis;
+}
@@ -0,0 +1,348 @@
+package com.calebjonasson.ratelimiter.core.lease;
+
+import com.calebjonasson.ratelimiter.core.common.exception.RateLimitException;
+import com.calebjonasson.ratelimiter.core.model.context.AbstractRateLimitContext;
+import com.calebjonasson.ratelimiter.core.response.RateLimitDecision;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serves requests from chunks of tokens leased from a shared bucket so most requests are decided in memory instead of
+ * with a round trip to the bucket.
+ *
+ * Each state holds a local lease. A request takes its permits from the lease and when the lease runs below the renew
+ * threshold a new chunk is leased in the background. A request that does not fit the lease waits for a new chunk. The
+ * size of a chunk follows the request rate of the state, see {@link LeaseConfiguration}.
+ *
+ * Error bound: leased tokens are removed from the shared bucket when they are leased, so a cluster never admits more
+ * requests than the shared bucket handed out. What leasing changes is when those tokens are spent. Over any interval
+ * the cluster admits at most what the shared bucket allows in that interval plus the unexpired tokens held by the nodes
+ * when it started, which is at most nodes * max(maxLeaseSize, permits of a request) per state. Tokens that expire before
+ * they are used are dropped and only ever make the limiter stricter.
+ *
+ * Whenever a lease is created for a new state a few leases are looked at from a cursor that moves around the cache and
+ * the idle ones are dropped, so the cache does not grow with every state ever seen without a scheduled
+ * {@link #pruneExpiredLeases()}.
+ * @param <CONTEXT> The context that holds the limits of the shared bucket.
+ */
+public class TokenLeaseCache<CONTEXT extends AbstractRateLimitContext> {
+
+	/**
+	 * The amount of leases looked at for idle ones whenever a lease is created.
+	 */
+	private static final int SWEEP_SAMPLE = 4;
+
+	/**
+	 * The source the tokens are leased from.
+	 */
+	private final TokenLeaseSource<CONTEXT> source;
+
+	/**
+	 * The size, renewal and expiry rules of the leases.
+	 */
+	private final LeaseConfiguration configuration;
+
+	/**
+	 * The leases by state.
+	 */
+	private final Map<String, Lease> leases = new ConcurrentHashMap<>();
+
+	/**
+	 * The amount of leases requested from the source.
+	 */
+	private final AtomicLong renewals = new AtomicLong();
+
+	/**
+	 * The position of the last sweep. Weakly consistent so it stays valid while the map is being modified.
+	 */
+	private Iterator<Map.Entry<String, Lease>> cursor;
+
+	/**
+	 * Create a new lease cache.
+	 * @param source The source the tokens are leased from.
+	 * @param configuration The size, renewal and expiry rules of the leases.
+	 */
+	public TokenLeaseCache(final TokenLeaseSource<CONTEXT> source, final LeaseConfiguration configuration) {
+		if(configuration.getMinLeaseSize() < 1 || configuration.getMaxLeaseSize() < configuration.getMinLeaseSize()) {
+			throw new IllegalArgumentException("The lease sizes must be greater than 0 and the minimum cannot exceed the maximum.");
+		}
+		if(configuration.getLeaseTtl() < 1) {
+			throw new IllegalArgumentException("The lease ttl must be greater than 0.");
+		}
+		this.source = source;
+		this.configuration = configuration;
+	}
+
+	/**
+	 * Attempt to acquire a number of permits from the lease of a state.
+	 * @param context The context that holds the limits of the shared bucket.
+	 * @param stateKey The state we are grouping requests under.
+	 * @param permits The amount of permits to acquire, must be greater than 0.
+	 * @param decision The decision to fill. The state of the decision is left empty.
+	 * @return The passed in decision. The remaining capacity is what is left of the local lease.
+	 * @throws RateLimitException thrown if the tokens could not be leased.
+	 */
+	public RateLimitDecision tryAcquire(CONTEXT context, String stateKey, long permits, RateLimitDecision decision)
+			throws RateLimitException {
+		String key = key(context.getContextKey(), stateKey);
+		Lease lease = this.leases.get(key);
+		if(lease == null) {
+			lease = this.leases.computeIfAbsent(key, created -> new Lease(this.configuration.getMinLeaseSize()));
+			this.sweepIdleLeases(key);
+		}
+
+		long retryAfter = RateLimitDecision.RETRY_AFTER_UNKNOWN;
+		// A second attempt covers a renewal that was started by another request or drained by concurrent requests.
+		for(int attempt = 0; attempt < 2; attempt++) {
+			long remaining = lease.take(permits, System.nanoTime());
+			if(remaining >= 0) {
+				if(remaining <= lease.size * this.configuration.getRenewThreshold()) {
+					// Renew in the background, a failure only means the next request waits for a lease.
+					this.renew(lease, context, stateKey, 1);
+				}
+				return decision.allow(null, remaining);
+			}
+
+			LeaseGrant grant;
+			try {
+				grant = this.renew(lease, context, stateKey, permits).join();
+			} catch (CompletionException e) {
+				throw new RateLimitException("An error occurred during rate limiting.", e.getCause());
+			}
+			if(grant.getGranted() == 0) {
+				retryAfter = grant.getRetryAfterMillis();
+				break;
+			}
+		}
+		return decision.deny(null, retryAfter);
+	}
+
+	/**
+	 * Remove the leases that have expired and are not being renewed.
+	 */
+	public void pruneExpiredLeases() {
+		long now = System.nanoTime();
+		this.leases.values().removeIf(lease -> lease.isIdle(now));
+	}
+
+	/**
+	 * @return The amount of leases held.
+	 */
+	public int size() {
+		return this.leases.size();
+	}
+
+	/**
+	 * @param contextKey The context key of the state.
+	 * @param stateKey The state key of the state.
+	 * @return The unexpired tokens held by the lease of a state.
+	 */
+	public long getLeasedTokens(String contextKey, String stateKey) {
+		Lease lease = this.leases.get(key(contextKey, stateKey));
+		return lease == null || lease.isExpired(System.nanoTime()) ? 0 : lease.tokens.get();
+	}
+
+	/**
+	 * @param contextKey The context key of the state.
+	 * @param stateKey The state key of the state.
+	 * @return The amount of tokens the next lease of a state is sized to.
+	 */
+	public long getLeaseSize(String contextKey, String stateKey) {
+		Lease lease = this.leases.get(key(contextKey, stateKey));
+		return lease == null ? this.configuration.getMinLeaseSize() : lease.size;
+	}
+
+	/**
+	 * @return The amount of leases requested from the source.
+	 */
+	public long getRenewals() {
+		return this.renewals.get();
+	}
+
+	/**
+	 * @return The size, renewal and expiry rules of the leases.
+	 */
+	public LeaseConfiguration getConfiguration() {
+		return this.configuration;
+	}
+
+	/**
+	 * Lease a new chunk of tokens or join the lease that is already in flight.
+	 * @param lease The lease to renew.
+	 * @param context The context that holds the limits of the shared bucket.
+	 * @param stateKey The state the bucket is stored under.
+	 * @param permits The permits of the request that has to be served from the new chunk.
+	 * @return A future completed with the grant once the tokens are added to the lease.
+	 */
+	private CompletableFuture<LeaseGrant> renew(Lease lease, CONTEXT context, String stateKey, long permits) {
+		long minimum;
+		long requested;
+		CompletableFuture<LeaseGrant> pending;
+		synchronized (lease) {
+			if(lease.pending != null) {
+				return lease.pending;
+			}
+
+			long now = System.nanoTime();
+			if(lease.isExpired(now)) {
+				lease.tokens.set(0);
+			}
+			lease.resize(now, this.configuration);
+
+			// Top the lease up to its size so a node never holds more than a lease worth of tokens.
+			long current = Math.max(0, lease.tokens.get());
+			long topUp = Math.max(lease.size, permits) - current;
+			if(permits <= current && topUp < 1) {
+				// The lease is full, eg: it was just renewed.
+				return CompletableFuture.completedFuture(new LeaseGrant(0, RateLimitDecision.RETRY_AFTER_UNKNOWN));
+			}
+			minimum = Math.max(1, permits - current);
+			requested = Math.max(minimum, topUp);
+
+			pending = new CompletableFuture<>();
+			lease.pending = pending;
+		}
+
+		this.renewals.incrementAndGet();
+		CompletableFuture<LeaseGrant> leased;
+		try {
+			leased = this.source.lease(context, stateKey, minimum, requested);
+		} catch (RuntimeException e) {
+			leased = new CompletableFuture<>();
+			leased.completeExceptionally(e);
+		}
+
+		long ttl = TimeUnit.MILLISECONDS.toNanos(this.configuration.getLeaseTtl());
+		leased.whenComplete((grant, error) -> {
+			if(grant != null && grant.getGranted() > 0) {
+				lease.expiresAt = System.nanoTime() + ttl;
+				lease.tokens.addAndGet(grant.getGranted());
+			}
+			synchronized (lease) {
+				lease.pending = null;
+			}
+			if(error != null) {
+				pending.completeExceptionally(error);
+			} else {
+				pending.complete(grant);
+			}
+		});
+		return pending;
+	}
+
+	/**
+	 * Drop the idle leases among the next few leases of the cursor.
+	 * @param keep The key of the lease that was just created.
+	 */
+	private synchronized void sweepIdleLeases(String keep) {
+		long now = System.nanoTime();
+		boolean restarted = false;
+		for(int seen = 0; seen < SWEEP_SAMPLE; seen++) {
+			if(this.cursor == null || !this.cursor.hasNext()) {
+				// Only wrap around once per call so a small map is not visited repeatedly.
+				if(restarted) break;
+				this.cursor = this.leases.entrySet().iterator();
+				restarted = true;
+				if(!this.cursor.hasNext()) break;
+			}
+
+			Map.Entry<String, Lease> candidate = this.cursor.next();
+			if(!candidate.getKey().equals(keep) && candidate.getValue().isIdle(now)) {
+				this.leases.remove(candidate.getKey(), candidate.getValue());
+			}
+		}
+	}
+
+	private static String key(String contextKey, String stateKey) {
+		return contextKey + ".{" + stateKey + "}";
+	}
+
+	/**
+	 * The tokens a node holds for a state.
+	 */
+	private static final class Lease {
+
+		/**
+		 * The tokens that are left.
+		 */
+		private final AtomicLong tokens = new AtomicLong();
+
+		/**
+		 * The permits served since the lease was last resized.
+		 */
+		private final AtomicLong served = new AtomicLong();
+
+		/**
+		 * The nano time at which the tokens are dropped.
+		 */
+		private volatile long expiresAt = System.nanoTime();
+
+		/**
+		 * The nano time at which the lease was last resized.
+		 */
+		private volatile long resizedAt = System.nanoTime();
+
+		/**
+		 * The amount of tokens the next lease is sized to.
+		 */
+		private volatile long size;
+
+		/**
+		 * The lease in flight, null if none. Guarded by the lease.
+		 */
+		private CompletableFuture<LeaseGrant> pending;
+
+		private Lease(long size) {
+			this.size = size;
+		}
+
+		/**
+		 * Take permits from the lease.
+		 * @param permits The amount of permits to take.
+		 * @param now The current nano time.
+		 * @return The tokens left, -1 if there were not enough.
+		 */
+		private long take(long permits, long now) {
+			while(true) {
+				long current = this.tokens.get();
+				if(current > 0 && this.isExpired(now)) {
+					this.tokens.compareAndSet(current, 0);
+					continue;
+				}
+				if(current < permits) {
+					return -1;
+				}
+				if(this.tokens.compareAndSet(current, current - permits)) {
+					this.served.addAndGet(permits);
+					return current - permits;
+				}
+			}
+		}
+
+		/**
+		 * Size the next lease to cover the lease target at the rate served since the last resize.
+		 * @param now The current nano time.
+		 * @param configuration The size limits of the leases.
+		 */
+		private void resize(long now, LeaseConfiguration configuration) {
+			long elapsed = Math.max(1, now - this.resizedAt);
+			double perTarget = (double) this.served.getAndSet(0) * TimeUnit.MILLISECONDS.toNanos(configuration.getLeaseTarget()) / elapsed;
+			this.size = Math.max(configuration.getMinLeaseSize(), Math.min(configuration.getMaxLeaseSize(), (long) Math.ceil(perTarget)));
+			this.resizedAt = now;
+		}
+
+		private boolean isExpired(long now) {
+			return now - this.expiresAt >= 0;
+		}
+
+		private synchronized boolean isIdle(long now) {
+			return this.pending == null && this.isExpired(now);
+		}
+	}
+}
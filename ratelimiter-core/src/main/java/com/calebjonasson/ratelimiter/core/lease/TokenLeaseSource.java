@@ -0,0 +1,26 @@
+package com.calebjonasson.ratelimiter.core.lease;
+
+import com.calebjonasson.ratelimiter.core.model.context.AbstractRateLimitContext;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The shared bucket a {@link TokenLeaseCache} leases its tokens from, eg: redis.
+ *
+ * Taking the tokens has to be atomic. Tokens that are granted are removed from the shared bucket and are never given
+ * back, so the shared limit holds no matter how the tokens are spent.
+ * @param <CONTEXT> The context that holds the limits of the bucket.
+ */
+@FunctionalInterface
+public interface TokenLeaseSource<CONTEXT extends AbstractRateLimitContext> {
+
+	/**
+	 * Take as many of the requested tokens as are available, none if fewer than the minimum are.
+	 * @param context The context that holds the limits of the bucket.
+	 * @param stateKey The state the bucket is stored under.
+	 * @param minimum The least amount of tokens that is of use, always greater than 0.
+	 * @param requested The amount of tokens wanted, never less than the minimum.
+	 * @return A future completed with the tokens granted.
+	 */
+	CompletableFuture<LeaseGrant> lease(CONTEXT context, String stateKey, long minimum, long requested);
+}
@@ -5,12 +5,18 @@ import com.calebjonasson.ratelimiter.core.context.configuration.AbstractContextC
 import com.calebjonasson.ratelimiter.core.model.context.AbstractRateLimitContext;
 import com.calebjonasson.ratelimiter.core.model.state.RateLimitState;
 import com.calebjonasson.ratelimiter.core.request.ContextStateRateLimitRequest;
+import com.calebjonasson.ratelimiter.core.response.RateLimitDecision;
 import com.calebjonasson.ratelimiter.core.response.RateLimitHandleResponse;
 import com.calebjonasson.ratelimiter.core.common.exception.RateLimitExceededException;
 import com.calebjonasson.ratelimiter.core.common.exception.RateLimitContextNotFoundException;
 import com.calebjonasson.ratelimiter.core.common.exception.RateLimitException;
 import com.calebjonasson.ratelimiter.core.type.strategy.RateLimiterTypeStrategy;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -37,6 +43,11 @@ public abstract class AbstractRateLimiter<
 		this.contextProvider = contextProvider;
 	}
 
+	/**
+	 * The decisions reused by {@link #tryAcquire(String, String, long)}, one per thread.
+	 */
+	private static final ThreadLocal<RateLimitDecision> DECISIONS = ThreadLocal.withInitial(RateLimitDecision::new);
+
 	/**
 	 * The is the concrete implementation of the overridden handle method.
 	 * @param request The rate limit request we are looking to handle.
@@ -44,15 +55,130 @@ public abstract class AbstractRateLimiter<
 	 * @throws RateLimitException thrown if the rate limit is exceeded or another internal exception is thrown.
 	 */
 	public synchronized RateLimitHandleResponse handle(ContextStateRateLimitRequest request) throws RateLimitException {
+		return this.handleInternal(request);
+	}
+
+	/**
+	 * The unsynchronized handle flow. Implementations that manage their own concurrency can override
+	 * {@link #handle(ContextStateRateLimitRequest)} and call this directly to avoid the limiter wide monitor.
+	 *
+	 * This is built on {@link #tryAcquireInternal(String, String, long, RateLimitDecision)} and converts a denial into a
+	 * {@link RateLimitExceededException}.
+	 * @param request The rate limit request we are looking to handle.
+	 * @return A {@link RateLimitHandleResponse} containing the state and available capacity.
+	 * @throws RateLimitException thrown if the rate limit is exceeded or another internal exception is thrown.
+	 */
+	protected RateLimitHandleResponse handleInternal(ContextStateRateLimitRequest request) throws RateLimitException {
+		RateLimitDecision decision = this.tryAcquireInternal(request.getContextKey(), request.getStateKey(),
+				request.getPermits(), new RateLimitDecision());
+
+		if(!decision.isAllowed()) {
+			throw new RateLimitExceededException(decision.getContext(), decision.getState());
+		}
+		return decision.toResponse();
+	}
+
+	/**
+	 * Handle a batch of requests while holding the limiter wide monitor once for the whole batch.
+	 * @param requests The requests we are looking to handle.
+	 * @return A new {@link RateLimitDecision} per request in the iteration order of the requests.
+	 * @throws RateLimitException thrown if a context cannot be loaded or another internal exception is thrown.
+	 */
+	@Override
+	public synchronized List<RateLimitDecision> handleAll(Collection<ContextStateRateLimitRequest> requests)
+			throws RateLimitException {
+		return this.handleAllInternal(requests);
+	}
+
+	/**
+	 * The unsynchronized batch flow. Each context is loaded once per batch no matter how many requests share it.
+	 * Implementations that manage their own concurrency can override {@link #handleAll(Collection)} and call this
+	 * directly to avoid the limiter wide monitor.
+	 * @param requests The requests we are looking to handle.
+	 * @return A new {@link RateLimitDecision} per request in the iteration order of the requests.
+	 * @throws RateLimitException thrown if a context cannot be loaded or another internal exception is thrown.
+	 */
+	protected List<RateLimitDecision> handleAllInternal(Collection<ContextStateRateLimitRequest> requests)
+			throws RateLimitException {
+		List<CONTEXT> contexts = this.loadContexts(requests);
+		List<RateLimitDecision> decisions = new ArrayList<>(requests.size());
+		int index = 0;
+		for(ContextStateRateLimitRequest request : requests) {
+			decisions.add(this.acquireInternal(contexts.get(index++), request.getStateKey(), request.getPermits(),
+					new RateLimitDecision()));
+		}
+		return decisions;
+	}
+
+	/**
+	 * Load the context of every request in a batch, loading each distinct context key only once.
+	 * @param requests The requests of the batch.
+	 * @return The context of each request in the iteration order of the requests.
+	 * @throws RateLimitException thrown if a context cannot be loaded.
+	 */
+	protected List<CONTEXT> loadContexts(Collection<ContextStateRateLimitRequest> requests) throws RateLimitException {
+		Map<String, CONTEXT> loaded = new HashMap<>();
+		List<CONTEXT> contexts = new ArrayList<>(requests.size());
+		for(ContextStateRateLimitRequest request : requests) {
+			CONTEXT context = loaded.get(request.getContextKey());
+			if(context == null && !loaded.containsKey(request.getContextKey())) {
+				context = this.getContextProvider().getContext(request.getContextKey());
+				loaded.put(request.getContextKey(), context);
+			}
+			contexts.add(context);
+		}
+		return contexts;
+	}
+
+	@Override
+	public RateLimitDecision tryAcquire(String contextKey, String stateKey, long permits) throws RateLimitException {
+		return this.tryAcquire(contextKey, stateKey, permits, DECISIONS.get());
+	}
+
+	@Override
+	public synchronized RateLimitDecision tryAcquire(String contextKey, String stateKey, long permits,
+			RateLimitDecision decision) throws RateLimitException {
+		return this.tryAcquireInternal(contextKey, stateKey, permits, decision);
+	}
+
+	/**
+	 * The unsynchronized acquire flow. Implementations that manage their own concurrency can override
+	 * {@link #tryAcquire(String, String, long, RateLimitDecision)} and call this directly to avoid the limiter wide
+	 * monitor.
+	 * @param contextKey The context to use to group states under for configuration values.
+	 * @param stateKey The state we are grouping requests under.
+	 * @param permits The amount of permits to acquire, must be greater than 0.
+	 * @param decision The decision to reset and fill.
+	 * @return The passed in decision.
+	 * @throws RateLimitException thrown if the context cannot be loaded or another internal exception is thrown.
+	 */
+	protected RateLimitDecision tryAcquireInternal(String contextKey, String stateKey, long permits, RateLimitDecision decision)
+			throws RateLimitException {
+		checkPermits(permits);
 
 		// Load the Current context/
-		CONTEXT context = this.getContextProvider().getContext(request.getContextKey());
+		CONTEXT context = this.getContextProvider().getContext(contextKey);
+		return this.acquireInternal(context, stateKey, permits, decision);
+	}
+
+	/**
+	 * Acquire permits under a context that has already been loaded.
+	 * @param context The context the request is handled under, null if it could not be loaded.
+	 * @param stateKey The state we are grouping requests under.
+	 * @param permits The amount of permits to acquire, must be greater than 0.
+	 * @param decision The decision to reset and fill.
+	 * @return The passed in decision.
+	 * @throws RateLimitException thrown if the state could not be read or written.
+	 */
+	protected RateLimitDecision acquireInternal(CONTEXT context, String stateKey, long permits, RateLimitDecision decision)
+			throws RateLimitException {
+		decision.reset().context(context);
 
 		// Check to see if the context allows for rate limiting or if it's blocked.
-		if(!this.isContextEnable(context)) throw new RateLimitExceededException(context);
+		if(!this.isContextEnable(context)) return decision.deny(null, RateLimitDecision.RETRY_AFTER_UNKNOWN);
 
 		// Get the state if present.
-		Optional<STATE> optionalState = this.getRateLimitState(context, request.getStateKey());
+		Optional<STATE> optionalState = this.getRateLimitState(context, stateKey);
 
 		// Check to ensure that the state is valid.
 		STATE state;
@@ -63,19 +189,33 @@ public abstract class AbstractRateLimiter<
 		}
 
 		// Check to see if we need to limit the rate based on the context options.
-		return this.internalIncrement(context, request.getStateKey(), state);
+		return this.decide(context, stateKey, permits, state, decision);
 	}
 
 	/**
-	 * This atomic increment needs to be atomic. It's up to the implementor to make it so.
+	 * Admit or deny a request against a state. This needs to be atomic. It's up to the implementor to make it so.
+	 * A denial is recorded in the decision rather than thrown. All of the permits are acquired or none are.
 	 * @param context The context that we are performing an internal atomic increment under.
 	 * @param stateKey The state key that we are updating.
+	 * @param permits The amount of permits requested, always greater than 0.
 	 * @param state The rate limit state that we are incrementing.
-	 * @return A RateLimitState
-	 * @throws RateLimitExceededException Thrown if the atomic limit is exceeded.
+	 * @param decision The decision to fill.
+	 * @return The passed in decision.
+	 * @throws RateLimitException Thrown if the state could not be read or written.
 	 */
-	protected abstract RateLimitHandleResponse internalIncrement(CONTEXT context, String stateKey, STATE state)
-			throws RateLimitException;
+	protected abstract RateLimitDecision decide(CONTEXT context, String stateKey, long permits, STATE state,
+			RateLimitDecision decision) throws RateLimitException;
+
+	/**
+	 * Validate the amount of permits of a request.
+	 * @param permits The amount of permits requested.
+	 * @throws IllegalArgumentException thrown if the amount of permits is less than 1.
+	 */
+	protected static void checkPermits(long permits) {
+		if(permits < 1) {
+			throw new IllegalArgumentException("The amount of permits must be greater than 0.");
+		}
+	}
 
 	/**
 	 * Create a rate limit state from a context.
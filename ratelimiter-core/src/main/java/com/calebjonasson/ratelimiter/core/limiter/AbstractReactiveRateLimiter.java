@@ -0,0 +1,95 @@
+package com.calebjonasson.ratelimiter.core.limiter;
+
+import com.calebjonasson.ratelimiter.core.common.exception.RateLimitExceededException;
+import com.calebjonasson.ratelimiter.core.context.ReactiveContextProvider;
+import com.calebjonasson.ratelimiter.core.model.context.AbstractRateLimitContext;
+import com.calebjonasson.ratelimiter.core.model.state.RateLimitState;
+import com.calebjonasson.ratelimiter.core.request.ContextStateRateLimitRequest;
+import com.calebjonasson.ratelimiter.core.response.RateLimitDecision;
+import com.calebjonasson.ratelimiter.core.response.RateLimitHandleResponse;
+import com.calebjonasson.ratelimiter.core.type.strategy.RateLimiterTypeStrategy;
+import reactor.core.publisher.Mono;
+
+/**
+ * The non blocking counterpart of the {@link AbstractRateLimiter}.
+ *
+ * The context is loaded from a {@link ReactiveContextProvider} and the decision is made by {@link #decide}, both as part
+ * of the returned {@link Mono}. Nothing in the chain blocks or synchronizes, the atomicity of a decision is left to the
+ * store, eg: a redis lua script.
+ */
+public abstract class AbstractReactiveRateLimiter<
+		TYPE extends RateLimiterTypeStrategy,
+		CONTEXT extends AbstractRateLimitContext<TYPE>,
+		STATE extends RateLimitState<TYPE>>
+		implements ReactiveRateLimiter<ContextStateRateLimitRequest, CONTEXT> {
+
+	/**
+	 * The provider the contexts are loaded from.
+	 */
+	private final ReactiveContextProvider<TYPE, CONTEXT> contextProvider;
+
+	/**
+	 * Store the ReactiveContextProvider in the {@link AbstractReactiveRateLimiter}
+	 * @param contextProvider The context provider we are looking to store in this ratelimiter.
+	 */
+	public AbstractReactiveRateLimiter(final ReactiveContextProvider<TYPE, CONTEXT> contextProvider) {
+		this.contextProvider = contextProvider;
+	}
+
+	@Override
+	public Mono<RateLimitHandleResponse> handle(ContextStateRateLimitRequest request) {
+		return this.tryAcquire(request.getContextKey(), request.getStateKey(), request.getPermits())
+				.flatMap(decision -> decision.isAllowed()
+						? Mono.just(decision.toResponse())
+						: Mono.error(new RateLimitExceededException(decision.getContext(), decision.getState())));
+	}
+
+	/**
+	 * Attempt to acquire a number of permits as a single operation without failing when the limit is exceeded.
+	 * @param contextKey The context to use to group states under for configuration values.
+	 * @param stateKey The state we are grouping requests under.
+	 * @param permits The amount of permits to acquire, must be greater than 0.
+	 * @return A {@link Mono} of a new {@link RateLimitDecision}.
+	 */
+	public Mono<RateLimitDecision> tryAcquire(String contextKey, String stateKey, long permits) {
+		if(permits < 1) {
+			return Mono.error(new IllegalArgumentException("The amount of permits must be greater than 0."));
+		}
+		return this.contextProvider.getContext(contextKey).flatMap(context -> {
+			RateLimitDecision decision = new RateLimitDecision().context(context);
+
+			// Check to see if the context allows for rate limiting or if it's blocked.
+			if(!this.isContextEnable(context)) {
+				return Mono.just(decision.deny(null, RateLimitDecision.RETRY_AFTER_UNKNOWN));
+			}
+			return this.decide(context, stateKey, permits, decision);
+		});
+	}
+
+	/**
+	 * Admit or deny a request against the state stored under a key. This needs to be atomic and must not block. It's up
+	 * to the implementor to make it so. All of the permits are acquired or none are.
+	 * @param context The context that holds the limits.
+	 * @param stateKey The state key that we are updating.
+	 * @param permits The amount of permits requested, always greater than 0.
+	 * @param decision The decision to fill.
+	 * @return A {@link Mono} of the passed in decision.
+	 */
+	protected abstract Mono<RateLimitDecision> decide(CONTEXT context, String stateKey, long permits, RateLimitDecision decision);
+
+	/**
+	 * Check to see if a given rate limit context can have its values incremented.
+	 * @param rateLimitContext The rate limit context that we are attempting to use.
+	 * @return true if the context is enabled
+	 */
+	protected boolean isContextEnable(CONTEXT rateLimitContext) {
+		return rateLimitContext != null && rateLimitContext.isEnabled();
+	}
+
+	/**
+	 * @return The provider the contexts are loaded from.
+	 */
+	protected ReactiveContextProvider<TYPE, CONTEXT> getContextProvider() {
+		return this.contextProvider;
+	}
+}
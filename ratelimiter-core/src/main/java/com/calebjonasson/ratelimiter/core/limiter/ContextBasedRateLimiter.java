@@ -1,8 +1,10 @@
 package com.calebjonasson.ratelimiter.core.limiter;
 
+import com.calebjonasson.ratelimiter.core.common.exception.RateLimitException;
 import com.calebjonasson.ratelimiter.core.context.ContextProvider;
 import com.calebjonasson.ratelimiter.core.model.context.AbstractRateLimitContext;
 import com.calebjonasson.ratelimiter.core.request.ContextStateRateLimitRequest;
+import com.calebjonasson.ratelimiter.core.response.RateLimitDecision;
 import com.calebjonasson.ratelimiter.core.type.strategy.RateLimiterTypeStrategy;
 
 /**
@@ -23,6 +25,79 @@ public abstract class ContextBasedRateLimiter<
 	 */
 	protected abstract ContextProvider<TYPE, CONTEXT> getContextProvider();
 
+	/**
+	 * Attempt to acquire a permit without throwing when the limit is exceeded. The returned decision is reused by the
+	 * calling thread and is only valid until its next acquire.
+	 * @param contextKey The context to use to group states under for configuration values.
+	 * @param stateKey The state we are grouping requests under.
+	 * @return The {@link RateLimitDecision} of the request.
+	 * @throws RateLimitException thrown if the context cannot be loaded or another internal exception is thrown.
+	 */
+	public RateLimitDecision tryAcquire(String contextKey, String stateKey) throws RateLimitException {
+		return this.tryAcquire(contextKey, stateKey, ContextStateRateLimitRequest.DEFAULT_PERMITS);
+	}
+
+	/**
+	 * Attempt to acquire a number of permits as a single operation without throwing when the limit is exceeded. Either
+	 * all of the permits are acquired or none are. The returned decision is reused by the calling thread and is only
+	 * valid until its next acquire.
+	 * @param contextKey The context to use to group states under for configuration values.
+	 * @param stateKey The state we are grouping requests under.
+	 * @param permits The amount of permits to acquire, must be greater than 0.
+	 * @return The {@link RateLimitDecision} of the request.
+	 * @throws RateLimitException thrown if the context cannot be loaded or another internal exception is thrown.
+	 */
+	public abstract RateLimitDecision tryAcquire(String contextKey, String stateKey, long permits) throws RateLimitException;
+
+	/**
+	 * Attempt to acquire a permit without throwing when the limit is exceeded.
+	 * @param contextKey The context to use to group states under for configuration values.
+	 * @param stateKey The state we are grouping requests under.
+	 * @param decision The decision to reset and fill, owned by the caller.
+	 * @return The passed in decision.
+	 * @throws RateLimitException thrown if the context cannot be loaded or another internal exception is thrown.
+	 */
+	public RateLimitDecision tryAcquire(String contextKey, String stateKey, RateLimitDecision decision)
+			throws RateLimitException {
+		return this.tryAcquire(contextKey, stateKey, ContextStateRateLimitRequest.DEFAULT_PERMITS, decision);
+	}
+
+	/**
+	 * Attempt to acquire a number of permits as a single operation without throwing when the limit is exceeded. Either
+	 * all of the permits are acquired or none are.
+	 * @param contextKey The context to use to group states under for configuration values.
+	 * @param stateKey The state we are grouping requests under.
+	 * @param permits The amount of permits to acquire, must be greater than 0.
+	 * @param decision The decision to reset and fill, owned by the caller.
+	 * @return The passed in decision.
+	 * @throws RateLimitException thrown if the context cannot be loaded or another internal exception is thrown.
+	 */
+	public abstract RateLimitDecision tryAcquire(String contextKey, String stateKey, long permits, RateLimitDecision decision)
+			throws RateLimitException;
+
+	/**
+	 * Attempt to acquire a permit when only the outcome is needed.
+	 * @param contextKey The context to use to group states under for configuration values.
+	 * @param stateKey The state we are grouping requests under.
+	 * @return true if the permit was acquired.
+	 * @throws RateLimitException thrown if the context cannot be loaded or another internal exception is thrown.
+	 */
+	public boolean tryAcquirePermit(String contextKey, String stateKey) throws RateLimitException {
+		return this.tryAcquire(contextKey, stateKey).isAllowed();
+	}
+
+	/**
+	 * Attempt to acquire a number of permits when only the outcome is needed.
+	 * @param contextKey The context to use to group states under for configuration values.
+	 * @param stateKey The state we are grouping requests under.
+	 * @param permits The amount of permits to acquire, must be greater than 0.
+	 * @return true if all of the permits were acquired.
+	 * @throws RateLimitException thrown if the context cannot be loaded or another internal exception is thrown.
+	 */
+	public boolean tryAcquirePermits(String contextKey, String stateKey, long permits) throws RateLimitException {
+		return this.tryAcquire(contextKey, stateKey, permits).isAllowed();
+	}
+
 	@Override
 	public boolean isContextBased() {
 		return true;
@@ -1,10 +1,16 @@
 package com.calebjonasson.ratelimiter.core.limiter;
 
 import com.calebjonasson.ratelimiter.core.common.exception.RateLimitException;
+import com.calebjonasson.ratelimiter.core.common.exception.RateLimitExceededException;
 import com.calebjonasson.ratelimiter.core.model.context.AbstractRateLimitContext;
 import com.calebjonasson.ratelimiter.core.request.RateLimitRequest;
+import com.calebjonasson.ratelimiter.core.response.RateLimitDecision;
 import com.calebjonasson.ratelimiter.core.response.RateLimitHandleResponse;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
 
 /**
  * This is the definition of a rate limiter.
@@ -19,6 +25,31 @@ public interface RateLimiter<R extends RateLimitRequest, C extends AbstractRateL
 	 */
 	public RateLimitHandleResponse handle(R rateLimitRequest) throws RateLimitException;
 
+	/**
+	 * Perform the rate limiting operation for a batch of requests. A denied request does not stop the batch, it is
+	 * reported in its own decision.
+	 *
+	 * The default handles the requests one at a time. Implementations should override this to share the locking,
+	 * context loading and round trips between the requests of the batch.
+	 * @param rateLimitRequests The requests we are looking to handle.
+	 * @return A new {@link RateLimitDecision} per request in the iteration order of the requests.
+	 * @throws RateLimitException thrown if a request could not be handled for a reason other than its limit.
+	 */
+	public default List<RateLimitDecision> handleAll(Collection<R> rateLimitRequests) throws RateLimitException {
+		List<RateLimitDecision> decisions = new ArrayList<>(rateLimitRequests.size());
+		for(R rateLimitRequest : rateLimitRequests) {
+			RateLimitDecision decision = new RateLimitDecision();
+			try {
+				RateLimitHandleResponse response = this.handle(rateLimitRequest);
+				long remaining = response.getRemainingCapacity() == null ? 0 : response.getRemainingCapacity();
+				decisions.add(decision.allow(response.getState(), remaining));
+			} catch (RateLimitExceededException e) {
+				decisions.add(decision.context(e.getContext()).deny(e.getState(), RateLimitDecision.RETRY_AFTER_UNKNOWN));
+			}
+		}
+		return decisions;
+	}
+
 
 	/**
 	 * TODO: do we even need this? We can in theory have a NoContextProvider which has this turned off as default.
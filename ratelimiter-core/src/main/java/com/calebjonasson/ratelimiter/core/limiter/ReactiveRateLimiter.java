@@ -0,0 +1,24 @@
+package com.calebjonasson.ratelimiter.core.limiter;
+
+import com.calebjonasson.ratelimiter.core.common.exception.RateLimitExceededException;
+import com.calebjonasson.ratelimiter.core.model.context.AbstractRateLimitContext;
+import com.calebjonasson.ratelimiter.core.request.RateLimitRequest;
+import com.calebjonasson.ratelimiter.core.response.RateLimitHandleResponse;
+import reactor.core.publisher.Mono;
+
+/**
+ * The non blocking definition of a rate limiter.
+ *
+ * Implementations must not block the subscribing thread or take monitors so a limiter can be used from event loop
+ * threads, eg: netty in spring webflux.
+ */
+public interface ReactiveRateLimiter<R extends RateLimitRequest, C extends AbstractRateLimitContext> {
+
+	/**
+	 * Perform the rate limiting operation.
+	 * @param rateLimitRequest A request container for the values required by the ratelimiter
+	 * @return A {@link Mono} of the state and available capacity. Fails with a {@link RateLimitExceededException} if the
+	 * limit is exceeded.
+	 */
+	public Mono<RateLimitHandleResponse> handle(R rateLimitRequest);
+}
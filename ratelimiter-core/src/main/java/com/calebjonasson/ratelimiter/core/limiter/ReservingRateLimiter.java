@@ -0,0 +1,95 @@
+package com.calebjonasson.ratelimiter.core.limiter;
+
+import com.calebjonasson.ratelimiter.core.common.exception.RateLimitException;
+import com.calebjonasson.ratelimiter.core.common.exception.RateLimitExceededException;
+import com.calebjonasson.ratelimiter.core.request.ContextStateRateLimitRequest;
+import com.calebjonasson.ratelimiter.core.response.RateLimitDecision;
+import com.calebjonasson.ratelimiter.core.response.RateLimitHandleResponse;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A rate limiter that can reserve permits ahead of the capacity being available so callers wait their turn instead of
+ * retrying.
+ *
+ * A reservation takes the permits from the state right away, moving the time at which the next request is admitted
+ * further out, and reports how long the caller has to wait before using them. The blocking calls then park the caller
+ * for exactly that long with {@link LockSupport#parkNanos(long)}, so waiting callers make no further calls to the
+ * limiter or its store and are paced one after the other in the order they reserved. No monitor is held while parking,
+ * which lets a virtual thread unmount while it waits.
+ */
+public interface ReservingRateLimiter {
+
+	/**
+	 * Reserve permits if they are available within a maximum wait. Either all of the permits are reserved or none are.
+	 * This never blocks.
+	 * @param request The request holding the context, state and permits.
+	 * @param maxWaitNanos The longest the caller is willing to wait for the permits, 0 to only take available permits.
+	 * @param decision The decision to reset and fill, owned by the caller.
+	 * @return The passed in decision, allowed with {@link RateLimitDecision#waitNanos} set if the permits were
+	 * reserved, denied with nothing reserved otherwise.
+	 * @throws RateLimitException thrown if the context cannot be loaded or another internal exception is thrown.
+	 */
+	RateLimitDecision reserve(ContextStateRateLimitRequest request, long maxWaitNanos, RateLimitDecision decision)
+			throws RateLimitException;
+
+	/**
+	 * Acquire the permits of a request, blocking until they are available.
+	 * @param request The request holding the context, state and permits.
+	 * @return A {@link RateLimitHandleResponse} containing the state and the capacity remaining when the permits were
+	 * reserved.
+	 * @throws RateLimitException thrown if the permits can never be acquired, eg: the context is disabled or the request
+	 * is larger than the burst, or another internal exception is thrown.
+	 */
+	default RateLimitHandleResponse acquire(ContextStateRateLimitRequest request) throws RateLimitException {
+		RateLimitDecision decision = this.reserve(request, Long.MAX_VALUE, new RateLimitDecision());
+		if(!decision.isAllowed()) {
+			throw new RateLimitExceededException(decision.getContext(), decision.getState());
+		}
+		park(decision.getWaitNanos());
+		return decision.toResponse();
+	}
+
+	/**
+	 * Acquire the permits of a request if they are available within a timeout, blocking until they are. Nothing is
+	 * reserved and the call returns right away if the permits will not be available in time.
+	 * @param request The request holding the context, state and permits.
+	 * @param timeout The longest to wait for the permits.
+	 * @param unit The unit of the timeout.
+	 * @return true if the permits were acquired.
+	 * @throws RateLimitException thrown if the context cannot be loaded or another internal exception is thrown.
+	 */
+	default boolean tryAcquire(ContextStateRateLimitRequest request, long timeout, TimeUnit unit) throws RateLimitException {
+		RateLimitDecision decision = this.reserve(request, Math.max(0, unit.toNanos(timeout)), new RateLimitDecision());
+		if(!decision.isAllowed()) {
+			return false;
+		}
+		park(decision.getWaitNanos());
+		return true;
+	}
+
+	/**
+	 * Park the current thread for a number of nanoseconds, parking again after spurious wake ups.
+	 *
+	 * The permits have already been taken from the state when this is called, so an interrupt does not cut the wait
+	 * short, which would let the caller use permits early. The interrupt status is restored before returning.
+	 * @param nanos The nanoseconds to wait.
+	 */
+	static void park(long nanos) {
+		if(nanos <= 0) {
+			return;
+		}
+		boolean interrupted = false;
+		long deadline = System.nanoTime() + nanos;
+		for(long remaining = nanos; remaining > 0; remaining = deadline - System.nanoTime()) {
+			LockSupport.parkNanos(remaining);
+			if(Thread.interrupted()) {
+				interrupted = true;
+			}
+		}
+		if(interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -20,7 +20,7 @@ import lombok.NoArgsConstructor;
 //@Builder
 @AllArgsConstructor
 @NoArgsConstructor
-public abstract class AbstractRateLimitContext<TYPE extends RateLimiterTypeStrategy> implements RateLimitContext<TYPE> {
+public abstract class AbstractRateLimitContext<TYPE extends RateLimiterTypeStrategy> implements RateLimitContext<TYPE>, Cloneable {
 
 	/**
 	 * This is the context key to be passed into rate limiters
@@ -31,4 +31,26 @@ public abstract class AbstractRateLimitContext<TYPE extends RateLimiterTypeStrat
 	 * A flag for all contexts to support an enabled or disabled status.
 	 */
 	protected boolean enabled = true;
+
+	/**
+	 * Get this context as it is stored under a context key. Rate limiters group states by the context key of the
+	 * context, so a context that is stored under a key must carry that key.
+	 * @param contextKey The context key the context is stored under.
+	 * @return This context if it already carries the context key, otherwise a copy that does. This context is never
+	 * changed.
+	 */
+	public AbstractRateLimitContext<TYPE> withContextKey(String contextKey) {
+		if(contextKey == null ? this.contextKey == null : contextKey.equals(this.contextKey)) {
+			return this;
+		}
+		try {
+			// Contexts only hold configuration values so a shallow copy is a full copy.
+			@SuppressWarnings("unchecked")
+			AbstractRateLimitContext<TYPE> copy = (AbstractRateLimitContext<TYPE>) super.clone();
+			copy.contextKey = contextKey;
+			return copy;
+		} catch (CloneNotSupportedException e) {
+			throw new IllegalStateException(e);
+		}
+	}
 }
\ No newline at end of file
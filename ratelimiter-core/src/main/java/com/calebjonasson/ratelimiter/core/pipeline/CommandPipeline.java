@@ -0,0 +1,243 @@
+package com.calebjonasson.ratelimiter.core.pipeline;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Gathers commands submitted by concurrent callers into short lived batches and sends each batch over a single
+ * {@link PipelineTransport} with one round trip.
+ *
+ * A single sender thread owns the transport. It waits for a first command, then keeps collecting commands until the
+ * batch is full or the linger time has passed and sends the batch. Commands that arrive while a batch is in flight are
+ * sent with the next one, so under load the batches grow with the round trip time instead of the callers waiting on
+ * each other one round trip at a time.
+ *
+ * Closing the pipeline sends the commands that are already queued before the sender stops.
+ * @param <COMMAND> The commands that are sent.
+ * @param <REPLY> The replies that are received.
+ */
+public class CommandPipeline<COMMAND, REPLY> implements AutoCloseable {
+
+	/**
+	 * The default name of the sender thread.
+	 */
+	public static final String DEFAULT_THREAD_NAME = "ratelimiter-command-pipeline";
+
+	/**
+	 * How long an idle sender waits for a command before checking if the pipeline was closed, in milliseconds.
+	 */
+	private static final long IDLE_POLL = 20;
+
+	/**
+	 * The transport the batches are sent over.
+	 */
+	private final PipelineTransport<COMMAND, REPLY> transport;
+
+	/**
+	 * The size and linger limits of the batches.
+	 */
+	private final PipelineConfiguration configuration;
+
+	/**
+	 * The commands waiting to be sent.
+	 */
+	private final BlockingQueue<Pending<COMMAND, REPLY>> queue;
+
+	/**
+	 * The thread that gathers and sends the batches.
+	 */
+	private final Thread sender;
+
+	/**
+	 * The amount of batches sent.
+	 */
+	private final AtomicLong batches = new AtomicLong();
+
+	/**
+	 * The amount of commands sent.
+	 */
+	private final AtomicLong commands = new AtomicLong();
+
+	/**
+	 * true once the pipeline no longer accepts commands.
+	 */
+	private volatile boolean closed;
+
+	/**
+	 * Create and start a new pipeline with a sender thread named {@link #DEFAULT_THREAD_NAME}.
+	 * @param transport The transport the batches are sent over.
+	 * @param configuration The size and linger limits of the batches.
+	 */
+	public CommandPipeline(final PipelineTransport<COMMAND, REPLY> transport, final PipelineConfiguration configuration) {
+		this(transport, configuration, DEFAULT_THREAD_NAME);
+	}
+
+	/**
+	 * Create and start a new pipeline.
+	 * @param transport The transport the batches are sent over.
+	 * @param configuration The size and linger limits of the batches.
+	 * @param threadName The name of the daemon sender thread.
+	 */
+	public CommandPipeline(final PipelineTransport<COMMAND, REPLY> transport, final PipelineConfiguration configuration,
+			final String threadName) {
+		if(configuration.getMaxBatchSize() < 1) {
+			throw new IllegalArgumentException("The maximum batch size must be greater than 0.");
+		}
+		if(configuration.getLinger() < 0) {
+			throw new IllegalArgumentException("The linger time cannot be negative.");
+		}
+		this.transport = transport;
+		this.configuration = configuration;
+		this.queue = new ArrayBlockingQueue<>(configuration.getQueueCapacity());
+
+		this.sender = new Thread(this::run, threadName);
+		this.sender.setDaemon(true);
+		this.sender.start();
+	}
+
+	/**
+	 * Queue a command to be sent with the next batch.
+	 * @param command The command to send.
+	 * @return A future completed with the reply of the command. It fails with a {@link RejectedExecutionException} if
+	 * the queue is full or the pipeline is closed, or with the exception thrown by the transport for the batch.
+	 */
+	public CompletableFuture<REPLY> submit(COMMAND command) {
+		Pending<COMMAND, REPLY> pending = new Pending<>(command);
+		if(this.closed) {
+			pending.completeExceptionally(new RejectedExecutionException("The pipeline is closed."));
+		} else if(!this.queue.offer(pending)) {
+			pending.completeExceptionally(new RejectedExecutionException("The pipeline queue is full."));
+		} else if(this.closed && this.queue.remove(pending)) {
+			// Closed while queueing and the sender will not drain the queue again.
+			pending.completeExceptionally(new RejectedExecutionException("The pipeline is closed."));
+		}
+		return pending;
+	}
+
+	/**
+	 * Stop accepting commands, send the commands that are already queued and wait for the sender to stop.
+	 * @throws InterruptedException thrown if interrupted while waiting for the sender.
+	 */
+	@Override
+	public void close() throws InterruptedException {
+		this.closed = true;
+		this.sender.join();
+	}
+
+	/**
+	 * @return The amount of batches sent.
+	 */
+	public long getBatches() {
+		return this.batches.get();
+	}
+
+	/**
+	 * @return The amount of commands sent.
+	 */
+	public long getCommands() {
+		return this.commands.get();
+	}
+
+	/**
+	 * @return The average amount of commands per batch, 0 if nothing was sent.
+	 */
+	public double getAverageBatchSize() {
+		long sent = this.batches.get();
+		return sent == 0 ? 0 : (double) this.commands.get() / sent;
+	}
+
+	/**
+	 * @return The size and linger limits of the batches.
+	 */
+	public PipelineConfiguration getConfiguration() {
+		return this.configuration;
+	}
+
+	/**
+	 * The sender loop.
+	 */
+	private void run() {
+		int maxBatchSize = this.configuration.getMaxBatchSize();
+		long linger = TimeUnit.MICROSECONDS.toNanos(this.configuration.getLinger());
+		List<Pending<COMMAND, REPLY>> batch = new ArrayList<>(maxBatchSize);
+
+		while(!this.closed) {
+			try {
+				Pending<COMMAND, REPLY> first = this.queue.poll(IDLE_POLL, TimeUnit.MILLISECONDS);
+				if(first == null) continue;
+				batch.add(first);
+				this.queue.drainTo(batch, maxBatchSize - batch.size());
+
+				long deadline = System.nanoTime() + linger;
+				while(batch.size() < maxBatchSize) {
+					long remaining = deadline - System.nanoTime();
+					if(remaining <= 0) break;
+					Pending<COMMAND, REPLY> next = this.queue.poll(remaining, TimeUnit.NANOSECONDS);
+					if(next == null) break;
+					batch.add(next);
+					this.queue.drainTo(batch, maxBatchSize - batch.size());
+				}
+			} catch (InterruptedException e) {
+				// The sender is owned by the pipeline, treat an interrupt as a close and flush.
+				this.closed = true;
+			}
+
+			if(!batch.isEmpty()) {
+				this.send(batch);
+			}
+		}
+
+		// Flush whatever was queued before the pipeline was closed.
+		while(this.queue.drainTo(batch, maxBatchSize) > 0) {
+			this.send(batch);
+		}
+	}
+
+	/**
+	 * Send a batch and complete the futures of its commands. The batch is cleared.
+	 * @param batch The batch to send.
+	 */
+	private void send(List<Pending<COMMAND, REPLY>> batch) {
+		List<COMMAND> sent = new ArrayList<>(batch.size());
+		for(Pending<COMMAND, REPLY> pending : batch) {
+			sent.add(pending.command);
+		}
+
+		try {
+			List<REPLY> replies = this.transport.send(sent);
+			if(replies == null || replies.size() != sent.size()) {
+				throw new IllegalStateException("Expected " + sent.size() + " replies but received "
+						+ (replies == null ? 0 : replies.size()) + ".");
+			}
+			for(int x = 0; x < batch.size(); x++) {
+				batch.get(x).complete(replies.get(x));
+			}
+		} catch (Exception e) {
+			for(Pending<COMMAND, REPLY> pending : batch) {
+				pending.completeExceptionally(e);
+			}
+		} finally {
+			this.batches.incrementAndGet();
+			this.commands.addAndGet(sent.size());
+			batch.clear();
+		}
+	}
+
+	/**
+	 * A command waiting for its reply.
+	 */
+	private static final class Pending<COMMAND, REPLY> extends CompletableFuture<REPLY> {
+
+		private final COMMAND command;
+
+		private Pending(COMMAND command) {
+			this.command = command;
+		}
+	}
+}
@@ -0,0 +1,43 @@
+package com.calebjonasson.ratelimiter.core.pipeline;
+
+import lombok.Data;
+
+/**
+ * Configuration for a {@link CommandPipeline}.
+ *
+ * A batch is sent once it holds the maximum batch size or once the linger time has passed since its first command,
+ * whichever comes first. A linger of 0 sends whatever has queued up while the previous batch was in flight.
+ */
+@Data
+public class PipelineConfiguration {
+
+	/**
+	 * The default maximum amount of commands sent in a single batch.
+	 */
+	public static final int DEFAULT_MAX_BATCH_SIZE = 128;
+
+	/**
+	 * The default time in microseconds a batch waits for more commands.
+	 */
+	public static final long DEFAULT_LINGER = 50;
+
+	/**
+	 * The default maximum amount of commands waiting to be sent.
+	 */
+	public static final int DEFAULT_QUEUE_CAPACITY = 65536;
+
+	/**
+	 * The maximum amount of commands sent in a single batch.
+	 */
+	protected int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+
+	/**
+	 * The time in microseconds a batch waits for more commands after its first command.
+	 */
+	protected long linger = DEFAULT_LINGER;
+
+	/**
+	 * The maximum amount of commands waiting to be sent. Commands submitted past this are rejected.
+	 */
+	protected int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+}
@@ -0,0 +1,23 @@
+package com.calebjonasson.ratelimiter.core.pipeline;
+
+import java.util.List;
+
+/**
+ * Sends a batch of commands over a single connection to a remote store, eg: redis.
+ *
+ * An implementation should write every command of the batch back to back before reading the replies so the whole batch
+ * costs a single round trip.
+ * @param <COMMAND> The commands that are sent.
+ * @param <REPLY> The replies that are received.
+ */
+@FunctionalInterface
+public interface PipelineTransport<COMMAND, REPLY> {
+
+	/**
+	 * Send a batch of commands and wait for their replies.
+	 * @param commands The commands of the batch, never empty.
+	 * @return A reply per command in the order of the commands.
+	 * @throws Exception thrown if the batch could not be sent. Every command of the batch is failed with it.
+	 */
+	List<REPLY> send(List<COMMAND> commands) throws Exception;
+}
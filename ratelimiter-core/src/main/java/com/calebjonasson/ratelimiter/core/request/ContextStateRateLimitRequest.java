@@ -8,6 +8,11 @@ import lombok.Data;
 @Data
 public class ContextStateRateLimitRequest implements RateLimitRequest {
 
+	/**
+	 * The amount of permits a request costs when none is provided.
+	 */
+	public static final long DEFAULT_PERMITS = 1;
+
 	/**
 	 * The context to use to group states under for configuration values.
 	 */
@@ -19,13 +24,32 @@ public class ContextStateRateLimitRequest implements RateLimitRequest {
 	private final String stateKey;
 
 	/**
-	 * Create a {@link ContextStateRateLimitRequest} with the provided context and state.
+	 * The amount of permits the request costs. The permits are acquired all at once or not at all.
+	 */
+	private final long permits;
+
+	/**
+	 * Create a {@link ContextStateRateLimitRequest} with the provided context and state that costs a single permit.
 	 * @param contextKey The context key for the rate limiter.
 	 * @param stateKey The state key for the rate limiter.
 	 */
 	public ContextStateRateLimitRequest(final String contextKey, final String stateKey) {
+		this(contextKey, stateKey, DEFAULT_PERMITS);
+	}
+
+	/**
+	 * Create a {@link ContextStateRateLimitRequest} with the provided context, state and cost.
+	 * @param contextKey The context key for the rate limiter.
+	 * @param stateKey The state key for the rate limiter.
+	 * @param permits The amount of permits the request costs, must be greater than 0.
+	 */
+	public ContextStateRateLimitRequest(final String contextKey, final String stateKey, final long permits) {
+		if(permits < 1) {
+			throw new IllegalArgumentException("The amount of permits must be greater than 0.");
+		}
 		this.contextKey = contextKey;
 		this.stateKey = stateKey;
+		this.permits = permits;
 	}
 
 	/**
@@ -37,4 +61,15 @@ public class ContextStateRateLimitRequest implements RateLimitRequest {
 	public static ContextStateRateLimitRequest of(final String contextKey, final String stateKey) {
 		return new ContextStateRateLimitRequest(contextKey, stateKey);
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Create a {@link ContextStateRateLimitRequest} with the provided context, state and cost.
+	 * @param contextKey The context key for the rate limiter.
+	 * @param stateKey The state key for the rate limiter.
+	 * @param permits The amount of permits the request costs, must be greater than 0.
+	 * @return ContextStateRateLimitRequest
+	 */
+	public static ContextStateRateLimitRequest of(final String contextKey, final String stateKey, final long permits) {
+		return new ContextStateRateLimitRequest(contextKey, stateKey, permits);
+	}
+}
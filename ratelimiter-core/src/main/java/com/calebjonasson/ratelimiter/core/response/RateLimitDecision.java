@@ -0,0 +1,145 @@
+package com.calebjonasson.ratelimiter.core.response;
+
+import com.calebjonasson.ratelimiter.core.model.context.AbstractRateLimitContext;
+import com.calebjonasson.ratelimiter.core.model.state.RateLimitState;
+import lombok.Getter;
+
+/**
+ * The outcome of a non throwing acquire against a {@link com.calebjonasson.ratelimiter.core.limiter.RateLimiter}.
+ *
+ * A denial is reported through the allowed flag instead of an exception so the cost of a denied request is the same
+ * as an admitted one. Instances are mutable and meant to be reused: a limiter resets and fills the decision it is given,
+ * so a decision must be read before it is passed to the next acquire.
+ */
+@Getter
+public class RateLimitDecision {
+
+	/**
+	 * The retry after of a denial when the limiter does not know when capacity will be available.
+	 */
+	public static final long RETRY_AFTER_UNKNOWN = -1;
+
+	/**
+	 * The retry after of a denial that will never be admitted, eg: a context with no capacity or no replenish rate.
+	 */
+	public static final long RETRY_AFTER_NEVER = Long.MAX_VALUE;
+
+	/**
+	 * true if the request was admitted.
+	 */
+	protected boolean allowed;
+
+	/**
+	 * The capacity remaining after the request was handled.
+	 */
+	protected long remainingCapacity;
+
+	/**
+	 * How many milliseconds to wait before a request for the same state could be admitted. 0 when allowed.
+	 */
+	protected long retryAfterMillis;
+
+	/**
+	 * How many nanoseconds the caller has to wait before using permits that were reserved ahead of time, see
+	 * {@link com.calebjonasson.ratelimiter.core.limiter.ReservingRateLimiter}. 0 unless the permits were reserved.
+	 */
+	protected long waitNanos;
+
+	/**
+	 * The context the request was handled under. null if the context could not be loaded.
+	 */
+	protected AbstractRateLimitContext context;
+
+	/**
+	 * The state the request was handled against. Implementations that update states in place may keep modifying it.
+	 */
+	protected RateLimitState state;
+
+	/**
+	 * Clear the decision so it can be reused.
+	 * @return The current {@link RateLimitDecision}
+	 */
+	public RateLimitDecision reset() {
+		this.allowed = false;
+		this.remainingCapacity = 0;
+		this.retryAfterMillis = 0;
+		this.waitNanos = 0;
+		this.context = null;
+		this.state = null;
+		return this;
+	}
+
+	/**
+	 * Set the context the request is handled under.
+	 * @param context The context that was loaded for the request.
+	 * @return The current {@link RateLimitDecision}
+	 */
+	public RateLimitDecision context(AbstractRateLimitContext context) {
+		this.context = context;
+		return this;
+	}
+
+	/**
+	 * Record an admitted request.
+	 * @param state The state the request was handled against.
+	 * @param remainingCapacity The capacity remaining after the request.
+	 * @return The current {@link RateLimitDecision}
+	 */
+	public RateLimitDecision allow(RateLimitState state, long remainingCapacity) {
+		this.allowed = true;
+		this.state = state;
+		this.remainingCapacity = remainingCapacity;
+		this.retryAfterMillis = 0;
+		this.waitNanos = 0;
+		return this;
+	}
+
+	/**
+	 * Record a request whose permits were reserved ahead of the capacity being available. The permits are taken from
+	 * the state and the caller must wait before using them.
+	 * @param state The state the request was handled against.
+	 * @param remainingCapacity The capacity remaining after the request.
+	 * @param waitNanos How many nanoseconds until the reserved permits are available.
+	 * @return The current {@link RateLimitDecision}
+	 */
+	public RateLimitDecision reserve(RateLimitState state, long remainingCapacity, long waitNanos) {
+		this.allow(state, remainingCapacity);
+		this.waitNanos = Math.max(0, waitNanos);
+		return this;
+	}
+
+	/**
+	 * Record a denied request.
+	 * @param state The state the request was handled against.
+	 * @param retryAfterMillis How many milliseconds until a request could be admitted, {@link #RETRY_AFTER_UNKNOWN} or
+	 *                         {@link #RETRY_AFTER_NEVER}.
+	 * @return The current {@link RateLimitDecision}
+	 */
+	public RateLimitDecision deny(RateLimitState state, long retryAfterMillis) {
+		this.allowed = false;
+		this.state = state;
+		this.remainingCapacity = 0;
+		this.retryAfterMillis = retryAfterMillis;
+		this.waitNanos = 0;
+		return this;
+	}
+
+	/**
+	 * Convert an admitted decision into the response returned by the throwing handle api.
+	 * @return A new {@link RateLimitHandleResponse}
+	 */
+	public RateLimitHandleResponse toResponse() {
+		return new RateLimitHandleResponse(this.state, this.remainingCapacity);
+	}
+
+	@Override
+	public String toString() {
+		return "RateLimitDecision{" +
+				"allowed=" + allowed +
+				", remainingCapacity=" + remainingCapacity +
+				", retryAfterMillis=" + retryAfterMillis +
+				", waitNanos=" + waitNanos +
+				", state=" + state +
+				'}';
+	}
+}
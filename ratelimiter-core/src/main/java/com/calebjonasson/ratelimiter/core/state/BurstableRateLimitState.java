@@ -25,6 +25,16 @@ public class BurstableRateLimitState implements RateLimitState<BurstableRateLimi
 	 */
 	protected Long tokens;
 
+	/**
+	 * The epoch millis at which the state will have replenished to its burst capacity. Past this point the state is
+	 * equivalent to a new state and can be discarded by stores that do not use a TTL.
+	 */
+	protected long replenishedAt;
+
+	/**
+	 * Set once the state has been discarded by an in memory store. A discarded state must not be updated.
+	 */
+	protected boolean discarded;
 
 	/**
 	 * Update the states refresh timestamp with the current date.
@@ -42,6 +52,8 @@ public class BurstableRateLimitState implements RateLimitState<BurstableRateLimi
 				"lastRefresh=" + this.lastRefreshed +
 				", lastRefresh.diff=" + (this.lastRefreshed == null ? 0 : this.lastRefreshed.getTime() - System.currentTimeMillis())+
 				", tokens=" + tokens +
+				", replenishedAt=" + replenishedAt +
+				", discarded=" + discarded +
 				'}';
 	}
 }
\ No newline at end of file
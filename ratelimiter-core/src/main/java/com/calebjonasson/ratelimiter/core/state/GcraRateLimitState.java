@@ -0,0 +1,71 @@
+package com.calebjonasson.ratelimiter.core.state;
+
+import com.calebjonasson.ratelimiter.core.model.state.RateLimitState;
+import com.calebjonasson.ratelimiter.core.type.strategy.GcraRateLimiterTypeStrategy;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * The state of the generic cell rate algorithm: the theoretical arrival time, the epoch nanos at which the next permit
+ * would be due if permits had been taken at exactly the emitted rate. Taking permits moves it forward by the time it
+ * takes to emit them and a request is denied if that would put it further ahead of now than the burst allows. A time at
+ * or before now is a full burst, so the state is equivalent to a new state from that point on.
+ *
+ * The whole state is the one long, so it is updated with a single compare and swap and never needs a lock. Equality is
+ * identity based so a state that has been replaced or discarded is never mistaken for the state that is currently
+ * stored.
+ */
+public class GcraRateLimitState implements RateLimitState<GcraRateLimiterTypeStrategy> {
+
+	/**
+	 * The theoretical arrival time of a state that has been discarded by a store. A discarded state must not be updated.
+	 */
+	public static final long DISCARDED = Long.MIN_VALUE;
+
+	private static final AtomicLongFieldUpdater<GcraRateLimitState> THEORETICAL_ARRIVAL_TIME =
+			AtomicLongFieldUpdater.newUpdater(GcraRateLimitState.class, "theoreticalArrivalTime");
+
+	/**
+	 * The epoch nanos at which the next permit is due.
+	 */
+	protected volatile long theoreticalArrivalTime;
+
+	/**
+	 * Create a new state.
+	 * @param theoreticalArrivalTime The epoch nanos at which the next permit is due, eg: now for a full burst.
+	 */
+	public GcraRateLimitState(long theoreticalArrivalTime) {
+		this.theoreticalArrivalTime = theoreticalArrivalTime;
+	}
+
+	/**
+	 * @return The epoch nanos at which the next permit is due, or {@link #DISCARDED}.
+	 */
+	public long getTheoreticalArrivalTime() {
+		return this.theoreticalArrivalTime;
+	}
+
+	/**
+	 * Swap the theoretical arrival time if it has not changed.
+	 * @param expected The theoretical arrival time that was read.
+	 * @param theoreticalArrivalTime The new theoretical arrival time.
+	 * @return true if the time was swapped.
+	 */
+	public boolean compareAndSet(long expected, long theoreticalArrivalTime) {
+		return THEORETICAL_ARRIVAL_TIME.compareAndSet(this, expected, theoreticalArrivalTime);
+	}
+
+	/**
+	 * @return true if the state has been discarded and must not be updated.
+	 */
+	public boolean isDiscarded() {
+		return this.theoreticalArrivalTime == DISCARDED;
+	}
+
+	@Override
+	public String toString() {
+		return "GcraRateLimitState{" +
+				"theoreticalArrivalTime=" + theoreticalArrivalTime +
+				'}';
+	}
+}
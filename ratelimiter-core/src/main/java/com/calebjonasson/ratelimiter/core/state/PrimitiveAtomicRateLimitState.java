@@ -0,0 +1,51 @@
+package com.calebjonasson.ratelimiter.core.state;
+
+import com.calebjonasson.ratelimiter.core.model.state.RateLimitState;
+import com.calebjonasson.ratelimiter.core.type.strategy.AtomicRateLimiterTypeStrategy;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * A primitive version of the {@link AtomicRateLimitState} that is mutated in place.
+ *
+ * The window is stored as epoch nanos in a long so updating an existing state never allocates. Equality is identity
+ * based so a state that has been replaced or discarded is never mistaken for the state that is currently stored.
+ * Callers are responsible for synchronizing on the state while reading or updating it.
+ */
+@Getter
+@Setter
+public class PrimitiveAtomicRateLimitState implements RateLimitState<AtomicRateLimiterTypeStrategy> {
+
+	/**
+	 * The epoch nanos when the window ends and the state will be reset.
+	 */
+	protected long expiresAt;
+
+	/**
+	 * The amount of atomic increments that have happened within the window.
+	 */
+	protected long count;
+
+	/**
+	 * Set once the state has been discarded by a store. A discarded state must not be updated.
+	 */
+	protected boolean discarded;
+
+	/**
+	 * Start a new window.
+	 * @param expiresAt The epoch nanos when the new window ends.
+	 */
+	public void reset(long expiresAt) {
+		this.expiresAt = expiresAt;
+		this.count = 0;
+	}
+
+	@Override
+	public String toString() {
+		return "PrimitiveAtomicRateLimitState{" +
+				"expiresAt=" + expiresAt +
+				", count=" + count +
+				", discarded=" + discarded +
+				'}';
+	}
+}
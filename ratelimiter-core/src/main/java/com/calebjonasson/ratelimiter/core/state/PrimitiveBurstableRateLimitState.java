@@ -0,0 +1,48 @@
+package com.calebjonasson.ratelimiter.core.state;
+
+import com.calebjonasson.ratelimiter.core.model.state.RateLimitState;
+import com.calebjonasson.ratelimiter.core.type.strategy.BurstableRateLimiterTypeStrategy;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * A primitive version of the {@link BurstableRateLimitState} that is mutated in place.
+ *
+ * Tokens and timestamps are stored in long fields, timestamps as epoch nanos, so refilling and consuming tokens never
+ * allocates. Equality is identity based so a state that has been replaced or discarded is never mistaken for the state
+ * that is currently stored. Callers are responsible for synchronizing on the state while reading or updating it.
+ */
+@Getter
+@Setter
+public class PrimitiveBurstableRateLimitState implements RateLimitState<BurstableRateLimiterTypeStrategy> {
+
+	/**
+	 * How many tokens are left in the bucket.
+	 */
+	protected long tokens;
+
+	/**
+	 * The epoch nanos up to which replenished tokens have been added to the bucket.
+	 */
+	protected long refreshedAt;
+
+	/**
+	 * The epoch nanos at which the bucket will be full again. Past this point the state is equivalent to a new state.
+	 */
+	protected long replenishedAt;
+
+	/**
+	 * Set once the state has been discarded by a store. A discarded state must not be updated.
+	 */
+	protected boolean discarded;
+
+	@Override
+	public String toString() {
+		return "PrimitiveBurstableRateLimitState{" +
+				"tokens=" + tokens +
+				", refreshedAt=" + refreshedAt +
+				", replenishedAt=" + replenishedAt +
+				", discarded=" + discarded +
+				'}';
+	}
+}
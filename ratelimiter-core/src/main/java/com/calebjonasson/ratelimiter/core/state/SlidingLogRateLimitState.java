@@ -0,0 +1,154 @@
+package com.calebjonasson.ratelimiter.core.state;
+
+import com.calebjonasson.ratelimiter.core.model.state.RateLimitState;
+import com.calebjonasson.ratelimiter.core.type.strategy.SlidingLogRateLimiterTypeStrategy;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * The log of a sliding log state, mutated in place.
+ *
+ * The times of the admitted requests are kept oldest first in a ring of ints, each the offset in millis from a base
+ * epoch millis, which takes 4 bytes per request instead of the 8 of a long or the 24 of a boxed one. The ring starts
+ * empty and doubles as requests are admitted, up to the limit it is appended with, so a state never holds more than the
+ * limit of its context. Requests that are an interval old are trimmed from the front as the state is accessed. A
+ * request admitting several permits is logged once per permit.
+ *
+ * Equality is identity based so a state that has been replaced or discarded is never mistaken for the state that is
+ * currently stored. Callers are responsible for synchronizing on the state while reading or updating it.
+ */
+public class SlidingLogRateLimitState implements RateLimitState<SlidingLogRateLimiterTypeStrategy> {
+
+	private static final int[] EMPTY = new int[0];
+
+	/**
+	 * The smallest ring allocated for a state.
+	 */
+	private static final int MINIMUM_CAPACITY = 4;
+
+	/**
+	 * The epoch millis the offsets are relative to.
+	 */
+	@Getter
+	protected long base;
+
+	/**
+	 * The ring of offsets, the oldest at {@link #head}.
+	 */
+	protected int[] offsets = EMPTY;
+
+	/**
+	 * The index of the oldest offset.
+	 */
+	protected int head;
+
+	/**
+	 * The amount of requests in the log.
+	 */
+	@Getter
+	protected int size;
+
+	/**
+	 * The epoch millis at which the latest request leaves the window and the state is equivalent to a new state.
+	 */
+	@Getter
+	@Setter
+	protected long expiresAt;
+
+	/**
+	 * Set once the state has been discarded by a store. A discarded state must not be updated.
+	 */
+	@Getter
+	@Setter
+	protected boolean discarded;
+
+	/**
+	 * @param index The position in the log, 0 being the oldest request.
+	 * @return The epoch millis of the request.
+	 */
+	public long get(int index) {
+		return this.base + this.offsets[this.slot(index)];
+	}
+
+	/**
+	 * @return The epoch millis of the latest request, or {@link Long#MIN_VALUE} if the log is empty.
+	 */
+	public long newest() {
+		return this.size == 0 ? Long.MIN_VALUE : this.get(this.size - 1);
+	}
+
+	/**
+	 * Remove the requests at or before a time from the front of the log.
+	 * @param cutoff The epoch millis up to which requests are removed.
+	 */
+	public void trim(long cutoff) {
+		while(this.size > 0 && this.base + this.offsets[this.head] <= cutoff) {
+			this.head = this.head + 1 == this.offsets.length ? 0 : this.head + 1;
+			this.size--;
+		}
+	}
+
+	/**
+	 * Log requests. The time must not be before the latest request and at most {@link Integer#MAX_VALUE} millis after
+	 * the oldest one.
+	 * @param time The epoch millis of the requests.
+	 * @param count The amount of requests to log.
+	 * @param limit The most requests the log holds, the size of the ring once it is full.
+	 */
+	public void append(long time, int count, int limit) {
+		if(this.size == 0) {
+			this.base = time;
+			this.head = 0;
+		} else if(time - this.base > Integer.MAX_VALUE) {
+			this.rebase(this.get(0));
+		}
+		if(this.size + count > this.offsets.length) {
+			this.grow(Math.min(limit, Math.max(this.size + count, Math.max(MINIMUM_CAPACITY, this.offsets.length * 2))));
+		}
+
+		int offset = (int) (time - this.base);
+		for(int x = 0; x < count; x++) {
+			this.offsets[this.slot(this.size++)] = offset;
+		}
+	}
+
+	/**
+	 * @return The amount of requests the ring can hold before it grows.
+	 */
+	public int capacity() {
+		return this.offsets.length;
+	}
+
+	private void rebase(long base) {
+		int shift = (int) (base - this.base);
+		for(int x = 0; x < this.size; x++) {
+			this.offsets[this.slot(x)] -= shift;
+		}
+		this.base = base;
+	}
+
+	private void grow(int capacity) {
+		int[] grown = new int[capacity];
+		for(int x = 0; x < this.size; x++) {
+			grown[x] = this.offsets[this.slot(x)];
+		}
+		this.offsets = grown;
+		this.head = 0;
+	}
+
+	private int slot(int index) {
+		int slot = this.head + index;
+		return slot >= this.offsets.length ? slot - this.offsets.length : slot;
+	}
+
+	@Override
+	public String toString() {
+		return "SlidingLogRateLimitState{" +
+				"base=" + base +
+				", size=" + size +
+				", capacity=" + offsets.length +
+				", expiresAt=" + expiresAt +
+				", discarded=" + discarded +
+				'}';
+	}
+}
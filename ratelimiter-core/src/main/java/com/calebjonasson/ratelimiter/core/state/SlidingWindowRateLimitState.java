@@ -0,0 +1,79 @@
+package com.calebjonasson.ratelimiter.core.state;
+
+import com.calebjonasson.ratelimiter.core.model.state.RateLimitState;
+import com.calebjonasson.ratelimiter.core.type.strategy.SlidingWindowRateLimiterTypeStrategy;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.Arrays;
+
+/**
+ * The state of a sliding window, mutated in place.
+ *
+ * The window is divided into sub windows of equal length, numbered by the epoch nanos they start at divided by their
+ * length. The counts of the sub windows inside the window and of the one that is leaving it are kept in a ring of
+ * {@code subWindows + 1} longs indexed by the sub window number, so the memory of a state is fixed by its context and
+ * updating it never allocates. Equality is identity based so a state that has been replaced or discarded is never
+ * mistaken for the state that is currently stored. Callers are responsible for synchronizing on the state while reading
+ * or updating it.
+ */
+@Getter
+@Setter
+public class SlidingWindowRateLimitState implements RateLimitState<SlidingWindowRateLimiterTypeStrategy> {
+
+	/**
+	 * The counts of the sub windows, the count of sub window {@code n} at {@code n % counts.length}.
+	 */
+	protected long[] counts;
+
+	/**
+	 * The length of a sub window in nanos.
+	 */
+	protected long subWindowLength;
+
+	/**
+	 * The number of the latest sub window that has been counted in.
+	 */
+	protected long subWindow;
+
+	/**
+	 * The sum of the counts of every sub window inside the window, the one that is leaving it excluded.
+	 */
+	protected long total;
+
+	/**
+	 * Set once the state has been discarded by a store. A discarded state must not be updated.
+	 */
+	protected boolean discarded;
+
+	/**
+	 * Create an empty state.
+	 * @param subWindows The amount of sub windows inside the window.
+	 * @param subWindowLength The length of a sub window in nanos.
+	 * @param subWindow The number of the current sub window.
+	 */
+	public SlidingWindowRateLimitState(int subWindows, long subWindowLength, long subWindow) {
+		this.counts = new long[subWindows + 1];
+		this.subWindowLength = subWindowLength;
+		this.subWindow = subWindow;
+	}
+
+	/**
+	 * @return The epoch nanos at which every counted request has left the window and the state is equivalent to a new
+	 * state.
+	 */
+	public long expiresAt() {
+		return (this.subWindow + this.counts.length) * this.subWindowLength;
+	}
+
+	@Override
+	public String toString() {
+		return "SlidingWindowRateLimitState{" +
+				"counts=" + Arrays.toString(counts) +
+				", subWindowLength=" + subWindowLength +
+				", subWindow=" + subWindow +
+				", total=" + total +
+				", discarded=" + discarded +
+				'}';
+	}
+}
@@ -0,0 +1,7 @@
+package com.calebjonasson.ratelimiter.core.type.strategy;
+
+/**
+ * This interface is used to group like generic cell rate algorithm rate limiter implementations together.
+ */
+public interface GcraRateLimiterTypeStrategy extends RateLimiterTypeStrategy {
+}
@@ -0,0 +1,7 @@
+package com.calebjonasson.ratelimiter.core.type.strategy;
+
+/**
+ * This interface is used to group like sliding log rate limiter implementations together.
+ */
+public interface SlidingLogRateLimiterTypeStrategy extends RateLimiterTypeStrategy {
+}
@@ -0,0 +1,7 @@
+package com.calebjonasson.ratelimiter.core.type.strategy;
+
+/**
+ * This interface is used to group like sliding window rate limiter implementations together.
+ */
+public interface SlidingWindowRateLimiterTypeStrategy extends RateLimiterTypeStrategy {
+}
@@ -0,0 +1,155 @@
+package com.calebjonasson.ratelimiter.core.context.cache;
+
+import com.calebjonasson.ratelimiter.core.common.exception.RateLimitContextNotFoundException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ContextNearCacheTest {
+
+	private static final String CONTEXT_KEY = "test-context-1";
+
+	@Test
+	public void testHitsAreServedFromMemory() throws RateLimitContextNotFoundException {
+		Store store = new Store();
+		store.values.put(CONTEXT_KEY, "v1");
+		ContextNearCache<String> cache = new ContextNearCache<>(store, new NearCacheConfiguration());
+
+		for(int x = 0; x < 100; x++) {
+			Assertions.assertEquals("v1", cache.get(CONTEXT_KEY));
+		}
+		Assertions.assertEquals(1, store.loads.get());
+		Assertions.assertEquals(1, cache.getLoads());
+	}
+
+	@Test
+	public void testInvalidationReloadsTheContext() throws RateLimitContextNotFoundException {
+		Store store = new Store();
+		store.values.put(CONTEXT_KEY, "v1");
+		ContextNearCache<String> cache = new ContextNearCache<>(store, new NearCacheConfiguration());
+		Assertions.assertEquals("v1", cache.get(CONTEXT_KEY));
+
+		store.values.put(CONTEXT_KEY, "v2");
+		Assertions.assertEquals("v1", cache.get(CONTEXT_KEY));
+		cache.invalidate(CONTEXT_KEY);
+		Assertions.assertEquals("v2", cache.get(CONTEXT_KEY));
+		Assertions.assertEquals(2, store.loads.get());
+	}
+
+	@Test
+	public void testLoadInFlightDuringAnInvalidationIsNotCached() throws RateLimitContextNotFoundException {
+		Store store = new Store();
+		store.values.put(CONTEXT_KEY, "v1");
+		ContextNearCache<String>[] cache = new ContextNearCache[1];
+		cache[0] = new ContextNearCache<>(contextKey -> {
+			String value = store.load(contextKey);
+			// Another node changes the context while this load is on the wire.
+			cache[0].invalidate(contextKey);
+			return value;
+		}, new NearCacheConfiguration());
+
+		Assertions.assertEquals("v1", cache[0].get(CONTEXT_KEY));
+		Assertions.assertEquals(0, cache[0].size());
+	}
+
+	@Test
+	public void testExpiredAndRefreshedContexts() throws Exception {
+		Store store = new Store();
+		store.values.put(CONTEXT_KEY, "v1");
+		NearCacheConfiguration configuration = new NearCacheConfiguration();
+		configuration.setTtl(200);
+		configuration.setRefreshAfter(20);
+		ContextNearCache<String> cache = new ContextNearCache<>(store, configuration, Runnable::run);
+		Assertions.assertEquals("v1", cache.get(CONTEXT_KEY));
+
+		// Past the refresh time the cached context is served and reloaded in the background.
+		store.values.put(CONTEXT_KEY, "v2");
+		Thread.sleep(40);
+		Assertions.assertEquals("v1", cache.get(CONTEXT_KEY));
+		Assertions.assertEquals(1, cache.getRefreshes());
+		Assertions.assertEquals("v2", cache.get(CONTEXT_KEY));
+
+		// Past the ttl the context is loaded before it is served.
+		configuration.setRefreshAfter(0);
+		cache.invalidate(CONTEXT_KEY);
+		Assertions.assertEquals("v2", cache.get(CONTEXT_KEY));
+		store.values.put(CONTEXT_KEY, "v3");
+		Thread.sleep(250);
+		Assertions.assertEquals("v3", cache.get(CONTEXT_KEY));
+	}
+
+	@Test
+	public void testLeastRecentlyUsedContextIsEvicted() throws Exception {
+		Store store = new Store();
+		for(int x = 0; x < 4; x++) {
+			store.values.put("context-" + x, "v" + x);
+		}
+		NearCacheConfiguration configuration = new NearCacheConfiguration();
+		configuration.setMaximumSize(3);
+		ContextNearCache<String> cache = new ContextNearCache<>(store, configuration);
+
+		cache.get("context-0");
+		cache.get("context-1");
+		cache.get("context-2");
+		Thread.sleep(5);
+		cache.get("context-0");
+		cache.get("context-3");
+
+		Assertions.assertEquals(3, cache.size());
+		int loads = store.loads.get();
+		cache.get("context-0");
+		cache.get("context-2");
+		cache.get("context-3");
+		Assertions.assertEquals(loads, store.loads.get());
+		cache.get("context-1");
+		Assertions.assertEquals(loads + 1, store.loads.get());
+	}
+
+	@Test
+	public void testFloodOfContextKeysStaysBounded() throws RateLimitContextNotFoundException {
+		Store store = new Store();
+		for(int x = 0; x < 10000; x++) {
+			store.values.put("context-" + x, "v" + x);
+		}
+		NearCacheConfiguration configuration = new NearCacheConfiguration();
+		configuration.setMaximumSize(100);
+		ContextNearCache<String> cache = new ContextNearCache<>(store, configuration);
+
+		for(int x = 0; x < 10000; x++) {
+			Assertions.assertEquals("v" + x, cache.get("context-" + x));
+			Assertions.assertTrue(cache.size() <= 100, "size " + cache.size());
+		}
+	}
+
+	@Test
+	public void testMissingContextsAreNotCached() {
+		Store store = new Store();
+		ContextNearCache<String> cache = new ContextNearCache<>(store, new NearCacheConfiguration());
+
+		Assertions.assertThrows(RateLimitContextNotFoundException.class, () -> cache.get(CONTEXT_KEY));
+		Assertions.assertEquals(0, cache.size());
+	}
+
+	/**
+	 * A remote store stand in that counts its loads.
+	 */
+	private static class Store implements ContextLoader<String> {
+
+		private final Map<String, String> values = new ConcurrentHashMap<>();
+
+		private final AtomicInteger loads = new AtomicInteger();
+
+		@Override
+		public String load(String contextKey) throws RateLimitContextNotFoundException {
+			this.loads.incrementAndGet();
+			String value = this.values.get(contextKey);
+			if(value == null) {
+				throw new RateLimitContextNotFoundException(contextKey);
+			}
+			return value;
+		}
+	}
+}
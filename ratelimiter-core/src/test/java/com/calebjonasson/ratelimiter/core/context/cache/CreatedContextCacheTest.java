@@ -0,0 +1,130 @@
+package com.calebjonasson.ratelimiter.core.context.cache;
+
+import com.calebjonasson.ratelimiter.core.common.exception.RateLimitContextNotFoundException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class CreatedContextCacheTest {
+
+	private static final String CONTEXT_KEY = "test-context-1";
+
+	@Test
+	public void testContextIsCreatedOnceUnderContention() throws Exception {
+		CreatedContextCache<Object> cache = new CreatedContextCache<>();
+		AtomicInteger creations = new AtomicInteger();
+		CountDownLatch start = new CountDownLatch(1);
+		Object[] seen = new Object[8];
+
+		List<Thread> threads = new ArrayList<>();
+		for(int x = 0; x < seen.length; x++) {
+			int index = x;
+			Thread thread = new Thread(() -> {
+				try {
+					start.await();
+					seen[index] = cache.get(CONTEXT_KEY, key -> {
+						creations.incrementAndGet();
+						return new Object();
+					});
+				} catch (Exception e) {
+					throw new IllegalStateException(e);
+				}
+			});
+			thread.start();
+			threads.add(thread);
+		}
+		start.countDown();
+		for(Thread thread : threads) {
+			thread.join();
+		}
+
+		Assertions.assertEquals(1, creations.get());
+		for(Object context : seen) {
+			Assertions.assertSame(seen[0], context);
+		}
+	}
+
+	@Test
+	public void testMissingContextIsRememberedWithoutAStackTrace() throws Exception {
+		CreatedContextCache<Object> cache = new CreatedContextCache<>(10, 60000, 50);
+		AtomicInteger creations = new AtomicInteger();
+
+		RateLimitContextNotFoundException first = Assertions.assertThrows(RateLimitContextNotFoundException.class,
+				() -> cache.get(CONTEXT_KEY, key -> { creations.incrementAndGet(); return null; }));
+		RateLimitContextNotFoundException second = Assertions.assertThrows(RateLimitContextNotFoundException.class,
+				() -> cache.get(CONTEXT_KEY, key -> { creations.incrementAndGet(); return null; }));
+
+		Assertions.assertSame(first, second);
+		Assertions.assertEquals(0, first.getStackTrace().length);
+		Assertions.assertEquals(1, creations.get());
+
+		// Once the missing ttl passes the context key is tried again.
+		Thread.sleep(80);
+		Assertions.assertNotNull(cache.get(CONTEXT_KEY, key -> new Object()));
+	}
+
+	@Test
+	public void testIdleAndLeastRecentlyUsedContextsAreEvicted() throws Exception {
+		CreatedContextCache<String> idle = new CreatedContextCache<>(10, 30, 0);
+		idle.get(CONTEXT_KEY, key -> "v1");
+		Thread.sleep(50);
+		idle.pruneIdle();
+		Assertions.assertEquals(0, idle.size());
+
+		CreatedContextCache<String> bounded = new CreatedContextCache<>(2, 60000, 0);
+		bounded.get("context-0", key -> key);
+		bounded.get("context-1", key -> key);
+		Thread.sleep(5);
+		bounded.get("context-0", key -> key);
+		bounded.get("context-2", key -> key);
+		Assertions.assertEquals(2, bounded.size());
+
+		AtomicInteger creations = new AtomicInteger();
+		bounded.get("context-0", key -> { creations.incrementAndGet(); return key; });
+		Assertions.assertEquals(0, creations.get());
+		bounded.get("context-1", key -> { creations.incrementAndGet(); return key; });
+		Assertions.assertEquals(1, creations.get());
+	}
+
+	@Test
+	public void testFloodOfContextKeysStaysBounded() throws Exception {
+		CreatedContextCache<String> cache = new CreatedContextCache<>(100, 60000, 60000);
+		for(int x = 0; x < 100000; x++) {
+			String contextKey = "flood-" + x;
+			if(x % 2 == 0) {
+				Assertions.assertEquals(contextKey, cache.get(contextKey, key -> key));
+			} else {
+				Assertions.assertThrows(RateLimitContextNotFoundException.class, () -> cache.get(contextKey, key -> null));
+			}
+			Assertions.assertTrue(cache.size() <= 100, "size " + cache.size());
+		}
+
+		CountDownLatch start = new CountDownLatch(1);
+		List<Thread> threads = new ArrayList<>();
+		for(int t = 0; t < 8; t++) {
+			int thread = t;
+			Thread flood = new Thread(() -> {
+				try {
+					start.await();
+					for(int x = 0; x < 20000; x++) {
+						cache.get("flood-" + thread + "-" + x, key -> key);
+					}
+				} catch (Exception e) {
+					throw new IllegalStateException(e);
+				}
+			});
+			flood.start();
+			threads.add(flood);
+		}
+		start.countDown();
+		for(Thread flood : threads) {
+			flood.join();
+		}
+		// Every insert makes room for itself, only the inserts racing each other can go past the maximum size.
+		Assertions.assertTrue(cache.size() <= 100 + threads.size(), "size " + cache.size());
+	}
+}
@@ -0,0 +1,116 @@
+package com.calebjonasson.ratelimiter.core.context.cache;
+
+import com.calebjonasson.ratelimiter.core.common.exception.RateLimitContextNotFoundException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ReactiveContextNearCacheTest {
+
+	private static final String CONTEXT_KEY = "test-context-1";
+
+	@Test
+	public void testHitsAreServedFromMemory() {
+		Store store = new Store();
+		store.values.put(CONTEXT_KEY, "v1");
+		ReactiveContextNearCache<String> cache = new ReactiveContextNearCache<>(store, new NearCacheConfiguration());
+
+		for(int x = 0; x < 100; x++) {
+			Assertions.assertEquals("v1", cache.get(CONTEXT_KEY).block());
+		}
+		Assertions.assertEquals(1, store.loads.get());
+		Assertions.assertEquals(1, cache.getLoads());
+	}
+
+	@Test
+	public void testLoadInFlightDuringAnInvalidationIsNotCached() {
+		Store store = new Store();
+		store.values.put(CONTEXT_KEY, "v1");
+		ReactiveContextNearCache<String>[] cache = new ReactiveContextNearCache[1];
+		cache[0] = new ReactiveContextNearCache<>(contextKey -> store.load(contextKey)
+				// Another node changes the context while this load is on the wire.
+				.doOnNext(value -> cache[0].invalidate(contextKey)), new NearCacheConfiguration());
+
+		Assertions.assertEquals("v1", cache[0].get(CONTEXT_KEY).block());
+		Assertions.assertEquals(0, cache[0].size());
+	}
+
+	@Test
+	public void testExpiredAndRefreshedContexts() throws Exception {
+		Store store = new Store();
+		store.values.put(CONTEXT_KEY, "v1");
+		NearCacheConfiguration configuration = new NearCacheConfiguration();
+		configuration.setTtl(200);
+		configuration.setRefreshAfter(20);
+		ReactiveContextNearCache<String> cache = new ReactiveContextNearCache<>(store, configuration);
+		Assertions.assertEquals("v1", cache.get(CONTEXT_KEY).block());
+
+		// Past the refresh time the cached context is served and reloaded in the background.
+		store.values.put(CONTEXT_KEY, "v2");
+		Thread.sleep(40);
+		Assertions.assertEquals("v1", cache.get(CONTEXT_KEY).block());
+		Assertions.assertEquals(1, cache.getRefreshes());
+		Assertions.assertEquals("v2", cache.get(CONTEXT_KEY).block());
+
+		// Past the ttl the context is loaded before it is served.
+		configuration.setRefreshAfter(0);
+		cache.invalidate(CONTEXT_KEY);
+		Assertions.assertEquals("v2", cache.get(CONTEXT_KEY).block());
+		store.values.put(CONTEXT_KEY, "v3");
+		Thread.sleep(250);
+		Assertions.assertEquals("v3", cache.get(CONTEXT_KEY).block());
+	}
+
+	@Test
+	public void testCacheIsBounded() {
+		Store store = new Store();
+		for(int x = 0; x < 100; x++) {
+			store.values.put("context-" + x, "v" + x);
+		}
+		NearCacheConfiguration configuration = new NearCacheConfiguration();
+		configuration.setMaximumSize(10);
+		ReactiveContextNearCache<String> cache = new ReactiveContextNearCache<>(store, configuration);
+
+		for(int x = 0; x < 100; x++) {
+			Assertions.assertEquals("v" + x, cache.get("context-" + x).block());
+			Assertions.assertTrue(cache.size() <= 10);
+		}
+		// The most recent context is always kept.
+		int loads = store.loads.get();
+		cache.get("context-99").block();
+		Assertions.assertEquals(loads, store.loads.get());
+	}
+
+	@Test
+	public void testMissingContextsAreNotCached() {
+		Store store = new Store();
+		ReactiveContextNearCache<String> cache = new ReactiveContextNearCache<>(store, new NearCacheConfiguration());
+
+		Assertions.assertEquals("missing", cache.get(CONTEXT_KEY)
+				.onErrorResume(RateLimitContextNotFoundException.class, e -> Mono.just("missing")).block());
+		Assertions.assertEquals(0, cache.size());
+	}
+
+	/**
+	 * A remote store stand in that counts its loads.
+	 */
+	private static class Store implements ReactiveContextLoader<String> {
+
+		private final Map<String, String> values = new ConcurrentHashMap<>();
+
+		private final AtomicInteger loads = new AtomicInteger();
+
+		@Override
+		public Mono<String> load(String contextKey) {
+			return Mono.defer(() -> {
+				this.loads.incrementAndGet();
+				String value = this.values.get(contextKey);
+				return value == null ? Mono.error(new RateLimitContextNotFoundException(contextKey)) : Mono.just(value);
+			});
+		}
+	}
+}
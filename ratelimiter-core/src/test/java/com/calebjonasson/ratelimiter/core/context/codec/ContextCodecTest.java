@@ -0,0 +1,95 @@
+package com.calebjonasson.ratelimiter.core.context.codec;
+
+import com.calebjonasson.ratelimiter.core.context.AtomicRateLimitContext;
+import com.calebjonasson.ratelimiter.core.context.BurstableRateLimitContext;
+import com.calebjonasson.ratelimiter.core.context.GcraRateLimitContext;
+import com.calebjonasson.ratelimiter.core.context.SlidingLogRateLimitContext;
+import com.calebjonasson.ratelimiter.core.context.SlidingWindowRateLimitContext;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ContextCodecTest {
+
+	private static final String CONTEXT_KEY = "test-context-1";
+
+	@Test
+	public void testBurstableContextRoundTrip() {
+		BurstableRateLimitContext context = BurstableRateLimitContext.builder().replenishRate(10).burstCapacity(20).build();
+		context.setEnabled(false);
+
+		String encoded = ContextCodecs.burstableCodec().encode(context);
+		Assertions.assertEquals("B1,0,10,20", encoded);
+
+		BurstableRateLimitContext decoded = ContextCodecs.burstableCodec().decode(CONTEXT_KEY, encoded);
+		Assertions.assertEquals(CONTEXT_KEY, decoded.getContextKey());
+		Assertions.assertFalse(decoded.isEnabled());
+		Assertions.assertEquals(10, decoded.getReplenishRate());
+		Assertions.assertEquals(20, decoded.getBurstCapacity());
+	}
+
+	@Test
+	public void testAtomicContextRoundTrip() {
+		AtomicRateLimitContext context = AtomicRateLimitContext.builder().limit(5).interval(60000).build();
+
+		String encoded = ContextCodecs.atomicCodec().encode(context);
+		Assertions.assertEquals("A1,1,5,60000", encoded);
+
+		AtomicRateLimitContext decoded = ContextCodecs.atomicCodec().decode(CONTEXT_KEY, encoded);
+		Assertions.assertEquals(CONTEXT_KEY, decoded.getContextKey());
+		Assertions.assertTrue(decoded.isEnabled());
+		Assertions.assertEquals(5, decoded.getLimit());
+		Assertions.assertEquals(60000, decoded.getInterval());
+	}
+
+	@Test
+	public void testGcraContextRoundTrip() {
+		GcraRateLimitContext context = GcraRateLimitContext.builder().limit(10).interval(1000).burstCapacity(20).build();
+
+		String encoded = ContextCodecs.gcraCodec().encode(context);
+		Assertions.assertEquals("G1,1,10,1000,20", encoded);
+
+		GcraRateLimitContext decoded = ContextCodecs.gcraCodec().decode(CONTEXT_KEY, encoded);
+		Assertions.assertEquals(CONTEXT_KEY, decoded.getContextKey());
+		Assertions.assertTrue(decoded.isEnabled());
+		Assertions.assertEquals(10, decoded.getLimit());
+		Assertions.assertEquals(1000, decoded.getInterval());
+		Assertions.assertEquals(20, decoded.getBurstCapacity());
+		Assertions.assertThrows(IllegalArgumentException.class, () -> ContextCodecs.gcraCodec().decode(CONTEXT_KEY, "A1,1,5,60000"));
+	}
+
+	@Test
+	public void testSlidingWindowContextRoundTrip() {
+		SlidingWindowRateLimitContext context = SlidingWindowRateLimitContext.builder().limit(100).interval(60000).subWindows(10).build();
+
+		String encoded = ContextCodecs.slidingWindowCodec().encode(context);
+		Assertions.assertEquals("S1,1,100,60000,10", encoded);
+
+		SlidingWindowRateLimitContext decoded = ContextCodecs.slidingWindowCodec().decode(CONTEXT_KEY, encoded);
+		Assertions.assertEquals(CONTEXT_KEY, decoded.getContextKey());
+		Assertions.assertEquals(100, decoded.getLimit());
+		Assertions.assertEquals(60000, decoded.getInterval());
+		Assertions.assertEquals(10, decoded.getSubWindows());
+		Assertions.assertThrows(IllegalArgumentException.class, () -> ContextCodecs.slidingWindowCodec().decode(CONTEXT_KEY, "S1,1,100,60000,0"));
+	}
+
+	@Test
+	public void testSlidingLogContextRoundTrip() {
+		SlidingLogRateLimitContext context = SlidingLogRateLimitContext.builder().limit(100).interval(86400000).build();
+
+		String encoded = ContextCodecs.slidingLogCodec().encode(context);
+		Assertions.assertEquals("L1,1,100,86400000", encoded);
+
+		SlidingLogRateLimitContext decoded = ContextCodecs.slidingLogCodec().decode(CONTEXT_KEY, encoded);
+		Assertions.assertEquals(CONTEXT_KEY, decoded.getContextKey());
+		Assertions.assertEquals(100, decoded.getLimit());
+		Assertions.assertEquals(86400000, decoded.getInterval());
+	}
+
+	@Test
+	public void testForeignValuesAreRejected() {
+		Assertions.assertThrows(IllegalArgumentException.class, () -> ContextCodecs.burstableCodec().decode(CONTEXT_KEY, "A1,1,5,60000"));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> ContextCodecs.burstableCodec().decode(CONTEXT_KEY, "B1,1,10"));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> ContextCodecs.burstableCodec().decode(CONTEXT_KEY, "B1,yes,10,20"));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> ContextCodecs.atomicCodec().decode(CONTEXT_KEY, null));
+	}
+}
@@ -0,0 +1,173 @@
+package com.calebjonasson.ratelimiter.core.executor;
+
+import com.calebjonasson.ratelimiter.core.common.exception.RateLimitExceededException;
+import com.calebjonasson.ratelimiter.core.limiter.ReservingRateLimiter;
+import com.calebjonasson.ratelimiter.core.request.ContextStateRateLimitRequest;
+import com.calebjonasson.ratelimiter.core.response.RateLimitDecision;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class RateLimitedExecutorServiceTest {
+
+	private static final String CONTEXT_KEY = "partner-api";
+
+	private static final long FAST = TimeUnit.MILLISECONDS.toNanos(50);
+
+	private static final long SLOW = TimeUnit.SECONDS.toNanos(10);
+
+	@Test
+	public void testTasksAreReleasedAtTheRate() throws InterruptedException {
+		PacingLimiter pacing = new PacingLimiter();
+		RateLimitedExecutorService executor = newExecutor(pacing, new RateLimitedExecutorConfiguration());
+
+		List<Long> released = new CopyOnWriteArrayList<>();
+		for(int x = 0; x < 6; x++) {
+			executor.execute(() -> released.add(System.nanoTime()));
+		}
+		executor.shutdown();
+		Assertions.assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+		Assertions.assertEquals(6, released.size());
+		// Compared with the time each permit was reserved for, a task that ran late must not make the next one look early.
+		Assertions.assertEquals(6, pacing.due.size());
+		for(int x = 0; x < released.size(); x++) {
+			long early = pacing.due.get(x) - released.get(x);
+			Assertions.assertTrue(early <= 0, "released " + early + " nanos early");
+		}
+		Assertions.assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> { }));
+	}
+
+	@Test
+	public void testSlowKeysDoNotHoldBackOtherKeys() throws InterruptedException {
+		RateLimitedExecutorService executor = newExecutor(new PacingLimiter(), new RateLimitedExecutorConfiguration());
+
+		AtomicInteger slow = new AtomicInteger();
+		CountDownLatch fast = new CountDownLatch(5);
+		for(int x = 0; x < 3; x++) {
+			executor.execute("slow", slow::incrementAndGet);
+		}
+		for(int x = 0; x < 5; x++) {
+			executor.execute("fast", fast::countDown);
+		}
+
+		Assertions.assertTrue(fast.await(5, TimeUnit.SECONDS));
+		Assertions.assertEquals(1, slow.get());
+		Assertions.assertEquals(2, executor.shutdownNow().size());
+	}
+
+	@Test
+	public void testFullQueuesApplyTheRejectionPolicy() {
+		RateLimitedExecutorConfiguration configuration = new RateLimitedExecutorConfiguration();
+		configuration.setQueueCapacity(2);
+		RateLimitedExecutorService executor = newExecutor(new PacingLimiter(), configuration);
+
+		// The first task is released right away, the next two fill the queue.
+		for(int x = 0; x < 3; x++) {
+			executor.execute("slow", () -> { });
+		}
+		Assertions.assertThrows(RejectedExecutionException.class, () -> executor.execute("slow", () -> { }));
+		Assertions.assertEquals(2, executor.getQueuedTasks());
+		executor.shutdownNow();
+
+		configuration.setRejectionPolicy(RejectionPolicy.DISCARD_OLDEST);
+		RateLimitedExecutorService discarding = newExecutor(new PacingLimiter(), configuration);
+		Runnable newest = () -> { };
+		for(int x = 0; x < 4; x++) {
+			discarding.execute("slow", () -> { });
+		}
+		discarding.execute("slow", newest);
+		List<Runnable> remaining = discarding.shutdownNow();
+		Assertions.assertEquals(2, remaining.size());
+		Assertions.assertSame(newest, remaining.get(1));
+	}
+
+	@Test
+	public void testDeniedKeysAreRetried() throws InterruptedException {
+		RateLimitedExecutorConfiguration configuration = new RateLimitedExecutorConfiguration();
+		configuration.setRetryDelay(20);
+		AtomicInteger denials = new AtomicInteger(3);
+		PacingLimiter pacing = new PacingLimiter();
+		ReservingRateLimiter limiter = (request, maxWaitNanos, decision) -> denials.getAndDecrement() > 0
+				? decision.reset().deny(null, RateLimitDecision.RETRY_AFTER_UNKNOWN)
+				: pacing.reserve(request, maxWaitNanos, decision);
+		RateLimitedExecutorService executor = newExecutor(limiter, configuration);
+
+		CountDownLatch ran = new CountDownLatch(1);
+		executor.execute(ran::countDown);
+		Assertions.assertTrue(ran.await(5, TimeUnit.SECONDS));
+		Assertions.assertTrue(denials.get() < 0);
+		executor.shutdown();
+	}
+
+	@Test
+	public void testTasksThatCanNeverBeAdmittedAreFailed() throws InterruptedException {
+		ReservingRateLimiter limiter = (request, maxWaitNanos, decision) ->
+				decision.reset().deny(null, RateLimitDecision.RETRY_AFTER_NEVER);
+		RateLimitedExecutorService executor = newExecutor(limiter, new RateLimitedExecutorConfiguration());
+
+		Future<String> future = executor.submit("fast", () -> "ran");
+		ExecutionException e = Assertions.assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+		Assertions.assertTrue(e.getCause() instanceof RateLimitExceededException);
+
+		executor.shutdown();
+		Assertions.assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testTasksRejectedByTheDelegateAreFailed() throws InterruptedException {
+		ExecutorService delegate = Executors.newSingleThreadExecutor();
+		RateLimitedExecutorService executor = new RateLimitedExecutorService(
+				new PacingLimiter(), CONTEXT_KEY, "fast", delegate, new RateLimitedExecutorConfiguration());
+		// Shut down by its owner, eg: on application shutdown.
+		delegate.shutdown();
+
+		Future<String> future = executor.submit("fast", () -> "ran");
+		ExecutionException e = Assertions.assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+		Assertions.assertTrue(e.getCause() instanceof RejectedExecutionException);
+		executor.shutdown();
+	}
+
+	private static RateLimitedExecutorService newExecutor(ReservingRateLimiter limiter, RateLimitedExecutorConfiguration configuration) {
+		return new RateLimitedExecutorService(limiter, CONTEXT_KEY, "fast", Executors.newFixedThreadPool(2), configuration);
+	}
+
+	/**
+	 * Spaces the permits of each key evenly, a permit every 50ms for "fast" and every 10s for "slow".
+	 */
+	private static class PacingLimiter implements ReservingRateLimiter {
+
+		private final Map<String, Long> next = new ConcurrentHashMap<>();
+
+		/**
+		 * The nano time each reserved permit is due at, in the order they were reserved.
+		 */
+		private final List<Long> due = new CopyOnWriteArrayList<>();
+
+		@Override
+		public synchronized RateLimitDecision reserve(ContextStateRateLimitRequest request, long maxWaitNanos,
+				RateLimitDecision decision) {
+			long now = System.nanoTime();
+			long due = Math.max(now, this.next.getOrDefault(request.getStateKey(), now));
+			decision.reset();
+			if(due - now > maxWaitNanos) {
+				return decision.deny(null, TimeUnit.NANOSECONDS.toMillis(due - now));
+			}
+			this.next.put(request.getStateKey(), due + ("slow".equals(request.getStateKey()) ? SLOW : FAST));
+			this.due.add(due);
+			return decision.reserve(null, 0, due - now);
+		}
+	}
+}
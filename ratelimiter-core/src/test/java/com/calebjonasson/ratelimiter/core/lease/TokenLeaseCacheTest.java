@@ -0,0 +1,193 @@
+package com.calebjonasson.ratelimiter.core.lease;
+
+import com.calebjonasson.ratelimiter.core.common.exception.RateLimitException;
+import com.calebjonasson.ratelimiter.core.context.BurstableRateLimitContext;
+import com.calebjonasson.ratelimiter.core.response.RateLimitDecision;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class TokenLeaseCacheTest {
+
+	private static final String CONTEXT_KEY = "test-context-1";
+
+	private static final String STATE_KEY = "get:/api/users/v1/user/123827367254";
+
+	private static final long CAPACITY = 1000;
+
+	@Test
+	public void testClusterNeverAdmitsMoreThanTheSharedBucket() throws Exception {
+		SharedBucket bucket = new SharedBucket(CAPACITY);
+		LeaseConfiguration configuration = new LeaseConfiguration();
+		configuration.setMaxLeaseSize(16);
+		configuration.setLeaseTtl(60000);
+
+		// Four nodes with two threads each spend the shared bucket until every node is denied.
+		int nodes = 4;
+		List<TokenLeaseCache<BurstableRateLimitContext>> caches = new ArrayList<>();
+		for(int x = 0; x < nodes; x++) {
+			caches.add(new TokenLeaseCache<>(bucket, configuration));
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(nodes * 2);
+		List<Future<Long>> admitted = new ArrayList<>();
+		for(int x = 0; x < nodes * 2; x++) {
+			TokenLeaseCache<BurstableRateLimitContext> cache = caches.get(x % nodes);
+			admitted.add(executor.submit(() -> {
+				long count = 0;
+				int denied = 0;
+				while(denied < 10) {
+					if(cache.tryAcquire(context(), STATE_KEY, 1, new RateLimitDecision()).isAllowed()) {
+						count++;
+					} else {
+						denied++;
+					}
+				}
+				return count;
+			}));
+		}
+
+		long total = 0;
+		for(Future<Long> future : admitted) {
+			total += future.get(10, TimeUnit.SECONDS);
+		}
+		executor.shutdown();
+
+		long held = 0;
+		for(TokenLeaseCache<BurstableRateLimitContext> cache : caches) {
+			long leased = cache.getLeasedTokens(CONTEXT_KEY, STATE_KEY);
+			Assertions.assertTrue(leased <= configuration.getMaxLeaseSize(), "a node holds " + leased + " tokens");
+			held += leased;
+		}
+
+		// Every token handed out is either spent or still held by a node, the bound is the leases held.
+		Assertions.assertEquals(0, bucket.available.get());
+		Assertions.assertEquals(CAPACITY, total + held);
+		Assertions.assertTrue(held <= nodes * configuration.getMaxLeaseSize());
+	}
+
+	@Test
+	public void testLeaseSizeFollowsTheRequestRate() throws RateLimitException {
+		SharedBucket bucket = new SharedBucket(CAPACITY);
+		LeaseConfiguration configuration = new LeaseConfiguration();
+		configuration.setMaxLeaseSize(50);
+		TokenLeaseCache<BurstableRateLimitContext> cache = new TokenLeaseCache<>(bucket, configuration);
+
+		for(int x = 0; x < 500; x++) {
+			Assertions.assertTrue(cache.tryAcquire(context(), STATE_KEY, 1, new RateLimitDecision()).isAllowed());
+		}
+
+		// A busy state is served from leases so only a fraction of the requests reach the shared bucket.
+		Assertions.assertTrue(cache.getLeaseSize(CONTEXT_KEY, STATE_KEY) > configuration.getMinLeaseSize());
+		Assertions.assertTrue(cache.getRenewals() < 100, "renewals: " + cache.getRenewals());
+		Assertions.assertEquals(CAPACITY - 500, bucket.available.get() + cache.getLeasedTokens(CONTEXT_KEY, STATE_KEY));
+	}
+
+	@Test
+	public void testDeniedWithTheRetryAfterOfTheSharedBucket() throws RateLimitException {
+		SharedBucket bucket = new SharedBucket(3);
+		TokenLeaseCache<BurstableRateLimitContext> cache = new TokenLeaseCache<>(bucket, new LeaseConfiguration());
+
+		Assertions.assertTrue(cache.tryAcquire(context(), STATE_KEY, 2, new RateLimitDecision()).isAllowed());
+		RateLimitDecision decision = cache.tryAcquire(context(), STATE_KEY, 2, new RateLimitDecision());
+		Assertions.assertFalse(decision.isAllowed());
+		Assertions.assertEquals(RateLimitDecision.RETRY_AFTER_NEVER, decision.getRetryAfterMillis());
+
+		// The request that does not fit does not use up the token that is left.
+		Assertions.assertTrue(cache.tryAcquire(context(), STATE_KEY, 1, new RateLimitDecision()).isAllowed());
+	}
+
+	@Test
+	public void testExpiredLeasesAreDropped() throws Exception {
+		SharedBucket bucket = new SharedBucket(CAPACITY);
+		LeaseConfiguration configuration = new LeaseConfiguration();
+		configuration.setMinLeaseSize(10);
+		configuration.setLeaseTtl(20);
+		TokenLeaseCache<BurstableRateLimitContext> cache = new TokenLeaseCache<>(bucket, configuration);
+
+		Assertions.assertTrue(cache.tryAcquire(context(), STATE_KEY, 1, new RateLimitDecision()).isAllowed());
+		Assertions.assertEquals(9, cache.getLeasedTokens(CONTEXT_KEY, STATE_KEY));
+
+		Thread.sleep(40);
+		Assertions.assertEquals(0, cache.getLeasedTokens(CONTEXT_KEY, STATE_KEY));
+		cache.pruneExpiredLeases();
+		Assertions.assertEquals(configuration.getMinLeaseSize(), cache.getLeaseSize(CONTEXT_KEY, STATE_KEY));
+
+		// The dropped tokens are not given back to the shared bucket.
+		Assertions.assertEquals(CAPACITY - 10, bucket.available.get());
+	}
+
+	@Test
+	public void testIdleLeasesAreDroppedByNewStates() throws Exception {
+		// Large enough that every state is granted its leases.
+		SharedBucket bucket = new SharedBucket(CAPACITY * 1000);
+		LeaseConfiguration configuration = new LeaseConfiguration();
+		configuration.setLeaseTtl(500);
+		TokenLeaseCache<BurstableRateLimitContext> cache = new TokenLeaseCache<>(bucket, configuration);
+
+		for(int x = 0; x < 100; x++) {
+			Assertions.assertTrue(cache.tryAcquire(context(), "state-" + x, 1, new RateLimitDecision()).isAllowed());
+		}
+		Assertions.assertEquals(100, cache.size());
+
+		// Without a prune, the requests of new states drop the leases that expired.
+		Thread.sleep(600);
+		for(int x = 0; x < 50; x++) {
+			cache.tryAcquire(context(), "other-state-" + x, 1, new RateLimitDecision());
+		}
+		Assertions.assertTrue(cache.size() < 100, "leases " + cache.size());
+	}
+
+	@Test
+	public void testSourceFailuresAreRateLimitExceptions() {
+		TokenLeaseCache<BurstableRateLimitContext> cache = new TokenLeaseCache<>((context, stateKey, minimum, requested) -> {
+			CompletableFuture<LeaseGrant> failed = new CompletableFuture<>();
+			failed.completeExceptionally(new IllegalStateException("unreachable"));
+			return failed;
+		}, new LeaseConfiguration());
+
+		Assertions.assertThrows(RateLimitException.class, () -> cache.tryAcquire(context(), STATE_KEY, 1, new RateLimitDecision()));
+	}
+
+	private static BurstableRateLimitContext context() {
+		BurstableRateLimitContext context = BurstableRateLimitContext.builder().replenishRate(0).burstCapacity(CAPACITY).build();
+		context.setContextKey(CONTEXT_KEY);
+		return context;
+	}
+
+	/**
+	 * A shared bucket without a refill that grants its tokens on another thread like a remote store would.
+	 */
+	private static class SharedBucket implements TokenLeaseSource<BurstableRateLimitContext> {
+
+		private final AtomicLong available;
+
+		SharedBucket(long capacity) {
+			this.available = new AtomicLong(capacity);
+		}
+
+		@Override
+		public CompletableFuture<LeaseGrant> lease(BurstableRateLimitContext context, String stateKey, long minimum, long requested) {
+			return CompletableFuture.supplyAsync(() -> {
+				while(true) {
+					long current = this.available.get();
+					if(current < minimum) {
+						return new LeaseGrant(0, RateLimitDecision.RETRY_AFTER_NEVER);
+					}
+					long granted = Math.min(current, requested);
+					if(this.available.compareAndSet(current, current - granted)) {
+						return new LeaseGrant(granted, 0);
+					}
+				}
+			});
+		}
+	}
+}
@@ -0,0 +1,150 @@
+package com.calebjonasson.ratelimiter.core.limiter;
+
+import com.calebjonasson.ratelimiter.core.common.exception.RateLimitContextNotFoundException;
+import com.calebjonasson.ratelimiter.core.common.exception.RateLimitExceededException;
+import com.calebjonasson.ratelimiter.core.context.AbstractReactiveContextProvider;
+import com.calebjonasson.ratelimiter.core.context.AtomicRateLimitContext;
+import com.calebjonasson.ratelimiter.core.context.configuration.AtomicContextConfiguration;
+import com.calebjonasson.ratelimiter.core.context.configuration.ContextConfigurations;
+import com.calebjonasson.ratelimiter.core.context.ReactiveContextProvider;
+import com.calebjonasson.ratelimiter.core.request.ContextStateRateLimitRequest;
+import com.calebjonasson.ratelimiter.core.response.RateLimitDecision;
+import com.calebjonasson.ratelimiter.core.response.RateLimitHandleResponse;
+import com.calebjonasson.ratelimiter.core.state.AtomicRateLimitState;
+import com.calebjonasson.ratelimiter.core.type.strategy.AtomicRateLimiterTypeStrategy;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The chains run on reactor's parallel scheduler. Its threads are marked as non blocking so any call to block() within a
+ * chain fails the same way a blocking call detector would.
+ */
+public class AbstractReactiveRateLimiterTest {
+
+	private static final String CONTEXT_KEY = "test-context-1";
+
+	private static final String STATE_KEY = "get:/api/users/v1/user/123827367254";
+
+	private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+	@Test
+	public void testHandleOnNonBlockingThreads() {
+		CountingReactiveRateLimiter limiter = new CountingReactiveRateLimiter(new DelayedContextProvider(ContextConfigurations.atomicConfiguration(3, 60000)));
+
+		for(int x = 2; x >= 0; x--) {
+			RateLimitHandleResponse response = limiter.handle(ContextStateRateLimitRequest.of(CONTEXT_KEY, STATE_KEY))
+					.subscribeOn(Schedulers.parallel())
+					.block(TIMEOUT);
+			Assertions.assertEquals(x, response.getRemainingCapacity());
+		}
+
+		assertError(RateLimitExceededException.class, limiter.handle(ContextStateRateLimitRequest.of(CONTEXT_KEY, STATE_KEY)));
+		Assertions.assertFalse(limiter.tryAcquire(CONTEXT_KEY, STATE_KEY, 1).subscribeOn(Schedulers.parallel()).block(TIMEOUT).isAllowed());
+		Assertions.assertTrue(limiter.tryAcquire(CONTEXT_KEY, "another-state", 3).subscribeOn(Schedulers.parallel()).block(TIMEOUT).isAllowed());
+	}
+
+	@Test
+	public void testBlockingProviderIsDetected() {
+		DelayedContextProvider blockingProvider = new DelayedContextProvider(ContextConfigurations.atomicConfiguration(3, 60000)) {
+			@Override
+			protected Mono<AtomicRateLimitContext> getContextInternal(String contextKey) {
+				return Mono.fromCallable(() -> super.getContextInternal(contextKey).block());
+			}
+		};
+		CountingReactiveRateLimiter limiter = new CountingReactiveRateLimiter(blockingProvider);
+
+		assertError(IllegalStateException.class, limiter.handle(ContextStateRateLimitRequest.of(CONTEXT_KEY, STATE_KEY)));
+	}
+
+	@Test
+	public void testHandleDoesNotTakeTheLimiterMonitor() {
+		CountingReactiveRateLimiter limiter = new CountingReactiveRateLimiter(new DelayedContextProvider(ContextConfigurations.atomicConfiguration(3, 60000)));
+
+		// A limiter that synchronizes on itself would never complete while the monitor is held here.
+		synchronized (limiter) {
+			RateLimitHandleResponse response = limiter.handle(ContextStateRateLimitRequest.of(CONTEXT_KEY, STATE_KEY))
+					.subscribeOn(Schedulers.parallel())
+					.block(TIMEOUT);
+			Assertions.assertEquals(2, response.getRemainingCapacity());
+		}
+	}
+
+	@Test
+	public void testMissingContextAndInvalidPermits() {
+		CountingReactiveRateLimiter limiter = new CountingReactiveRateLimiter(new DelayedContextProvider(ContextConfigurations.atomicConfiguration(3, 60000, false)));
+
+		assertError(RateLimitContextNotFoundException.class, limiter.tryAcquire(CONTEXT_KEY, STATE_KEY, 1));
+		assertError(IllegalArgumentException.class, limiter.tryAcquire(CONTEXT_KEY, STATE_KEY, 0));
+	}
+
+	/**
+	 * Run a chain on the parallel scheduler and check that it fails with the expected error.
+	 */
+	private static void assertError(Class<? extends Throwable> expected, Mono<?> mono) {
+		Throwable error = mono.subscribeOn(Schedulers.parallel())
+				.then(Mono.<Throwable>empty())
+				.onErrorResume(Mono::just)
+				.block(TIMEOUT);
+		Assertions.assertNotNull(error, "expected " + expected.getSimpleName());
+		Assertions.assertTrue(expected.isInstance(error), "unexpected error: " + error);
+	}
+
+	/**
+	 * Loads contexts with a small delay so the chain completes on a timer thread like a network reply would.
+	 */
+	private static class DelayedContextProvider extends AbstractReactiveContextProvider<
+			AtomicRateLimiterTypeStrategy, AtomicRateLimitContext, AtomicContextConfiguration> {
+
+		DelayedContextProvider(AtomicContextConfiguration configuration) {
+			super(configuration);
+		}
+
+		@Override
+		protected Mono<AtomicRateLimitContext> getContextInternal(String contextKey) {
+			return Mono.delay(Duration.ofMillis(1)).flatMap(tick -> Mono.empty());
+		}
+
+		@Override
+		protected AtomicRateLimitContext createContext(String contextKey) {
+			return AtomicRateLimitContext.builder()
+					.limit(this.contextConfiguration.getLimit())
+					.interval(this.contextConfiguration.getInterval())
+					.build();
+		}
+	}
+
+	/**
+	 * Counts permits per state without a window, the counters are updated with a compare and set.
+	 */
+	private static class CountingReactiveRateLimiter extends AbstractReactiveRateLimiter<
+			AtomicRateLimiterTypeStrategy, AtomicRateLimitContext, AtomicRateLimitState> {
+
+		private final Map<String, AtomicLong> counts = new ConcurrentHashMap<>();
+
+		CountingReactiveRateLimiter(ReactiveContextProvider<AtomicRateLimiterTypeStrategy, AtomicRateLimitContext> contextProvider) {
+			super(contextProvider);
+		}
+
+		@Override
+		protected Mono<RateLimitDecision> decide(AtomicRateLimitContext context, String stateKey, long permits, RateLimitDecision decision) {
+			return Mono.delay(Duration.ofMillis(1)).map(tick -> {
+				AtomicLong count = this.counts.computeIfAbsent(stateKey, key -> new AtomicLong());
+				long current;
+				do {
+					current = count.get();
+					if(permits > context.getLimit() - current) {
+						return decision.deny(null, RateLimitDecision.RETRY_AFTER_NEVER);
+					}
+				} while(!count.compareAndSet(current, current + permits));
+				return decision.allow(null, context.getLimit() - current - permits);
+			});
+		}
+	}
+}
@@ -0,0 +1,92 @@
+package com.calebjonasson.ratelimiter.core.pipeline;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Compares the throughput of a single connection with and without pipelining against a stand in for redis that charges a
+ * fixed round trip per send and a small cost per command. Run with: mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+public class CommandPipelineBenchmarkTest {
+
+	private static final long ROUND_TRIP = TimeUnit.MICROSECONDS.toNanos(200);
+
+	private static final long COMMAND_COST = TimeUnit.MICROSECONDS.toNanos(1);
+
+	private static final int CALLERS = 64;
+
+	private static final long DURATION_MILLIS = 2000;
+
+	@Test
+	public void testThroughputPerConnection() throws InterruptedException {
+		// Without pipelining each call holds the connection for a full round trip.
+		StandIn direct = new StandIn();
+		long unpipelined = measure(() -> direct.send(1));
+		System.out.printf("%-20s %10d ops/s%n", "no pipelining", unpipelined * 1000 / DURATION_MILLIS);
+
+		long best = 0;
+		for(long linger : new long[] {0, 20, 100, 500}) {
+			PipelineConfiguration configuration = new PipelineConfiguration();
+			configuration.setLinger(linger);
+
+			StandIn standIn = new StandIn();
+			try(CommandPipeline<Integer, Integer> pipeline = new CommandPipeline<>(commands -> {
+				standIn.send(commands.size());
+				return commands;
+			}, configuration)) {
+				long operations = measure(() -> pipeline.submit(1).join());
+				best = Math.max(best, operations);
+				System.out.printf("%-20s %10d ops/s, %.1f commands per batch%n", "linger " + linger + "us",
+						operations * 1000 / DURATION_MILLIS, pipeline.getAverageBatchSize());
+			}
+		}
+
+		Assertions.assertTrue(best > unpipelined, "pipelining should raise the throughput of a connection");
+	}
+
+	/**
+	 * Run a call on every caller thread for the benchmark duration.
+	 */
+	private static long measure(Runnable call) throws InterruptedException {
+		AtomicLong total = new AtomicLong();
+		CountDownLatch done = new CountDownLatch(CALLERS);
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DURATION_MILLIS);
+
+		for(int t = 0; t < CALLERS; t++) {
+			Thread caller = new Thread(() -> {
+				long operations = 0;
+				while(System.nanoTime() < deadline) {
+					call.run();
+					operations++;
+				}
+				total.addAndGet(operations);
+				done.countDown();
+			});
+			caller.setDaemon(true);
+			caller.start();
+		}
+		done.await();
+		return total.get();
+	}
+
+	/**
+	 * A single redis connection: one send at a time, a round trip per send and a cost per command.
+	 */
+	private static final class StandIn {
+
+		synchronized void send(int commands) {
+			LockSupport.parkNanos(ROUND_TRIP);
+			long end = System.nanoTime() + commands * COMMAND_COST;
+			while(System.nanoTime() < end) {
+				// Busy wait, the connection is occupied while redis runs the commands.
+			}
+		}
+	}
+}
@@ -0,0 +1,94 @@
+package com.calebjonasson.ratelimiter.core.pipeline;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+public class CommandPipelineTest {
+
+	@Test
+	public void testRepliesAreMatchedToTheirCommands() throws Exception {
+		try(CommandPipeline<Integer, Integer> pipeline = new CommandPipeline<>(
+				commands -> commands.stream().map(command -> command * 2).collect(Collectors.toList()),
+				new PipelineConfiguration())) {
+
+			List<CompletableFuture<Integer>> replies = new ArrayList<>();
+			for(int x = 0; x < 1000; x++) {
+				replies.add(pipeline.submit(x));
+			}
+			for(int x = 0; x < 1000; x++) {
+				Assertions.assertEquals(x * 2, replies.get(x).get(5, TimeUnit.SECONDS));
+			}
+			Assertions.assertEquals(1000, pipeline.getCommands());
+		}
+	}
+
+	@Test
+	public void testCommandsQueuedDuringASendAreBatched() throws Exception {
+		CountDownLatch firstBatch = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+
+		PipelineConfiguration configuration = new PipelineConfiguration();
+		configuration.setMaxBatchSize(8);
+		configuration.setLinger(0);
+
+		try(CommandPipeline<Integer, Integer> pipeline = new CommandPipeline<>(commands -> {
+			batchSizes.add(commands.size());
+			firstBatch.countDown();
+			release.await();
+			return commands;
+		}, configuration)) {
+
+			List<CompletableFuture<Integer>> replies = new ArrayList<>();
+			replies.add(pipeline.submit(-1));
+			Assertions.assertTrue(firstBatch.await(5, TimeUnit.SECONDS));
+
+			// The first batch is in flight, everything submitted now waits for the next batches.
+			for(int x = 0; x < 20; x++) {
+				replies.add(pipeline.submit(x));
+			}
+			release.countDown();
+			for(CompletableFuture<Integer> reply : replies) {
+				reply.get(5, TimeUnit.SECONDS);
+			}
+		}
+
+		Assertions.assertEquals(1, (int) batchSizes.get(0));
+		Assertions.assertTrue(batchSizes.stream().allMatch(size -> size <= 8), batchSizes.toString());
+		Assertions.assertEquals(8, (int) batchSizes.get(1));
+		Assertions.assertEquals(21, batchSizes.stream().mapToInt(Integer::intValue).sum());
+	}
+
+	@Test
+	public void testTransportFailureFailsTheBatch() throws Exception {
+		try(CommandPipeline<Integer, Integer> pipeline = new CommandPipeline<>(commands -> {
+			throw new IllegalStateException("connection reset");
+		}, new PipelineConfiguration())) {
+
+			ExecutionException exception = Assertions.assertThrows(ExecutionException.class,
+					() -> pipeline.submit(1).get(5, TimeUnit.SECONDS));
+			Assertions.assertTrue(exception.getCause() instanceof IllegalStateException);
+		}
+	}
+
+	@Test
+	public void testClosedPipelineRejectsCommands() throws Exception {
+		CommandPipeline<Integer, Integer> pipeline = new CommandPipeline<>(commands -> commands, new PipelineConfiguration());
+		CompletableFuture<Integer> queued = pipeline.submit(1);
+		pipeline.close();
+
+		Assertions.assertEquals(1, (int) queued.get(5, TimeUnit.SECONDS));
+		ExecutionException exception = Assertions.assertThrows(ExecutionException.class, () -> pipeline.submit(2).get());
+		Assertions.assertTrue(exception.getCause() instanceof RejectedExecutionException);
+	}
+}
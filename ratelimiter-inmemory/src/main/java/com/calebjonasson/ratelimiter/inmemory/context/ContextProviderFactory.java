@@ -2,6 +2,9 @@ package com.calebjonasson.ratelimiter.inmemory.context;
 
 import com.calebjonasson.ratelimiter.core.context.configuration.AtomicContextConfiguration;
 import com.calebjonasson.ratelimiter.core.context.configuration.BurstableContextConfiguration;
+import com.calebjonasson.ratelimiter.core.context.configuration.GcraContextConfiguration;
+import com.calebjonasson.ratelimiter.core.context.configuration.SlidingLogContextConfiguration;
+import com.calebjonasson.ratelimiter.core.context.configuration.SlidingWindowContextConfiguration;
 
 /**
  * A static factory util class that will allow for the creation of an in memory context provider.
@@ -25,4 +28,31 @@ public class ContextProviderFactory {
 	public static BurstableInMemoryContextProvider burstableInMemoryContextProvider(BurstableContextConfiguration contextConfiguration) {
 		return new BurstableInMemoryContextProvider(contextConfiguration);
 	}
+
+	/**
+	 * Create a generic cell rate algorithm in memory context provider.
+	 * @param contextConfiguration The context configuration that will be used to create and modify context creation.
+	 * @return A new instance of the {@link GcraInMemoryContextProvider}
+	 */
+	public static GcraInMemoryContextProvider gcraInMemoryContextProvider(GcraContextConfiguration contextConfiguration) {
+		return new GcraInMemoryContextProvider(contextConfiguration);
+	}
+
+	/**
+	 * Create a sliding window in memory context provider.
+	 * @param contextConfiguration The context configuration that will be used to create and modify context creation.
+	 * @return A new instance of the {@link SlidingWindowInMemoryContextProvider}
+	 */
+	public static SlidingWindowInMemoryContextProvider slidingWindowInMemoryContextProvider(SlidingWindowContextConfiguration contextConfiguration) {
+		return new SlidingWindowInMemoryContextProvider(contextConfiguration);
+	}
+
+	/**
+	 * Create a sliding log in memory context provider.
+	 * @param contextConfiguration The context configuration that will be used to create and modify context creation.
+	 * @return A new instance of the {@link SlidingLogInMemoryContextProvider}
+	 */
+	public static SlidingLogInMemoryContextProvider slidingLogInMemoryContextProvider(SlidingLogContextConfiguration contextConfiguration) {
+		return new SlidingLogInMemoryContextProvider(contextConfiguration);
+	}
 }
\ No newline at end of file
@@ -0,0 +1,32 @@
+package com.calebjonasson.ratelimiter.inmemory.context;
+
+import com.calebjonasson.ratelimiter.core.context.GcraRateLimitContext;
+import com.calebjonasson.ratelimiter.core.context.configuration.GcraContextConfiguration;
+import com.calebjonasson.ratelimiter.core.type.strategy.GcraRateLimiterTypeStrategy;
+
+/**
+ * Concrete implementation of a generic cell rate algorithm version of the in memory context provider.
+ */
+public class GcraInMemoryContextProvider extends InMemoryContextProvider<
+		GcraRateLimiterTypeStrategy,
+		GcraRateLimitContext,
+		GcraContextConfiguration> {
+
+	/**
+	 * Constructor that takes a {@link GcraContextConfiguration}
+	 *
+	 * @param contextConfiguration The configuration used to create contexts.
+	 */
+	public GcraInMemoryContextProvider(GcraContextConfiguration contextConfiguration) {
+		super(contextConfiguration);
+	}
+
+	@Override
+	protected GcraRateLimitContext createContext(String contextKey) {
+		return GcraRateLimitContext.builder()
+				.limit(this.contextConfiguration.getLimit())
+				.interval(this.contextConfiguration.getInterval())
+				.burstCapacity(this.contextConfiguration.getBurstCapacity())
+				.build();
+	}
+}
@@ -1,14 +1,15 @@
 package com.calebjonasson.ratelimiter.inmemory.context;
 
+import com.calebjonasson.ratelimiter.core.common.exception.RateLimitContextNotFoundException;
 import com.calebjonasson.ratelimiter.core.context.AbstractContextProvider;
 import com.calebjonasson.ratelimiter.core.context.ContextProvider;
 import com.calebjonasson.ratelimiter.core.context.configuration.AbstractContextConfiguration;
 import com.calebjonasson.ratelimiter.core.model.context.RateLimitContext;
 import com.calebjonasson.ratelimiter.core.type.strategy.RateLimiterTypeStrategy;
 
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 /**
@@ -21,7 +22,10 @@ public abstract class InMemoryContextProvider<
 		>
 		extends AbstractContextProvider<TYPE, CONTEXT, CONFIGURATION> {
 
-	private Map<String, CONTEXT> contexts = new HashMap<>();
+	/**
+	 * The stored contexts. Concurrent so that lock free rate limiters can read while contexts are being added.
+	 */
+	private Map<String, CONTEXT> contexts = new ConcurrentHashMap<>();
 
 
 	/**
@@ -32,20 +36,33 @@ public abstract class InMemoryContextProvider<
 		super(contextConfiguration);
 	}
 
+	/**
+	 * Stored contexts are returned directly so the common case does not allocate. Contexts created for context keys
+	 * without a stored context are remembered, see {@link #getCreatedContext(String)}.
+	 * @param contextKey The context key that we are loading.
+	 * @return The Context if one is found, a new context if we setting is configured to do so. Otherwise exception.
+	 * @throws RateLimitContextNotFoundException Thrown if we are unable to find the context and unable to create a new one.
+	 */
+	@Override
+	public CONTEXT getContext(String contextKey) throws RateLimitContextNotFoundException {
+		CONTEXT context = this.contexts.get(contextKey);
+		return context != null ? context : this.getCreatedContext(contextKey);
+	}
+
 	@Override
 	protected Optional<CONTEXT> getContextInternal(String contextKey) {
-		if (this.contexts.containsKey(contextKey)) {
-			return Optional.of(this.contexts.get(contextKey));
-		}
-		return Optional.empty();
+		return Optional.ofNullable(this.contexts.get(contextKey));
 	}
 
 	/**
-	 * Add a context.
+	 * Add a context. It replaces the context that was created for the context key, if any. A context that does not carry
+	 * the context key is stored as a copy that does, so one context object can be added under several keys without them
+	 * sharing states.
 	 * @param contextKey The context key to be added to the map.
 	 * @param context The context that we are adding to the map.
 	 */
 	public void putContext(String contextKey, CONTEXT context) {
-		this.contexts.put(contextKey, context);
+		this.contexts.put(contextKey, withContextKey(context, contextKey));
+		this.createdContexts.invalidate(contextKey);
 	}
 }
\ No newline at end of file
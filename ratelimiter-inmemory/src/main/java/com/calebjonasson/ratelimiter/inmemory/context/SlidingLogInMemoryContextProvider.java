@@ -0,0 +1,31 @@
+package com.calebjonasson.ratelimiter.inmemory.context;
+
+import com.calebjonasson.ratelimiter.core.context.SlidingLogRateLimitContext;
+import com.calebjonasson.ratelimiter.core.context.configuration.SlidingLogContextConfiguration;
+import com.calebjonasson.ratelimiter.core.type.strategy.SlidingLogRateLimiterTypeStrategy;
+
+/**
+ * Concrete implementation of a sliding log version of the in memory context provider.
+ */
+public class SlidingLogInMemoryContextProvider extends InMemoryContextProvider<
+		SlidingLogRateLimiterTypeStrategy,
+		SlidingLogRateLimitContext,
+		SlidingLogContextConfiguration> {
+
+	/**
+	 * Constructor that takes a {@link SlidingLogContextConfiguration}
+	 *
+	 * @param contextConfiguration The configuration used to create contexts.
+	 */
+	public SlidingLogInMemoryContextProvider(SlidingLogContextConfiguration contextConfiguration) {
+		super(contextConfiguration);
+	}
+
+	@Override
+	protected SlidingLogRateLimitContext createContext(String contextKey) {
+		return SlidingLogRateLimitContext.builder()
+				.limit(this.contextConfiguration.getLimit())
+				.interval(this.contextConfiguration.getInterval())
+				.build();
+	}
+}
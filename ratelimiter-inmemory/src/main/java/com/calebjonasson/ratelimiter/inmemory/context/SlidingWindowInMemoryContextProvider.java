@@ -0,0 +1,32 @@
+package com.calebjonasson.ratelimiter.inmemory.context;
+
+import com.calebjonasson.ratelimiter.core.context.SlidingWindowRateLimitContext;
+import com.calebjonasson.ratelimiter.core.context.configuration.SlidingWindowContextConfiguration;
+import com.calebjonasson.ratelimiter.core.type.strategy.SlidingWindowRateLimiterTypeStrategy;
+
+/**
+ * Concrete implementation of a sliding window version of the in memory context provider.
+ */
+public class SlidingWindowInMemoryContextProvider extends InMemoryContextProvider<
+		SlidingWindowRateLimiterTypeStrategy,
+		SlidingWindowRateLimitContext,
+		SlidingWindowContextConfiguration> {
+
+	/**
+	 * Constructor that takes a {@link SlidingWindowContextConfiguration}
+	 *
+	 * @param contextConfiguration The configuration used to create contexts.
+	 */
+	public SlidingWindowInMemoryContextProvider(SlidingWindowContextConfiguration contextConfiguration) {
+		super(contextConfiguration);
+	}
+
+	@Override
+	protected SlidingWindowRateLimitContext createContext(String contextKey) {
+		return SlidingWindowRateLimitContext.builder()
+				.limit(this.contextConfiguration.getLimit())
+				.interval(this.contextConfiguration.getInterval())
+				.subWindows(this.contextConfiguration.getSubWindows())
+				.build();
+	}
+}
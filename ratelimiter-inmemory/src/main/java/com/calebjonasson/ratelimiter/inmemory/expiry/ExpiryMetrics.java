@@ -0,0 +1,85 @@
+package com.calebjonasson.ratelimiter.inmemory.expiry;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters describing the work done by a {@link StateExpirer}. Values are cumulative since the expirer was created.
+ */
+public class ExpiryMetrics {
+
+	private final AtomicLong passes = new AtomicLong();
+	private final AtomicLong sampled = new AtomicLong();
+	private final AtomicLong reclaimed = new AtomicLong();
+	private final AtomicLong totalPassNanos = new AtomicLong();
+	private final AtomicLong lastPassNanos = new AtomicLong();
+	private final AtomicLong maxPassNanos = new AtomicLong();
+
+	/**
+	 * Record a completed pass.
+	 * @param sampled The amount of states sampled during the pass.
+	 * @param reclaimed The amount of expired states removed during the pass.
+	 * @param nanos How long the pass took.
+	 */
+	void record(long sampled, long reclaimed, long nanos) {
+		this.passes.incrementAndGet();
+		this.sampled.addAndGet(sampled);
+		this.reclaimed.addAndGet(reclaimed);
+		this.totalPassNanos.addAndGet(nanos);
+		this.lastPassNanos.set(nanos);
+		this.maxPassNanos.accumulateAndGet(nanos, Math::max);
+	}
+
+	/**
+	 * @return The amount of passes that have run.
+	 */
+	public long getPasses() {
+		return this.passes.get();
+	}
+
+	/**
+	 * @return The amount of states that have been sampled.
+	 */
+	public long getSampled() {
+		return this.sampled.get();
+	}
+
+	/**
+	 * @return The amount of expired states that have been removed.
+	 */
+	public long getReclaimed() {
+		return this.reclaimed.get();
+	}
+
+	/**
+	 * @return The total time spent in passes in nanoseconds.
+	 */
+	public long getTotalPassNanos() {
+		return this.totalPassNanos.get();
+	}
+
+	/**
+	 * @return The duration of the most recent pass in nanoseconds.
+	 */
+	public long getLastPassNanos() {
+		return this.lastPassNanos.get();
+	}
+
+	/**
+	 * @return The duration of the longest pass in nanoseconds.
+	 */
+	public long getMaxPassNanos() {
+		return this.maxPassNanos.get();
+	}
+
+	@Override
+	public String toString() {
+		return "ExpiryMetrics{" +
+				"passes=" + getPasses() +
+				", sampled=" + getSampled() +
+				", reclaimed=" + getReclaimed() +
+				", totalPassNanos=" + getTotalPassNanos() +
+				", lastPassNanos=" + getLastPassNanos() +
+				", maxPassNanos=" + getMaxPassNanos() +
+				'}';
+	}
+}
@@ -0,0 +1,178 @@
+package com.calebjonasson.ratelimiter.inmemory.expiry;
+
+import com.calebjonasson.ratelimiter.core.model.state.RateLimitState;
+import com.calebjonasson.ratelimiter.core.type.strategy.RateLimiterTypeStrategy;
+import com.calebjonasson.ratelimiter.inmemory.limiter.InMemoryRateLimiter;
+import com.calebjonasson.ratelimiter.inmemory.store.StateStore;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Incrementally removes expired states from an {@link InMemoryRateLimiter} in the background.
+ *
+ * Each pass samples a small amount of states, removes the ones that have expired and keeps sampling while the ratio of
+ * expired states is above the acceptable percentage and the time budget has not been used up. The cost of a pass is
+ * bounded no matter how many states are stored so memory stays flat without a full sweep of the store. The table of
+ * each context is sampled on its own and at least once per pass, the time budget is shared by all of them.
+ *
+ * A store that is {@link StateStore#isIndexedByExpiry()}, eg: a
+ * {@link com.calebjonasson.ratelimiter.inmemory.store.TimingWheelStateStore}, already knows which states have expired, so
+ * each pass removes them directly instead of sampling.
+ *
+ * Limiters that report {@link InMemoryRateLimiter#isSelfPruning()} are never scheduled.
+ */
+public class StateExpirer {
+
+	/**
+	 * The limiter whose states are being expired.
+	 */
+	private final InMemoryRateLimiter<?, ?, ?> rateLimiter;
+
+	/**
+	 * The configuration of the expiry passes.
+	 */
+	private final StateExpirerConfiguration configuration;
+
+	/**
+	 * The scheduler the passes are run on.
+	 */
+	private final ScheduledExecutorService scheduler;
+
+	/**
+	 * The work done by this expirer.
+	 */
+	private final ExpiryMetrics metrics = new ExpiryMetrics();
+
+	/**
+	 * The scheduled passes, null if not started.
+	 */
+	private ScheduledFuture<?> scheduled;
+
+	/**
+	 * Create a new expirer. Call {@link #start()} to schedule the passes.
+	 * @param rateLimiter The limiter whose states are being expired.
+	 * @param configuration The configuration of the expiry passes.
+	 * @param scheduler The scheduler the passes are run on.
+	 */
+	public StateExpirer(final InMemoryRateLimiter<?, ?, ?> rateLimiter,
+			final StateExpirerConfiguration configuration,
+			final ScheduledExecutorService scheduler) {
+		this.rateLimiter = rateLimiter;
+		this.configuration = configuration;
+		this.scheduler = scheduler;
+	}
+
+	/**
+	 * Create and start an expirer on its own daemon thread.
+	 * @param rateLimiter The limiter whose states are being expired.
+	 * @param configuration The configuration of the expiry passes.
+	 * @return The started {@link StateExpirer}
+	 */
+	public static StateExpirer start(InMemoryRateLimiter<?, ?, ?> rateLimiter, StateExpirerConfiguration configuration) {
+		ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "ratelimiter-state-expirer");
+			thread.setDaemon(true);
+			return thread;
+		});
+		StateExpirer expirer = new StateExpirer(rateLimiter, configuration, scheduler);
+		expirer.start();
+		return expirer;
+	}
+
+	/**
+	 * Schedule the expiry passes at the configured interval.
+	 * @return true if the passes were scheduled, false if the limiter is self pruning or already started.
+	 */
+	public synchronized boolean start() {
+		if(this.rateLimiter.isSelfPruning() || this.scheduled != null) {
+			return false;
+		}
+
+		this.scheduled = this.scheduler.scheduleWithFixedDelay(this::runPass,
+				this.configuration.getInterval(), this.configuration.getInterval(), TimeUnit.MILLISECONDS);
+		return true;
+	}
+
+	/**
+	 * Stop scheduling passes. The scheduler itself is not shut down.
+	 */
+	public synchronized void stop() {
+		if(this.scheduled != null) {
+			this.scheduled.cancel(false);
+			this.scheduled = null;
+		}
+	}
+
+	/**
+	 * Run a single expiry pass.
+	 * @return The amount of expired states that were removed.
+	 */
+	public long runPass() {
+		return this.runPass(this.rateLimiter);
+	}
+
+	private <TYPE extends RateLimiterTypeStrategy, STATE extends RateLimitState<TYPE>> long runPass(
+			InMemoryRateLimiter<TYPE, ?, STATE> rateLimiter) {
+		long start = System.nanoTime();
+		long deadline = start + TimeUnit.MILLISECONDS.toNanos(this.configuration.getTimeBudget());
+		long now = System.currentTimeMillis();
+		long[] counts = new long[2];
+
+		rateLimiter.getStateStore().forEachTable((contextKey, states) -> this.expire(rateLimiter, states, now, deadline, counts));
+
+		this.metrics.record(counts[0], counts[1], System.nanoTime() - start);
+		return counts[1];
+	}
+
+	/**
+	 * Expire the states of a single context table.
+	 * @param rateLimiter The limiter that owns the states.
+	 * @param states The state table of a context.
+	 * @param now The current epoch millis.
+	 * @param deadline The nano time at which the pass stops sampling.
+	 * @param counts The amount of states sampled and removed so far, updated in place.
+	 */
+	private <TYPE extends RateLimiterTypeStrategy, STATE extends RateLimitState<TYPE>> void expire(
+			InMemoryRateLimiter<TYPE, ?, STATE> rateLimiter, StateStore<STATE> states, long now, long deadline, long[] counts) {
+		if(states.isIndexedByExpiry()) {
+			// Indexed stores only visit expired states so the whole table can be expired at once.
+			int removed = states.removeExpired(now, state -> rateLimiter.isExpired(state, now));
+			counts[0] += removed;
+			counts[1] += removed;
+			return;
+		}
+
+		while(true) {
+			long roundExpired = counts[1];
+			int sampled = states.sample(this.configuration.getSampleSize(), (stateKey, state) -> {
+				if(rateLimiter.isExpired(state, now) && states.remove(stateKey, state)) {
+					counts[1]++;
+				}
+			});
+			counts[0] += sampled;
+			roundExpired = counts[1] - roundExpired;
+
+			boolean mostlyLive = roundExpired * 100 <= (long) sampled * this.configuration.getAcceptableExpiredPercent();
+			if(sampled == 0 || mostlyLive || System.nanoTime() >= deadline) {
+				break;
+			}
+		}
+	}
+
+	/**
+	 * @return The work done by this expirer.
+	 */
+	public ExpiryMetrics getMetrics() {
+		return this.metrics;
+	}
+
+	/**
+	 * @return The configuration of the expiry passes.
+	 */
+	public StateExpirerConfiguration getConfiguration() {
+		return this.configuration;
+	}
+}
@@ -0,0 +1,53 @@
+package com.calebjonasson.ratelimiter.inmemory.expiry;
+
+import lombok.Data;
+
+/**
+ * Configuration for a {@link StateExpirer}.
+ *
+ * The defaults mirror the active expire cycle used by Redis: sample 20 states at a time and keep sampling while more than
+ * 25% of the sample had expired, bounded by a time budget per pass.
+ */
+@Data
+public class StateExpirerConfiguration {
+
+	/**
+	 * The default time between expiry passes in milliseconds.
+	 */
+	public static final long DEFAULT_INTERVAL = 100;
+
+	/**
+	 * The default amount of states sampled per round.
+	 */
+	public static final int DEFAULT_SAMPLE_SIZE = 20;
+
+	/**
+	 * The default percentage of expired states in a sample that causes another round within the same pass.
+	 */
+	public static final int DEFAULT_ACCEPTABLE_EXPIRED_PERCENT = 25;
+
+	/**
+	 * The default maximum time a single pass may run for in milliseconds.
+	 */
+	public static final long DEFAULT_TIME_BUDGET = 5;
+
+	/**
+	 * The time between expiry passes in milliseconds.
+	 */
+	protected long interval = DEFAULT_INTERVAL;
+
+	/**
+	 * The amount of states sampled per round.
+	 */
+	protected int sampleSize = DEFAULT_SAMPLE_SIZE;
+
+	/**
+	 * When more than this percentage of a sample has expired another round is run within the same pass.
+	 */
+	protected int acceptableExpiredPercent = DEFAULT_ACCEPTABLE_EXPIRED_PERCENT;
+
+	/**
+	 * The maximum time a single pass may run for in milliseconds.
+	 */
+	protected long timeBudget = DEFAULT_TIME_BUDGET;
+}
@@ -1,17 +1,15 @@
 package com.calebjonasson.ratelimiter.inmemory.limiter;
 
 
-import com.calebjonasson.ratelimiter.core.common.exception.RateLimitExceededException;
 import com.calebjonasson.ratelimiter.core.context.AtomicRateLimitContext;
 import com.calebjonasson.ratelimiter.core.context.ContextProvider;
 import com.calebjonasson.ratelimiter.core.model.context.AbstractRateLimitContext;
-import com.calebjonasson.ratelimiter.core.response.RateLimitHandleResponse;
+import com.calebjonasson.ratelimiter.core.response.RateLimitDecision;
 import com.calebjonasson.ratelimiter.core.state.AtomicRateLimitState;
 import com.calebjonasson.ratelimiter.core.type.strategy.AtomicRateLimiterTypeStrategy;
+import com.calebjonasson.ratelimiter.inmemory.store.ContextStateStore;
 
 import java.util.Date;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -19,14 +17,6 @@ import java.util.Optional;
  */
 public class AtomicInMemoryRateLimiter
 		extends InMemoryRateLimiter<AtomicRateLimiterTypeStrategy, AtomicRateLimitContext, AtomicRateLimitState> {
-
-
-	/**
-	 * The concrete states that are being held in the rate limiter.
-	 * TODO: Swap this out to a linkedHashMap using an LRUCache data structure.
-	 */
-	private Map<String, AtomicRateLimitState> states = new HashMap<>();
-
 	/**
 	 * Create a new In memory ratelimiter
 	 *
@@ -36,35 +26,53 @@ public class AtomicInMemoryRateLimiter
 		super(contextProvider);
 	}
 
+	/**
+	 * Create a new In memory ratelimiter with a custom state store.
+	 *
+	 * @param contextProvider The context data access to be used by the rate limiter.
+	 * @param states The store that will hold the rate limit states of each context.
+	 */
+	public AtomicInMemoryRateLimiter(final ContextProvider<AtomicRateLimiterTypeStrategy, AtomicRateLimitContext> contextProvider,
+			final ContextStateStore<AtomicRateLimitState> states) {
+		super(contextProvider, states);
+	}
+
 	@Override
-	protected RateLimitHandleResponse internalIncrement(AtomicRateLimitContext context, String stateKey, AtomicRateLimitState state)
-			throws RateLimitExceededException {
+	protected RateLimitDecision decide(AtomicRateLimitContext context, String stateKey, long permits,
+			AtomicRateLimitState state, RateLimitDecision decision) {
 
 		// Check to see if the current state has expired.
-		if(state.getExpires().getTime() <= System.currentTimeMillis()) {
+		long now = System.currentTimeMillis();
+		if(state.getExpires().getTime() <= now) {
 			state = this.createRateLimitState(context);
 		}
 
 		// Update the states atomic count in memory.
-		if(context.getLimit() > 0 && state.getCount() < context.getLimit()) {
-			state.setCount(state.getCount() + 1);
+		if(permits <= context.getLimit() - state.getCount()) {
+			state.setCount(state.getCount() + permits);
 		}else {
-			throw new RateLimitExceededException(context, state, "The context does not have a limit greater than 0 or exceeds the context limit.");
+			// The context does not have room for the permits, a window never holds more than the limit.
+			long retryAfter = permits <= context.getLimit() ? state.getExpires().getTime() - now : RateLimitDecision.RETRY_AFTER_NEVER;
+			return decision.deny(state, retryAfter);
 		}
 
-		return RateLimitHandleResponse.of(this.states.put(stateKey, state));
+		this.table(context).put(stateKey, state);
+		return decision.allow(state, context.getLimit() - state.getCount());
 	}
 
 	@Override
-	protected void pruneExpiredStates() {
+	public boolean isExpired(AtomicRateLimitState state, long now) {
+		return expiresAt(state) <= now;
+	}
 
-		// This can be improved upon. There are some heavy assumptions.
-		for (Map.Entry<String, AtomicRateLimitState> entry : this.states.entrySet()) {
-			Long now = System.currentTimeMillis();
-			if(entry.getValue().getExpires().getTime() < now) {
-				this.states.remove(entry.getKey());
-			}
-		}
+	/**
+	 * Find when an atomic state expires, eg: to index states with a
+	 * {@link com.calebjonasson.ratelimiter.inmemory.store.TimingWheelStateStore}
+	 * @param state The state we are checking.
+	 * @return The epoch millis at which the window of the state ends, {@link Long#MIN_VALUE} if it has no window.
+	 */
+	public static long expiresAt(AtomicRateLimitState state) {
+		return state.getExpires() == null ? Long.MIN_VALUE : state.getExpires().getTime();
 	}
 
 	/**
@@ -95,9 +103,6 @@ public class AtomicInMemoryRateLimiter
 
 	@Override
 	public Optional<AtomicRateLimitState> getRateLimitState(AbstractRateLimitContext context, String stateKey) {
-		if(this.states != null && this.states.containsKey(stateKey)) {
-			return Optional.of(this.states.get(stateKey));
-		}
-		return Optional.empty();
+		return Optional.ofNullable(this.states.get(context.getContextKey(), stateKey));
 	}
 }
\ No newline at end of file
@@ -1,28 +1,27 @@
 package com.calebjonasson.ratelimiter.inmemory.limiter;
 
-import com.calebjonasson.ratelimiter.core.common.exception.RateLimitExceededException;
-import com.calebjonasson.ratelimiter.core.common.exception.RateLimitException;
 import com.calebjonasson.ratelimiter.core.context.BurstableRateLimitContext;
 import com.calebjonasson.ratelimiter.core.context.ContextProvider;
 import com.calebjonasson.ratelimiter.core.context.configuration.BurstableContextConfiguration;
 import com.calebjonasson.ratelimiter.core.model.context.AbstractRateLimitContext;
-import com.calebjonasson.ratelimiter.core.response.RateLimitHandleResponse;
+import com.calebjonasson.ratelimiter.core.response.RateLimitDecision;
 import com.calebjonasson.ratelimiter.core.state.BurstableRateLimitState;
 import com.calebjonasson.ratelimiter.core.type.strategy.BurstableRateLimiterTypeStrategy;
+import com.calebjonasson.ratelimiter.inmemory.store.ContextStateStore;
+import com.calebjonasson.ratelimiter.inmemory.store.StateStore;
 
-import java.util.LinkedHashMap;
-import java.util.Map;
 import java.util.Optional;
 
 /**
  * This class is a concrete implementation of a burstable ratelimiter.
  *
+ * States are refilled and consumed in place while holding their monitor. A state that is found to be expired while
+ * pruning is marked as discarded under the same monitor before it is removed, a request that observes a discarded state
+ * continues on a new one so a bucket that was just charged is never dropped.
  */
 public class BurstableInMemoryRateLimiter
 		extends InMemoryRateLimiter<BurstableRateLimiterTypeStrategy, BurstableRateLimitContext, BurstableRateLimitState> {
 
-	private Map<String, BurstableRateLimitState> states = new LinkedHashMap<>();
-
 	/**
 	 * Create a new In memory ratelimiter
 	 *
@@ -32,6 +31,18 @@ public class BurstableInMemoryRateLimiter
 		super(contextProvider);
 	}
 
+	/**
+	 * Create a new In memory ratelimiter with a custom state store.
+	 *
+	 * @param contextProvider The context data access to be used by the rate limiter.
+	 * @param contextConfiguration The configuration used to create contexts.
+	 * @param states The store that will hold the rate limit states of each context.
+	 */
+	public BurstableInMemoryRateLimiter(ContextProvider contextProvider, BurstableContextConfiguration contextConfiguration,
+			ContextStateStore<BurstableRateLimitState> states) {
+		super(contextProvider, states);
+	}
+
 	/**
 	 * The main difference between the atomic and burstable is that the burstable finds it's capacity using a delta
 	 * between now and the ttl then will find how much space can be used.
@@ -39,16 +50,64 @@ public class BurstableInMemoryRateLimiter
 	 *
 	 * @param context The context that we are performing an internal atomic increment under.
 	 * @param stateKey The state key that we are updating.
+	 * @param permits The amount of tokens requested.
 	 * @param state The rate limit state that we are incrementing.
-	 * @return
-	 * @throws RateLimitException
+	 * @param decision The decision to fill.
+	 * @return The passed in decision.
 	 */
 	@Override
-	protected synchronized RateLimitHandleResponse internalIncrement(BurstableRateLimitContext context, String stateKey, BurstableRateLimitState state)
-			throws RateLimitException {
+	protected synchronized RateLimitDecision decide(BurstableRateLimitContext context, String stateKey, long permits,
+			BurstableRateLimitState state, RateLimitDecision decision) {
+
+		return this.consumeStored(this.table(context), context, stateKey, permits, state, decision);
+	}
+
+	/**
+	 * Refill and consume a state under its monitor and store it if the tokens were consumed. If the state has been
+	 * discarded by a concurrent prune the stored state, or a new state, is used instead. The caller is responsible for
+	 * making the lookup and store of the state atomic.
+	 * @param table The state table of the context.
+	 * @param context The context that holds the replenish rate and burst capacity.
+	 * @param stateKey The state key that we are updating.
+	 * @param permits The amount of tokens requested.
+	 * @param state The rate limit state observed or created by the caller.
+	 * @param decision The decision to fill.
+	 * @return The passed in decision.
+	 */
+	protected RateLimitDecision consumeStored(StateStore<BurstableRateLimitState> table, BurstableRateLimitContext context,
+			String stateKey, long permits, BurstableRateLimitState state, RateLimitDecision decision) {
+		BurstableRateLimitState current = state;
+		while(true) {
+			synchronized (current) {
+				if(!current.isDiscarded()) {
+					if(this.consume(context, current, permits, decision).isAllowed()) {
+						table.put(stateKey, current);
+					}
+					return decision;
+				}
+			}
+
+			// A discarded state is never stored again so the stored state is either newer or about to be removed.
+			current = table.get(stateKey);
+			if(current == null || current.isDiscarded()) {
+				current = this.createRateLimitState(context);
+			}
+		}
+	}
+
+	/**
+	 * Refill the bucket from the time elapsed since the last refresh and consume the requested tokens. The state is
+	 * only mutated when the tokens are consumed; the caller is responsible for making this atomic and storing the state.
+	 * @param context The context that holds the replenish rate and burst capacity.
+	 * @param state The rate limit state that we are consuming from.
+	 * @param requestTokenCount The amount of tokens requested.
+	 * @param decision The decision to fill, denied if the bucket does not hold enough tokens.
+	 * @return The passed in decision.
+	 */
+	protected RateLimitDecision consume(BurstableRateLimitContext context, BurstableRateLimitState state,
+			long requestTokenCount, RateLimitDecision decision) {
 
 		long now = System.currentTimeMillis();
-		long requestTokenCount = 1;
 
 		float fillTime = context.getReplenishRate() < 1 ? 0 : context.getBurstCapacity() / (context.getReplenishRate());
 		long ttl = (long)(fillTime * 2);
@@ -62,17 +121,33 @@ public class BurstableInMemoryRateLimiter
 		long fillTokens = Math.min(context.getBurstCapacity(), replenishTokens);
 
 		if(fillTokens < requestTokenCount) {
-			throw new RateLimitExceededException(context, state);
+			// Capacity only becomes available if the bucket can ever hold the requested tokens.
+			long retryAfter = context.getBurstCapacity() < requestTokenCount
+					? RateLimitDecision.RETRY_AFTER_NEVER
+					: this.replenishMillis(context, requestTokenCount - tokens);
+			return decision.deny(state, retryAfter == RateLimitDecision.RETRY_AFTER_NEVER ? retryAfter : Math.max(0, retryAfter - delta));
 		}
 
 		state.setTokens(fillTokens - requestTokenCount);
+		long replenishMillis = this.replenishMillis(context, context.getBurstCapacity() - state.getTokens());
+		state.setReplenishedAt(replenishMillis == Long.MAX_VALUE ? Long.MAX_VALUE : now + replenishMillis);
 		state.refresh();
 
-		// Update the state.
-		this.states.put(stateKey, state);
-		
-		// Return the new state.
-		return RateLimitHandleResponse.of(state);
+		return decision.allow(state, state.getTokens());
+	}
+
+	/**
+	 * Find how long it takes to replenish a number of tokens.
+	 * @param context The context that holds the replenish rate.
+	 * @param tokens The amount of tokens to replenish.
+	 * @return The time in milliseconds, or {@link Long#MAX_VALUE} if the tokens are never replenished.
+	 */
+	protected long replenishMillis(BurstableRateLimitContext context, long tokens) {
+		if(tokens <= 0) return 0;
+		if(context.getReplenishRate() < 1 || tokens > Long.MAX_VALUE / 1000) return Long.MAX_VALUE;
+		// Round up to match the rounding down of replenished tokens.
+		long millis = tokens * 1000;
+		return millis / context.getReplenishRate() + (millis % context.getReplenishRate() == 0 ? 0 : 1);
 	}
 
 	@Override
@@ -84,11 +159,6 @@ public class BurstableInMemoryRateLimiter
 		return state;
 	}
 
-	@Override
-	protected boolean isSelfPruning() {
-		return false;
-	}
-
 	@Override
 	protected boolean isValid(Optional<BurstableRateLimitState> burstableRateLimitState) {
 		return burstableRateLimitState != null && burstableRateLimitState.isPresent();
@@ -96,15 +166,36 @@ public class BurstableInMemoryRateLimiter
 
 	@Override
 	public Optional<BurstableRateLimitState> getRateLimitState(AbstractRateLimitContext context, String stateKey) {
-		if(this.states.containsKey(stateKey)) {
-			return Optional.of(this.states.get(stateKey));
-		}
-
-		return Optional.empty();
+		return Optional.ofNullable(this.states.get(context.getContextKey(), stateKey));
 	}
 
+	/**
+	 * Expired states are discarded as they are found so a request racing with the removal continues on a new state.
+	 * @param state The state we are checking.
+	 * @param now The current epoch millis.
+	 * @return true if the state has expired and was discarded.
+	 */
 	@Override
-	protected void pruneExpiredStates() {
+	public boolean isExpired(BurstableRateLimitState state, long now) {
+		synchronized (state) {
+			if(state.isDiscarded()) {
+				return true;
+			}
+			if(expiresAt(state) <= now) {
+				state.setDiscarded(true);
+				return true;
+			}
+			return false;
+		}
+	}
 
+	/**
+	 * Find when a burstable state expires, eg: to index states with a
+	 * {@link com.calebjonasson.ratelimiter.inmemory.store.TimingWheelStateStore}
+	 * @param state The state we are checking.
+	 * @return The epoch millis at which the bucket is full again and the state is equivalent to a new state.
+	 */
+	public static long expiresAt(BurstableRateLimitState state) {
+		return state.getReplenishedAt();
 	}
 }
\ No newline at end of file
@@ -0,0 +1,225 @@
+package com.calebjonasson.ratelimiter.inmemory.limiter;
+
+import com.calebjonasson.ratelimiter.core.common.exception.RateLimitException;
+import com.calebjonasson.ratelimiter.core.context.AtomicRateLimitContext;
+import com.calebjonasson.ratelimiter.core.context.ContextProvider;
+import com.calebjonasson.ratelimiter.core.limiter.AbstractRateLimiter;
+import com.calebjonasson.ratelimiter.core.model.context.AbstractRateLimitContext;
+import com.calebjonasson.ratelimiter.core.request.ContextStateRateLimitRequest;
+import com.calebjonasson.ratelimiter.core.response.RateLimitDecision;
+import com.calebjonasson.ratelimiter.core.response.RateLimitHandleResponse;
+import com.calebjonasson.ratelimiter.core.state.PrimitiveAtomicRateLimitState;
+import com.calebjonasson.ratelimiter.core.type.strategy.AtomicRateLimiterTypeStrategy;
+import com.calebjonasson.ratelimiter.inmemory.store.FingerprintStateTable;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A fixed window rate limiter with the same limits as the {@link PrimitiveAtomicInMemoryRateLimiter} that keeps the
+ * count and window of each key in a {@link FingerprintStateTable} instead of a state object per key.
+ *
+ * A key costs about 30 bytes in a table sized for the expected amount of keys, against about 70 bytes for a state
+ * object and its map entry plus the key string itself, which makes it suited to limiters tracking millions of keys, eg:
+ * per client ip. Keys are not stored, so states cannot be listed by key and two keys that share a fingerprint share a
+ * window, see {@link FingerprintStateTable} for the odds. Decisions do not carry a state;
+ * {@link #getRateLimitState(AbstractRateLimitContext, String)} returns a copy of the stored window.
+ */
+public class CompactAtomicInMemoryRateLimiter
+		extends AbstractRateLimiter<AtomicRateLimiterTypeStrategy, AtomicRateLimitContext, PrimitiveAtomicRateLimitState> {
+
+	/**
+	 * The amount of nanos in a millisecond, the unit of the retry after.
+	 */
+	private static final long NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+	/**
+	 * The counts and windows of every key, the timestamps being the epoch nanos at which the windows end.
+	 */
+	private final FingerprintStateTable table;
+
+	/**
+	 * Create a new compact in memory ratelimiter sized for the default amount of keys.
+	 *
+	 * @param contextProvider The context data access to be used by the rate limiter.
+	 */
+	public CompactAtomicInMemoryRateLimiter(final ContextProvider<AtomicRateLimiterTypeStrategy, AtomicRateLimitContext> contextProvider) {
+		this(contextProvider, new FingerprintStateTable());
+	}
+
+	/**
+	 * Create a new compact in memory ratelimiter with a custom table.
+	 *
+	 * @param contextProvider The context data access to be used by the rate limiter.
+	 * @param table The table holding the count and window of every key, eg: sized for the expected amount of keys.
+	 */
+	public CompactAtomicInMemoryRateLimiter(final ContextProvider<AtomicRateLimiterTypeStrategy, AtomicRateLimitContext> contextProvider,
+			final FingerprintStateTable table) {
+		super(contextProvider);
+		this.table = table;
+	}
+
+	/**
+	 * @return The table holding the count and window of every key.
+	 */
+	public FingerprintStateTable getTable() {
+		return this.table;
+	}
+
+	/**
+	 * Handle the request without taking the limiter wide monitor.
+	 * @param request The rate limit request we are looking to handle.
+	 * @return A {@link RateLimitHandleResponse} containing the available capacity.
+	 * @throws RateLimitException thrown if the rate limit is exceeded or another internal exception is thrown.
+	 */
+	@Override
+	public RateLimitHandleResponse handle(ContextStateRateLimitRequest request) throws RateLimitException {
+		return this.handleInternal(request);
+	}
+
+	/**
+	 * Handle a batch of requests without taking the limiter wide monitor.
+	 * @param requests The requests we are looking to handle.
+	 * @return A new {@link RateLimitDecision} per request in the iteration order of the requests.
+	 * @throws RateLimitException thrown if a context cannot be loaded or another internal exception is thrown.
+	 */
+	@Override
+	public List<RateLimitDecision> handleAll(Collection<ContextStateRateLimitRequest> requests) throws RateLimitException {
+		return this.handleAllInternal(requests);
+	}
+
+	/**
+	 * Acquire without taking the limiter wide monitor.
+	 * @param contextKey The context to use to group states under for configuration values.
+	 * @param stateKey The state we are grouping requests under.
+	 * @param permits The amount of permits to acquire, must be greater than 0.
+	 * @param decision The decision to reset and fill, owned by the caller.
+	 * @return The passed in decision.
+	 * @throws RateLimitException thrown if the context cannot be loaded.
+	 */
+	@Override
+	public RateLimitDecision tryAcquire(String contextKey, String stateKey, long permits, RateLimitDecision decision)
+			throws RateLimitException {
+		return this.tryAcquireInternal(contextKey, stateKey, permits, decision);
+	}
+
+	/**
+	 * The window is read and written in the table by {@link #decide} so it is not looked up up front.
+	 * @param context The context the request is handled under, null if it could not be loaded.
+	 * @param stateKey The state we are grouping requests under.
+	 * @param permits The amount of permits to acquire, must be greater than 0.
+	 * @param decision The decision to reset and fill.
+	 * @return The passed in decision.
+	 */
+	@Override
+	protected RateLimitDecision acquireInternal(AtomicRateLimitContext context, String stateKey, long permits,
+			RateLimitDecision decision) {
+		decision.reset().context(context);
+		if(!this.isContextEnable(context)) {
+			return decision.deny(null, RateLimitDecision.RETRY_AFTER_UNKNOWN);
+		}
+		return this.decide(context, stateKey, permits, null, decision);
+	}
+
+	/**
+	 * Count the permits against the window stored under the fingerprint of the key, starting a new window if it has
+	 * ended. The passed in state is ignored.
+	 * @param context The context that holds the limits.
+	 * @param stateKey The state key that we are updating.
+	 * @param permits The amount of permits requested.
+	 * @param state Ignored.
+	 * @param decision The decision to fill.
+	 * @return The passed in decision.
+	 */
+	@Override
+	protected RateLimitDecision decide(AtomicRateLimitContext context, String stateKey, long permits,
+			PrimitiveAtomicRateLimitState state, RateLimitDecision decision) {
+		long now = this.now();
+		long fingerprint = this.table.fingerprint(context.getContextKey(), stateKey);
+		FingerprintStateTable.Segment segment = this.table.segment(fingerprint);
+		segment.lock();
+		try {
+			int slot = segment.findOrInsert(fingerprint);
+			long count = segment.counter(slot);
+			long expiresAt = segment.timestamp(slot);
+
+			// Check to see if the current window has expired.
+			if(expiresAt <= now) {
+				count = 0;
+				expiresAt = now + TimeUnit.MILLISECONDS.toNanos(context.getInterval());
+			}
+
+			if(permits <= context.getLimit() - count) {
+				count += permits;
+				segment.set(slot, count, expiresAt);
+				return decision.allow(null, context.getLimit() - count);
+			}
+			segment.set(slot, count, expiresAt);
+
+			// Round up so a retry after the returned millis always lands in the next window.
+			long retryAfter = permits <= context.getLimit()
+					? (expiresAt - now + NANOS_PER_MILLI - 1) / NANOS_PER_MILLI
+					: RateLimitDecision.RETRY_AFTER_NEVER;
+			return decision.deny(null, retryAfter);
+		} finally {
+			segment.unlock();
+		}
+	}
+
+	@Override
+	protected PrimitiveAtomicRateLimitState createRateLimitState(AtomicRateLimitContext context) {
+		return new PrimitiveAtomicRateLimitState();
+	}
+
+	@Override
+	protected boolean isValid(Optional<PrimitiveAtomicRateLimitState> state) {
+		return state != null && state.isPresent();
+	}
+
+	/**
+	 * Copy the window stored for a key.
+	 * @param context The context of the state.
+	 * @param stateKey The state key of the state.
+	 * @return A copy of the window, or empty if none is stored.
+	 */
+	@Override
+	public Optional<PrimitiveAtomicRateLimitState> getRateLimitState(AbstractRateLimitContext context, String stateKey) {
+		long fingerprint = this.table.fingerprint(context.getContextKey(), stateKey);
+		FingerprintStateTable.Segment segment = this.table.segment(fingerprint);
+		segment.lock();
+		try {
+			int slot = segment.find(fingerprint);
+			if(slot < 0) {
+				return Optional.empty();
+			}
+			PrimitiveAtomicRateLimitState copy = new PrimitiveAtomicRateLimitState();
+			copy.setCount(segment.counter(slot));
+			copy.setExpiresAt(segment.timestamp(slot));
+			return Optional.of(copy);
+		} finally {
+			segment.unlock();
+		}
+	}
+
+	/**
+	 * Remove every key whose window has ended. This visits every slot of the table.
+	 */
+	@Override
+	public void pruneExpiredStates() {
+		this.table.removeExpired(this.now());
+	}
+
+	@Override
+	public boolean isSelfPruning() {
+		return false;
+	}
+
+	/**
+	 * @return The current epoch nanos.
+	 */
+	protected long now() {
+		return TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis());
+	}
+}
@@ -0,0 +1,164 @@
+package com.calebjonasson.ratelimiter.inmemory.limiter;
+
+import com.calebjonasson.ratelimiter.core.common.exception.RateLimitException;
+import com.calebjonasson.ratelimiter.core.context.AtomicRateLimitContext;
+import com.calebjonasson.ratelimiter.core.context.ContextProvider;
+import com.calebjonasson.ratelimiter.core.model.context.AbstractRateLimitContext;
+import com.calebjonasson.ratelimiter.core.request.ContextStateRateLimitRequest;
+import com.calebjonasson.ratelimiter.core.response.RateLimitDecision;
+import com.calebjonasson.ratelimiter.core.response.RateLimitHandleResponse;
+import com.calebjonasson.ratelimiter.core.state.AtomicRateLimitState;
+import com.calebjonasson.ratelimiter.core.type.strategy.AtomicRateLimiterTypeStrategy;
+import com.calebjonasson.ratelimiter.inmemory.store.ContextStateStore;
+import com.calebjonasson.ratelimiter.inmemory.store.StateStore;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * A lock free version of the {@link AtomicInMemoryRateLimiter}.
+ *
+ * States are stored per key in the {@link StateStore} of their context and are treated as immutable snapshots. A request will compare
+ * and set the next snapshot (a new window or an incremented count) against the snapshot it observed using
+ * {@link StateStore#replace(String, Object, Object)}. This means requests for unrelated state keys never block each
+ * other and there is no limiter wide monitor. A published snapshot is never mutated.
+ */
+public class ConcurrentAtomicInMemoryRateLimiter
+		extends InMemoryRateLimiter<AtomicRateLimiterTypeStrategy, AtomicRateLimitContext, AtomicRateLimitState> {
+
+	/**
+	 * Create a new concurrent in memory ratelimiter
+	 *
+	 * @param contextProvider The context data access to be used by the rate limiter.
+	 */
+	public ConcurrentAtomicInMemoryRateLimiter(final ContextProvider<AtomicRateLimiterTypeStrategy, AtomicRateLimitContext> contextProvider) {
+		super(contextProvider);
+	}
+
+	/**
+	 * Create a new concurrent in memory ratelimiter with a custom state store.
+	 *
+	 * @param contextProvider The context data access to be used by the rate limiter.
+	 * @param states The store that will hold the rate limit states of each context.
+	 */
+	public ConcurrentAtomicInMemoryRateLimiter(final ContextProvider<AtomicRateLimiterTypeStrategy, AtomicRateLimitContext> contextProvider,
+			final ContextStateStore<AtomicRateLimitState> states) {
+		super(contextProvider, states);
+	}
+
+	/**
+	 * Handle the request without taking the limiter wide monitor.
+	 * @param request The rate limit request we are looking to handle.
+	 * @return A {@link RateLimitHandleResponse} containing the state and available capacity.
+	 * @throws RateLimitException thrown if the rate limit is exceeded or another internal exception is thrown.
+	 */
+	@Override
+	public RateLimitHandleResponse handle(ContextStateRateLimitRequest request) throws RateLimitException {
+		return this.handleInternal(request);
+	}
+
+	/**
+	 * Handle a batch of requests without taking the limiter wide monitor.
+	 * @param requests The requests we are looking to handle.
+	 * @return A new {@link RateLimitDecision} per request in the iteration order of the requests.
+	 * @throws RateLimitException thrown if a context cannot be loaded or another internal exception is thrown.
+	 */
+	@Override
+	public List<RateLimitDecision> handleAll(Collection<ContextStateRateLimitRequest> requests) throws RateLimitException {
+		return this.handleAllInternal(requests);
+	}
+
+	/**
+	 * Acquire without taking the limiter wide monitor.
+	 * @param contextKey The context to use to group states under for configuration values.
+	 * @param stateKey The state we are grouping requests under.
+	 * @param permits The amount of permits to acquire, must be greater than 0.
+	 * @param decision The decision to reset and fill, owned by the caller.
+	 * @return The passed in decision.
+	 * @throws RateLimitException thrown if the context cannot be loaded or another internal exception is thrown.
+	 */
+	@Override
+	public RateLimitDecision tryAcquire(String contextKey, String stateKey, long permits, RateLimitDecision decision)
+			throws RateLimitException {
+		return this.tryAcquireInternal(contextKey, stateKey, permits, decision);
+	}
+
+	/**
+	 * The passed in state is only a hint. The increment is retried against the latest snapshot until the compare and
+	 * set succeeds or the limit is exceeded.
+	 *
+	 * @param context The context that we are performing an internal atomic increment under.
+	 * @param stateKey The state key that we are updating.
+	 * @param permits The amount of permits requested.
+	 * @param state The rate limit state that was observed by the caller.
+	 * @param decision The decision to fill with the new snapshot and the remaining capacity.
+	 * @return The passed in decision.
+	 */
+	@Override
+	protected RateLimitDecision decide(AtomicRateLimitContext context, String stateKey, long permits,
+			AtomicRateLimitState state, RateLimitDecision decision) {
+
+		if(permits > context.getLimit()) {
+			// The context can never hold the permits in a single window.
+			return decision.deny(state, RateLimitDecision.RETRY_AFTER_NEVER);
+		}
+
+		StateStore<AtomicRateLimitState> table = this.table(context);
+		while(true) {
+			AtomicRateLimitState current = table.get(stateKey);
+			long now = System.currentTimeMillis();
+
+			AtomicRateLimitState next;
+			if(current == null || current.getExpires().getTime() <= now) {
+				// The window has expired so we start a new one with this request as the first increment.
+				next = AtomicRateLimitState.builder()
+						.expires(new Date(now + context.getInterval()))
+						.count(permits)
+						.build();
+			} else if(permits <= context.getLimit() - current.getCount()) {
+				next = AtomicRateLimitState.builder()
+						.expires(current.getExpires())
+						.count(current.getCount() + permits)
+						.build();
+			} else {
+				// The context exceeds the context limit.
+				return decision.deny(current, current.getExpires().getTime() - now);
+			}
+
+			boolean swapped = current == null
+					? table.putIfAbsent(stateKey, next) == null
+					: table.replace(stateKey, current, next);
+
+			if(swapped) {
+				return decision.allow(next, context.getLimit() - next.getCount());
+			}
+		}
+	}
+
+	@Override
+	public boolean isExpired(AtomicRateLimitState state, long now) {
+		return AtomicInMemoryRateLimiter.expiresAt(state) <= now;
+	}
+
+	@Override
+	protected boolean isValid(Optional<AtomicRateLimitState> state) {
+		return state != null
+				&& state.isPresent()
+				&& state.get().getExpires() != null
+				&& state.get().getExpires().getTime() > System.currentTimeMillis();
+	}
+
+	@Override
+	protected AtomicRateLimitState createRateLimitState(AtomicRateLimitContext context) {
+		return AtomicRateLimitState.builder()
+				.expires(new Date(System.currentTimeMillis() + context.getInterval()))
+				.build();
+	}
+
+	@Override
+	public Optional<AtomicRateLimitState> getRateLimitState(AbstractRateLimitContext context, String stateKey) {
+		return Optional.ofNullable(this.states.get(context.getContextKey(), stateKey));
+	}
+}
@@ -0,0 +1,29 @@
+package com.calebjonasson.ratelimiter.inmemory.limiter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A monotonic clock of epoch nanos for the in memory rate limiters.
+ *
+ * The time is read from {@link System#nanoTime()} and moved onto the epoch by an offset to the wall clock that is taken
+ * once, when the class is loaded. It has nanosecond precision and never moves backwards, so wall clock adjustments after
+ * start are not followed. Times can be converted to epoch millis to be compared with the wall clock, eg: when pruning,
+ * and are off by at most the amount the wall clock has been adjusted since start.
+ */
+final class EpochNanoClock {
+
+	/**
+	 * The epoch nanos at a {@link System#nanoTime()} of 0.
+	 */
+	private static final long OFFSET = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis()) - System.nanoTime();
+
+	private EpochNanoClock() {
+	}
+
+	/**
+	 * @return The current epoch nanos.
+	 */
+	static long now() {
+		return OFFSET + System.nanoTime();
+	}
+}
@@ -0,0 +1,263 @@
+package com.calebjonasson.ratelimiter.inmemory.limiter;
+
+import com.calebjonasson.ratelimiter.core.common.exception.RateLimitException;
+import com.calebjonasson.ratelimiter.core.context.ContextProvider;
+import com.calebjonasson.ratelimiter.core.context.GcraRateLimitContext;
+import com.calebjonasson.ratelimiter.core.limiter.ReservingRateLimiter;
+import com.calebjonasson.ratelimiter.core.model.context.AbstractRateLimitContext;
+import com.calebjonasson.ratelimiter.core.request.ContextStateRateLimitRequest;
+import com.calebjonasson.ratelimiter.core.response.RateLimitDecision;
+import com.calebjonasson.ratelimiter.core.response.RateLimitHandleResponse;
+import com.calebjonasson.ratelimiter.core.state.GcraRateLimitState;
+import com.calebjonasson.ratelimiter.core.type.strategy.GcraRateLimiterTypeStrategy;
+import com.calebjonasson.ratelimiter.inmemory.store.ContextStateStore;
+import com.calebjonasson.ratelimiter.inmemory.store.StateStore;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A lock free generic cell rate algorithm rate limiter that admits the same requests as a token bucket with the same
+ * rate and capacity.
+ *
+ * Each key is a single {@link GcraRateLimitState#getTheoreticalArrivalTime()}, so a request is one compare and swap on
+ * the state of its key and updating an existing state never allocates. Requests for the same key that race retry
+ * against the time the winner swapped in; requests for different keys never touch the same memory.
+ *
+ * A state that is found to be expired while pruning is swapped to {@link GcraRateLimitState#DISCARDED} before it is
+ * removed. A request that observes a discarded state retries against a new one so an update is never lost to a
+ * concurrent prune.
+ *
+ * Permits can be reserved ahead of time, see {@link ReservingRateLimiter}: the theoretical arrival time is moved past
+ * the burst and the caller waits until it is back within it, which paces reserving callers exactly one emission
+ * interval apart.
+ */
+public class GcraInMemoryRateLimiter
+		extends InMemoryRateLimiter<GcraRateLimiterTypeStrategy, GcraRateLimitContext, GcraRateLimitState>
+		implements ReservingRateLimiter {
+
+	/**
+	 * The amount of nanos in a millisecond, the unit of the interval and the retry after.
+	 */
+	private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+	/**
+	 * Create a new generic cell rate algorithm in memory ratelimiter
+	 *
+	 * @param contextProvider The context data access to be used by the rate limiter.
+	 */
+	public GcraInMemoryRateLimiter(final ContextProvider<GcraRateLimiterTypeStrategy, GcraRateLimitContext> contextProvider) {
+		super(contextProvider);
+	}
+
+	/**
+	 * Create a new generic cell rate algorithm in memory ratelimiter with a custom state store.
+	 *
+	 * @param contextProvider The context data access to be used by the rate limiter.
+	 * @param states The store that will hold the rate limit states of each context.
+	 */
+	public GcraInMemoryRateLimiter(final ContextProvider<GcraRateLimiterTypeStrategy, GcraRateLimitContext> contextProvider,
+			final ContextStateStore<GcraRateLimitState> states) {
+		super(contextProvider, states);
+	}
+
+	/**
+	 * Handle the request without taking the limiter wide monitor.
+	 * @param request The rate limit request we are looking to handle.
+	 * @return A {@link RateLimitHandleResponse} containing the state and available capacity.
+	 * @throws RateLimitException thrown if the rate limit is exceeded or another internal exception is thrown.
+	 */
+	@Override
+	public RateLimitHandleResponse handle(ContextStateRateLimitRequest request) throws RateLimitException {
+		return this.handleInternal(request);
+	}
+
+	/**
+	 * Handle a batch of requests without taking the limiter wide monitor.
+	 * @param requests The requests we are looking to handle.
+	 * @return A new {@link RateLimitDecision} per request in the iteration order of the requests.
+	 * @throws RateLimitException thrown if a context cannot be loaded or another internal exception is thrown.
+	 */
+	@Override
+	public List<RateLimitDecision> handleAll(Collection<ContextStateRateLimitRequest> requests) throws RateLimitException {
+		return this.handleAllInternal(requests);
+	}
+
+	/**
+	 * Acquire without taking the limiter wide monitor.
+	 * @param contextKey The context to use to group states under for configuration values.
+	 * @param stateKey The state we are grouping requests under.
+	 * @param permits The amount of permits to acquire, must be greater than 0.
+	 * @param decision The decision to reset and fill, owned by the caller.
+	 * @return The passed in decision.
+	 * @throws RateLimitException thrown if the context cannot be loaded.
+	 */
+	@Override
+	public RateLimitDecision tryAcquire(String contextKey, String stateKey, long permits, RateLimitDecision decision)
+			throws RateLimitException {
+		return this.tryAcquireInternal(contextKey, stateKey, permits, decision);
+	}
+
+	/**
+	 * The state is loaded from the store by {@link #decide} so it is not looked up or created up front.
+	 * @param context The context the request is handled under, null if it could not be loaded.
+	 * @param stateKey The state we are grouping requests under.
+	 * @param permits The amount of permits to acquire, must be greater than 0.
+	 * @param decision The decision to reset and fill.
+	 * @return The passed in decision.
+	 */
+	@Override
+	protected RateLimitDecision acquireInternal(GcraRateLimitContext context, String stateKey, long permits,
+			RateLimitDecision decision) {
+		decision.reset().context(context);
+		if(!this.isContextEnable(context)) {
+			return decision.deny(null, RateLimitDecision.RETRY_AFTER_UNKNOWN);
+		}
+		return this.decide(context, stateKey, permits, null, decision);
+	}
+
+	/**
+	 * Reserve permits without taking the limiter wide monitor.
+	 * @param request The request holding the context, state and permits.
+	 * @param maxWaitNanos The longest the caller is willing to wait for the permits.
+	 * @param decision The decision to reset and fill, owned by the caller.
+	 * @return The passed in decision.
+	 * @throws RateLimitException thrown if the context cannot be loaded.
+	 */
+	@Override
+	public RateLimitDecision reserve(ContextStateRateLimitRequest request, long maxWaitNanos, RateLimitDecision decision)
+			throws RateLimitException {
+		GcraRateLimitContext context = this.getContextProvider().getContext(request.getContextKey());
+		decision.reset().context(context);
+		if(!this.isContextEnable(context)) {
+			return decision.deny(null, RateLimitDecision.RETRY_AFTER_UNKNOWN);
+		}
+		return this.update(context, request.getStateKey(), request.getPermits(), Math.max(0, maxWaitNanos), decision);
+	}
+
+	/**
+	 * Move the theoretical arrival time of the key forward by the permits, creating the state if needed. The passed in
+	 * state is ignored.
+	 * @param context The context that holds the limits.
+	 * @param stateKey The state key that we are updating.
+	 * @param permits The amount of permits requested.
+	 * @param state Ignored.
+	 * @param decision The decision to fill.
+	 * @return The passed in decision.
+	 */
+	@Override
+	protected RateLimitDecision decide(GcraRateLimitContext context, String stateKey, long permits,
+			GcraRateLimitState state, RateLimitDecision decision) {
+		return this.update(context, stateKey, permits, 0, decision);
+	}
+
+	/**
+	 * Move the theoretical arrival time of the key forward by the permits, creating the state if needed.
+	 * @param context The context that holds the limits.
+	 * @param stateKey The state key that we are updating.
+	 * @param permits The amount of permits requested.
+	 * @param maxWaitNanos How far past the burst the arrival time may be moved, the longest the caller is willing to
+	 *                     wait. 0 to only take permits within the burst.
+	 * @param decision The decision to fill.
+	 * @return The passed in decision.
+	 */
+	private RateLimitDecision update(GcraRateLimitContext context, String stateKey, long permits, long maxWaitNanos,
+			RateLimitDecision decision) {
+		if(context.getLimit() <= 0 || context.getInterval() <= 0 || permits > context.getBurstCapacity()) {
+			// The permits will never be emitted or can never be taken at once.
+			return decision.deny(null, RateLimitDecision.RETRY_AFTER_NEVER);
+		}
+
+		double emission = context.getInterval() * NANOS_PER_MILLI / context.getLimit();
+		long burst = (long) Math.ceil(context.getBurstCapacity() * emission);
+		long cost = (long) (permits * emission);
+
+		StateStore<GcraRateLimitState> table = this.table(context);
+		while(true) {
+			GcraRateLimitState current = table.get(stateKey);
+			if(current == null) {
+				GcraRateLimitState created = this.createRateLimitState(context);
+				current = table.putIfAbsent(stateKey, created);
+				if(current == null) {
+					current = created;
+				}
+			}
+
+			long arrival = current.getTheoreticalArrivalTime();
+			if(arrival == GcraRateLimitState.DISCARDED) {
+				// The state was discarded by a concurrent prune. Make sure it is gone and retry against a new state.
+				table.remove(stateKey, current);
+				continue;
+			}
+
+			// Read after the state so a state that was just created never starts past the current time.
+			long now = this.now();
+			long updated = Math.max(arrival, now) + cost;
+			long needed = updated - now;
+			long wait = needed - burst;
+			if(wait > maxWaitNanos) {
+				return decision.deny(current, (long) Math.ceil(wait / NANOS_PER_MILLI));
+			}
+			if(current.compareAndSet(arrival, updated)) {
+				return wait > 0 ? decision.reserve(current, 0, wait) : decision.allow(current, (long) ((burst - needed) / emission));
+			}
+		}
+	}
+
+	/**
+	 * Expired states are discarded as they are found so a request racing with the removal retries on a new state.
+	 * @param state The state we are checking.
+	 * @param now The current epoch millis.
+	 * @return true if the state has expired and was discarded.
+	 */
+	@Override
+	public boolean isExpired(GcraRateLimitState state, long now) {
+		long nowNanos = TimeUnit.MILLISECONDS.toNanos(now);
+		while(true) {
+			long arrival = state.getTheoreticalArrivalTime();
+			if(arrival == GcraRateLimitState.DISCARDED) {
+				return true;
+			}
+			if(arrival > nowNanos) {
+				return false;
+			}
+			if(state.compareAndSet(arrival, GcraRateLimitState.DISCARDED)) {
+				return true;
+			}
+		}
+	}
+
+	@Override
+	protected boolean isValid(Optional<GcraRateLimitState> state) {
+		return state != null && state.isPresent();
+	}
+
+	@Override
+	protected GcraRateLimitState createRateLimitState(GcraRateLimitContext context) {
+		return new GcraRateLimitState(this.now());
+	}
+
+	@Override
+	public Optional<GcraRateLimitState> getRateLimitState(AbstractRateLimitContext context, String stateKey) {
+		return Optional.ofNullable(this.states.get(context.getContextKey(), stateKey));
+	}
+
+	/**
+	 * Find when a generic cell rate algorithm state expires, eg: to index states with a
+	 * {@link com.calebjonasson.ratelimiter.inmemory.store.TimingWheelStateStore}
+	 * @param state The state we are checking.
+	 * @return The epoch millis at which the full burst is available again.
+	 */
+	public static long expiresAt(GcraRateLimitState state) {
+		return TimeUnit.NANOSECONDS.toMillis(state.getTheoreticalArrivalTime());
+	}
+
+	/**
+	 * @return The current epoch nanos from a monotonic clock with nanosecond precision, see {@link EpochNanoClock}.
+	 */
+	protected long now() {
+		return EpochNanoClock.now();
+	}
+}
@@ -5,6 +5,9 @@ import com.calebjonasson.ratelimiter.core.limiter.AbstractRateLimiter;
 import com.calebjonasson.ratelimiter.core.model.context.AbstractRateLimitContext;
 import com.calebjonasson.ratelimiter.core.model.state.RateLimitState;
 import com.calebjonasson.ratelimiter.core.type.strategy.RateLimiterTypeStrategy;
+import com.calebjonasson.ratelimiter.inmemory.store.ContextStateStore;
+import com.calebjonasson.ratelimiter.inmemory.store.StateStore;
+import com.calebjonasson.ratelimiter.inmemory.store.StateStoreFactory;
 
 
 /**
@@ -19,15 +22,65 @@ public abstract class InMemoryRateLimiter<
 		extends AbstractRateLimiter<TYPE, CONTEXT, STATE> {
 
 	/**
-	 * Initialize the class with a context provider and a context configuration.
+	 * The concrete states that are being held in the rate limiter, grouped by context so the same state key under two
+	 * contexts never shares a state.
+	 */
+	protected final ContextStateStore<STATE> states;
+
+	/**
+	 * Initialize the class with a context provider and an unbounded state table per context.
 	 * @param contextProvider The context provider we are looking to add to the rate limiter.
 	 */
 	public InMemoryRateLimiter(final ContextProvider<TYPE, CONTEXT> contextProvider) {
+		this(contextProvider, StateStoreFactory.perContext());
+	}
+
+	/**
+	 * Initialize the class with a context provider and a state store.
+	 * @param contextProvider The context provider we are looking to add to the rate limiter.
+	 * @param states The store that will hold the rate limit states of each context. eg: bounded tables to cap memory usage.
+	 */
+	public InMemoryRateLimiter(final ContextProvider<TYPE, CONTEXT> contextProvider, final ContextStateStore<STATE> states) {
 		super(contextProvider);
+		this.states = states;
+	}
+
+	/**
+	 * @return The store holding the rate limit states.
+	 */
+	public ContextStateStore<STATE> getStateStore() {
+		return this.states;
+	}
+
+	/**
+	 * Get the table holding the states of a context.
+	 * @param context The context of the request.
+	 * @return The state table of the context.
+	 */
+	protected StateStore<STATE> table(AbstractRateLimitContext<?> context) {
+		return this.states.table(context.getContextKey());
+	}
+
+	/**
+	 * Check to see if a stored state has expired and can be discarded.
+	 * @param state The state we are checking.
+	 * @param now The current epoch millis.
+	 * @return true if the state is equivalent to a new state and can be removed from the store.
+	 */
+	public abstract boolean isExpired(STATE state, long now);
+
+	/**
+	 * Remove every expired state from the store. Unless the store indexes states by expiry this visits every state;
+	 * prefer a {@link com.calebjonasson.ratelimiter.inmemory.expiry.StateExpirer} for large stores.
+	 */
+	@Override
+	public void pruneExpiredStates() {
+		long now = System.currentTimeMillis();
+		this.states.removeExpired(now, state -> this.isExpired(state, now));
 	}
 
 	@Override
-	protected boolean isSelfPruning() {
+	public boolean isSelfPruning() {
 		return false;
 	}
-}
\ No newline at end of file
+}
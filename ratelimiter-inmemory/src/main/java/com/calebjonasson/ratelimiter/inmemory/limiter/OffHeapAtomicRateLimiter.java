@@ -0,0 +1,74 @@
+package com.calebjonasson.ratelimiter.inmemory.limiter;
+
+import com.calebjonasson.ratelimiter.core.context.AtomicRateLimitContext;
+import com.calebjonasson.ratelimiter.core.context.ContextProvider;
+import com.calebjonasson.ratelimiter.core.response.RateLimitDecision;
+import com.calebjonasson.ratelimiter.core.state.PrimitiveAtomicRateLimitState;
+import com.calebjonasson.ratelimiter.core.type.strategy.AtomicRateLimiterTypeStrategy;
+import com.calebjonasson.ratelimiter.inmemory.store.OffHeapStateTable;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A fixed window rate limiter with the same limits as the {@link PrimitiveAtomicInMemoryRateLimiter} whose windows live
+ * in an {@link OffHeapStateTable}. The counter of a slot is the count of the window and both the timestamp and the
+ * expiry are the epoch nanos at which the window ends.
+ */
+public class OffHeapAtomicRateLimiter extends OffHeapRateLimiter<
+		AtomicRateLimiterTypeStrategy, AtomicRateLimitContext, PrimitiveAtomicRateLimitState> {
+
+	/**
+	 * The amount of nanos in a millisecond, the unit of the retry after.
+	 */
+	private static final long NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+	/**
+	 * Create a new off heap ratelimiter
+	 *
+	 * @param contextProvider The context data access to be used by the rate limiter.
+	 * @param table The table that will hold the window of every key.
+	 */
+	public OffHeapAtomicRateLimiter(final ContextProvider<AtomicRateLimiterTypeStrategy, AtomicRateLimitContext> contextProvider,
+			final OffHeapStateTable table) {
+		super(contextProvider, table);
+	}
+
+	@Override
+	protected RateLimitDecision consume(AtomicRateLimitContext context, OffHeapStateTable.Segment segment, int slot,
+			long permits, long now, RateLimitDecision decision) {
+		long count = segment.counter(slot);
+		long expiresAt = segment.timestamp(slot);
+
+		// Check to see if the current window has expired, a new slot holds a window that ended at 0.
+		if(expiresAt <= now) {
+			count = 0;
+			expiresAt = now + TimeUnit.MILLISECONDS.toNanos(context.getInterval());
+		}
+
+		if(permits <= context.getLimit() - count) {
+			count += permits;
+			segment.set(slot, count, expiresAt, expiresAt);
+			return decision.allow(null, context.getLimit() - count);
+		}
+		segment.set(slot, count, expiresAt, expiresAt);
+
+		// Round up so a retry after the returned millis always lands in the next window.
+		long retryAfter = permits <= context.getLimit()
+				? (expiresAt - now + NANOS_PER_MILLI - 1) / NANOS_PER_MILLI
+				: RateLimitDecision.RETRY_AFTER_NEVER;
+		return decision.deny(null, retryAfter);
+	}
+
+	@Override
+	protected PrimitiveAtomicRateLimitState copy(OffHeapStateTable.Segment segment, int slot) {
+		PrimitiveAtomicRateLimitState state = new PrimitiveAtomicRateLimitState();
+		state.setCount(segment.counter(slot));
+		state.setExpiresAt(segment.timestamp(slot));
+		return state;
+	}
+
+	@Override
+	protected PrimitiveAtomicRateLimitState createRateLimitState(AtomicRateLimitContext context) {
+		return new PrimitiveAtomicRateLimitState();
+	}
+}
@@ -0,0 +1,109 @@
+package com.calebjonasson.ratelimiter.inmemory.limiter;
+
+import com.calebjonasson.ratelimiter.core.context.BurstableRateLimitContext;
+import com.calebjonasson.ratelimiter.core.context.ContextProvider;
+import com.calebjonasson.ratelimiter.core.response.RateLimitDecision;
+import com.calebjonasson.ratelimiter.core.state.PrimitiveBurstableRateLimitState;
+import com.calebjonasson.ratelimiter.core.type.strategy.BurstableRateLimiterTypeStrategy;
+import com.calebjonasson.ratelimiter.inmemory.store.OffHeapStateTable;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A token bucket rate limiter with the same limits and refill as the {@link PrimitiveBurstableInMemoryRateLimiter}
+ * whose buckets live in an {@link OffHeapStateTable}. The counter of a slot is the tokens of the bucket, the timestamp
+ * is the epoch nanos it was last refreshed at and the expiry is the epoch nanos at which it is full again.
+ */
+public class OffHeapBurstableRateLimiter extends OffHeapRateLimiter<
+		BurstableRateLimiterTypeStrategy, BurstableRateLimitContext, PrimitiveBurstableRateLimitState> {
+
+	/**
+	 * The amount of nanos in a second, the unit of the replenish rate.
+	 */
+	private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	/**
+	 * The amount of nanos in a millisecond, the unit of the retry after.
+	 */
+	private static final long NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+	/**
+	 * Create a new off heap burstable ratelimiter
+	 *
+	 * @param contextProvider The context data access to be used by the rate limiter.
+	 * @param table The table that will hold the bucket of every key.
+	 */
+	public OffHeapBurstableRateLimiter(final ContextProvider<BurstableRateLimiterTypeStrategy, BurstableRateLimitContext> contextProvider,
+			final OffHeapStateTable table) {
+		super(contextProvider, table);
+	}
+
+	@Override
+	protected RateLimitDecision consume(BurstableRateLimitContext context, OffHeapStateTable.Segment segment, int slot,
+			long permits, long now, RateLimitDecision decision) {
+		long capacity = context.getBurstCapacity();
+		long rate = context.getReplenishRate();
+		long tokens = segment.counter(slot);
+		long refreshedAt = segment.timestamp(slot);
+
+		if(refreshedAt == 0 || tokens >= capacity) {
+			// A new bucket starts full and a full bucket does not bank the time it has been idle.
+			tokens = capacity;
+			refreshedAt = now;
+		} else if(rate > 0 && now > refreshedAt) {
+			double replenished = (now - refreshedAt) * (rate / NANOS_PER_SECOND);
+			if(replenished >= capacity - tokens) {
+				tokens = capacity;
+				refreshedAt = now;
+			} else {
+				long added = (long) replenished;
+				tokens += added;
+				// Only move forward by the time that was converted into whole tokens.
+				refreshedAt += (long) (added * NANOS_PER_SECOND / rate);
+			}
+		}
+
+		if(tokens < permits) {
+			segment.set(slot, tokens, refreshedAt, replenishedAt(capacity, rate, tokens, refreshedAt));
+			if(rate <= 0 || capacity < permits) {
+				return decision.deny(null, RateLimitDecision.RETRY_AFTER_NEVER);
+			}
+			// The missing tokens are added once enough token intervals have passed since the last refresh.
+			long available = refreshedAt + (long) Math.ceil((permits - tokens) * NANOS_PER_SECOND / rate);
+			return decision.deny(null, Math.max(0, (long) Math.ceil((available - now) / (double) NANOS_PER_MILLI)));
+		}
+
+		tokens -= permits;
+		segment.set(slot, tokens, refreshedAt, replenishedAt(capacity, rate, tokens, refreshedAt));
+		return decision.allow(null, tokens);
+	}
+
+	/**
+	 * @return The epoch nanos at which a bucket is full again.
+	 */
+	private static long replenishedAt(long capacity, long rate, long tokens, long refreshedAt) {
+		if(tokens >= capacity) {
+			return refreshedAt;
+		}
+		return rate > 0 ? refreshedAt + (long) Math.ceil((capacity - tokens) * NANOS_PER_SECOND / rate) : Long.MAX_VALUE;
+	}
+
+	@Override
+	protected PrimitiveBurstableRateLimitState copy(OffHeapStateTable.Segment segment, int slot) {
+		PrimitiveBurstableRateLimitState state = new PrimitiveBurstableRateLimitState();
+		state.setTokens(segment.counter(slot));
+		state.setRefreshedAt(segment.timestamp(slot));
+		state.setReplenishedAt(segment.expiresAt(slot));
+		return state;
+	}
+
+	@Override
+	protected PrimitiveBurstableRateLimitState createRateLimitState(BurstableRateLimitContext context) {
+		long now = this.now();
+		PrimitiveBurstableRateLimitState state = new PrimitiveBurstableRateLimitState();
+		state.setTokens(context.getBurstCapacity());
+		state.setRefreshedAt(now);
+		state.setReplenishedAt(now);
+		return state;
+	}
+}
@@ -0,0 +1,196 @@
+package com.calebjonasson.ratelimiter.inmemory.limiter;
+
+import com.calebjonasson.ratelimiter.core.common.exception.RateLimitException;
+import com.calebjonasson.ratelimiter.core.context.ContextProvider;
+import com.calebjonasson.ratelimiter.core.limiter.AbstractRateLimiter;
+import com.calebjonasson.ratelimiter.core.model.context.AbstractRateLimitContext;
+import com.calebjonasson.ratelimiter.core.model.state.RateLimitState;
+import com.calebjonasson.ratelimiter.core.request.ContextStateRateLimitRequest;
+import com.calebjonasson.ratelimiter.core.response.RateLimitDecision;
+import com.calebjonasson.ratelimiter.core.response.RateLimitHandleResponse;
+import com.calebjonasson.ratelimiter.core.type.strategy.RateLimiterTypeStrategy;
+import com.calebjonasson.ratelimiter.inmemory.store.OffHeapStateTable;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An in memory rate limiter whose states live in an {@link OffHeapStateTable} rather than on the java heap.
+ *
+ * Each request locks the segment holding its key, reads and writes the slot of the key in place and unlocks it, so the
+ * limiter never allocates a state and the amount of keys does not change the work of the garbage collector. Decisions
+ * do not carry a state; {@link #getRateLimitState(AbstractRateLimitContext, String)} returns a copy of the stored
+ * slot. Every time stored in the table is in epoch nanos.
+ */
+public abstract class OffHeapRateLimiter<
+		TYPE extends RateLimiterTypeStrategy,
+		CONTEXT extends AbstractRateLimitContext<TYPE>,
+		STATE extends RateLimitState<TYPE>>
+		extends AbstractRateLimiter<TYPE, CONTEXT, STATE> {
+
+	/**
+	 * The states of every key.
+	 */
+	protected final OffHeapStateTable table;
+
+	/**
+	 * Initialize the class with a context provider and a table.
+	 * @param contextProvider The context provider we are looking to add to the rate limiter.
+	 * @param table The table that will hold the states of every key.
+	 */
+	public OffHeapRateLimiter(final ContextProvider<TYPE, CONTEXT> contextProvider, final OffHeapStateTable table) {
+		super(contextProvider);
+		this.table = table;
+	}
+
+	/**
+	 * @return The table holding the states of every key.
+	 */
+	public OffHeapStateTable getTable() {
+		return this.table;
+	}
+
+	/**
+	 * Handle the request without taking the limiter wide monitor.
+	 * @param request The rate limit request we are looking to handle.
+	 * @return A {@link RateLimitHandleResponse} containing the available capacity.
+	 * @throws RateLimitException thrown if the rate limit is exceeded or another internal exception is thrown.
+	 */
+	@Override
+	public RateLimitHandleResponse handle(ContextStateRateLimitRequest request) throws RateLimitException {
+		return this.handleInternal(request);
+	}
+
+	/**
+	 * Handle a batch of requests without taking the limiter wide monitor.
+	 * @param requests The requests we are looking to handle.
+	 * @return A new {@link RateLimitDecision} per request in the iteration order of the requests.
+	 * @throws RateLimitException thrown if a context cannot be loaded or another internal exception is thrown.
+	 */
+	@Override
+	public List<RateLimitDecision> handleAll(Collection<ContextStateRateLimitRequest> requests) throws RateLimitException {
+		return this.handleAllInternal(requests);
+	}
+
+	/**
+	 * Acquire without taking the limiter wide monitor.
+	 * @param contextKey The context to use to group states under for configuration values.
+	 * @param stateKey The state we are grouping requests under.
+	 * @param permits The amount of permits to acquire, must be greater than 0.
+	 * @param decision The decision to reset and fill, owned by the caller.
+	 * @return The passed in decision.
+	 * @throws RateLimitException thrown if the context cannot be loaded.
+	 */
+	@Override
+	public RateLimitDecision tryAcquire(String contextKey, String stateKey, long permits, RateLimitDecision decision)
+			throws RateLimitException {
+		return this.tryAcquireInternal(contextKey, stateKey, permits, decision);
+	}
+
+	/**
+	 * The slot is read and written in the table by {@link #decide} so no state is looked up up front.
+	 * @param context The context the request is handled under, null if it could not be loaded.
+	 * @param stateKey The state we are grouping requests under.
+	 * @param permits The amount of permits to acquire, must be greater than 0.
+	 * @param decision The decision to reset and fill.
+	 * @return The passed in decision.
+	 */
+	@Override
+	protected RateLimitDecision acquireInternal(CONTEXT context, String stateKey, long permits, RateLimitDecision decision) {
+		decision.reset().context(context);
+		if(!this.isContextEnable(context)) {
+			return decision.deny(null, RateLimitDecision.RETRY_AFTER_UNKNOWN);
+		}
+		return this.decide(context, stateKey, permits, null, decision);
+	}
+
+	/**
+	 * Acquire permits from the slot of a key, inserting the slot if needed. The passed in state is ignored.
+	 * @param context The context that holds the limits.
+	 * @param stateKey The state key that we are updating.
+	 * @param permits The amount of permits requested.
+	 * @param state Ignored.
+	 * @param decision The decision to fill.
+	 * @return The passed in decision.
+	 */
+	@Override
+	protected RateLimitDecision decide(CONTEXT context, String stateKey, long permits, STATE state, RateLimitDecision decision) {
+		long now = this.now();
+		long fingerprint = this.table.fingerprint(context.getContextKey(), stateKey);
+		OffHeapStateTable.Segment segment = this.table.segment(fingerprint);
+		segment.lock();
+		try {
+			return this.consume(context, segment, segment.findOrInsert(fingerprint), permits, now, decision);
+		} finally {
+			segment.unlock();
+		}
+	}
+
+	/**
+	 * Refill or reset the slot as needed and consume the permits, all of them or none. Called while holding the lock of
+	 * the segment. A slot that was just inserted holds only zeros.
+	 * @param context The context that holds the limits.
+	 * @param segment The locked segment holding the slot.
+	 * @param slot The slot of the key.
+	 * @param permits The amount of permits requested.
+	 * @param now The current epoch nanos.
+	 * @param decision The decision to fill.
+	 * @return The passed in decision.
+	 */
+	protected abstract RateLimitDecision consume(CONTEXT context, OffHeapStateTable.Segment segment, int slot, long permits,
+			long now, RateLimitDecision decision);
+
+	/**
+	 * Copy a slot into a state. Called while holding the lock of the segment.
+	 * @param segment The locked segment holding the slot.
+	 * @param slot The slot of the key.
+	 * @return A new state holding the values of the slot.
+	 */
+	protected abstract STATE copy(OffHeapStateTable.Segment segment, int slot);
+
+	/**
+	 * Copy the state stored for a key.
+	 * @param context The context of the state.
+	 * @param stateKey The state key of the state.
+	 * @return A copy of the state, or empty if none is stored.
+	 */
+	@Override
+	public Optional<STATE> getRateLimitState(AbstractRateLimitContext context, String stateKey) {
+		long fingerprint = this.table.fingerprint(context.getContextKey(), stateKey);
+		OffHeapStateTable.Segment segment = this.table.segment(fingerprint);
+		segment.lock();
+		try {
+			int slot = segment.find(fingerprint);
+			return slot < 0 ? Optional.empty() : Optional.of(this.copy(segment, slot));
+		} finally {
+			segment.unlock();
+		}
+	}
+
+	@Override
+	protected boolean isValid(Optional<STATE> state) {
+		return state != null && state.isPresent();
+	}
+
+	/**
+	 * Remove every state that has expired. This visits every slot of the table.
+	 */
+	@Override
+	public void pruneExpiredStates() {
+		this.table.removeExpired(this.now());
+	}
+
+	@Override
+	public boolean isSelfPruning() {
+		return false;
+	}
+
+	/**
+	 * @return The current epoch nanos.
+	 */
+	protected long now() {
+		return TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis());
+	}
+}
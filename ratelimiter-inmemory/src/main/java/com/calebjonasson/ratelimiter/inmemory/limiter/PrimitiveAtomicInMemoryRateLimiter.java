@@ -0,0 +1,94 @@
+package com.calebjonasson.ratelimiter.inmemory.limiter;
+
+import com.calebjonasson.ratelimiter.core.context.AtomicRateLimitContext;
+import com.calebjonasson.ratelimiter.core.context.ContextProvider;
+import com.calebjonasson.ratelimiter.core.response.RateLimitDecision;
+import com.calebjonasson.ratelimiter.core.state.PrimitiveAtomicRateLimitState;
+import com.calebjonasson.ratelimiter.core.type.strategy.AtomicRateLimiterTypeStrategy;
+import com.calebjonasson.ratelimiter.inmemory.store.ContextStateStore;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A fixed window rate limiter with the same limits as the {@link AtomicInMemoryRateLimiter} that keeps its counts in
+ * {@link PrimitiveAtomicRateLimitState}s. Counting a request against an existing state does not allocate.
+ */
+public class PrimitiveAtomicInMemoryRateLimiter extends PrimitiveInMemoryRateLimiter<
+		AtomicRateLimiterTypeStrategy, AtomicRateLimitContext, PrimitiveAtomicRateLimitState> {
+
+	/**
+	 * The amount of nanos in a millisecond, the unit of the retry after.
+	 */
+	private static final long NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+	/**
+	 * Create a new primitive in memory ratelimiter
+	 *
+	 * @param contextProvider The context data access to be used by the rate limiter.
+	 */
+	public PrimitiveAtomicInMemoryRateLimiter(final ContextProvider<AtomicRateLimiterTypeStrategy, AtomicRateLimitContext> contextProvider) {
+		super(contextProvider);
+	}
+
+	/**
+	 * Create a new primitive in memory ratelimiter with a custom state store.
+	 *
+	 * @param contextProvider The context data access to be used by the rate limiter.
+	 * @param states The store that will hold the rate limit states of each context.
+	 */
+	public PrimitiveAtomicInMemoryRateLimiter(final ContextProvider<AtomicRateLimiterTypeStrategy, AtomicRateLimitContext> contextProvider,
+			final ContextStateStore<PrimitiveAtomicRateLimitState> states) {
+		super(contextProvider, states);
+	}
+
+	@Override
+	protected RateLimitDecision consume(AtomicRateLimitContext context, PrimitiveAtomicRateLimitState state, long permits,
+			long now, RateLimitDecision decision) {
+		// Check to see if the current window has expired.
+		if(state.getExpiresAt() <= now) {
+			state.reset(now + TimeUnit.MILLISECONDS.toNanos(context.getInterval()));
+		}
+
+		if(permits <= context.getLimit() - state.getCount()) {
+			state.setCount(state.getCount() + permits);
+			return decision.allow(state, context.getLimit() - state.getCount());
+		}
+
+		// Round up so a retry after the returned millis always lands in the next window.
+		long retryAfter = permits <= context.getLimit()
+				? (state.getExpiresAt() - now + NANOS_PER_MILLI - 1) / NANOS_PER_MILLI
+				: RateLimitDecision.RETRY_AFTER_NEVER;
+		return decision.deny(state, retryAfter);
+	}
+
+	@Override
+	protected PrimitiveAtomicRateLimitState createRateLimitState(AtomicRateLimitContext context) {
+		// A zeroed window has already expired so it is started by the first request.
+		return new PrimitiveAtomicRateLimitState();
+	}
+
+	@Override
+	protected boolean isDiscarded(PrimitiveAtomicRateLimitState state) {
+		return state.isDiscarded();
+	}
+
+	@Override
+	protected void discard(PrimitiveAtomicRateLimitState state) {
+		state.setDiscarded(true);
+	}
+
+	@Override
+	protected long expiresAtNanos(PrimitiveAtomicRateLimitState state) {
+		return state.getExpiresAt();
+	}
+
+	/**
+	 * Find when a primitive atomic state expires, eg: to index states with a
+	 * {@link com.calebjonasson.ratelimiter.inmemory.store.TimingWheelStateStore}
+	 * @param state The state we are checking.
+	 * @return The epoch millis at which the window of the state ends.
+	 */
+	public static long expiresAt(PrimitiveAtomicRateLimitState state) {
+		return TimeUnit.NANOSECONDS.toMillis(state.getExpiresAt());
+	}
+}
@@ -0,0 +1,163 @@
+package com.calebjonasson.ratelimiter.inmemory.limiter;
+
+import com.calebjonasson.ratelimiter.core.common.exception.RateLimitException;
+import com.calebjonasson.ratelimiter.core.context.BurstableRateLimitContext;
+import com.calebjonasson.ratelimiter.core.context.ContextProvider;
+import com.calebjonasson.ratelimiter.core.limiter.ReservingRateLimiter;
+import com.calebjonasson.ratelimiter.core.request.ContextStateRateLimitRequest;
+import com.calebjonasson.ratelimiter.core.response.RateLimitDecision;
+import com.calebjonasson.ratelimiter.core.state.PrimitiveBurstableRateLimitState;
+import com.calebjonasson.ratelimiter.core.type.strategy.BurstableRateLimiterTypeStrategy;
+import com.calebjonasson.ratelimiter.inmemory.store.ContextStateStore;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A token bucket rate limiter with the same limits as the {@link BurstableInMemoryRateLimiter} that keeps its buckets
+ * in {@link PrimitiveBurstableRateLimitState}s. Refilling and consuming an existing bucket does not allocate.
+ *
+ * Tokens are replenished with nanosecond precision and the fraction of a token that has not been added yet carries
+ * over to the next request instead of being dropped.
+ *
+ * Tokens can be reserved ahead of time, see {@link ReservingRateLimiter}: the missing tokens are borrowed from the
+ * replenishments to come and the bucket goes negative until they are paid back, so later requests queue behind the
+ * reservation instead of taking the tokens it is waiting for.
+ */
+public class PrimitiveBurstableInMemoryRateLimiter extends PrimitiveInMemoryRateLimiter<
+		BurstableRateLimiterTypeStrategy, BurstableRateLimitContext, PrimitiveBurstableRateLimitState>
+		implements ReservingRateLimiter {
+
+	/**
+	 * The amount of nanos in a second, the unit of the replenish rate.
+	 */
+	private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	/**
+	 * The amount of nanos in a millisecond, the unit of the retry after.
+	 */
+	private static final long NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+	/**
+	 * Create a new primitive burstable in memory ratelimiter
+	 *
+	 * @param contextProvider The context data access to be used by the rate limiter.
+	 */
+	public PrimitiveBurstableInMemoryRateLimiter(final ContextProvider<BurstableRateLimiterTypeStrategy, BurstableRateLimitContext> contextProvider) {
+		super(contextProvider);
+	}
+
+	/**
+	 * Create a new primitive burstable in memory ratelimiter with a custom state store.
+	 *
+	 * @param contextProvider The context data access to be used by the rate limiter.
+	 * @param states The store that will hold the rate limit states of each context.
+	 */
+	public PrimitiveBurstableInMemoryRateLimiter(final ContextProvider<BurstableRateLimiterTypeStrategy, BurstableRateLimitContext> contextProvider,
+			final ContextStateStore<PrimitiveBurstableRateLimitState> states) {
+		super(contextProvider, states);
+	}
+
+	/**
+	 * Reserve tokens without taking the limiter wide monitor.
+	 * @param request The request holding the context, state and permits.
+	 * @param maxWaitNanos The longest the caller is willing to wait for the tokens.
+	 * @param decision The decision to reset and fill, owned by the caller.
+	 * @return The passed in decision.
+	 * @throws RateLimitException thrown if the context cannot be loaded.
+	 */
+	@Override
+	public RateLimitDecision reserve(ContextStateRateLimitRequest request, long maxWaitNanos, RateLimitDecision decision)
+			throws RateLimitException {
+		return this.reserveInternal(request, maxWaitNanos, decision);
+	}
+
+	@Override
+	protected RateLimitDecision consume(BurstableRateLimitContext context, PrimitiveBurstableRateLimitState state, long permits,
+			long now, RateLimitDecision decision) {
+		return this.reserve(context, state, permits, now, 0, decision);
+	}
+
+	@Override
+	protected RateLimitDecision reserve(BurstableRateLimitContext context, PrimitiveBurstableRateLimitState state, long permits,
+			long now, long maxWaitNanos, RateLimitDecision decision) {
+		long capacity = context.getBurstCapacity();
+		long rate = context.getReplenishRate();
+		long tokens = state.getTokens();
+
+		if(tokens >= capacity) {
+			// A full bucket does not bank the time it has been idle.
+			tokens = capacity;
+			state.setRefreshedAt(now);
+		} else if(rate > 0 && now > state.getRefreshedAt()) {
+			double replenished = (now - state.getRefreshedAt()) * (rate / NANOS_PER_SECOND);
+			if(replenished >= capacity - tokens) {
+				tokens = capacity;
+				state.setRefreshedAt(now);
+			} else {
+				long added = (long) replenished;
+				tokens += added;
+				// Only move forward by the time that was converted into whole tokens.
+				state.setRefreshedAt(state.getRefreshedAt() + (long) (added * NANOS_PER_SECOND / rate));
+			}
+		}
+
+		long wait = 0;
+		if(tokens < permits) {
+			if(rate <= 0 || capacity < permits) {
+				state.setTokens(tokens);
+				return decision.deny(state, RateLimitDecision.RETRY_AFTER_NEVER);
+			}
+			// The missing tokens are added once enough token intervals have passed since the last refresh.
+			long available = state.getRefreshedAt() + (long) Math.ceil((permits - tokens) * NANOS_PER_SECOND / rate);
+			wait = available - now;
+			if(maxWaitNanos <= 0 || wait > maxWaitNanos) {
+				state.setTokens(tokens);
+				return decision.deny(state, Math.max(0, (long) Math.ceil(wait / (double) NANOS_PER_MILLI)));
+			}
+		}
+
+		tokens -= permits;
+		state.setTokens(tokens);
+		if(rate > 0) {
+			state.setReplenishedAt(state.getRefreshedAt() + (long) Math.ceil((capacity - tokens) * NANOS_PER_SECOND / rate));
+		} else {
+			state.setReplenishedAt(Long.MAX_VALUE);
+		}
+		return tokens >= 0 ? decision.allow(state, tokens) : decision.reserve(state, 0, wait);
+	}
+
+	@Override
+	protected PrimitiveBurstableRateLimitState createRateLimitState(BurstableRateLimitContext context) {
+		long now = this.now();
+		PrimitiveBurstableRateLimitState state = new PrimitiveBurstableRateLimitState();
+		state.setTokens(context.getBurstCapacity());
+		state.setRefreshedAt(now);
+		state.setReplenishedAt(now);
+		return state;
+	}
+
+	@Override
+	protected boolean isDiscarded(PrimitiveBurstableRateLimitState state) {
+		return state.isDiscarded();
+	}
+
+	@Override
+	protected void discard(PrimitiveBurstableRateLimitState state) {
+		state.setDiscarded(true);
+	}
+
+	@Override
+	protected long expiresAtNanos(PrimitiveBurstableRateLimitState state) {
+		return state.getReplenishedAt();
+	}
+
+	/**
+	 * Find when a primitive burstable state expires, eg: to index states with a
+	 * {@link com.calebjonasson.ratelimiter.inmemory.store.TimingWheelStateStore}
+	 * @param state The state we are checking.
+	 * @return The epoch millis at which the bucket is full again.
+	 */
+	public static long expiresAt(PrimitiveBurstableRateLimitState state) {
+		return TimeUnit.NANOSECONDS.toMillis(state.getReplenishedAt());
+	}
+}
@@ -0,0 +1,290 @@
+package com.calebjonasson.ratelimiter.inmemory.limiter;
+
+import com.calebjonasson.ratelimiter.core.common.exception.RateLimitException;
+import com.calebjonasson.ratelimiter.core.context.ContextProvider;
+import com.calebjonasson.ratelimiter.core.model.context.AbstractRateLimitContext;
+import com.calebjonasson.ratelimiter.core.model.state.RateLimitState;
+import com.calebjonasson.ratelimiter.core.request.ContextStateRateLimitRequest;
+import com.calebjonasson.ratelimiter.core.response.RateLimitDecision;
+import com.calebjonasson.ratelimiter.core.response.RateLimitHandleResponse;
+import com.calebjonasson.ratelimiter.core.type.strategy.RateLimiterTypeStrategy;
+import com.calebjonasson.ratelimiter.inmemory.store.ContextStateStore;
+import com.calebjonasson.ratelimiter.inmemory.store.StateStore;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An in memory rate limiter whose states hold only primitive fields and are mutated in place.
+ *
+ * Each state is guarded by its own monitor so requests for different state keys never block each other. Once a state
+ * exists, {@link #tryAcquire(String, String, long)}, {@link #tryAcquirePermits(String, String, long)} and
+ * {@link #acquire(String, String, long)} neither allocate nor throw which keeps the hottest callers free of garbage collection
+ * pressure. {@link #handle(ContextStateRateLimitRequest)} keeps the throwing contract of the other limiters and is built
+ * on the same path.
+ *
+ * A state that is found to be expired while pruning is marked as discarded under its monitor before it is removed. A
+ * request that observes a discarded state retries against a new one so an update is never lost to a concurrent prune.
+ */
+public abstract class PrimitiveInMemoryRateLimiter<
+		TYPE extends RateLimiterTypeStrategy,
+		CONTEXT extends AbstractRateLimitContext<TYPE>,
+		STATE extends RateLimitState<TYPE>>
+		extends InMemoryRateLimiter<TYPE, CONTEXT, STATE> {
+
+	/**
+	 * Returned by {@link #acquire(String, String, long)} when the request is denied.
+	 */
+	public static final long DENIED = -1;
+
+	/**
+	 * Initialize the class with a context provider and an unbounded state store.
+	 * @param contextProvider The context provider we are looking to add to the rate limiter.
+	 */
+	public PrimitiveInMemoryRateLimiter(final ContextProvider<TYPE, CONTEXT> contextProvider) {
+		super(contextProvider);
+	}
+
+	/**
+	 * Initialize the class with a context provider and a state store.
+	 * @param contextProvider The context provider we are looking to add to the rate limiter.
+	 * @param states The store that will hold the rate limit states of each context.
+	 */
+	public PrimitiveInMemoryRateLimiter(final ContextProvider<TYPE, CONTEXT> contextProvider, final ContextStateStore<STATE> states) {
+		super(contextProvider, states);
+	}
+
+	/**
+	 * Attempt to acquire a permit without allocating or throwing when the limit is exceeded.
+	 * @param contextKey The context to use to group states under for configuration values.
+	 * @param stateKey The state we are grouping requests under.
+	 * @return The remaining capacity after the permit was acquired or {@link #DENIED}.
+	 * @throws RateLimitException thrown if the context cannot be loaded.
+	 */
+	public long acquire(String contextKey, String stateKey) throws RateLimitException {
+		return this.acquire(contextKey, stateKey, ContextStateRateLimitRequest.DEFAULT_PERMITS);
+	}
+
+	/**
+	 * Attempt to acquire a number of permits as a single operation without allocating or throwing when the limit is
+	 * exceeded.
+	 * @param contextKey The context to use to group states under for configuration values.
+	 * @param stateKey The state we are grouping requests under.
+	 * @param permits The amount of permits to acquire, must be greater than 0.
+	 * @return The remaining capacity after the permits were acquired or {@link #DENIED}.
+	 * @throws RateLimitException thrown if the context cannot be loaded.
+	 */
+	public long acquire(String contextKey, String stateKey, long permits) throws RateLimitException {
+		RateLimitDecision decision = this.tryAcquire(contextKey, stateKey, permits);
+		return decision.isAllowed() ? decision.getRemainingCapacity() : DENIED;
+	}
+
+	/**
+	 * Handle the request without taking the limiter wide monitor.
+	 * @param request The rate limit request we are looking to handle.
+	 * @return A {@link RateLimitHandleResponse} containing the state and available capacity.
+	 * @throws RateLimitException thrown if the rate limit is exceeded or another internal exception is thrown.
+	 */
+	@Override
+	public RateLimitHandleResponse handle(ContextStateRateLimitRequest request) throws RateLimitException {
+		return this.handleInternal(request);
+	}
+
+	/**
+	 * Handle a batch of requests without taking the limiter wide monitor.
+	 * @param requests The requests we are looking to handle.
+	 * @return A new {@link RateLimitDecision} per request in the iteration order of the requests.
+	 * @throws RateLimitException thrown if a context cannot be loaded or another internal exception is thrown.
+	 */
+	@Override
+	public List<RateLimitDecision> handleAll(Collection<ContextStateRateLimitRequest> requests) throws RateLimitException {
+		return this.handleAllInternal(requests);
+	}
+
+	/**
+	 * Acquire without taking the limiter wide monitor.
+	 * @param contextKey The context to use to group states under for configuration values.
+	 * @param stateKey The state we are grouping requests under.
+	 * @param permits The amount of permits to acquire, must be greater than 0.
+	 * @param decision The decision to reset and fill, owned by the caller.
+	 * @return The passed in decision.
+	 * @throws RateLimitException thrown if the context cannot be loaded.
+	 */
+	@Override
+	public RateLimitDecision tryAcquire(String contextKey, String stateKey, long permits, RateLimitDecision decision)
+			throws RateLimitException {
+		return this.tryAcquireInternal(contextKey, stateKey, permits, decision);
+	}
+
+	/**
+	 * The state is loaded from the store by {@link #decide} so it is not looked up or created up front.
+	 * @param context The context the request is handled under, null if it could not be loaded.
+	 * @param stateKey The state we are grouping requests under.
+	 * @param permits The amount of permits to acquire, must be greater than 0.
+	 * @param decision The decision to reset and fill.
+	 * @return The passed in decision.
+	 */
+	@Override
+	protected RateLimitDecision acquireInternal(CONTEXT context, String stateKey, long permits, RateLimitDecision decision) {
+		decision.reset().context(context);
+		if(!this.isContextEnable(context)) {
+			return decision.deny(null, RateLimitDecision.RETRY_AFTER_UNKNOWN);
+		}
+		return this.decide(context, stateKey, permits, null, decision);
+	}
+
+	/**
+	 * Acquire permits from the state stored under a key, creating the state if needed. The passed in state is ignored.
+	 * @param context The context that holds the limits.
+	 * @param stateKey The state key that we are updating.
+	 * @param permits The amount of permits requested.
+	 * @param state Ignored.
+	 * @param decision The decision to fill.
+	 * @return The passed in decision.
+	 */
+	@Override
+	protected RateLimitDecision decide(CONTEXT context, String stateKey, long permits, STATE state, RateLimitDecision decision) {
+		return this.update(context, stateKey, permits, 0, decision);
+	}
+
+	/**
+	 * Reserve permits from the state stored under a key, see
+	 * {@link com.calebjonasson.ratelimiter.core.limiter.ReservingRateLimiter}. Only limiters that override
+	 * {@link #reserve(AbstractRateLimitContext, RateLimitState, long, long, long, RateLimitDecision)} reserve ahead of time.
+	 * @param request The request holding the context, state and permits.
+	 * @param maxWaitNanos The longest the caller is willing to wait for the permits.
+	 * @param decision The decision to reset and fill.
+	 * @return The passed in decision.
+	 * @throws RateLimitException thrown if the context cannot be loaded.
+	 */
+	protected RateLimitDecision reserveInternal(ContextStateRateLimitRequest request, long maxWaitNanos, RateLimitDecision decision)
+			throws RateLimitException {
+		CONTEXT context = this.getContextProvider().getContext(request.getContextKey());
+		decision.reset().context(context);
+		if(!this.isContextEnable(context)) {
+			return decision.deny(null, RateLimitDecision.RETRY_AFTER_UNKNOWN);
+		}
+		return this.update(context, request.getStateKey(), request.getPermits(), Math.max(0, maxWaitNanos), decision);
+	}
+
+	/**
+	 * Consume or reserve permits from the state stored under a key, creating the state if needed.
+	 * @param context The context that holds the limits.
+	 * @param stateKey The state key that we are updating.
+	 * @param permits The amount of permits requested.
+	 * @param maxWaitNanos The longest the caller is willing to wait for the permits, 0 to only consume available permits.
+	 * @param decision The decision to fill.
+	 * @return The passed in decision.
+	 */
+	private RateLimitDecision update(CONTEXT context, String stateKey, long permits, long maxWaitNanos, RateLimitDecision decision) {
+		long now = this.now();
+		StateStore<STATE> table = this.table(context);
+		while(true) {
+			STATE current = table.get(stateKey);
+			if(current == null) {
+				STATE created = this.createRateLimitState(context);
+				current = table.putIfAbsent(stateKey, created);
+				if(current == null) {
+					current = created;
+				}
+			}
+
+			synchronized(current) {
+				if(!this.isDiscarded(current)) {
+					return maxWaitNanos > 0
+							? this.reserve(context, current, permits, now, maxWaitNanos, decision)
+							: this.consume(context, current, permits, now, decision);
+				}
+			}
+
+			// The state was discarded by a concurrent prune. Make sure it is gone and retry against a new state.
+			table.remove(stateKey, current);
+		}
+	}
+
+	/**
+	 * Refill or reset the state as needed and consume the permits, all of them or none. Called while holding the monitor
+	 * of the state.
+	 * @param context The context that holds the limits.
+	 * @param state The state being updated.
+	 * @param permits The amount of permits requested.
+	 * @param now The current epoch nanos.
+	 * @param decision The decision to fill.
+	 * @return The passed in decision.
+	 */
+	protected abstract RateLimitDecision consume(CONTEXT context, STATE state, long permits, long now, RateLimitDecision decision);
+
+	/**
+	 * Consume the permits, or take them ahead of time if they are available within the maximum wait. Called while
+	 * holding the monitor of the state. By default nothing is reserved ahead of time and only available permits are
+	 * consumed.
+	 * @param context The context that holds the limits.
+	 * @param state The state being updated.
+	 * @param permits The amount of permits requested.
+	 * @param now The current epoch nanos.
+	 * @param maxWaitNanos The longest the caller is willing to wait for the permits, greater than 0.
+	 * @param decision The decision to fill, see {@link RateLimitDecision#reserve(RateLimitState, long, long)}.
+	 * @return The passed in decision.
+	 */
+	protected RateLimitDecision reserve(CONTEXT context, STATE state, long permits, long now, long maxWaitNanos,
+			RateLimitDecision decision) {
+		return this.consume(context, state, permits, now, decision);
+	}
+
+	/**
+	 * @param state The state we are checking. Called while holding the monitor of the state.
+	 * @return true if the state has been discarded and must not be updated.
+	 */
+	protected abstract boolean isDiscarded(STATE state);
+
+	/**
+	 * Mark a state as discarded. Called while holding the monitor of the state.
+	 * @param state The state being discarded.
+	 */
+	protected abstract void discard(STATE state);
+
+	/**
+	 * @param state The state we are checking. Called while holding the monitor of the state.
+	 * @return The epoch nanos past which the state is equivalent to a new state.
+	 */
+	protected abstract long expiresAtNanos(STATE state);
+
+	/**
+	 * Expired states are discarded as they are found so a request racing with the removal retries on a new state.
+	 * @param state The state we are checking.
+	 * @param now The current epoch millis.
+	 * @return true if the state has expired and was discarded.
+	 */
+	@Override
+	public boolean isExpired(STATE state, long now) {
+		synchronized(state) {
+			if(this.isDiscarded(state)) {
+				return true;
+			}
+			if(this.expiresAtNanos(state) <= TimeUnit.MILLISECONDS.toNanos(now)) {
+				this.discard(state);
+				return true;
+			}
+			return false;
+		}
+	}
+
+	@Override
+	protected boolean isValid(Optional<STATE> state) {
+		return state != null && state.isPresent();
+	}
+
+	@Override
+	public Optional<STATE> getRateLimitState(AbstractRateLimitContext context, String stateKey) {
+		return Optional.ofNullable(this.states.get(context.getContextKey(), stateKey));
+	}
+
+	/**
+	 * @return The current epoch nanos from a monotonic clock with nanosecond precision, see {@link EpochNanoClock}.
+	 */
+	protected long now() {
+		return EpochNanoClock.now();
+	}
+}
@@ -1,6 +1,9 @@
 package com.calebjonasson.ratelimiter.inmemory.limiter;
 
 import com.calebjonasson.ratelimiter.core.context.ContextProvider;
+import com.calebjonasson.ratelimiter.inmemory.store.FingerprintStateTable;
+import com.calebjonasson.ratelimiter.inmemory.store.OffHeapStateTable;
+import com.calebjonasson.ratelimiter.inmemory.store.SharedMemoryStateTable;
 
 /**
  * A utility class that allows for the creation of rate limiters via a factory method pattern.
@@ -15,4 +18,100 @@ public class RateLimiterFactory {
 	public static AtomicInMemoryRateLimiter inMemoryRateLimiter(ContextProvider contextProvider) {
 		return new AtomicInMemoryRateLimiter(contextProvider);
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Factory method to create a new lock free in memory rate limiter
+	 * @param contextProvider The context data access that needs to be injected into the rate limiter.
+	 * @return A new {@link ConcurrentAtomicInMemoryRateLimiter}
+	 */
+	public static ConcurrentAtomicInMemoryRateLimiter concurrentInMemoryRateLimiter(ContextProvider contextProvider) {
+		return new ConcurrentAtomicInMemoryRateLimiter(contextProvider);
+	}
+
+	/**
+	 * Factory method to create a new in memory rate limiter that does not allocate for existing states.
+	 * @param contextProvider The context data access that needs to be injected into the rate limiter.
+	 * @return A new {@link PrimitiveAtomicInMemoryRateLimiter}
+	 */
+	public static PrimitiveAtomicInMemoryRateLimiter primitiveInMemoryRateLimiter(ContextProvider contextProvider) {
+		return new PrimitiveAtomicInMemoryRateLimiter(contextProvider);
+	}
+
+	/**
+	 * Factory method to create a new burstable in memory rate limiter that does not allocate for existing states.
+	 * @param contextProvider The context data access that needs to be injected into the rate limiter.
+	 * @return A new {@link PrimitiveBurstableInMemoryRateLimiter}
+	 */
+	public static PrimitiveBurstableInMemoryRateLimiter primitiveBurstableInMemoryRateLimiter(ContextProvider contextProvider) {
+		return new PrimitiveBurstableInMemoryRateLimiter(contextProvider);
+	}
+
+	/**
+	 * Factory method to create a new in memory rate limiter that keeps each key in under 32 bytes.
+	 * @param contextProvider The context data access that needs to be injected into the rate limiter.
+	 * @param expectedKeys The amount of keys the table is sized for without growing.
+	 * @return A new {@link CompactAtomicInMemoryRateLimiter}
+	 */
+	public static CompactAtomicInMemoryRateLimiter compactInMemoryRateLimiter(ContextProvider contextProvider, int expectedKeys) {
+		return new CompactAtomicInMemoryRateLimiter(contextProvider,
+				new FingerprintStateTable(expectedKeys, FingerprintStateTable.DEFAULT_SEGMENTS));
+	}
+
+	/**
+	 * Factory method to create a new in memory rate limiter whose windows live outside of the java heap.
+	 * @param contextProvider The context data access that needs to be injected into the rate limiter.
+	 * @param table The off heap table, eg: {@link OffHeapStateTable#map(java.nio.file.Path, long, int)}.
+	 * @return A new {@link OffHeapAtomicRateLimiter}
+	 */
+	public static OffHeapAtomicRateLimiter offHeapRateLimiter(ContextProvider contextProvider, OffHeapStateTable table) {
+		return new OffHeapAtomicRateLimiter(contextProvider, table);
+	}
+
+	/**
+	 * Factory method to create a new burstable in memory rate limiter whose buckets live outside of the java heap.
+	 * @param contextProvider The context data access that needs to be injected into the rate limiter.
+	 * @param table The off heap table, eg: {@link OffHeapStateTable#map(java.nio.file.Path, long, int)}.
+	 * @return A new {@link OffHeapBurstableRateLimiter}
+	 */
+	public static OffHeapBurstableRateLimiter offHeapBurstableRateLimiter(ContextProvider contextProvider, OffHeapStateTable table) {
+		return new OffHeapBurstableRateLimiter(contextProvider, table);
+	}
+
+	/**
+	 * Factory method to create a new burstable rate limiter whose buckets are shared by every process on the host.
+	 * @param contextProvider The context data access that needs to be injected into the rate limiter.
+	 * @param table The shared table, eg: {@link SharedMemoryStateTable#open(String, long)}.
+	 * @return A new {@link SharedMemoryBurstableRateLimiter}
+	 */
+	public static SharedMemoryBurstableRateLimiter sharedMemoryBurstableRateLimiter(ContextProvider contextProvider,
+			SharedMemoryStateTable table) {
+		return new SharedMemoryBurstableRateLimiter(contextProvider, table);
+	}
+
+	/**
+	 * Factory method to create a new lock free generic cell rate algorithm in memory rate limiter.
+	 * @param contextProvider The context data access that needs to be injected into the rate limiter.
+	 * @return A new {@link GcraInMemoryRateLimiter}
+	 */
+	public static GcraInMemoryRateLimiter gcraInMemoryRateLimiter(ContextProvider contextProvider) {
+		return new GcraInMemoryRateLimiter(contextProvider);
+	}
+
+	/**
+	 * Factory method to create a new sliding window in memory rate limiter that does not allocate for existing states.
+	 * @param contextProvider The context data access that needs to be injected into the rate limiter.
+	 * @return A new {@link SlidingWindowInMemoryRateLimiter}
+	 */
+	public static SlidingWindowInMemoryRateLimiter slidingWindowInMemoryRateLimiter(ContextProvider contextProvider) {
+		return new SlidingWindowInMemoryRateLimiter(contextProvider);
+	}
+
+	/**
+	 * Factory method to create a new exact sliding log in memory rate limiter.
+	 * @param contextProvider The context data access that needs to be injected into the rate limiter.
+	 * @return A new {@link SlidingLogInMemoryRateLimiter}
+	 */
+	public static SlidingLogInMemoryRateLimiter slidingLogInMemoryRateLimiter(ContextProvider contextProvider) {
+		return new SlidingLogInMemoryRateLimiter(contextProvider);
+	}
+}
@@ -0,0 +1,227 @@
+package com.calebjonasson.ratelimiter.inmemory.limiter;
+
+import com.calebjonasson.ratelimiter.core.common.exception.RateLimitException;
+import com.calebjonasson.ratelimiter.core.context.BurstableRateLimitContext;
+import com.calebjonasson.ratelimiter.core.context.ContextProvider;
+import com.calebjonasson.ratelimiter.core.limiter.AbstractRateLimiter;
+import com.calebjonasson.ratelimiter.core.model.context.AbstractRateLimitContext;
+import com.calebjonasson.ratelimiter.core.request.ContextStateRateLimitRequest;
+import com.calebjonasson.ratelimiter.core.response.RateLimitDecision;
+import com.calebjonasson.ratelimiter.core.response.RateLimitHandleResponse;
+import com.calebjonasson.ratelimiter.core.state.PrimitiveBurstableRateLimitState;
+import com.calebjonasson.ratelimiter.core.type.strategy.BurstableRateLimiterTypeStrategy;
+import com.calebjonasson.ratelimiter.inmemory.store.SharedMemoryStateTable;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A token bucket rate limiter whose buckets are shared by every process on the host that opens the same
+ * {@link SharedMemoryStateTable}, eg: the worker processes behind one port, so together they admit the limit once
+ * instead of once per process.
+ *
+ * A bucket is kept in a single word as the epoch nanos at which it will be full again. Taking permits pushes that time
+ * back by the time it takes to replenish them, and is denied if the bucket would then need longer than the burst
+ * capacity to fill. This admits exactly what the {@link PrimitiveBurstableInMemoryRateLimiter} admits, fractional
+ * tokens included, and lets every update be a single compare and swap: there is no lock for a dead process to hold and
+ * no bucket it can leave half written. A time at or before now is a full bucket, so a slot that was claimed but never
+ * written is a new bucket.
+ *
+ * Every process must use the same burst capacity and replenish rate for a context and clocks that agree. Contexts
+ * without a replenish rate never refill, which a single word cannot express, so their requests are denied. If the
+ * table is full of buckets that are not full the request is admitted without being counted, the same as a state a
+ * bounded store did not admit; size the table for the amount of keys.
+ */
+public class SharedMemoryBurstableRateLimiter extends AbstractRateLimiter<
+		BurstableRateLimiterTypeStrategy, BurstableRateLimitContext, PrimitiveBurstableRateLimitState> {
+
+	/**
+	 * The amount of nanos in a second, the unit of the replenish rate.
+	 */
+	private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	/**
+	 * The amount of nanos in a millisecond, the unit of the retry after.
+	 */
+	private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+	/**
+	 * The buckets shared with the other processes.
+	 */
+	private final SharedMemoryStateTable table;
+
+	/**
+	 * Create a new shared memory burstable ratelimiter
+	 *
+	 * @param contextProvider The context data access to be used by the rate limiter.
+	 * @param table The table shared with the other processes.
+	 */
+	public SharedMemoryBurstableRateLimiter(final ContextProvider<BurstableRateLimiterTypeStrategy, BurstableRateLimitContext> contextProvider,
+			final SharedMemoryStateTable table) {
+		super(contextProvider);
+		this.table = table;
+	}
+
+	/**
+	 * @return The table shared with the other processes.
+	 */
+	public SharedMemoryStateTable getTable() {
+		return this.table;
+	}
+
+	/**
+	 * Handle the request without taking the limiter wide monitor.
+	 * @param request The rate limit request we are looking to handle.
+	 * @return A {@link RateLimitHandleResponse} containing the available capacity.
+	 * @throws RateLimitException thrown if the rate limit is exceeded or another internal exception is thrown.
+	 */
+	@Override
+	public RateLimitHandleResponse handle(ContextStateRateLimitRequest request) throws RateLimitException {
+		return this.handleInternal(request);
+	}
+
+	/**
+	 * Handle a batch of requests without taking the limiter wide monitor.
+	 * @param requests The requests we are looking to handle.
+	 * @return A new {@link RateLimitDecision} per request in the iteration order of the requests.
+	 * @throws RateLimitException thrown if a context cannot be loaded or another internal exception is thrown.
+	 */
+	@Override
+	public List<RateLimitDecision> handleAll(Collection<ContextStateRateLimitRequest> requests) throws RateLimitException {
+		return this.handleAllInternal(requests);
+	}
+
+	/**
+	 * Acquire without taking the limiter wide monitor.
+	 * @param contextKey The context to use to group states under for configuration values.
+	 * @param stateKey The state we are grouping requests under.
+	 * @param permits The amount of permits to acquire, must be greater than 0.
+	 * @param decision The decision to reset and fill, owned by the caller.
+	 * @return The passed in decision.
+	 * @throws RateLimitException thrown if the context cannot be loaded.
+	 */
+	@Override
+	public RateLimitDecision tryAcquire(String contextKey, String stateKey, long permits, RateLimitDecision decision)
+			throws RateLimitException {
+		return this.tryAcquireInternal(contextKey, stateKey, permits, decision);
+	}
+
+	/**
+	 * The bucket is read and swapped in the table by {@link #decide} so it is not looked up up front.
+	 * @param context The context the request is handled under, null if it could not be loaded.
+	 * @param stateKey The state we are grouping requests under.
+	 * @param permits The amount of permits to acquire, must be greater than 0.
+	 * @param decision The decision to reset and fill.
+	 * @return The passed in decision.
+	 */
+	@Override
+	protected RateLimitDecision acquireInternal(BurstableRateLimitContext context, String stateKey, long permits,
+			RateLimitDecision decision) {
+		decision.reset().context(context);
+		if(!this.isContextEnable(context)) {
+			return decision.deny(null, RateLimitDecision.RETRY_AFTER_UNKNOWN);
+		}
+		return this.decide(context, stateKey, permits, null, decision);
+	}
+
+	/**
+	 * Take permits from the shared bucket of a key. The passed in state is ignored.
+	 * @param context The context that holds the limits.
+	 * @param stateKey The state key that we are updating.
+	 * @param permits The amount of permits requested.
+	 * @param state Ignored.
+	 * @param decision The decision to fill.
+	 * @return The passed in decision.
+	 */
+	@Override
+	protected RateLimitDecision decide(BurstableRateLimitContext context, String stateKey, long permits,
+			PrimitiveBurstableRateLimitState state, RateLimitDecision decision) {
+		long capacity = context.getBurstCapacity();
+		long rate = context.getReplenishRate();
+		if(rate <= 0 || capacity < permits) {
+			return decision.deny(null, RateLimitDecision.RETRY_AFTER_NEVER);
+		}
+
+		long now = this.now();
+		long burst = (long) Math.ceil(capacity * NANOS_PER_SECOND / rate);
+		long cost = (long) (permits * NANOS_PER_SECOND / rate);
+		int slot = this.table.claim(this.table.fingerprint(context.getContextKey(), stateKey), now);
+		if(slot < 0) {
+			return decision.allow(null, capacity - permits);
+		}
+
+		while(true) {
+			long fullAt = this.table.get(slot);
+			long updated = Math.max(fullAt, now) + cost;
+			long needed = updated - now;
+			if(needed > burst) {
+				return decision.deny(null, (long) Math.ceil((needed - burst) / NANOS_PER_MILLI));
+			}
+			if(this.table.compareAndSet(slot, fullAt, updated)) {
+				return decision.allow(null, (long) ((burst - needed) * (rate / NANOS_PER_SECOND)));
+			}
+		}
+	}
+
+	/**
+	 * Read the shared bucket of a key.
+	 * @param context The context of the state.
+	 * @param stateKey The state key of the state.
+	 * @return The tokens of the bucket as of now, or empty if the key has no bucket.
+	 */
+	@Override
+	public Optional<PrimitiveBurstableRateLimitState> getRateLimitState(AbstractRateLimitContext context, String stateKey) {
+		int slot = this.table.find(this.table.fingerprint(context.getContextKey(), stateKey));
+		if(slot < 0) {
+			return Optional.empty();
+		}
+		BurstableRateLimitContext burstable = (BurstableRateLimitContext) context;
+		long now = this.now();
+		long fullAt = Math.max(this.table.get(slot), now);
+		long missing = burstable.getReplenishRate() <= 0
+				? 0
+				: (long) Math.ceil((fullAt - now) * (burstable.getReplenishRate() / NANOS_PER_SECOND));
+
+		PrimitiveBurstableRateLimitState copy = new PrimitiveBurstableRateLimitState();
+		copy.setTokens(Math.max(0, burstable.getBurstCapacity() - missing));
+		copy.setRefreshedAt(now);
+		copy.setReplenishedAt(fullAt);
+		return Optional.of(copy);
+	}
+
+	@Override
+	protected PrimitiveBurstableRateLimitState createRateLimitState(BurstableRateLimitContext context) {
+		long now = this.now();
+		PrimitiveBurstableRateLimitState state = new PrimitiveBurstableRateLimitState();
+		state.setTokens(context.getBurstCapacity());
+		state.setRefreshedAt(now);
+		state.setReplenishedAt(now);
+		return state;
+	}
+
+	@Override
+	protected boolean isValid(Optional<PrimitiveBurstableRateLimitState> state) {
+		return state != null && state.isPresent();
+	}
+
+	/**
+	 * Full buckets are reused in place by new keys, there is nothing to remove.
+	 */
+	@Override
+	public void pruneExpiredStates() {
+	}
+
+	@Override
+	public boolean isSelfPruning() {
+		return true;
+	}
+
+	/**
+	 * @return The current epoch nanos, the clock every process on the host agrees on.
+	 */
+	protected long now() {
+		return TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis());
+	}
+}
@@ -0,0 +1,100 @@
+package com.calebjonasson.ratelimiter.inmemory.limiter;
+
+import com.calebjonasson.ratelimiter.core.context.ContextProvider;
+import com.calebjonasson.ratelimiter.core.context.SlidingLogRateLimitContext;
+import com.calebjonasson.ratelimiter.core.response.RateLimitDecision;
+import com.calebjonasson.ratelimiter.core.state.SlidingLogRateLimitState;
+import com.calebjonasson.ratelimiter.core.type.strategy.SlidingLogRateLimiterTypeStrategy;
+import com.calebjonasson.ratelimiter.inmemory.store.ContextStateStore;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An exact sliding window rate limiter that logs the time of every admitted request, see
+ * {@link SlidingLogRateLimitState}. A request is admitted if fewer than the limit of requests were admitted in the
+ * interval before it, with millisecond precision.
+ *
+ * A request trims the requests that left the window from the front of the log and appends itself, which is constant
+ * time per logged request. A state holds up to the limit of its context in 4 bytes each, so this suits limits that
+ * must be exact over long windows, eg: 100 exports per rolling 24 hours, rather than high limits over many keys where
+ * the {@link SlidingWindowInMemoryRateLimiter} estimate is far cheaper. Limits above {@link Integer#MAX_VALUE} and
+ * intervals above {@link SlidingLogRateLimitContext#MAX_INTERVAL} are not supported and their requests are denied.
+ */
+public class SlidingLogInMemoryRateLimiter extends PrimitiveInMemoryRateLimiter<
+		SlidingLogRateLimiterTypeStrategy, SlidingLogRateLimitContext, SlidingLogRateLimitState> {
+
+	/**
+	 * Create a new sliding log in memory ratelimiter
+	 *
+	 * @param contextProvider The context data access to be used by the rate limiter.
+	 */
+	public SlidingLogInMemoryRateLimiter(final ContextProvider<SlidingLogRateLimiterTypeStrategy, SlidingLogRateLimitContext> contextProvider) {
+		super(contextProvider);
+	}
+
+	/**
+	 * Create a new sliding log in memory ratelimiter with a custom state store.
+	 *
+	 * @param contextProvider The context data access to be used by the rate limiter.
+	 * @param states The store that will hold the rate limit states of each context.
+	 */
+	public SlidingLogInMemoryRateLimiter(final ContextProvider<SlidingLogRateLimiterTypeStrategy, SlidingLogRateLimitContext> contextProvider,
+			final ContextStateStore<SlidingLogRateLimitState> states) {
+		super(contextProvider, states);
+	}
+
+	@Override
+	protected RateLimitDecision consume(SlidingLogRateLimitContext context, SlidingLogRateLimitState state, long permits,
+			long now, RateLimitDecision decision) {
+		long limit = context.getLimit();
+		long interval = context.getInterval();
+		if(limit < permits || limit > Integer.MAX_VALUE || interval <= 0 || interval > SlidingLogRateLimitContext.MAX_INTERVAL) {
+			return decision.deny(state, RateLimitDecision.RETRY_AFTER_NEVER);
+		}
+
+		// Never log a request before the latest one so the log stays ordered if the clock goes back.
+		long nowMillis = TimeUnit.NANOSECONDS.toMillis(now);
+		long time = Math.max(nowMillis, state.newest());
+		state.trim(time - interval);
+
+		if(state.getSize() + permits <= limit) {
+			state.append(time, (int) permits, (int) limit);
+			state.setExpiresAt(time + interval);
+			return decision.allow(state, limit - state.getSize());
+		}
+
+		// The permits fit once enough of the oldest requests have left the window.
+		long leaves = state.get((int) (state.getSize() + permits - limit - 1)) + interval;
+		return decision.deny(state, Math.max(1, leaves - nowMillis));
+	}
+
+	@Override
+	protected SlidingLogRateLimitState createRateLimitState(SlidingLogRateLimitContext context) {
+		return new SlidingLogRateLimitState();
+	}
+
+	@Override
+	protected boolean isDiscarded(SlidingLogRateLimitState state) {
+		return state.isDiscarded();
+	}
+
+	@Override
+	protected void discard(SlidingLogRateLimitState state) {
+		state.setDiscarded(true);
+	}
+
+	@Override
+	protected long expiresAtNanos(SlidingLogRateLimitState state) {
+		return TimeUnit.MILLISECONDS.toNanos(state.getExpiresAt());
+	}
+
+	/**
+	 * Find when a sliding log state expires, eg: to index states with a
+	 * {@link com.calebjonasson.ratelimiter.inmemory.store.TimingWheelStateStore}
+	 * @param state The state we are checking.
+	 * @return The epoch millis at which the latest request leaves the window.
+	 */
+	public static long expiresAt(SlidingLogRateLimitState state) {
+		return state.getExpiresAt();
+	}
+}
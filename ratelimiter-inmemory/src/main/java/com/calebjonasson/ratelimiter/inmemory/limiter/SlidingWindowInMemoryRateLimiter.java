@@ -0,0 +1,186 @@
+package com.calebjonasson.ratelimiter.inmemory.limiter;
+
+import com.calebjonasson.ratelimiter.core.context.ContextProvider;
+import com.calebjonasson.ratelimiter.core.context.SlidingWindowRateLimitContext;
+import com.calebjonasson.ratelimiter.core.response.RateLimitDecision;
+import com.calebjonasson.ratelimiter.core.state.SlidingWindowRateLimitState;
+import com.calebjonasson.ratelimiter.core.type.strategy.SlidingWindowRateLimiterTypeStrategy;
+import com.calebjonasson.ratelimiter.inmemory.store.ContextStateStore;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A sliding window rate limiter. Unlike the fixed windows of the {@link AtomicInMemoryRateLimiter}, which admit up to
+ * twice the limit to a burst that straddles the end of a window, the limit applies to the window ending at every
+ * request.
+ *
+ * The window is counted in sub windows, see {@link SlidingWindowRateLimitState}. The rolling count is the sum of the
+ * sub windows inside the window plus the sub window that is leaving it, weighted by the share of it that is still
+ * inside, which assumes its requests were spread evenly. A request reads two counters and the running total, so it is
+ * constant time and never allocates; only the sub windows that went by since the previous request are cleared, at most
+ * one ring per request.
+ */
+public class SlidingWindowInMemoryRateLimiter extends PrimitiveInMemoryRateLimiter<
+		SlidingWindowRateLimiterTypeStrategy, SlidingWindowRateLimitContext, SlidingWindowRateLimitState> {
+
+	/**
+	 * The amount of nanos in a millisecond, the unit of the interval and the retry after.
+	 */
+	private static final long NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+	/**
+	 * Create a new sliding window in memory ratelimiter
+	 *
+	 * @param contextProvider The context data access to be used by the rate limiter.
+	 */
+	public SlidingWindowInMemoryRateLimiter(final ContextProvider<SlidingWindowRateLimiterTypeStrategy, SlidingWindowRateLimitContext> contextProvider) {
+		super(contextProvider);
+	}
+
+	/**
+	 * Create a new sliding window in memory ratelimiter with a custom state store.
+	 *
+	 * @param contextProvider The context data access to be used by the rate limiter.
+	 * @param states The store that will hold the rate limit states of each context.
+	 */
+	public SlidingWindowInMemoryRateLimiter(final ContextProvider<SlidingWindowRateLimiterTypeStrategy, SlidingWindowRateLimitContext> contextProvider,
+			final ContextStateStore<SlidingWindowRateLimitState> states) {
+		super(contextProvider, states);
+	}
+
+	@Override
+	protected RateLimitDecision consume(SlidingWindowRateLimitContext context, SlidingWindowRateLimitState state, long permits,
+			long now, RateLimitDecision decision) {
+		long limit = context.getLimit();
+		if(limit < permits || context.getInterval() <= 0) {
+			return decision.deny(state, RateLimitDecision.RETRY_AFTER_NEVER);
+		}
+
+		int subWindows = subWindows(context);
+		long length = subWindowLength(context);
+		if(state.getCounts().length != subWindows + 1 || state.getSubWindowLength() != length) {
+			// The context changed since the state was created, count from an empty window.
+			state.setCounts(new long[subWindows + 1]);
+			state.setSubWindowLength(length);
+			state.setSubWindow(now / length);
+			state.setTotal(0);
+		}
+		long current = this.advance(state, now / length);
+
+		long[] counts = state.getCounts();
+		long leaving = counts[(int) ((current - subWindows) % counts.length)];
+		long untilNext = length - now % length;
+		double estimate = state.getTotal() + leaving * (untilNext / (double) length);
+
+		if(estimate + permits <= limit) {
+			counts[(int) (current % counts.length)] += permits;
+			state.setTotal(state.getTotal() + permits);
+			return decision.allow(state, (long) (limit - estimate - permits));
+		}
+		return decision.deny(state, retryAfter(counts, current, subWindows, length, leaving, untilNext, estimate + permits - limit));
+	}
+
+	/**
+	 * Move the state to the current sub window, clearing the sub windows that went by.
+	 * @param state The state being updated.
+	 * @param current The number of the current sub window.
+	 * @return The number of the sub window requests are counted in, never before the latest one counted in.
+	 */
+	private long advance(SlidingWindowRateLimitState state, long current) {
+		long latest = state.getSubWindow();
+		if(current <= latest) {
+			// The clock went back, keep counting in the latest sub window.
+			return latest;
+		}
+
+		long[] counts = state.getCounts();
+		if(current - latest >= counts.length) {
+			Arrays.fill(counts, 0);
+			state.setTotal(0);
+		} else {
+			long total = state.getTotal();
+			for(long subWindow = latest + 1; subWindow <= current; subWindow++) {
+				// The oldest sub window inside the window starts leaving it and the slot of the one that left is reused.
+				total -= counts[(int) ((subWindow - counts.length + 1) % counts.length)];
+				counts[(int) (subWindow % counts.length)] = 0;
+			}
+			state.setTotal(total);
+		}
+		state.setSubWindow(current);
+		return current;
+	}
+
+	/**
+	 * Find when enough requests will have left the window. The rolling count falls as the leaving sub window slides out
+	 * and then as each sub window after it does, at an even rate within each sub window.
+	 * @param counts The counts of the sub windows.
+	 * @param current The number of the current sub window.
+	 * @param subWindows The amount of sub windows inside the window.
+	 * @param length The length of a sub window in nanos.
+	 * @param leaving The count of the sub window leaving the window.
+	 * @param untilNext The nanos until the next sub window starts.
+	 * @param excess The amount the rolling count has to fall by.
+	 * @return The retry after in millis.
+	 */
+	private static long retryAfter(long[] counts, long current, int subWindows, long length, long leaving, long untilNext,
+			double excess) {
+		double leavingInside = leaving * (untilNext / (double) length);
+		double wait;
+		if(leavingInside >= excess) {
+			wait = excess * length / leaving;
+		} else {
+			excess -= leavingInside;
+			wait = untilNext;
+			for(long subWindow = current - subWindows + 1; subWindow <= current; subWindow++) {
+				long count = counts[(int) (subWindow % counts.length)];
+				if(count >= excess) {
+					wait += excess * length / count;
+					break;
+				}
+				excess -= count;
+				wait += length;
+			}
+		}
+		return Math.max(1, (long) Math.ceil(wait / NANOS_PER_MILLI));
+	}
+
+	@Override
+	protected SlidingWindowRateLimitState createRateLimitState(SlidingWindowRateLimitContext context) {
+		long length = subWindowLength(context);
+		return new SlidingWindowRateLimitState(subWindows(context), length, this.now() / length);
+	}
+
+	@Override
+	protected boolean isDiscarded(SlidingWindowRateLimitState state) {
+		return state.isDiscarded();
+	}
+
+	@Override
+	protected void discard(SlidingWindowRateLimitState state) {
+		state.setDiscarded(true);
+	}
+
+	@Override
+	protected long expiresAtNanos(SlidingWindowRateLimitState state) {
+		return state.expiresAt();
+	}
+
+	/**
+	 * Find when a sliding window state expires, eg: to index states with a
+	 * {@link com.calebjonasson.ratelimiter.inmemory.store.TimingWheelStateStore}
+	 * @param state The state we are checking.
+	 * @return The epoch millis at which every counted request has left the window.
+	 */
+	public static long expiresAt(SlidingWindowRateLimitState state) {
+		return TimeUnit.NANOSECONDS.toMillis(state.expiresAt());
+	}
+
+	private static int subWindows(SlidingWindowRateLimitContext context) {
+		return Math.max(1, context.getSubWindows());
+	}
+
+	private static long subWindowLength(SlidingWindowRateLimitContext context) {
+		return Math.max(1, TimeUnit.MILLISECONDS.toNanos(Math.max(1, context.getInterval())) / subWindows(context));
+	}
+}
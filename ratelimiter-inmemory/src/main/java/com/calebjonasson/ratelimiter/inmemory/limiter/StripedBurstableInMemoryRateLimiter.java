@@ -0,0 +1,193 @@
+package com.calebjonasson.ratelimiter.inmemory.limiter;
+
+import com.calebjonasson.ratelimiter.core.common.exception.RateLimitException;
+import com.calebjonasson.ratelimiter.core.context.BurstableRateLimitContext;
+import com.calebjonasson.ratelimiter.core.context.ContextProvider;
+import com.calebjonasson.ratelimiter.core.context.configuration.BurstableContextConfiguration;
+import com.calebjonasson.ratelimiter.core.request.ContextStateRateLimitRequest;
+import com.calebjonasson.ratelimiter.core.response.RateLimitDecision;
+import com.calebjonasson.ratelimiter.core.response.RateLimitHandleResponse;
+import com.calebjonasson.ratelimiter.core.state.BurstableRateLimitState;
+import com.calebjonasson.ratelimiter.inmemory.store.ContextStateStore;
+import com.calebjonasson.ratelimiter.inmemory.store.StateStore;
+import com.calebjonasson.ratelimiter.inmemory.store.StateStoreFactory;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A burstable rate limiter that guards its states with independently locked segments.
+ *
+ * Each context and state key is hashed to a single segment and the refill and consume of a bucket happens while holding only that
+ * segment's monitor and the monitor of the bucket itself, which is what pruning discards it under. Requests for state keys
+ * in different segments never block each other which allows throughput to scale with the amount of cores available. The states themselves live in the {@link StateStore} of their context.
+ */
+public class StripedBurstableInMemoryRateLimiter extends BurstableInMemoryRateLimiter {
+
+	/**
+	 * The default amount of segments. Four per core rounded up to a power of two to keep collisions between hot keys low.
+	 */
+	public static final int DEFAULT_SEGMENTS = Runtime.getRuntime().availableProcessors() * 4;
+
+	/**
+	 * The independently locked segments. The length is always a power of two.
+	 */
+	private final Object[] segments;
+
+	/**
+	 * Create a new striped in memory ratelimiter with the {@link #DEFAULT_SEGMENTS} amount of segments.
+	 *
+	 * @param contextProvider The context data access to be used by the rate limiter.
+	 * @param contextConfiguration The configuration used to create contexts.
+	 */
+	public StripedBurstableInMemoryRateLimiter(ContextProvider contextProvider, BurstableContextConfiguration contextConfiguration) {
+		this(contextProvider, contextConfiguration, DEFAULT_SEGMENTS);
+	}
+
+	/**
+	 * Create a new striped in memory ratelimiter.
+	 *
+	 * @param contextProvider The context data access to be used by the rate limiter.
+	 * @param contextConfiguration The configuration used to create contexts.
+	 * @param segments The minimum amount of segments. This is rounded up to the next power of two.
+	 */
+	public StripedBurstableInMemoryRateLimiter(ContextProvider contextProvider, BurstableContextConfiguration contextConfiguration, int segments) {
+		this(contextProvider, contextConfiguration, segments, StateStoreFactory.perContext());
+	}
+
+	/**
+	 * Create a new striped in memory ratelimiter with a custom state store.
+	 *
+	 * @param contextProvider The context data access to be used by the rate limiter.
+	 * @param contextConfiguration The configuration used to create contexts.
+	 * @param segments The minimum amount of segments. This is rounded up to the next power of two.
+	 * @param states The store that will hold the rate limit states of each context.
+	 */
+	public StripedBurstableInMemoryRateLimiter(ContextProvider contextProvider, BurstableContextConfiguration contextConfiguration,
+			int segments, ContextStateStore<BurstableRateLimitState> states) {
+		super(contextProvider, contextConfiguration, states);
+		if(segments < 1) {
+			throw new IllegalArgumentException("The amount of segments must be greater than 0.");
+		}
+
+		int size = Integer.highestOneBit(segments);
+		if(size < segments) size <<= 1;
+
+		this.segments = new Object[size];
+		for(int x = 0; x < size; x++) {
+			this.segments[x] = new Object();
+		}
+	}
+
+	/**
+	 * Handle the request without taking the limiter wide monitor.
+	 * @param request The rate limit request we are looking to handle.
+	 * @return A {@link RateLimitHandleResponse} containing the state and available capacity.
+	 * @throws RateLimitException thrown if the rate limit is exceeded or another internal exception is thrown.
+	 */
+	@Override
+	public RateLimitHandleResponse handle(ContextStateRateLimitRequest request) throws RateLimitException {
+		return this.handleInternal(request);
+	}
+
+	/**
+	 * Handle a batch of requests taking each segment monitor once. The requests are grouped by the segment that owns
+	 * their state key and each group is handled while holding its segment, in the order the requests were given.
+	 * @param requests The requests we are looking to handle.
+	 * @return A new {@link RateLimitDecision} per request in the iteration order of the requests.
+	 * @throws RateLimitException thrown if a context cannot be loaded or another internal exception is thrown.
+	 */
+	@Override
+	public List<RateLimitDecision> handleAll(Collection<ContextStateRateLimitRequest> requests) throws RateLimitException {
+		ContextStateRateLimitRequest[] batch = requests.toArray(new ContextStateRateLimitRequest[0]);
+		List<BurstableRateLimitContext> contexts = this.loadContexts(requests);
+
+		// Counting sort of the request indexes by segment so each segment is visited once.
+		int[] segmentOf = new int[batch.length];
+		int[] offsets = new int[this.segments.length + 1];
+		for(int x = 0; x < batch.length; x++) {
+			segmentOf[x] = this.segmentIndex(batch[x].getContextKey(), batch[x].getStateKey());
+			offsets[segmentOf[x] + 1]++;
+		}
+		for(int x = 0; x < this.segments.length; x++) {
+			offsets[x + 1] += offsets[x];
+		}
+		int[] order = new int[batch.length];
+		int[] next = Arrays.copyOf(offsets, this.segments.length);
+		for(int x = 0; x < batch.length; x++) {
+			order[next[segmentOf[x]]++] = x;
+		}
+
+		RateLimitDecision[] decisions = new RateLimitDecision[batch.length];
+		for(int segment = 0; segment < this.segments.length; segment++) {
+			if(offsets[segment] == offsets[segment + 1]) continue;
+
+			// decide re-enters the segment monitor which is cheap once it is held.
+			synchronized (this.segments[segment]) {
+				for(int y = offsets[segment]; y < offsets[segment + 1]; y++) {
+					int x = order[y];
+					decisions[x] = this.acquireInternal(contexts.get(x), batch[x].getStateKey(), batch[x].getPermits(),
+							new RateLimitDecision());
+				}
+			}
+		}
+		return Arrays.asList(decisions);
+	}
+
+	/**
+	 * Acquire without taking the limiter wide monitor.
+	 * @param contextKey The context to use to group states under for configuration values.
+	 * @param stateKey The state we are grouping requests under.
+	 * @param permits The amount of permits to acquire, must be greater than 0.
+	 * @param decision The decision to reset and fill, owned by the caller.
+	 * @return The passed in decision.
+	 * @throws RateLimitException thrown if the context cannot be loaded or another internal exception is thrown.
+	 */
+	@Override
+	public RateLimitDecision tryAcquire(String contextKey, String stateKey, long permits, RateLimitDecision decision)
+			throws RateLimitException {
+		return this.tryAcquireInternal(contextKey, stateKey, permits, decision);
+	}
+
+	/**
+	 * Refill and consume under the segment monitor. The stored state is re-read inside the monitor so the passed in state
+	 * is only used when no state exists for the key yet.
+	 *
+	 * @param context The context that we are performing an internal atomic increment under.
+	 * @param stateKey The state key that we are updating.
+	 * @param permits The amount of tokens requested.
+	 * @param state The rate limit state observed or created by the caller.
+	 * @param decision The decision to fill.
+	 * @return The passed in decision.
+	 */
+	@Override
+	protected RateLimitDecision decide(BurstableRateLimitContext context, String stateKey, long permits,
+			BurstableRateLimitState state, RateLimitDecision decision) {
+
+		StateStore<BurstableRateLimitState> table = this.table(context);
+		synchronized (this.segments[this.segmentIndex(context.getContextKey(), stateKey)]) {
+			BurstableRateLimitState current = table.get(stateKey);
+			return this.consumeStored(table, context, stateKey, permits, current == null ? state : current, decision);
+		}
+	}
+
+	/**
+	 * @return The amount of independently locked segments.
+	 */
+	public int getSegmentCount() {
+		return this.segments.length;
+	}
+
+	/**
+	 * Find the index of the segment that guards a state.
+	 * @param contextKey The context key of the state, may be null.
+	 * @param stateKey The state key we are looking up.
+	 * @return The index of the owning segment.
+	 */
+	private int segmentIndex(String contextKey, String stateKey) {
+		int hash = 31 * (contextKey == null ? 0 : contextKey.hashCode()) + stateKey.hashCode();
+		hash ^= (hash >>> 16);
+		return hash & (this.segments.length - 1);
+	}
+}
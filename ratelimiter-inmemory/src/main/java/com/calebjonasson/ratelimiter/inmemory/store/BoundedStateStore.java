@@ -0,0 +1,352 @@
+package com.calebjonasson.ratelimiter.inmemory.store;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+/**
+ * A size bounded {@link StateStore} that uses a W-TinyLFU eviction policy.
+ *
+ * The store is split into independently locked segments, each owning a slice of the maximum size. Within a segment new
+ * states enter a small LRU window. States leaving the window compete against the eldest state of the main space and
+ * are only admitted if a frequency sketch estimates they have been used more often. This keeps a scan of one-hit keys
+ * from pushing hot keys out of the store. The main space is a segmented LRU where states that are used again are
+ * protected from eviction. Every operation, including eviction, is O(1) and only holds the lock of one segment.
+ *
+ * A state that is not admitted is forgotten, which for a rate limiter means its next request starts from a fresh state.
+ * Keys that are requested often enough to matter are admitted by the frequency sketch. Only {@link #get(String)} is
+ * counted as an access since a new state is always stored after a get that missed.
+ *
+ * @param <STATE> The type of state being stored.
+ */
+public class BoundedStateStore<STATE> implements StateStore<STATE> {
+
+	/**
+	 * The percentage of each segment used by the admission window.
+	 */
+	private static final int WINDOW_PERCENT = 1;
+
+	/**
+	 * The percentage of the main space of each segment that is protected.
+	 */
+	private static final int PROTECTED_PERCENT = 80;
+
+	/**
+	 * The smallest segment we are willing to create. Smaller stores use fewer segments.
+	 */
+	private static final int MINIMUM_SEGMENT_SIZE = 32;
+
+	/**
+	 * The independently locked segments. The length is always a power of two.
+	 */
+	private final Segment<STATE>[] segments;
+
+	/**
+	 * The maximum amount of states this store will hold.
+	 */
+	private final int maximumSize;
+
+	/**
+	 * The segment that the next {@link #sample(int, BiConsumer)} will start from.
+	 */
+	private int sampleSegment;
+
+	/**
+	 * Create a bounded store with a segment count derived from the available cores.
+	 * @param maximumSize The maximum amount of states to hold.
+	 */
+	public BoundedStateStore(int maximumSize) {
+		this(maximumSize, Runtime.getRuntime().availableProcessors() * 4);
+	}
+
+	/**
+	 * Create a bounded store.
+	 * @param maximumSize The maximum amount of states to hold.
+	 * @param concurrencyLevel The desired amount of segments. This is rounded up to a power of two and reduced for small
+	 *                         stores so that each segment can hold a useful amount of states.
+	 */
+	@SuppressWarnings("unchecked")
+	public BoundedStateStore(int maximumSize, int concurrencyLevel) {
+		if(maximumSize < 1) {
+			throw new IllegalArgumentException("The maximum size must be greater than 0.");
+		}
+
+		int segmentCount = Integer.highestOneBit(Math.max(1, concurrencyLevel));
+		if(segmentCount < concurrencyLevel) segmentCount <<= 1;
+		while(segmentCount > 1 && maximumSize / segmentCount < MINIMUM_SEGMENT_SIZE) {
+			segmentCount >>>= 1;
+		}
+
+		this.maximumSize = maximumSize;
+		this.segments = new Segment[segmentCount];
+		int remaining = maximumSize;
+		for(int x = 0; x < segmentCount; x++) {
+			// Spread the remainder so the segments add up to exactly the maximum size.
+			int capacity = remaining / (segmentCount - x);
+			remaining -= capacity;
+			this.segments[x] = new Segment<>(capacity);
+		}
+	}
+
+	/**
+	 * @return The maximum amount of states this store will hold.
+	 */
+	public int getMaximumSize() {
+		return this.maximumSize;
+	}
+
+	@Override
+	public STATE get(String key) {
+		int hash = spread(key.hashCode());
+		return this.segmentFor(hash).get(key, hash);
+	}
+
+	@Override
+	public STATE put(String key, STATE state) {
+		int hash = spread(key.hashCode());
+		return this.segmentFor(hash).put(key, state, false);
+	}
+
+	@Override
+	public STATE putIfAbsent(String key, STATE state) {
+		int hash = spread(key.hashCode());
+		return this.segmentFor(hash).put(key, state, true);
+	}
+
+	@Override
+	public boolean replace(String key, STATE expected, STATE state) {
+		int hash = spread(key.hashCode());
+		return this.segmentFor(hash).replace(key, expected, state);
+	}
+
+	@Override
+	public STATE remove(String key) {
+		int hash = spread(key.hashCode());
+		return this.segmentFor(hash).remove(key);
+	}
+
+	@Override
+	public boolean remove(String key, STATE expected) {
+		int hash = spread(key.hashCode());
+		return this.segmentFor(hash).remove(key, expected);
+	}
+
+	@Override
+	public int size() {
+		int size = 0;
+		for(Segment<STATE> segment : this.segments) {
+			size += segment.size();
+		}
+		return size;
+	}
+
+	@Override
+	public void forEach(BiConsumer<String, STATE> action) {
+		for(Segment<STATE> segment : this.segments) {
+			// Copy under the segment lock so the action is free to modify the store.
+			for(Map.Entry<String, STATE> entry : segment.snapshot()) {
+				action.accept(entry.getKey(), entry.getValue());
+			}
+		}
+	}
+
+	/**
+	 * Sampling visits the least recently used states of one segment per call, rotating through the segments. These are
+	 * the states that are most likely to have expired.
+	 */
+	@Override
+	public int sample(int count, BiConsumer<String, STATE> action) {
+		Segment<STATE> segment;
+		synchronized (this) {
+			segment = this.segments[this.sampleSegment];
+			this.sampleSegment = (this.sampleSegment + 1) & (this.segments.length - 1);
+		}
+
+		List<Map.Entry<String, STATE>> entries = segment.eldest(count);
+		for(Map.Entry<String, STATE> entry : entries) {
+			action.accept(entry.getKey(), entry.getValue());
+		}
+		return entries.size();
+	}
+
+	private Segment<STATE> segmentFor(int hash) {
+		return this.segments[hash & (this.segments.length - 1)];
+	}
+
+	private static int spread(int hash) {
+		return hash ^ (hash >>> 16);
+	}
+
+	/**
+	 * A W-TinyLFU segment guarded by its own monitor.
+	 *
+	 * The linked hash maps are kept in insertion order and entries are moved to the tail by removing and re-adding them,
+	 * which keeps the eldest entry of each space at the head.
+	 */
+	private static final class Segment<STATE> {
+
+		private final LinkedHashMap<String, STATE> window = new LinkedHashMap<>();
+		private final LinkedHashMap<String, STATE> probation = new LinkedHashMap<>();
+		private final LinkedHashMap<String, STATE> protect = new LinkedHashMap<>();
+		private final FrequencySketch sketch;
+		private final int windowCapacity;
+		private final int mainCapacity;
+		private final int protectedCapacity;
+
+		Segment(int capacity) {
+			this.windowCapacity = Math.max(1, capacity * WINDOW_PERCENT / 100);
+			this.mainCapacity = Math.max(0, capacity - this.windowCapacity);
+			this.protectedCapacity = this.mainCapacity * PROTECTED_PERCENT / 100;
+			this.sketch = new FrequencySketch(capacity);
+		}
+
+		synchronized STATE get(String key, int hash) {
+			this.sketch.increment(hash);
+
+			STATE state = this.window.remove(key);
+			if(state != null) {
+				this.window.put(key, state);
+				return state;
+			}
+
+			state = this.probation.remove(key);
+			if(state != null) {
+				// A second use moves the state into the protected space.
+				this.protect.put(key, state);
+				this.demoteProtected();
+				return state;
+			}
+
+			state = this.protect.remove(key);
+			if(state != null) {
+				this.protect.put(key, state);
+			}
+			return state;
+		}
+
+		synchronized STATE put(String key, STATE state, boolean onlyIfAbsent) {
+			LinkedHashMap<String, STATE> space = this.spaceOf(key);
+			if(space != null) {
+				STATE previous = space.get(key);
+				if(!onlyIfAbsent) {
+					space.put(key, state);
+				}
+				return previous;
+			}
+
+			// The access was already counted by the get that missed, counting it again would favour one-hit keys.
+			this.window.put(key, state);
+			this.evict();
+			return null;
+		}
+
+		synchronized boolean replace(String key, STATE expected, STATE state) {
+			LinkedHashMap<String, STATE> space = this.spaceOf(key);
+			if(space == null || !Objects.equals(space.get(key), expected)) {
+				return false;
+			}
+			space.put(key, state);
+			return true;
+		}
+
+		synchronized STATE remove(String key) {
+			LinkedHashMap<String, STATE> space = this.spaceOf(key);
+			return space == null ? null : space.remove(key);
+		}
+
+		synchronized boolean remove(String key, STATE expected) {
+			LinkedHashMap<String, STATE> space = this.spaceOf(key);
+			if(space == null || !Objects.equals(space.get(key), expected)) {
+				return false;
+			}
+			space.remove(key);
+			return true;
+		}
+
+		synchronized int size() {
+			return this.window.size() + this.probation.size() + this.protect.size();
+		}
+
+		synchronized List<Map.Entry<String, STATE>> snapshot() {
+			List<Map.Entry<String, STATE>> entries = new ArrayList<>(this.size());
+			for(Map.Entry<String, STATE> entry : this.window.entrySet()) entries.add(new SimpleImmutableEntry<>(entry));
+			for(Map.Entry<String, STATE> entry : this.probation.entrySet()) entries.add(new SimpleImmutableEntry<>(entry));
+			for(Map.Entry<String, STATE> entry : this.protect.entrySet()) entries.add(new SimpleImmutableEntry<>(entry));
+			return entries;
+		}
+
+		synchronized List<Map.Entry<String, STATE>> eldest(int count) {
+			List<Map.Entry<String, STATE>> entries = new ArrayList<>(Math.min(count, this.size()));
+			addEldest(this.probation, count, entries);
+			addEldest(this.protect, count, entries);
+			addEldest(this.window, count, entries);
+			return entries;
+		}
+
+		private static <STATE> void addEldest(LinkedHashMap<String, STATE> space, int count, List<Map.Entry<String, STATE>> entries) {
+			Iterator<Map.Entry<String, STATE>> iterator = space.entrySet().iterator();
+			while(entries.size() < count && iterator.hasNext()) {
+				entries.add(new SimpleImmutableEntry<>(iterator.next()));
+			}
+		}
+
+		private LinkedHashMap<String, STATE> spaceOf(String key) {
+			if(this.window.containsKey(key)) return this.window;
+			if(this.probation.containsKey(key)) return this.probation;
+			if(this.protect.containsKey(key)) return this.protect;
+			return null;
+		}
+
+		/**
+		 * Move the eldest window entry into the main space if the window is full, evicting either it or the main victim
+		 * depending on which is estimated to be used more often.
+		 */
+		private void evict() {
+			if(this.window.size() <= this.windowCapacity) {
+				return;
+			}
+
+			Iterator<Map.Entry<String, STATE>> windowIterator = this.window.entrySet().iterator();
+			Map.Entry<String, STATE> candidate = windowIterator.next();
+			windowIterator.remove();
+
+			if(this.probation.size() + this.protect.size() < this.mainCapacity) {
+				this.probation.put(candidate.getKey(), candidate.getValue());
+				return;
+			}
+
+			LinkedHashMap<String, STATE> victimSpace = this.probation.isEmpty() ? this.protect : this.probation;
+			if(victimSpace.isEmpty()) {
+				// There is no main space to compete for; the candidate is dropped.
+				return;
+			}
+
+			Iterator<Map.Entry<String, STATE>> victimIterator = victimSpace.entrySet().iterator();
+			Map.Entry<String, STATE> victim = victimIterator.next();
+
+			int candidateFrequency = this.sketch.frequency(spread(candidate.getKey().hashCode()));
+			int victimFrequency = this.sketch.frequency(spread(victim.getKey().hashCode()));
+			if(candidateFrequency > victimFrequency) {
+				victimIterator.remove();
+				this.probation.put(candidate.getKey(), candidate.getValue());
+			}
+		}
+
+		/**
+		 * Move the eldest protected entries back to probation while the protected space is over capacity.
+		 */
+		private void demoteProtected() {
+			while(this.protect.size() > this.protectedCapacity) {
+				Iterator<Map.Entry<String, STATE>> iterator = this.protect.entrySet().iterator();
+				Map.Entry<String, STATE> eldest = iterator.next();
+				iterator.remove();
+				this.probation.put(eldest.getKey(), eldest.getValue());
+			}
+		}
+	}
+}
@@ -0,0 +1,87 @@
+package com.calebjonasson.ratelimiter.inmemory.store;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiConsumer;
+
+/**
+ * An unbounded {@link StateStore} backed by a {@link ConcurrentHashMap}. This is the default store of the in memory
+ * rate limiters.
+ *
+ * @param <STATE> The type of state being stored.
+ */
+public class ConcurrentStateStore<STATE> implements StateStore<STATE> {
+
+	/**
+	 * The stored states.
+	 */
+	private final ConcurrentMap<String, STATE> states = new ConcurrentHashMap<>();
+
+	/**
+	 * The position of the last {@link #sample(int, BiConsumer)}. Weakly consistent so it stays valid while the map is
+	 * being modified.
+	 */
+	private Iterator<Map.Entry<String, STATE>> cursor;
+
+	@Override
+	public STATE get(String key) {
+		return this.states.get(key);
+	}
+
+	@Override
+	public STATE put(String key, STATE state) {
+		return this.states.put(key, state);
+	}
+
+	@Override
+	public STATE putIfAbsent(String key, STATE state) {
+		return this.states.putIfAbsent(key, state);
+	}
+
+	@Override
+	public boolean replace(String key, STATE expected, STATE state) {
+		return this.states.replace(key, expected, state);
+	}
+
+	@Override
+	public STATE remove(String key) {
+		return this.states.remove(key);
+	}
+
+	@Override
+	public boolean remove(String key, STATE expected) {
+		return this.states.remove(key, expected);
+	}
+
+	@Override
+	public int size() {
+		return this.states.size();
+	}
+
+	@Override
+	public void forEach(BiConsumer<String, STATE> action) {
+		this.states.forEach(action);
+	}
+
+	@Override
+	public synchronized int sample(int count, BiConsumer<String, STATE> action) {
+		int visited = 0;
+		boolean restarted = false;
+		while(visited < count) {
+			if(this.cursor == null || !this.cursor.hasNext()) {
+				// Only wrap around once per call so a small map is not visited repeatedly.
+				if(restarted) break;
+				this.cursor = this.states.entrySet().iterator();
+				restarted = true;
+				if(!this.cursor.hasNext()) break;
+			}
+
+			Map.Entry<String, STATE> entry = this.cursor.next();
+			action.accept(entry.getKey(), entry.getValue());
+			visited++;
+		}
+		return visited;
+	}
+}
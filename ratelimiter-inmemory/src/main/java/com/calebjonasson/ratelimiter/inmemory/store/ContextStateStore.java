@@ -0,0 +1,135 @@
+package com.calebjonasson.ratelimiter.inmemory.store;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * A two level store of rate limit states: a {@link StateStore} per context, holding the states of that context by their
+ * state key.
+ *
+ * The same state key under two contexts always refers to two states. Each context gets its own table from the table
+ * factory, so a hot context can be given a larger or differently locked store than the rest, and all the states of a
+ * context can be dropped or replaced by swapping its table. A request that already holds the old table when it is
+ * swapped may still update it; that update is lost with the table, the same as if the state had been dropped a moment
+ * later.
+ *
+ * @param <STATE> The type of state being stored.
+ */
+public class ContextStateStore<STATE> {
+
+	/**
+	 * The context key used for contexts that do not have one.
+	 */
+	public static final String DEFAULT_CONTEXT_KEY = "";
+
+	/**
+	 * The state tables by context key.
+	 */
+	private final ConcurrentMap<String, StateStore<STATE>> tables = new ConcurrentHashMap<>();
+
+	/**
+	 * Creates the table of a context the first time a state is stored for it.
+	 */
+	private final Function<String, StateStore<STATE>> tableFactory;
+
+	/**
+	 * Create a two level store.
+	 * @param tableFactory Creates the table of a context from its context key.
+	 */
+	public ContextStateStore(final Function<String, StateStore<STATE>> tableFactory) {
+		this.tableFactory = tableFactory;
+	}
+
+	/**
+	 * Get the table of a context, creating it if it does not exist.
+	 * @param contextKey The context key, null for the {@link #DEFAULT_CONTEXT_KEY}.
+	 * @return The table holding the states of the context.
+	 */
+	public StateStore<STATE> table(String contextKey) {
+		String key = contextKey == null ? DEFAULT_CONTEXT_KEY : contextKey;
+		StateStore<STATE> table = this.tables.get(key);
+		return table != null ? table : this.tables.computeIfAbsent(key, this.tableFactory);
+	}
+
+	/**
+	 * Get the table of a context.
+	 * @param contextKey The context key, null for the {@link #DEFAULT_CONTEXT_KEY}.
+	 * @return The table holding the states of the context or null if it has none.
+	 */
+	public StateStore<STATE> getTable(String contextKey) {
+		return this.tables.get(contextKey == null ? DEFAULT_CONTEXT_KEY : contextKey);
+	}
+
+	/**
+	 * Get a state.
+	 * @param contextKey The context key of the state.
+	 * @param stateKey The state key of the state.
+	 * @return The state or null if none is stored.
+	 */
+	public STATE get(String contextKey, String stateKey) {
+		StateStore<STATE> table = this.getTable(contextKey);
+		return table == null ? null : table.get(stateKey);
+	}
+
+	/**
+	 * Drop every state of a context by removing its table.
+	 * @param contextKey The context key of the context.
+	 * @return The removed table or null if the context had none.
+	 */
+	public StateStore<STATE> dropContext(String contextKey) {
+		return this.tables.remove(contextKey == null ? DEFAULT_CONTEXT_KEY : contextKey);
+	}
+
+	/**
+	 * Replace the table of a context, eg: to give a hot context a larger store. The states of the old table are dropped.
+	 * @param contextKey The context key of the context.
+	 * @param table The new table of the context.
+	 * @return The replaced table or null if the context had none.
+	 */
+	public StateStore<STATE> replaceTable(String contextKey, StateStore<STATE> table) {
+		return this.tables.put(contextKey == null ? DEFAULT_CONTEXT_KEY : contextKey, table);
+	}
+
+	/**
+	 * Visit the table of every context. The view is weakly consistent.
+	 * @param action The action to perform for each context key and table.
+	 */
+	public void forEachTable(BiConsumer<String, StateStore<STATE>> action) {
+		this.tables.forEach(action);
+	}
+
+	/**
+	 * @return The amount of contexts that have a table.
+	 */
+	public int contextCount() {
+		return this.tables.size();
+	}
+
+	/**
+	 * @return The amount of states stored across every context.
+	 */
+	public int size() {
+		int size = 0;
+		for(StateStore<STATE> table : this.tables.values()) {
+			size += table.size();
+		}
+		return size;
+	}
+
+	/**
+	 * Remove every expired state of every context, see {@link StateStore#removeExpired(long, Predicate)}.
+	 * @param now The current epoch millis.
+	 * @param expired Tests if a state has expired.
+	 * @return The amount of states removed.
+	 */
+	public int removeExpired(long now, Predicate<STATE> expired) {
+		int removed = 0;
+		for(StateStore<STATE> table : this.tables.values()) {
+			removed += table.removeExpired(now, expired);
+		}
+		return removed;
+	}
+}
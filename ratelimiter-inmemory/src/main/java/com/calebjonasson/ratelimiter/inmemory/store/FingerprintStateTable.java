@@ -0,0 +1,421 @@
+package com.calebjonasson.ratelimiter.inmemory.store;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A compact table of counter and timestamp pairs keyed by a 64 bit fingerprint of the context key and state key.
+ *
+ * Neither the keys nor a state object are stored. Every entry is three longs in parallel arrays, a fingerprint, a
+ * counter and a timestamp, so an entry costs 24 bytes and a table sized for its keys at a load factor of
+ * {@value #LOAD_FACTOR} stays near 30 bytes per key. The table is split into segments, each guarded by its own lock and
+ * probed linearly, so a lookup touches a single lock and usually a single cache line. A segment doubles once its load
+ * passes {@value #MAX_LOAD_FACTOR}, which leaves room for keys spreading unevenly over the segments of a sized table
+ * but halves the load of a table that outgrows its size; size the table for the expected amount of keys to avoid it.
+ *
+ * Two keys with the same fingerprint share an entry. Fingerprints are well mixed 64 bit hashes so the chance of any
+ * collision among n keys is about n^2 / 2^65: roughly 1 in 37 million for a million keys, 1 in 370 thousand for ten
+ * million keys and 1 in 3700 for a hundred million keys. Sharing an entry only ever makes the limit of both keys
+ * stricter, never looser. Each table picks a random seed so colliding keys differ between tables and restarts.
+ *
+ * A fingerprint of 0 marks an empty slot, so a key that hashes to 0 is stored as 1.
+ */
+public class FingerprintStateTable {
+
+	/**
+	 * The share of the slots of a segment that are in use when the table holds the keys it was sized for.
+	 */
+	public static final float LOAD_FACTOR = 0.8f;
+
+	/**
+	 * The maximum share of the slots of a segment that are in use before it grows.
+	 */
+	public static final float MAX_LOAD_FACTOR = 0.85f;
+
+	/**
+	 * The default amount of keys the table is sized for.
+	 */
+	public static final int DEFAULT_EXPECTED_KEYS = 1024;
+
+	/**
+	 * The default amount of segments, a power of 2.
+	 */
+	public static final int DEFAULT_SEGMENTS = 64;
+
+	/**
+	 * The smallest amount of slots a segment is created with.
+	 */
+	private static final int MINIMUM_CAPACITY = 8;
+
+	/**
+	 * The size in bytes of the header of a long array on a 64 bit jvm with compressed oops.
+	 */
+	private static final long ARRAY_HEADER_BYTES = 16;
+
+	/**
+	 * The size in bytes of a segment object, its lock and the fields they hold.
+	 */
+	private static final long SEGMENT_OVERHEAD_BYTES = 96;
+
+	private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	private final Segment[] segments;
+
+	private final long seed;
+
+	/**
+	 * Create a table sized for the {@link #DEFAULT_EXPECTED_KEYS}.
+	 */
+	public FingerprintStateTable() {
+		this(DEFAULT_EXPECTED_KEYS, DEFAULT_SEGMENTS);
+	}
+
+	/**
+	 * Create a table.
+	 * @param expectedKeys The amount of keys the table is sized for without growing.
+	 * @param segments The amount of independently locked segments, rounded up to a power of 2.
+	 */
+	public FingerprintStateTable(int expectedKeys, int segments) {
+		if(expectedKeys < 0 || segments < 1) {
+			throw new IllegalArgumentException("The expected keys cannot be negative and there must be at least one segment.");
+		}
+		int count = segments == 1 ? 1 : Integer.highestOneBit(segments - 1) << 1;
+		int capacity = Math.max(MINIMUM_CAPACITY, (int) Math.ceil(expectedKeys / (double) count / LOAD_FACTOR));
+		this.segments = new Segment[count];
+		for(int x = 0; x < count; x++) {
+			this.segments[x] = new Segment(capacity);
+		}
+		this.seed = ThreadLocalRandom.current().nextLong();
+	}
+
+	/**
+	 * Hash a context key and state key to a fingerprint. Does not allocate.
+	 * @param contextKey The context key, null is the same as an empty context key.
+	 * @param stateKey The state key.
+	 * @return The fingerprint of the pair, never 0.
+	 */
+	public long fingerprint(String contextKey, String stateKey) {
+		return fingerprint(this.seed, contextKey, stateKey);
+	}
+
+	/**
+	 * Hash a context key and state key to a fingerprint. Does not allocate.
+	 * @param seed The seed of the table the fingerprint is used in.
+	 * @param contextKey The context key, null is the same as an empty context key.
+	 * @param stateKey The state key.
+	 * @return The fingerprint of the pair, never 0.
+	 */
+	static long fingerprint(long seed, String contextKey, String stateKey) {
+		String context = contextKey == null ? "" : contextKey;
+		long hash = hash(seed, context);
+		// The length separates the two keys so "ab" + "c" and "a" + "bc" differ.
+		hash = (hash ^ context.length()) * FNV_PRIME;
+		hash = hash(hash, stateKey);
+		hash = mix(hash);
+		return hash == 0 ? 1 : hash;
+	}
+
+	/**
+	 * Get the segment holding a fingerprint. The segment must be locked while its slots are used.
+	 * @param fingerprint The fingerprint of the key.
+	 * @return The segment of the fingerprint.
+	 */
+	public Segment segment(long fingerprint) {
+		return this.segments[(int) fingerprint & (this.segments.length - 1)];
+	}
+
+	/**
+	 * Remove every entry whose timestamp is at or before a point in time.
+	 * @param timestamp The timestamp in the unit the entries were written with.
+	 * @return The amount of entries removed.
+	 */
+	public int removeExpired(long timestamp) {
+		int removed = 0;
+		for(Segment segment : this.segments) {
+			segment.lock();
+			try {
+				removed += segment.removeExpired(timestamp);
+			} finally {
+				segment.unlock();
+			}
+		}
+		return removed;
+	}
+
+	/**
+	 * Remove every entry.
+	 */
+	public void clear() {
+		for(Segment segment : this.segments) {
+			segment.lock();
+			try {
+				segment.clear();
+			} finally {
+				segment.unlock();
+			}
+		}
+	}
+
+	/**
+	 * @return The amount of entries stored. The count is not a snapshot while the table is being written.
+	 */
+	public int size() {
+		int size = 0;
+		for(Segment segment : this.segments) {
+			size += segment.size;
+		}
+		return size;
+	}
+
+	/**
+	 * @return The amount of slots across every segment.
+	 */
+	public long capacity() {
+		long capacity = 0;
+		for(Segment segment : this.segments) {
+			capacity += segment.fingerprints.length;
+		}
+		return capacity;
+	}
+
+	/**
+	 * Estimate the retained size of the table from the length of its arrays, assuming a 64 bit jvm with compressed oops.
+	 * @return The size of the table in bytes.
+	 */
+	public long footprintBytes() {
+		long bytes = ARRAY_HEADER_BYTES + 4L * this.segments.length;
+		for(Segment segment : this.segments) {
+			bytes += SEGMENT_OVERHEAD_BYTES + 3 * (ARRAY_HEADER_BYTES + 8L * segment.fingerprints.length);
+		}
+		return bytes;
+	}
+
+	/**
+	 * FNV-1a over the chars of a key.
+	 */
+	private static long hash(long hash, String key) {
+		hash ^= FNV_OFFSET;
+		for(int x = 0; x < key.length(); x++) {
+			hash = (hash ^ key.charAt(x)) * FNV_PRIME;
+		}
+		return hash;
+	}
+
+	/**
+	 * The murmur3 finalizer, spreads every input bit over the high bits used for the slot and the low bits used for the
+	 * segment.
+	 */
+	private static long mix(long hash) {
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+
+	/**
+	 * An independently locked, linearly probed part of the table.
+	 *
+	 * Slots are only valid while the lock is held and until the next {@link #findOrInsert(long)} since inserting may
+	 * grow the segment.
+	 */
+	public static final class Segment {
+
+		private final ReentrantLock lock = new ReentrantLock();
+
+		private long[] fingerprints;
+
+		private long[] counters;
+
+		private long[] timestamps;
+
+		private int size;
+
+		private int threshold;
+
+		private Segment(int capacity) {
+			this.allocate(capacity);
+		}
+
+		/**
+		 * Lock the segment.
+		 */
+		public void lock() {
+			this.lock.lock();
+		}
+
+		/**
+		 * Unlock the segment.
+		 */
+		public void unlock() {
+			this.lock.unlock();
+		}
+
+		/**
+		 * Find the slot of a fingerprint. Called while holding the lock.
+		 * @param fingerprint The fingerprint of the key.
+		 * @return The slot of the fingerprint or -1 if it is not stored.
+		 */
+		public int find(long fingerprint) {
+			long[] fingerprints = this.fingerprints;
+			int slot = home(fingerprint, fingerprints.length);
+			while(true) {
+				long current = fingerprints[slot];
+				if(current == fingerprint) {
+					return slot;
+				}
+				if(current == 0) {
+					return -1;
+				}
+				slot = next(slot, fingerprints.length);
+			}
+		}
+
+		/**
+		 * Find the slot of a fingerprint, inserting it with a counter and timestamp of 0 if it is not stored. Called while
+		 * holding the lock.
+		 * @param fingerprint The fingerprint of the key.
+		 * @return The slot of the fingerprint.
+		 */
+		public int findOrInsert(long fingerprint) {
+			int slot = this.find(fingerprint);
+			if(slot >= 0) {
+				return slot;
+			}
+			if(this.size >= this.threshold) {
+				this.grow();
+			}
+			slot = this.insert(fingerprint);
+			this.size++;
+			return slot;
+		}
+
+		/**
+		 * @param slot A slot returned while holding the lock.
+		 * @return The counter of the slot.
+		 */
+		public long counter(int slot) {
+			return this.counters[slot];
+		}
+
+		/**
+		 * @param slot A slot returned while holding the lock.
+		 * @return The timestamp of the slot.
+		 */
+		public long timestamp(int slot) {
+			return this.timestamps[slot];
+		}
+
+		/**
+		 * Update a slot. Called while holding the lock.
+		 * @param slot A slot returned while holding the lock.
+		 * @param counter The new counter.
+		 * @param timestamp The new timestamp.
+		 */
+		public void set(int slot, long counter, long timestamp) {
+			this.counters[slot] = counter;
+			this.timestamps[slot] = timestamp;
+		}
+
+		/**
+		 * @return The amount of entries in the segment.
+		 */
+		public int size() {
+			return this.size;
+		}
+
+		private int insert(long fingerprint) {
+			int slot = home(fingerprint, this.fingerprints.length);
+			while(this.fingerprints[slot] != 0) {
+				slot = next(slot, this.fingerprints.length);
+			}
+			this.fingerprints[slot] = fingerprint;
+			this.counters[slot] = 0;
+			this.timestamps[slot] = 0;
+			return slot;
+		}
+
+		private void grow() {
+			long[] fingerprints = this.fingerprints;
+			long[] counters = this.counters;
+			long[] timestamps = this.timestamps;
+			this.allocate(fingerprints.length * 2);
+			for(int x = 0; x < fingerprints.length; x++) {
+				if(fingerprints[x] != 0) {
+					int slot = this.insert(fingerprints[x]);
+					this.counters[slot] = counters[x];
+					this.timestamps[slot] = timestamps[x];
+				}
+			}
+		}
+
+		private void allocate(int capacity) {
+			this.fingerprints = new long[capacity];
+			this.counters = new long[capacity];
+			this.timestamps = new long[capacity];
+			this.threshold = Math.min(capacity - 1, (int) (capacity * MAX_LOAD_FACTOR));
+		}
+
+		private int removeExpired(long timestamp) {
+			int removed = 0;
+			int slot = 0;
+			while(slot < this.fingerprints.length) {
+				if(this.fingerprints[slot] != 0 && this.timestamps[slot] <= timestamp) {
+					this.delete(slot);
+					removed++;
+					// An entry may have been shifted into the slot, check it again.
+					continue;
+				}
+				slot++;
+			}
+			return removed;
+		}
+
+		/**
+		 * Remove a slot by shifting back the entries of its probe run, so no tombstones are left behind.
+		 */
+		private void delete(int hole) {
+			long[] fingerprints = this.fingerprints;
+			int capacity = fingerprints.length;
+			int slot = hole;
+			while(true) {
+				slot = next(slot, capacity);
+				long fingerprint = fingerprints[slot];
+				if(fingerprint == 0) {
+					break;
+				}
+				int home = home(fingerprint, capacity);
+				// The entry can only move back if its home is not between the hole and its current slot.
+				boolean reachable = hole <= slot ? (hole < home && home <= slot) : (hole < home || home <= slot);
+				if(!reachable) {
+					fingerprints[hole] = fingerprint;
+					this.counters[hole] = this.counters[slot];
+					this.timestamps[hole] = this.timestamps[slot];
+					hole = slot;
+				}
+			}
+			fingerprints[hole] = 0;
+			this.size--;
+		}
+
+		private void clear() {
+			Arrays.fill(this.fingerprints, 0);
+			this.size = 0;
+		}
+
+		/**
+		 * Map the high bits of a fingerprint onto the slots without a modulo, so the capacity need not be a power of 2.
+		 */
+		private static int home(long fingerprint, int capacity) {
+			return (int) (((fingerprint >>> 32) * capacity) >>> 32);
+		}
+
+		private static int next(int slot, int capacity) {
+			return ++slot == capacity ? 0 : slot;
+		}
+	}
+}
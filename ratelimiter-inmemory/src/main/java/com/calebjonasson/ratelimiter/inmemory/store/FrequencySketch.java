@@ -0,0 +1,86 @@
+package com.calebjonasson.ratelimiter.inmemory.store;
+
+/**
+ * A count-min sketch of 4-bit counters used to estimate how often a key has been seen recently.
+ *
+ * Sixteen counters are packed into each long. Once the amount of increments reaches the sample size every counter is
+ * halved so that the sketch favours recent frequency over all time frequency. This class is not thread safe; the
+ * owner is expected to guard it.
+ */
+final class FrequencySketch {
+
+	private static final long[] SEEDS = {
+			0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+
+	private static final long RESET_MASK = 0x7777777777777777L;
+
+	private final long[] table;
+	private final int tableMask;
+	private final int sampleSize;
+	private int size;
+
+	/**
+	 * @param maximumSize The amount of entries the owner holds. The sketch is sized to at least this many counters.
+	 */
+	FrequencySketch(int maximumSize) {
+		int length = Integer.highestOneBit(Math.max(1, maximumSize));
+		if(length < maximumSize) length <<= 1;
+		this.table = new long[Math.max(1, length)];
+		this.tableMask = this.table.length - 1;
+		this.sampleSize = Math.max(10, 10 * maximumSize);
+	}
+
+	/**
+	 * Estimate the frequency of a hash.
+	 * @param hash The spread hash of the key.
+	 * @return The estimated frequency between 0 and 15.
+	 */
+	int frequency(int hash) {
+		int frequency = Integer.MAX_VALUE;
+		for(int i = 0; i < SEEDS.length; i++) {
+			int h = rehash(hash, i);
+			int index = (h >>> 4) & this.tableMask;
+			int offset = (h & 15) << 2;
+			frequency = Math.min(frequency, (int) ((this.table[index] >>> offset) & 15L));
+		}
+		return frequency;
+	}
+
+	/**
+	 * Record an occurrence of a hash.
+	 * @param hash The spread hash of the key.
+	 */
+	void increment(int hash) {
+		boolean added = false;
+		for(int i = 0; i < SEEDS.length; i++) {
+			int h = rehash(hash, i);
+			int index = (h >>> 4) & this.tableMask;
+			int offset = (h & 15) << 2;
+			long mask = 15L << offset;
+			if((this.table[index] & mask) != mask) {
+				this.table[index] += 1L << offset;
+				added = true;
+			}
+		}
+
+		if(added && ++this.size >= this.sampleSize) {
+			this.reset();
+		}
+	}
+
+	/**
+	 * Halve every counter.
+	 */
+	private void reset() {
+		for(int i = 0; i < this.table.length; i++) {
+			this.table[i] = (this.table[i] >>> 1) & RESET_MASK;
+		}
+		this.size >>>= 1;
+	}
+
+	private static int rehash(int hash, int i) {
+		long h = (hash + SEEDS[i]) * SEEDS[i];
+		h += h >>> 32;
+		return (int) h;
+	}
+}
@@ -0,0 +1,105 @@
+package com.calebjonasson.ratelimiter.inmemory.store;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.Buffer;
+import java.nio.MappedByteBuffer;
+
+/**
+ * Volatile reads and compare and swaps of the longs of a mapped buffer, see {@link SharedMemoryStateTable}.
+ *
+ * Java 8 has no var handles, so these go through {@code sun.misc.Unsafe}. This is the only class that touches it: it is
+ * looked up by name and called through method handles bound to it, which keeps javac from warning about an internal
+ * proprietary api while still compiling to direct calls once the static final handles are inlined.
+ */
+final class MappedMemory {
+
+	private static final MethodHandle GET_LONG;
+
+	private static final MethodHandle GET_LONG_VOLATILE;
+
+	private static final MethodHandle COMPARE_AND_SWAP_LONG;
+
+	/**
+	 * The offset of the address of a direct buffer within the buffer object.
+	 */
+	private static final long ADDRESS_OFFSET;
+
+	static {
+		try {
+			Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			Field field = unsafeClass.getDeclaredField("theUnsafe");
+			field.setAccessible(true);
+			Object unsafe = field.get(null);
+
+			MethodHandles.Lookup lookup = MethodHandles.lookup();
+			GET_LONG = lookup.findVirtual(unsafeClass, "getLong",
+					MethodType.methodType(long.class, Object.class, long.class)).bindTo(unsafe);
+			GET_LONG_VOLATILE = lookup.findVirtual(unsafeClass, "getLongVolatile",
+					MethodType.methodType(long.class, Object.class, long.class)).bindTo(unsafe);
+			COMPARE_AND_SWAP_LONG = lookup.findVirtual(unsafeClass, "compareAndSwapLong",
+					MethodType.methodType(boolean.class, Object.class, long.class, long.class, long.class)).bindTo(unsafe);
+			ADDRESS_OFFSET = (long) lookup.findVirtual(unsafeClass, "objectFieldOffset",
+					MethodType.methodType(long.class, Field.class)).invoke(unsafe, Buffer.class.getDeclaredField("address"));
+		} catch(Throwable e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	private MappedMemory() {
+	}
+
+	/**
+	 * @param buffer A mapped buffer.
+	 * @return The address of the first byte of the buffer.
+	 */
+	static long address(MappedByteBuffer buffer) {
+		try {
+			return (long) GET_LONG.invokeExact((Object) buffer, ADDRESS_OFFSET);
+		} catch(Throwable e) {
+			throw rethrow(e);
+		}
+	}
+
+	/**
+	 * @param address The address of a long within a mapped buffer.
+	 * @return The long, read with volatile semantics.
+	 */
+	static long getLongVolatile(long address) {
+		try {
+			return (long) GET_LONG_VOLATILE.invokeExact((Object) null, address);
+		} catch(Throwable e) {
+			throw rethrow(e);
+		}
+	}
+
+	/**
+	 * Swap a long if it has not changed.
+	 * @param address The address of a long within a mapped buffer.
+	 * @param expected The value that was read.
+	 * @param value The new value.
+	 * @return true if the value was swapped.
+	 */
+	static boolean compareAndSwapLong(long address, long expected, long value) {
+		try {
+			return (boolean) COMPARE_AND_SWAP_LONG.invokeExact((Object) null, address, expected, value);
+		} catch(Throwable e) {
+			throw rethrow(e);
+		}
+	}
+
+	/**
+	 * The handles declare {@link Throwable} but the unsafe methods behind them throw nothing checked.
+	 */
+	private static RuntimeException rethrow(Throwable e) {
+		if(e instanceof Error) {
+			throw (Error) e;
+		}
+		if(e instanceof RuntimeException) {
+			return (RuntimeException) e;
+		}
+		return new IllegalStateException(e);
+	}
+}
@@ -0,0 +1,445 @@
+package com.calebjonasson.ratelimiter.inmemory.store;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A fixed size table of rate limit states that lives outside of the java heap, in direct buffers or in a memory mapped
+ * file.
+ *
+ * Every slot is four longs: a fingerprint of the context key and state key, see {@link FingerprintStateTable} for the
+ * odds of two keys sharing one, a counter, a timestamp and the time at which the state expires. The heap only holds a
+ * lock and a buffer per segment, so the amount of keys is bounded by the memory of the machine rather than by the heap,
+ * and the garbage collector never scans or copies the states. Slots are probed linearly and the buffers are only read
+ * and written while holding the lock of their segment.
+ *
+ * The table never grows. A segment that is full forgets the state that expires first among the entries next to the
+ * new key, which for a rate limiter means the next request for it starts from a fresh state.
+ *
+ * A mapped table keeps its seed in the header of the file, so reopening the file with the same size resumes every
+ * state. Direct buffers are released once the table is garbage collected; a mapped file is unmapped once the table is
+ * garbage collected and {@link #close()} only flushes and closes it.
+ */
+public class OffHeapStateTable implements AutoCloseable {
+
+	/**
+	 * The default amount of segments, a power of 2.
+	 */
+	public static final int DEFAULT_SEGMENTS = 256;
+
+	/**
+	 * The size in bytes of a slot.
+	 */
+	public static final int SLOT_BYTES = 32;
+
+	/**
+	 * The size in bytes of the header of a mapped file.
+	 */
+	public static final int HEADER_BYTES = 64;
+
+	/**
+	 * Identifies a mapped file written by this table, "RLOFFHP1".
+	 */
+	private static final long MAGIC = 0x524c4f4646485031L;
+
+	private static final int FINGERPRINT = 0;
+
+	private static final int COUNTER = 8;
+
+	private static final int TIMESTAMP = 16;
+
+	private static final int EXPIRES_AT = 24;
+
+	/**
+	 * The amount of occupied slots next to the home of a new key that are compared when a segment is full.
+	 */
+	private static final int EVICTION_SAMPLE = 8;
+
+	private final Segment[] segments;
+
+	private final long seed;
+
+	private final FileChannel channel;
+
+	private OffHeapStateTable(Segment[] segments, long seed, FileChannel channel) {
+		this.segments = segments;
+		this.seed = seed;
+		this.channel = channel;
+	}
+
+	/**
+	 * Create a table in direct buffers. The memory is not counted against the heap but against the maximum direct memory
+	 * of the jvm, see {@code -XX:MaxDirectMemorySize}.
+	 * @param expectedKeys The amount of keys the table is sized for.
+	 * @param segments The amount of independently locked segments, rounded up to a power of 2.
+	 * @return The new table.
+	 */
+	public static OffHeapStateTable allocateDirect(long expectedKeys, int segments) {
+		int count = segmentCount(segments);
+		int capacity = segmentCapacity(expectedKeys, count);
+		Segment[] created = new Segment[count];
+		for(int x = 0; x < count; x++) {
+			created[x] = new Segment(ByteBuffer.allocateDirect(capacity * SLOT_BYTES), capacity);
+		}
+		return new OffHeapStateTable(created, ThreadLocalRandom.current().nextLong(), null);
+	}
+
+	/**
+	 * Create a table in a memory mapped file, or reopen the table in an existing file. The operating system pages the
+	 * file in and out as needed, so the table may be larger than the memory of the machine.
+	 * @param file The file backing the table.
+	 * @param expectedKeys The amount of keys the table is sized for.
+	 * @param segments The amount of independently locked segments, rounded up to a power of 2.
+	 * @return The new or reopened table.
+	 * @throws IOException thrown if the file cannot be mapped or holds a table of another size.
+	 */
+	public static OffHeapStateTable map(Path file, long expectedKeys, int segments) throws IOException {
+		int count = segmentCount(segments);
+		int capacity = segmentCapacity(expectedKeys, count);
+		long segmentBytes = (long) capacity * SLOT_BYTES;
+
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try {
+			MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+			long seed;
+			if(header.getLong(0) == MAGIC) {
+				if(header.getInt(16) != count || header.getInt(20) != capacity) {
+					throw new IOException("The file " + file + " holds a table of " + header.getInt(16) + " segments of "
+							+ header.getInt(20) + " slots, expected " + count + " segments of " + capacity + " slots.");
+				}
+				seed = header.getLong(8);
+			} else {
+				seed = ThreadLocalRandom.current().nextLong();
+				header.putLong(8, seed);
+				header.putInt(16, count);
+				header.putInt(20, capacity);
+				// The magic is written last so a file that was only partly initialized is initialized again.
+				header.putLong(0, MAGIC);
+			}
+
+			Segment[] created = new Segment[count];
+			for(int x = 0; x < count; x++) {
+				created[x] = new Segment(channel.map(FileChannel.MapMode.READ_WRITE, HEADER_BYTES + x * segmentBytes, segmentBytes), capacity);
+			}
+			return new OffHeapStateTable(created, seed, channel);
+		} catch(IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Hash a context key and state key to a fingerprint. Does not allocate.
+	 * @param contextKey The context key, null is the same as an empty context key.
+	 * @param stateKey The state key.
+	 * @return The fingerprint of the pair, never 0.
+	 */
+	public long fingerprint(String contextKey, String stateKey) {
+		return FingerprintStateTable.fingerprint(this.seed, contextKey, stateKey);
+	}
+
+	/**
+	 * Get the segment holding a fingerprint. The segment must be locked while its slots are used.
+	 * @param fingerprint The fingerprint of the key.
+	 * @return The segment of the fingerprint.
+	 */
+	public Segment segment(long fingerprint) {
+		return this.segments[(int) fingerprint & (this.segments.length - 1)];
+	}
+
+	/**
+	 * Remove every state that expires at or before a point in time.
+	 * @param now The time in the unit the expiry was written with.
+	 * @return The amount of states removed.
+	 */
+	public long removeExpired(long now) {
+		long removed = 0;
+		for(Segment segment : this.segments) {
+			segment.lock();
+			try {
+				removed += segment.removeExpired(now);
+			} finally {
+				segment.unlock();
+			}
+		}
+		return removed;
+	}
+
+	/**
+	 * @return The amount of states stored. The count is not a snapshot while the table is being written.
+	 */
+	public long size() {
+		long size = 0;
+		for(Segment segment : this.segments) {
+			size += segment.size;
+		}
+		return size;
+	}
+
+	/**
+	 * @return The amount of slots across every segment.
+	 */
+	public long capacity() {
+		return (long) this.segments.length * this.segments[0].capacity;
+	}
+
+	/**
+	 * @return The size of the off heap memory held by the table in bytes.
+	 */
+	public long offHeapBytes() {
+		return this.capacity() * SLOT_BYTES + (this.channel == null ? 0 : HEADER_BYTES);
+	}
+
+	/**
+	 * Flush a mapped table to its file and close the file. Does nothing for a table in direct buffers.
+	 * @throws IOException thrown if the file cannot be closed.
+	 */
+	@Override
+	public void close() throws IOException {
+		if(this.channel == null) {
+			return;
+		}
+		for(Segment segment : this.segments) {
+			segment.lock();
+			try {
+				((MappedByteBuffer) segment.buffer).force();
+			} finally {
+				segment.unlock();
+			}
+		}
+		this.channel.close();
+	}
+
+	private static int segmentCount(int segments) {
+		if(segments < 1) {
+			throw new IllegalArgumentException("There must be at least one segment.");
+		}
+		return segments == 1 ? 1 : Integer.highestOneBit(segments - 1) << 1;
+	}
+
+	private static int segmentCapacity(long expectedKeys, int segments) {
+		if(expectedKeys < 0) {
+			throw new IllegalArgumentException("The expected keys cannot be negative.");
+		}
+		long capacity = Math.max(EVICTION_SAMPLE * 2, (long) Math.ceil(expectedKeys / (double) segments / FingerprintStateTable.LOAD_FACTOR));
+		if(capacity * SLOT_BYTES > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("A segment of " + capacity + " slots does not fit in a buffer, use more segments.");
+		}
+		return (int) capacity;
+	}
+
+	/**
+	 * An independently locked, linearly probed part of the table.
+	 *
+	 * Slots are only valid while the lock is held and until the next {@link #findOrInsert(long)} since inserting
+	 * into a full segment moves entries.
+	 */
+	public static final class Segment {
+
+		private final ReentrantLock lock = new ReentrantLock();
+
+		private final ByteBuffer buffer;
+
+		private final int capacity;
+
+		private final int maximumSize;
+
+		private int size;
+
+		private Segment(ByteBuffer buffer, int capacity) {
+			this.buffer = buffer.order(ByteOrder.nativeOrder());
+			this.capacity = capacity;
+			this.maximumSize = (int) (capacity * FingerprintStateTable.MAX_LOAD_FACTOR);
+			// A reopened file already holds states.
+			for(int slot = 0; slot < capacity; slot++) {
+				if(this.fingerprint(slot) != 0) {
+					this.size++;
+				}
+			}
+		}
+
+		/**
+		 * Lock the segment.
+		 */
+		public void lock() {
+			this.lock.lock();
+		}
+
+		/**
+		 * Unlock the segment.
+		 */
+		public void unlock() {
+			this.lock.unlock();
+		}
+
+		/**
+		 * Find the slot of a fingerprint. Called while holding the lock.
+		 * @param fingerprint The fingerprint of the key.
+		 * @return The slot of the fingerprint or -1 if it is not stored.
+		 */
+		public int find(long fingerprint) {
+			int slot = this.home(fingerprint);
+			while(true) {
+				long current = this.fingerprint(slot);
+				if(current == fingerprint) {
+					return slot;
+				}
+				if(current == 0) {
+					return -1;
+				}
+				slot = this.next(slot);
+			}
+		}
+
+		/**
+		 * Find the slot of a fingerprint, inserting it with every value set to 0 if it is not stored. Called while holding
+		 * the lock.
+		 * @param fingerprint The fingerprint of the key.
+		 * @return The slot of the fingerprint.
+		 */
+		public int findOrInsert(long fingerprint) {
+			int slot = this.find(fingerprint);
+			if(slot >= 0) {
+				return slot;
+			}
+			if(this.size >= this.maximumSize) {
+				this.evict(this.home(fingerprint));
+			}
+
+			slot = this.home(fingerprint);
+			while(this.fingerprint(slot) != 0) {
+				slot = this.next(slot);
+			}
+			this.set(slot, 0, 0, 0);
+			this.buffer.putLong(offset(slot) + FINGERPRINT, fingerprint);
+			this.size++;
+			return slot;
+		}
+
+		/**
+		 * @param slot A slot returned while holding the lock.
+		 * @return The counter of the slot.
+		 */
+		public long counter(int slot) {
+			return this.buffer.getLong(offset(slot) + COUNTER);
+		}
+
+		/**
+		 * @param slot A slot returned while holding the lock.
+		 * @return The timestamp of the slot.
+		 */
+		public long timestamp(int slot) {
+			return this.buffer.getLong(offset(slot) + TIMESTAMP);
+		}
+
+		/**
+		 * @param slot A slot returned while holding the lock.
+		 * @return The time at which the state of the slot expires.
+		 */
+		public long expiresAt(int slot) {
+			return this.buffer.getLong(offset(slot) + EXPIRES_AT);
+		}
+
+		/**
+		 * Update a slot. Called while holding the lock.
+		 * @param slot A slot returned while holding the lock.
+		 * @param counter The new counter.
+		 * @param timestamp The new timestamp.
+		 * @param expiresAt The time at which the state expires and can be removed.
+		 */
+		public void set(int slot, long counter, long timestamp, long expiresAt) {
+			int offset = offset(slot);
+			this.buffer.putLong(offset + COUNTER, counter);
+			this.buffer.putLong(offset + TIMESTAMP, timestamp);
+			this.buffer.putLong(offset + EXPIRES_AT, expiresAt);
+		}
+
+		/**
+		 * @return The amount of states in the segment.
+		 */
+		public int size() {
+			return this.size;
+		}
+
+		/**
+		 * Forget the state that expires first among the occupied slots starting at a slot.
+		 */
+		private void evict(int start) {
+			int eldest = -1;
+			int slot = start;
+			for(int seen = 0; seen < EVICTION_SAMPLE; slot = this.next(slot)) {
+				if(this.fingerprint(slot) == 0) continue;
+				if(eldest < 0 || this.expiresAt(slot) < this.expiresAt(eldest)) {
+					eldest = slot;
+				}
+				seen++;
+			}
+			this.delete(eldest);
+		}
+
+		private int removeExpired(long now) {
+			int removed = 0;
+			int slot = 0;
+			while(slot < this.capacity) {
+				if(this.fingerprint(slot) != 0 && this.expiresAt(slot) <= now) {
+					this.delete(slot);
+					removed++;
+					// An entry may have been shifted into the slot, check it again.
+					continue;
+				}
+				slot++;
+			}
+			return removed;
+		}
+
+		/**
+		 * Remove a slot by shifting back the entries of its probe run, so no tombstones are left behind.
+		 */
+		private void delete(int hole) {
+			int slot = hole;
+			while(true) {
+				slot = this.next(slot);
+				long fingerprint = this.fingerprint(slot);
+				if(fingerprint == 0) {
+					break;
+				}
+				int home = this.home(fingerprint);
+				// The entry can only move back if its home is not between the hole and its current slot.
+				boolean reachable = hole <= slot ? (hole < home && home <= slot) : (hole < home || home <= slot);
+				if(!reachable) {
+					this.buffer.putLong(offset(hole) + FINGERPRINT, fingerprint);
+					this.set(hole, this.counter(slot), this.timestamp(slot), this.expiresAt(slot));
+					hole = slot;
+				}
+			}
+			this.buffer.putLong(offset(hole) + FINGERPRINT, 0);
+			this.size--;
+		}
+
+		private long fingerprint(int slot) {
+			return this.buffer.getLong(offset(slot) + FINGERPRINT);
+		}
+
+		/**
+		 * Map the high bits of a fingerprint onto the slots without a modulo, so the capacity need not be a power of 2.
+		 */
+		private int home(long fingerprint) {
+			return (int) (((fingerprint >>> 32) * this.capacity) >>> 32);
+		}
+
+		private int next(int slot) {
+			return ++slot == this.capacity ? 0 : slot;
+		}
+
+		private static int offset(int slot) {
+			return slot * SLOT_BYTES;
+		}
+	}
+}
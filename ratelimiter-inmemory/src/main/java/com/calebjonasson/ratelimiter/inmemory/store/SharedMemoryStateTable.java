@@ -0,0 +1,278 @@
+package com.calebjonasson.ratelimiter.inmemory.store;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A fixed size table of single word rate limit states in a memory mapped file that every process on a host can open,
+ * typically under {@value #DEFAULT_DIRECTORY}, so the processes share the same states at memory speed.
+ *
+ * Every slot is two longs: a fingerprint of the context key and state key, see {@link FingerprintStateTable} for the
+ * odds of two keys sharing one, and a value whose meaning belongs to the limiter with one rule: a value at or before
+ * the current time means the state is equivalent to a new one, so the slot may be claimed by another key. Both words
+ * are only ever changed with a single compare and swap, so no lock is held across processes and a process that dies at
+ * any point leaves every slot either before or after its update, never in between. Slots are never emptied, which
+ * keeps every probe sequence intact; an expired slot is reused in place instead.
+ *
+ * Claiming a slot races with other processes claiming one for the same key. The claim is followed by a second probe
+ * and the first slot holding the fingerprint wins, so every process settles on the same slot. A request that was
+ * decided against a slot as it was being claimed by another key is counted against the new key, which only ever makes
+ * that limit stricter by the permits of the request.
+ *
+ * The file is created and checked while holding a lock on it, which the operating system releases if the process
+ * dies. The words are read and swapped directly in the mapped memory through {@link MappedMemory}, since java 8 has no
+ * other way to compare and swap a mapped buffer.
+ */
+public class SharedMemoryStateTable implements AutoCloseable {
+
+	/**
+	 * The directory backed by shared memory on linux.
+	 */
+	public static final String DEFAULT_DIRECTORY = "/dev/shm";
+
+	/**
+	 * The size in bytes of a slot.
+	 */
+	public static final int SLOT_BYTES = 16;
+
+	/**
+	 * The size in bytes of the header of the file.
+	 */
+	public static final int HEADER_BYTES = 64;
+
+	/**
+	 * Identifies a file written by this table, "RLSHMEM1".
+	 */
+	private static final long MAGIC = 0x524c53484d454d31L;
+
+	private final FileChannel channel;
+
+	/**
+	 * Keeps the mapping alive, it is unmapped once the buffer is garbage collected.
+	 */
+	private final MappedByteBuffer buffer;
+
+	/**
+	 * The address of the first slot.
+	 */
+	private final long slots;
+
+	private final int capacity;
+
+	private final long seed;
+
+	private SharedMemoryStateTable(FileChannel channel, MappedByteBuffer buffer, int capacity, long seed) {
+		this.channel = channel;
+		this.buffer = buffer;
+		this.slots = MappedMemory.address(buffer) + HEADER_BYTES;
+		this.capacity = capacity;
+		this.seed = seed;
+	}
+
+	/**
+	 * Create or open a table in the {@link #DEFAULT_DIRECTORY}.
+	 * @param name The name of the file holding the table.
+	 * @param expectedKeys The amount of keys the table is sized for.
+	 * @return The new or opened table.
+	 * @throws IOException thrown if the file cannot be mapped or holds a table of another size.
+	 */
+	public static SharedMemoryStateTable open(String name, long expectedKeys) throws IOException {
+		return open(Paths.get(DEFAULT_DIRECTORY, name), expectedKeys);
+	}
+
+	/**
+	 * Create or open a table. Every process sharing the table must open it with the same amount of expected keys.
+	 * @param file The file holding the table.
+	 * @param expectedKeys The amount of keys the table is sized for.
+	 * @return The new or opened table.
+	 * @throws IOException thrown if the file cannot be mapped or holds a table of another size.
+	 */
+	public static SharedMemoryStateTable open(Path file, long expectedKeys) throws IOException {
+		if(expectedKeys < 0) {
+			throw new IllegalArgumentException("The expected keys cannot be negative.");
+		}
+		long capacity = Math.max(16, (long) Math.ceil(expectedKeys / (double) FingerprintStateTable.LOAD_FACTOR));
+		long size = HEADER_BYTES + capacity * SLOT_BYTES;
+		if(size > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("A table of " + capacity + " slots does not fit in a single mapping.");
+		}
+
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try(FileLock lock = channel.lock()) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+			long seed;
+			if(buffer.getLong(0) == MAGIC) {
+				if(buffer.getLong(16) != capacity) {
+					throw new IOException("The file " + file + " holds a table of " + buffer.getLong(16) + " slots, expected "
+							+ capacity + " slots.");
+				}
+				seed = buffer.getLong(8);
+			} else {
+				// A file left behind by a process that died while creating it is created again.
+				for(int x = 0; x < size; x += 8) {
+					buffer.putLong(x, 0);
+				}
+				seed = ThreadLocalRandom.current().nextLong();
+				buffer.putLong(8, seed);
+				buffer.putLong(16, capacity);
+				buffer.force();
+				buffer.putLong(0, MAGIC);
+			}
+			return new SharedMemoryStateTable(channel, buffer, (int) capacity, seed);
+		} catch(IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Hash a context key and state key to a fingerprint. Every process sharing the file computes the same fingerprint.
+	 * @param contextKey The context key, null is the same as an empty context key.
+	 * @param stateKey The state key.
+	 * @return The fingerprint of the pair, never 0.
+	 */
+	public long fingerprint(String contextKey, String stateKey) {
+		return FingerprintStateTable.fingerprint(this.seed, contextKey, stateKey);
+	}
+
+	/**
+	 * Find the slot of a fingerprint.
+	 * @param fingerprint The fingerprint of the key.
+	 * @return The slot of the fingerprint or -1 if it is not stored.
+	 */
+	public int find(long fingerprint) {
+		int slot = this.home(fingerprint);
+		for(int probes = 0; probes < this.capacity; probes++) {
+			long current = this.fingerprintAt(slot);
+			if(current == fingerprint) {
+				return slot;
+			}
+			if(current == 0) {
+				return -1;
+			}
+			slot = this.next(slot);
+		}
+		return -1;
+	}
+
+	/**
+	 * Find the slot of a fingerprint, claiming an empty or expired slot for it if it is not stored. A claimed slot keeps
+	 * the value it had, which is at or before the current time.
+	 * @param fingerprint The fingerprint of the key.
+	 * @param now The current time in the unit of the values.
+	 * @return The slot of the fingerprint or -1 if every slot holds a state that has not expired.
+	 */
+	public int claim(long fingerprint, long now) {
+		while(true) {
+			int reusable = -1;
+			int slot = this.home(fingerprint);
+			int probes = 0;
+			for(; probes < this.capacity; probes++) {
+				long current = this.fingerprintAt(slot);
+				if(current == fingerprint) {
+					return slot;
+				}
+				if(current == 0) {
+					break;
+				}
+				if(reusable < 0 && this.get(slot) <= now) {
+					reusable = slot;
+				}
+				slot = this.next(slot);
+			}
+
+			int claimed = reusable >= 0 ? reusable : (probes < this.capacity ? slot : -1);
+			if(claimed < 0) {
+				return -1;
+			}
+			long expected = this.fingerprintAt(claimed);
+			if((claimed == reusable && this.get(claimed) > now)
+					|| !MappedMemory.compareAndSwapLong(this.address(claimed), expected, fingerprint)) {
+				// Another process changed the slot, start over.
+				continue;
+			}
+
+			// Settle on the first slot holding the fingerprint in case another process claimed one for it as well.
+			int first = this.find(fingerprint);
+			if(first != claimed && first >= 0) {
+				return first;
+			}
+			return claimed;
+		}
+	}
+
+	/**
+	 * @param slot A slot of the table.
+	 * @return The value of the slot.
+	 */
+	public long get(int slot) {
+		return MappedMemory.getLongVolatile(this.address(slot) + 8);
+	}
+
+	/**
+	 * Swap the value of a slot if it has not changed.
+	 * @param slot A slot of the table.
+	 * @param expected The value that was read.
+	 * @param value The new value.
+	 * @return true if the value was swapped.
+	 */
+	public boolean compareAndSet(int slot, long expected, long value) {
+		return MappedMemory.compareAndSwapLong(this.address(slot) + 8, expected, value);
+	}
+
+	/**
+	 * Count the slots holding a state that has not expired. This visits every slot.
+	 * @param now The current time in the unit of the values.
+	 * @return The amount of live states.
+	 */
+	public int size(long now) {
+		int size = 0;
+		for(int slot = 0; slot < this.capacity; slot++) {
+			if(this.fingerprintAt(slot) != 0 && this.get(slot) > now) {
+				size++;
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * @return The amount of slots of the table.
+	 */
+	public int capacity() {
+		return this.capacity;
+	}
+
+	/**
+	 * Close the file. The table must not be used afterwards; the memory is unmapped once the table is garbage collected.
+	 * @throws IOException thrown if the file cannot be closed.
+	 */
+	@Override
+	public void close() throws IOException {
+		this.channel.close();
+	}
+
+	private long fingerprintAt(int slot) {
+		return MappedMemory.getLongVolatile(this.address(slot));
+	}
+
+	private long address(int slot) {
+		return this.slots + (long) slot * SLOT_BYTES;
+	}
+
+	/**
+	 * Map the high bits of a fingerprint onto the slots without a modulo, so the capacity need not be a power of 2.
+	 */
+	private int home(long fingerprint) {
+		return (int) (((fingerprint >>> 32) * this.capacity) >>> 32);
+	}
+
+	private int next(int slot) {
+		return ++slot == this.capacity ? 0 : slot;
+	}
+}
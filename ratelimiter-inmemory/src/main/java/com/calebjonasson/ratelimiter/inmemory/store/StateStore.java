@@ -0,0 +1,110 @@
+package com.calebjonasson.ratelimiter.inmemory.store;
+
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+
+/**
+ * The storage of rate limit states for in memory rate limiters.
+ *
+ * Implementations must be safe to use from many threads. The conditional operations follow the same contract as their
+ * {@link java.util.concurrent.ConcurrentMap} counterparts and are what allows lock free rate limiters to compare and set
+ * states.
+ *
+ * @param <STATE> The type of state being stored.
+ */
+public interface StateStore<STATE> {
+
+	/**
+	 * Get the state stored under a key.
+	 * @param key The state key.
+	 * @return The state or null if none is stored.
+	 */
+	public STATE get(String key);
+
+	/**
+	 * Store a state under a key.
+	 * @param key The state key.
+	 * @param state The state to store.
+	 * @return The previously stored state or null.
+	 */
+	public STATE put(String key, STATE state);
+
+	/**
+	 * Store a state under a key if no state is currently stored.
+	 * @param key The state key.
+	 * @param state The state to store.
+	 * @return The currently stored state or null if the state was stored.
+	 */
+	public STATE putIfAbsent(String key, STATE state);
+
+	/**
+	 * Replace the state stored under a key only if it currently equals the expected state.
+	 * @param key The state key.
+	 * @param expected The state that is expected to be stored.
+	 * @param state The state to store.
+	 * @return true if the state was replaced.
+	 */
+	public boolean replace(String key, STATE expected, STATE state);
+
+	/**
+	 * Remove the state stored under a key.
+	 * @param key The state key.
+	 * @return The removed state or null.
+	 */
+	public STATE remove(String key);
+
+	/**
+	 * Remove the state stored under a key only if it currently equals the expected state.
+	 * @param key The state key.
+	 * @param expected The state that is expected to be stored.
+	 * @return true if the state was removed.
+	 */
+	public boolean remove(String key, STATE expected);
+
+	/**
+	 * @return The amount of states currently stored.
+	 */
+	public int size();
+
+	/**
+	 * Visit every stored state. The view is weakly consistent and the action may modify the store.
+	 * @param action The action to perform for each key and state.
+	 */
+	public void forEach(BiConsumer<String, STATE> action);
+
+	/**
+	 * Visit up to a fixed amount of stored states. Each call should make progress through the store, eg: by resuming
+	 * from where the previous call stopped or by visiting the least recently used states. This allows incremental expiry
+	 * with a bounded cost per call.
+	 * @param count The maximum amount of states to visit.
+	 * @param action The action to perform for each key and state. The action may modify the store.
+	 * @return The amount of states visited.
+	 */
+	public int sample(int count, BiConsumer<String, STATE> action);
+
+	/**
+	 * @return true if the store indexes states by expiry so {@link #removeExpired(long, Predicate)} only visits the
+	 * states that have expired, in which case expiring the whole store at once is cheaper than sampling it.
+	 */
+	public default boolean isIndexedByExpiry() {
+		return false;
+	}
+
+	/**
+	 * Remove every expired state. By default every state is visited; stores that index states by expiry only visit the
+	 * states that have expired.
+	 * @param now The current epoch millis.
+	 * @param expired Tests if a state has expired. A state is only removed if it is still stored when tested.
+	 * @return The amount of states removed.
+	 */
+	public default int removeExpired(long now, Predicate<STATE> expired) {
+		int[] removed = new int[1];
+		this.forEach((key, state) -> {
+			// Only remove the state we observed so a concurrently updated state is never dropped.
+			if(expired.test(state) && this.remove(key, state)) {
+				removed[0]++;
+			}
+		});
+		return removed[0];
+	}
+}
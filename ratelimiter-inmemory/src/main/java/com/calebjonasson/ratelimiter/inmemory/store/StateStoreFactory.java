@@ -0,0 +1,61 @@
+package com.calebjonasson.ratelimiter.inmemory.store;
+
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * A utility class that allows for the creation of state stores via a factory method pattern.
+ */
+public class StateStoreFactory {
+
+	/**
+	 * Create an unbounded state store. This is the default used by the in memory rate limiters.
+	 * @param <STATE> The type of state being stored.
+	 * @return A new {@link ConcurrentStateStore}
+	 */
+	public static <STATE> ConcurrentStateStore<STATE> unbounded() {
+		return new ConcurrentStateStore<>();
+	}
+
+	/**
+	 * Create a size bounded state store with a frequency aware eviction policy.
+	 * @param maximumSize The maximum amount of states to hold.
+	 * @param <STATE> The type of state being stored.
+	 * @return A new {@link BoundedStateStore}
+	 */
+	public static <STATE> BoundedStateStore<STATE> bounded(int maximumSize) {
+		return new BoundedStateStore<>(maximumSize);
+	}
+
+	/**
+	 * Create an unbounded state store that indexes states by expiry so expired states can be removed without a full
+	 * scan, eg: {@code StateStoreFactory.timingWheel(AtomicInMemoryRateLimiter::expiresAt)}
+	 * @param expiresAt Finds the epoch millis at which a state expires.
+	 * @param <STATE> The type of state being stored.
+	 * @return A new {@link TimingWheelStateStore}
+	 */
+	public static <STATE> TimingWheelStateStore<STATE> timingWheel(ToLongFunction<STATE> expiresAt) {
+		return new TimingWheelStateStore<>(expiresAt);
+	}
+
+	/**
+	 * Create a two level store that gives every context its own unbounded table. This is the default used by the in
+	 * memory rate limiters.
+	 * @param <STATE> The type of state being stored.
+	 * @return A new {@link ContextStateStore}
+	 */
+	public static <STATE> ContextStateStore<STATE> perContext() {
+		return new ContextStateStore<>(contextKey -> unbounded());
+	}
+
+	/**
+	 * Create a two level store that creates the table of each context with a factory, eg:
+	 * {@code StateStoreFactory.perContext(contextKey -> StateStoreFactory.bounded(1000))}
+	 * @param tableFactory Creates the table of a context from its context key.
+	 * @param <STATE> The type of state being stored.
+	 * @return A new {@link ContextStateStore}
+	 */
+	public static <STATE> ContextStateStore<STATE> perContext(Function<String, StateStore<STATE>> tableFactory) {
+		return new ContextStateStore<>(tableFactory);
+	}
+}
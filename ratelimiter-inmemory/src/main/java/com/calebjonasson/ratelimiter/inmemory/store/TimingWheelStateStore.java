@@ -0,0 +1,413 @@
+package com.calebjonasson.ratelimiter.inmemory.store;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * An unbounded {@link StateStore} that indexes every state by the time it expires using a hierarchical timing wheel.
+ *
+ * The wheel has five levels of 64 buckets. A bucket on the lowest level spans 64 milliseconds and each level above
+ * spans 64 times the level below, so the wheel covers roughly 4 seconds, 4 minutes, 4.6 hours and 12 days before
+ * states are parked on the top level. When time passes the start of a higher level bucket its states are cascaded to a
+ * finer level and a state is removed once the lowest level bucket holding it has passed. The cost of
+ * {@link #removeExpired(long, Predicate)} is therefore proportional to the amount of expired (and cascaded) states
+ * rather than to the amount of stored states.
+ *
+ * Writers never touch the wheel directly. When a write moves a state to another tick a small entry is queued and the
+ * queue is drained into the wheel by the thread expiring states. Entries that no longer match the tick of their state
+ * are discarded lazily when their bucket is swept, so a state never has to be unlinked from the wheel on update.
+ *
+ * @param <STATE> The type of state being stored.
+ */
+public class TimingWheelStateStore<STATE> implements StateStore<STATE> {
+
+	/**
+	 * The amount of bits in a tick of the lowest level, eg: 64 milliseconds.
+	 */
+	static final int TICK_SHIFT = 6;
+
+	/**
+	 * The amount of bits in the amount of buckets per level.
+	 */
+	static final int BUCKET_SHIFT = 6;
+
+	/**
+	 * The amount of buckets per level.
+	 */
+	static final int BUCKETS = 1 << BUCKET_SHIFT;
+
+	/**
+	 * The amount of levels in the wheel.
+	 */
+	static final int LEVELS = 5;
+
+	/**
+	 * Writers drain the queued entries themselves once this many are waiting.
+	 */
+	static final int DRAIN_THRESHOLD = 1 << 16;
+
+	/**
+	 * The tick of a node that has not been placed in the wheel.
+	 */
+	private static final long UNSCHEDULED = Long.MIN_VALUE;
+
+	/**
+	 * The stored states.
+	 */
+	private final ConcurrentHashMap<String, Node<STATE>> states = new ConcurrentHashMap<>();
+
+	/**
+	 * Finds the epoch millis at which a state expires.
+	 */
+	private final ToLongFunction<STATE> expiresAt;
+
+	/**
+	 * Entries written since the last drain.
+	 */
+	private final ConcurrentLinkedQueue<Entry<STATE>> pending = new ConcurrentLinkedQueue<>();
+
+	/**
+	 * The approximate size of {@link #pending}.
+	 */
+	private final AtomicInteger pendingCount = new AtomicInteger();
+
+	/**
+	 * Guards the wheel.
+	 */
+	private final ReentrantLock lock = new ReentrantLock();
+
+	/**
+	 * The buckets of each level, guarded by {@link #lock}.
+	 */
+	private final List<List<Entry<STATE>>> wheel = new ArrayList<>(LEVELS * BUCKETS);
+
+	/**
+	 * The tick of the lowest level the wheel has advanced to, guarded by {@link #lock}.
+	 */
+	private long time;
+
+	/**
+	 * The position of the last {@link #sample(int, BiConsumer)}.
+	 */
+	private Iterator<Map.Entry<String, Node<STATE>>> cursor;
+
+	/**
+	 * Create a new timing wheel store.
+	 * @param expiresAt Finds the epoch millis at which a state expires.
+	 */
+	public TimingWheelStateStore(ToLongFunction<STATE> expiresAt) {
+		this.expiresAt = expiresAt;
+		this.time = System.currentTimeMillis() >> TICK_SHIFT;
+		for(int x = 0; x < LEVELS * BUCKETS; x++) {
+			this.wheel.add(new ArrayList<>());
+		}
+	}
+
+	@Override
+	public STATE get(String key) {
+		Node<STATE> node = this.states.get(key);
+		return node == null ? null : node.state;
+	}
+
+	@Override
+	public STATE put(String key, STATE state) {
+		Object[] previous = new Object[1];
+		this.states.compute(key, (k, node) -> {
+			if(node == null) {
+				node = new Node<>(k);
+			}
+			previous[0] = node.state;
+			this.update(node, state);
+			return node;
+		});
+		this.drainIfFull();
+		return this.cast(previous[0]);
+	}
+
+	@Override
+	public STATE putIfAbsent(String key, STATE state) {
+		Object[] current = new Object[1];
+		this.states.compute(key, (k, node) -> {
+			if(node != null) {
+				current[0] = node.state;
+				return node;
+			}
+			node = new Node<>(k);
+			this.update(node, state);
+			return node;
+		});
+		this.drainIfFull();
+		return this.cast(current[0]);
+	}
+
+	@Override
+	public boolean replace(String key, STATE expected, STATE state) {
+		boolean[] replaced = new boolean[1];
+		this.states.computeIfPresent(key, (k, node) -> {
+			if(Objects.equals(node.state, expected)) {
+				this.update(node, state);
+				replaced[0] = true;
+			}
+			return node;
+		});
+		this.drainIfFull();
+		return replaced[0];
+	}
+
+	@Override
+	public STATE remove(String key) {
+		Node<STATE> node = this.states.remove(key);
+		return node == null ? null : node.state;
+	}
+
+	@Override
+	public boolean remove(String key, STATE expected) {
+		boolean[] removed = new boolean[1];
+		this.states.computeIfPresent(key, (k, node) -> {
+			if(Objects.equals(node.state, expected)) {
+				removed[0] = true;
+				return null;
+			}
+			return node;
+		});
+		return removed[0];
+	}
+
+	@Override
+	public int size() {
+		return this.states.size();
+	}
+
+	@Override
+	public void forEach(BiConsumer<String, STATE> action) {
+		this.states.forEach((key, node) -> action.accept(key, node.state));
+	}
+
+	@Override
+	public synchronized int sample(int count, BiConsumer<String, STATE> action) {
+		int visited = 0;
+		boolean restarted = false;
+		while(visited < count) {
+			if(this.cursor == null || !this.cursor.hasNext()) {
+				// Only wrap around once per call so a small map is not visited repeatedly.
+				if(restarted) break;
+				this.cursor = this.states.entrySet().iterator();
+				restarted = true;
+				if(!this.cursor.hasNext()) break;
+			}
+
+			Map.Entry<String, Node<STATE>> entry = this.cursor.next();
+			action.accept(entry.getKey(), entry.getValue().state);
+			visited++;
+		}
+		return visited;
+	}
+
+	/**
+	 * @return true, only the buckets that time has passed are visited when expiring states.
+	 */
+	@Override
+	public boolean isIndexedByExpiry() {
+		return true;
+	}
+
+	/**
+	 * Advance the wheel to now and remove the states whose buckets have passed. Only the buckets that time has passed
+	 * are visited.
+	 * @param now The current epoch millis.
+	 * @param expired Confirms that a state has expired before it is removed.
+	 * @return The amount of states removed.
+	 */
+	@Override
+	public int removeExpired(long now, Predicate<STATE> expired) {
+		this.lock.lock();
+		try {
+			this.drain();
+			return this.advance(now >> TICK_SHIFT, expired);
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Store a new state in a node and queue an entry if the state moved to another tick. Must be called while the
+	 * mapping of the node is locked.
+	 * @param node The node being updated.
+	 * @param state The new state of the node.
+	 */
+	private void update(Node<STATE> node, STATE state) {
+		node.state = state;
+		long tick = this.tickOf(state);
+		if(tick != node.tick) {
+			node.tick = tick;
+			this.pending.add(new Entry<>(node, tick));
+			this.pendingCount.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Keep the amount of queued entries bounded when states are not being expired often enough.
+	 */
+	private void drainIfFull() {
+		if(this.pendingCount.get() >= DRAIN_THRESHOLD && this.lock.tryLock()) {
+			try {
+				this.drain();
+			} finally {
+				this.lock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Move the queued entries into the wheel. Must be called while holding the lock.
+	 */
+	private void drain() {
+		Entry<STATE> entry;
+		while((entry = this.pending.poll()) != null) {
+			this.pendingCount.decrementAndGet();
+			this.schedule(entry);
+		}
+	}
+
+	/**
+	 * Sweep every bucket that time has passed since the previous advance. Must be called while holding the lock.
+	 * @param now The current tick of the lowest level.
+	 * @param expired Confirms that a state has expired before it is removed.
+	 * @return The amount of states removed.
+	 */
+	private int advance(long now, Predicate<STATE> expired) {
+		long previous = this.time;
+		if(now <= previous) {
+			return 0;
+		}
+		this.time = now;
+
+		int removed = 0;
+		for(int level = 0; level < LEVELS; level++) {
+			int shift = level * BUCKET_SHIFT;
+			long previousTicks = previous >>> shift;
+			long currentTicks = now >>> shift;
+			long delta = currentTicks - previousTicks;
+			if(delta <= 0) {
+				// Higher levels tick less often so none of their buckets have been passed either.
+				break;
+			}
+
+			// The lowest level sweeps the buckets that have ended, higher levels sweep the buckets that have started.
+			long last = level == 0 ? currentTicks - 1 : currentTicks;
+			for(long ticks = last - Math.min(delta, BUCKETS) + 1; ticks <= last; ticks++) {
+				int index = level * BUCKETS + (int) (ticks & (BUCKETS - 1));
+				List<Entry<STATE>> bucket = this.wheel.get(index);
+				if(bucket.isEmpty()) {
+					continue;
+				}
+
+				// Detach the bucket first as unexpired entries may be scheduled back into it.
+				this.wheel.set(index, new ArrayList<>());
+				for(Entry<STATE> entry : bucket) {
+					removed += this.sweep(entry, expired);
+				}
+			}
+		}
+		return removed;
+	}
+
+	/**
+	 * Remove the state of an entry if it has expired, otherwise schedule the entry again. Entries that do not match the
+	 * current tick of their node are stale and dropped.
+	 * @param entry The entry being swept.
+	 * @param expired Confirms that a state has expired before it is removed.
+	 * @return 1 if the state was removed, otherwise 0.
+	 */
+	private int sweep(Entry<STATE> entry, Predicate<STATE> expired) {
+		boolean[] removed = new boolean[1];
+		Node<STATE> node = entry.node;
+		this.states.computeIfPresent(node.key, (key, current) -> {
+			if(current != node || node.tick != entry.tick) {
+				return current;
+			}
+			if(expired.test(node.state)) {
+				removed[0] = true;
+				return null;
+			}
+
+			// Either cascading from a higher level or the state was refreshed in place before it was stored again.
+			node.tick = this.tickOf(node.state);
+			entry.tick = node.tick;
+			this.schedule(entry);
+			return current;
+		});
+		return removed[0] ? 1 : 0;
+	}
+
+	/**
+	 * Place an entry in the finest level that can hold it. Must be called while holding the lock.
+	 * @param entry The entry being scheduled.
+	 */
+	private void schedule(Entry<STATE> entry) {
+		// States that have already expired are placed in the current bucket and removed once it has passed.
+		long tick = Math.max(entry.tick, this.time);
+		for(int level = 0; level < LEVELS; level++) {
+			int shift = level * BUCKET_SHIFT;
+			long ticks = tick >>> shift;
+			if(ticks - (this.time >>> shift) < BUCKETS || level == LEVELS - 1) {
+				// Anything beyond the top level is parked on its furthest bucket and cascaded again when it is reached.
+				ticks = Math.min(ticks, (this.time >>> shift) + BUCKETS - 1);
+				this.wheel.get(level * BUCKETS + (int) (ticks & (BUCKETS - 1))).add(entry);
+				return;
+			}
+		}
+	}
+
+	/**
+	 * @param state The state being indexed.
+	 * @return The tick of the lowest level at which the state expires.
+	 */
+	private long tickOf(STATE state) {
+		return this.expiresAt.applyAsLong(state) >> TICK_SHIFT;
+	}
+
+	@SuppressWarnings("unchecked")
+	private STATE cast(Object state) {
+		return (STATE) state;
+	}
+
+	/**
+	 * The mapping of a key to its state and the tick it is scheduled at.
+	 */
+	private static final class Node<STATE> {
+
+		private final String key;
+		private volatile STATE state;
+		private long tick = UNSCHEDULED;
+
+		private Node(String key) {
+			this.key = key;
+		}
+	}
+
+	/**
+	 * A node placed in a bucket of the wheel at a tick. A node may briefly have more than one entry after it moves to
+	 * another tick; only the entry matching the tick of the node is acted on.
+	 */
+	private static final class Entry<STATE> {
+
+		private final Node<STATE> node;
+		private long tick;
+
+		private Entry(Node<STATE> node, long tick) {
+			this.node = node;
+			this.tick = tick;
+		}
+	}
+}
@@ -0,0 +1,67 @@
+package com.calebjonasson.ratelimiter.inmemory.benchmark;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Small utilities shared by the benchmark tests. These are intentionally simple wall clock measurements and are meant
+ * for relative comparisons between implementations on the same machine.
+ */
+final class Benchmarks {
+
+	private Benchmarks() {
+	}
+
+	/**
+	 * A single benchmarked operation.
+	 */
+	@FunctionalInterface
+	interface Operation {
+
+		/**
+		 * @param thread The index of the thread running the operation.
+		 * @param iteration The iteration within the thread.
+		 */
+		void run(int thread, long iteration);
+	}
+
+	/**
+	 * Run an operation on a number of threads for a fixed duration.
+	 * @param threads The amount of threads running the operation concurrently.
+	 * @param durationMillis How long the operation is run for.
+	 * @param operation The operation to run.
+	 * @return The total amount of operations completed by all threads.
+	 * @throws InterruptedException Thrown if interrupted while waiting for the threads.
+	 */
+	static long measure(int threads, long durationMillis, Operation operation) throws InterruptedException {
+		AtomicLong total = new AtomicLong();
+		CountDownLatch start = new CountDownLatch(1);
+		Thread[] workers = new Thread[threads];
+		long[] deadline = new long[1];
+
+		for(int t = 0; t < threads; t++) {
+			final int thread = t;
+			workers[t] = new Thread(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+				long iteration = 0;
+				while(System.nanoTime() < deadline[0]) {
+					operation.run(thread, iteration++);
+				}
+				total.addAndGet(iteration);
+			});
+			workers[t].start();
+		}
+
+		deadline[0] = System.nanoTime() + durationMillis * 1_000_000L;
+		start.countDown();
+		for(Thread worker : workers) {
+			worker.join();
+		}
+		return total.get();
+	}
+}
@@ -0,0 +1,71 @@
+package com.calebjonasson.ratelimiter.inmemory.benchmark;
+
+import com.calebjonasson.ratelimiter.core.common.exception.RateLimitException;
+import com.calebjonasson.ratelimiter.core.context.configuration.BurstableContextConfiguration;
+import com.calebjonasson.ratelimiter.core.context.configuration.ContextConfigurations;
+import com.calebjonasson.ratelimiter.core.limiter.AbstractRateLimiter;
+import com.calebjonasson.ratelimiter.core.request.ContextStateRateLimitRequest;
+import com.calebjonasson.ratelimiter.inmemory.context.BurstableInMemoryContextProvider;
+import com.calebjonasson.ratelimiter.inmemory.limiter.BurstableInMemoryRateLimiter;
+import com.calebjonasson.ratelimiter.inmemory.limiter.StripedBurstableInMemoryRateLimiter;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.function.Supplier;
+
+/**
+ * Throughput comparison between the monitor based {@link BurstableInMemoryRateLimiter} and the
+ * {@link StripedBurstableInMemoryRateLimiter} at 1, 4, 16 and 64 threads.
+ *
+ * Run with: mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+public class BurstableThroughputBenchmarkTest {
+
+	private static final int[] THREADS = {1, 4, 16, 64};
+	private static final int KEYS = 1024;
+	private static final long WARMUP_MILLIS = 500;
+	private static final long MEASURE_MILLIS = 2000;
+
+	/**
+	 * A capacity large enough that requests are admitted and the exception path does not dominate the measurement.
+	 */
+	private static final long BURST_CAPACITY = Long.MAX_VALUE / 4;
+
+	@Test
+	public void compareThroughput() throws InterruptedException {
+
+		BurstableContextConfiguration configuration = ContextConfigurations.burstableConfiguration(1, BURST_CAPACITY);
+
+		System.out.printf("%-40s %8s %16s%n", "limiter", "threads", "ops/s");
+		for(int threads : THREADS) {
+			this.run("BurstableInMemoryRateLimiter", threads, () -> new BurstableInMemoryRateLimiter(
+					new BurstableInMemoryContextProvider(configuration), configuration));
+			this.run("StripedBurstableInMemoryRateLimiter", threads, () -> new StripedBurstableInMemoryRateLimiter(
+					new BurstableInMemoryContextProvider(configuration), configuration));
+		}
+	}
+
+	private void run(String name, int threads, Supplier<AbstractRateLimiter> factory) throws InterruptedException {
+		AbstractRateLimiter limiter = factory.get();
+
+		// Requests are created up front so the measurement only covers the limiter.
+		ContextStateRateLimitRequest[] requests = new ContextStateRateLimitRequest[KEYS];
+		for(int x = 0; x < KEYS; x++) {
+			requests[x] = ContextStateRateLimitRequest.of("benchmark", "key-" + x);
+		}
+
+		Benchmarks.Operation operation = (thread, iteration) -> {
+			try {
+				limiter.handle(requests[(int) ((iteration * 31 + thread) & (KEYS - 1))]);
+			} catch (RateLimitException e) {
+				throw new IllegalStateException(e);
+			}
+		};
+
+		Benchmarks.measure(threads, WARMUP_MILLIS, operation);
+		long operations = Benchmarks.measure(threads, MEASURE_MILLIS, operation);
+
+		System.out.printf("%-40s %8d %16d%n", name, threads, operations * 1000 / MEASURE_MILLIS);
+	}
+}
@@ -0,0 +1,76 @@
+package com.calebjonasson.ratelimiter.inmemory.benchmark;
+
+import com.calebjonasson.ratelimiter.core.common.exception.RateLimitException;
+import com.calebjonasson.ratelimiter.core.context.configuration.AtomicContextConfiguration;
+import com.calebjonasson.ratelimiter.core.context.configuration.ContextConfigurations;
+import com.calebjonasson.ratelimiter.core.limiter.ContextBasedRateLimiter;
+import com.calebjonasson.ratelimiter.inmemory.context.ContextProviderFactory;
+import com.calebjonasson.ratelimiter.inmemory.limiter.CompactAtomicInMemoryRateLimiter;
+import com.calebjonasson.ratelimiter.inmemory.limiter.RateLimiterFactory;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.function.Supplier;
+
+/**
+ * Retained heap per key of the {@link CompactAtomicInMemoryRateLimiter} against the object per key
+ * {@link com.calebjonasson.ratelimiter.inmemory.limiter.PrimitiveAtomicInMemoryRateLimiter}, reported per million keys.
+ *
+ * The retained size is the growth of the used heap after forced collections while the limiter is reachable, which is
+ * coarse but needs no agent. The state key strings are created by the caller and not counted against either limiter;
+ * the object per key limiter retains them while the compact limiter does not, so its difference is understated.
+ *
+ * Run with: mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+public class FootprintBenchmarkTest {
+
+	private static final int[] MILLIONS = {1, 4};
+
+	@Test
+	public void compareFootprint() throws RateLimitException {
+		AtomicContextConfiguration configuration = ContextConfigurations.atomicConfiguration(100, 60000);
+
+		System.out.printf("%-40s %10s %16s %16s %14s%n", "limiter", "keys", "retained MB", "estimated MB", "bytes/key");
+		for(int millions : MILLIONS) {
+			int keys = millions * 1_000_000;
+			String[] stateKeys = new String[keys];
+			for(int x = 0; x < keys; x++) {
+				stateKeys[x] = "10." + (x >>> 16) + "." + ((x >>> 8) & 0xff) + "." + (x & 0xff);
+			}
+
+			this.run("PrimitiveAtomicInMemoryRateLimiter", stateKeys, () -> RateLimiterFactory.primitiveInMemoryRateLimiter(
+					ContextProviderFactory.atomicInMemoryContextProvider(configuration)));
+			this.run("CompactAtomicInMemoryRateLimiter", stateKeys, () -> RateLimiterFactory.compactInMemoryRateLimiter(
+					ContextProviderFactory.atomicInMemoryContextProvider(configuration), keys));
+		}
+	}
+
+	private void run(String name, String[] stateKeys, Supplier<ContextBasedRateLimiter> factory) throws RateLimitException {
+		long before = usedHeap();
+		ContextBasedRateLimiter limiter = factory.get();
+		for(String stateKey : stateKeys) {
+			limiter.tryAcquire("benchmark", stateKey, 1);
+		}
+		long retained = usedHeap() - before;
+
+		String estimated = limiter instanceof CompactAtomicInMemoryRateLimiter
+				? String.format("%16.1f", ((CompactAtomicInMemoryRateLimiter) limiter).getTable().footprintBytes() / 1e6)
+				: String.format("%16s", "-");
+		System.out.printf("%-40s %10d %16.1f %s %14.1f%n", name, stateKeys.length, retained / 1e6, estimated,
+				retained / (double) stateKeys.length);
+
+		// Keep the limiter reachable until it has been measured.
+		if(limiter.tryAcquire("benchmark", stateKeys[0], 1) == null) {
+			throw new IllegalStateException();
+		}
+	}
+
+	private static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		for(int x = 0; x < 4; x++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
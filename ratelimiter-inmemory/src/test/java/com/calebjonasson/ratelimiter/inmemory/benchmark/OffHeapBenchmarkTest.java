@@ -0,0 +1,85 @@
+package com.calebjonasson.ratelimiter.inmemory.benchmark;
+
+import com.calebjonasson.ratelimiter.core.common.exception.RateLimitException;
+import com.calebjonasson.ratelimiter.core.context.configuration.ContextConfigurations;
+import com.calebjonasson.ratelimiter.core.response.RateLimitDecision;
+import com.calebjonasson.ratelimiter.inmemory.context.ContextProviderFactory;
+import com.calebjonasson.ratelimiter.inmemory.limiter.OffHeapAtomicRateLimiter;
+import com.calebjonasson.ratelimiter.inmemory.limiter.RateLimiterFactory;
+import com.calebjonasson.ratelimiter.inmemory.store.OffHeapStateTable;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+
+/**
+ * Fills an {@link OffHeapAtomicRateLimiter} backed by a memory mapped file with 100 million keys, then reads them back,
+ * and reports the throughput of each pass next to the heap in use and the collections that ran during it. The heap and
+ * the collections should stay flat no matter how many keys are stored.
+ *
+ * The table of 100 million keys maps a file of about 4 GB, so the temporary directory needs the room. Pass
+ * {@code -Dbenchmark.keys=<amount>} to run with another amount of keys.
+ *
+ * Run with: mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+public class OffHeapBenchmarkTest {
+
+	private static final long KEYS = Long.getLong("benchmark.keys", 100_000_000L);
+
+	@Test
+	public void fillAndReadBack(@TempDir Path directory) throws IOException, RateLimitException {
+		try(OffHeapStateTable table = OffHeapStateTable.map(directory.resolve("states.table"), KEYS, OffHeapStateTable.DEFAULT_SEGMENTS)) {
+			OffHeapAtomicRateLimiter limiter = RateLimiterFactory.offHeapRateLimiter(
+					ContextProviderFactory.atomicInMemoryContextProvider(ContextConfigurations.atomicConfiguration(100, 3600000)),
+					table);
+
+			System.out.printf("off heap table of %d keys: %.1f MB in %d slots%n", KEYS, table.offHeapBytes() / 1e6, table.capacity());
+			System.out.printf("%-10s %14s %14s %12s %14s %10s%n", "pass", "keys", "ops/s", "heap MB", "collections", "gc ms");
+			this.run("insert", limiter);
+			this.run("update", limiter);
+			System.out.printf("stored keys: %d%n", table.size());
+		}
+	}
+
+	private void run(String name, OffHeapAtomicRateLimiter limiter) throws RateLimitException {
+		RateLimitDecision decision = new RateLimitDecision();
+		long collections = collections();
+		long collectionMillis = collectionMillis();
+		long start = System.nanoTime();
+		for(long x = 0; x < KEYS; x++) {
+			// An ipv4 like key per request, the same keys are generated by every pass.
+			limiter.tryAcquire("benchmark", ipv4(x), 1, decision);
+		}
+		long elapsed = System.nanoTime() - start;
+
+		Runtime runtime = Runtime.getRuntime();
+		System.out.printf("%-10s %14d %14.0f %12.1f %14d %10d%n", name, KEYS, KEYS / (elapsed / 1e9),
+				(runtime.totalMemory() - runtime.freeMemory()) / 1e6, collections() - collections,
+				collectionMillis() - collectionMillis);
+	}
+
+	private static String ipv4(long x) {
+		return ((x >>> 24) & 0xff) + "." + ((x >>> 16) & 0xff) + "." + ((x >>> 8) & 0xff) + "." + (x & 0xff);
+	}
+
+	private static long collections() {
+		long count = 0;
+		for(GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+			count += collector.getCollectionCount();
+		}
+		return count;
+	}
+
+	private static long collectionMillis() {
+		long millis = 0;
+		for(GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+			millis += collector.getCollectionTime();
+		}
+		return millis;
+	}
+}
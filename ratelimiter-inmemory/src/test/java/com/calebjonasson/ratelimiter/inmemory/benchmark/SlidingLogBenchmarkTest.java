@@ -0,0 +1,115 @@
+package com.calebjonasson.ratelimiter.inmemory.benchmark;
+
+import com.calebjonasson.ratelimiter.core.common.exception.RateLimitException;
+import com.calebjonasson.ratelimiter.core.context.configuration.ContextConfigurations;
+import com.calebjonasson.ratelimiter.core.response.RateLimitDecision;
+import com.calebjonasson.ratelimiter.inmemory.context.ContextProviderFactory;
+import com.calebjonasson.ratelimiter.inmemory.limiter.SlidingLogInMemoryRateLimiter;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per call cost and retained heap per key of the {@link SlidingLogInMemoryRateLimiter} at limits of 100, 10k and 1M
+ * requests per rolling day.
+ *
+ * The per call cost is measured on a single key whose log is full: on the allowed path the clock moves by an interval
+ * over the limit per call, so every call trims the oldest request and logs itself, and on the denied path the clock
+ * stands still. The retained heap is measured as in {@link FootprintBenchmarkTest} over enough keys, each with a full
+ * log, to hold 16M requests.
+ *
+ * Run with: mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+public class SlidingLogBenchmarkTest {
+
+	private static final long[] LIMITS = {100, 10_000, 1_000_000};
+
+	private static final long INTERVAL = TimeUnit.DAYS.toMillis(1);
+
+	private static final long CALLS = 5_000_000;
+
+	private static final long LOGGED_REQUESTS = 16_000_000;
+
+	@Test
+	public void measureSlidingLog() throws RateLimitException {
+		System.out.printf("%10s %14s %14s %10s %16s %14s%n", "limit", "allowed ns/op", "denied ns/op", "keys", "retained MB", "bytes/key");
+		for(long limit : LIMITS) {
+			double allowed = this.perCall(limit, true);
+			double denied = this.perCall(limit, false);
+
+			int keys = (int) (LOGGED_REQUESTS / limit);
+			long before = usedHeap();
+			ClockedLimiter limiter = new ClockedLimiter(limit);
+			limiter.millis = INTERVAL;
+			for(int key = 0; key < keys; key++) {
+				limiter.tryAcquire("benchmark", "key-" + key, limit);
+			}
+			long retained = usedHeap() - before;
+			System.out.printf("%10d %14.1f %14.1f %10d %16.1f %14.1f%n", limit, allowed, denied, keys, retained / 1e6,
+					retained / (double) keys);
+
+			// Keep the limiter reachable until it has been measured.
+			if(limiter.tryAcquire("benchmark", "key-0", 1) == null) {
+				throw new IllegalStateException();
+			}
+		}
+	}
+
+	private double perCall(long limit, boolean allowed) throws RateLimitException {
+		ClockedLimiter limiter = new ClockedLimiter(limit);
+		RateLimitDecision decision = new RateLimitDecision();
+		// Fill the log with requests spread evenly over the window.
+		long step = Math.max(1, INTERVAL / limit);
+		for(long x = 0; x < limit; x++) {
+			limiter.millis += step;
+			limiter.tryAcquire("benchmark", "key", 1, decision);
+		}
+
+		long admitted = 0;
+		long start = 0;
+		for(long x = -CALLS; x < CALLS; x++) {
+			// The first half warms up.
+			if(x == 0) {
+				start = System.nanoTime();
+			}
+			if(allowed) {
+				limiter.millis += step;
+			}
+			if(limiter.tryAcquire("benchmark", "key", 1, decision).isAllowed()) {
+				admitted++;
+			}
+		}
+		long elapsed = System.nanoTime() - start;
+		if(admitted == 0 == allowed) {
+			throw new IllegalStateException("Expected the calls to be " + (allowed ? "allowed" : "denied"));
+		}
+		return elapsed / (double) CALLS;
+	}
+
+	private static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		for(int x = 0; x < 4; x++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	/**
+	 * A limiter whose clock is moved by the benchmark, so the calls are not limited by the resolution of the clock.
+	 */
+	private static class ClockedLimiter extends SlidingLogInMemoryRateLimiter {
+
+		long millis;
+
+		ClockedLimiter(long limit) {
+			super(ContextProviderFactory.slidingLogInMemoryContextProvider(ContextConfigurations.slidingLogConfiguration(limit, INTERVAL)));
+		}
+
+		@Override
+		protected long now() {
+			return TimeUnit.MILLISECONDS.toNanos(this.millis);
+		}
+	}
+}
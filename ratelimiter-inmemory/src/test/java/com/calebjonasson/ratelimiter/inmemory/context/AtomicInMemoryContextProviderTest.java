@@ -71,6 +71,20 @@ public class AtomicInMemoryContextProviderTest {
 		Assertions.assertEquals(interval, context.getInterval());
 	}
 
+	@Test
+	public void testCreatedContextIsReusedUntilAContextIsStored() throws RateLimitContextNotFoundException {
+		String contextKey = "missingContext";
+		AtomicInMemoryContextProvider contextProvider = new AtomicInMemoryContextProvider(ContextConfigurations.atomicConfiguration(10, 1000));
+
+		AtomicRateLimitContext created = contextProvider.getContext(contextKey);
+		Assertions.assertSame(created, contextProvider.getContext(contextKey));
+
+		AtomicRateLimitContext stored = contextProvider.createContext(contextKey);
+		stored.setContextKey(contextKey);
+		contextProvider.putContext(contextKey, stored);
+		Assertions.assertSame(stored, contextProvider.getContext(contextKey));
+	}
+
 	@Test
 	public void testContextThrowsContextMissingIfProvidedWithCorrectConfigurationAndMissingContextKey() {
 		String contextKey = "missingContext";
@@ -0,0 +1,173 @@
+package com.calebjonasson.ratelimiter.inmemory.expiry;
+
+import com.calebjonasson.ratelimiter.core.common.exception.RateLimitException;
+import com.calebjonasson.ratelimiter.core.context.configuration.BurstableContextConfiguration;
+import com.calebjonasson.ratelimiter.core.context.configuration.ContextConfigurations;
+import com.calebjonasson.ratelimiter.core.request.ContextStateRateLimitRequest;
+import com.calebjonasson.ratelimiter.core.state.BurstableRateLimitState;
+import com.calebjonasson.ratelimiter.inmemory.context.ContextProviderFactory;
+import com.calebjonasson.ratelimiter.inmemory.limiter.AtomicInMemoryRateLimiter;
+import com.calebjonasson.ratelimiter.inmemory.limiter.BurstableInMemoryRateLimiter;
+import com.calebjonasson.ratelimiter.inmemory.limiter.ConcurrentAtomicInMemoryRateLimiter;
+import com.calebjonasson.ratelimiter.inmemory.limiter.StripedBurstableInMemoryRateLimiter;
+import com.calebjonasson.ratelimiter.inmemory.store.ConcurrentStateStore;
+import com.calebjonasson.ratelimiter.inmemory.store.ContextStateStore;
+import com.calebjonasson.ratelimiter.inmemory.store.StateStoreFactory;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+public class StateExpirerTest {
+
+	@Test
+	public void testExpiredStatesAreReclaimedIncrementally() throws RateLimitException, InterruptedException {
+		ConcurrentAtomicInMemoryRateLimiter limiter = new ConcurrentAtomicInMemoryRateLimiter(
+				ContextProviderFactory.atomicInMemoryContextProvider(ContextConfigurations.atomicConfiguration(5, 50)));
+
+		for(int x = 0; x < 1000; x++) {
+			limiter.handle(ContextStateRateLimitRequest.of("context", "key-" + x));
+		}
+		Thread.sleep(100);
+
+		StateExpirerConfiguration configuration = new StateExpirerConfiguration();
+		configuration.setTimeBudget(10000);
+		StateExpirer expirer = new StateExpirer(limiter, configuration, null);
+
+		// Everything sampled is expired so a single pass keeps going until the store is empty.
+		Assertions.assertEquals(1000, expirer.runPass());
+		Assertions.assertEquals(0, limiter.getStateStore().size());
+		Assertions.assertEquals(1, expirer.getMetrics().getPasses());
+		Assertions.assertEquals(1000, expirer.getMetrics().getReclaimed());
+		Assertions.assertTrue(expirer.getMetrics().getSampled() >= 1000);
+	}
+
+	@Test
+	public void testLiveStatesStopThePass() throws RateLimitException {
+		AtomicInMemoryRateLimiter limiter = new AtomicInMemoryRateLimiter(
+				ContextProviderFactory.atomicInMemoryContextProvider(ContextConfigurations.atomicConfiguration(5, 60000)));
+
+		for(int x = 0; x < 1000; x++) {
+			limiter.handle(ContextStateRateLimitRequest.of("context", "key-" + x));
+		}
+
+		StateExpirer expirer = new StateExpirer(limiter, new StateExpirerConfiguration(), null);
+
+		// A sample with nothing expired ends the pass after a single round.
+		Assertions.assertEquals(0, expirer.runPass());
+		Assertions.assertEquals(StateExpirerConfiguration.DEFAULT_SAMPLE_SIZE, expirer.getMetrics().getSampled());
+		Assertions.assertEquals(1000, limiter.getStateStore().size());
+	}
+
+	@Test
+	public void testIdleBurstableStatesExpireOnceReplenished() throws RateLimitException, InterruptedException {
+		BurstableContextConfiguration configuration = ContextConfigurations.burstableConfiguration(100, 10);
+		BurstableInMemoryRateLimiter limiter = new BurstableInMemoryRateLimiter(
+				ContextProviderFactory.burstableInMemoryContextProvider(configuration), configuration,
+				StateStoreFactory.perContext(contextKey -> StateStoreFactory.bounded(1000)));
+
+		limiter.handle(ContextStateRateLimitRequest.of("context", "idle"));
+		StateExpirer expirer = new StateExpirer(limiter, new StateExpirerConfiguration(), null);
+		Assertions.assertEquals(0, expirer.runPass());
+
+		// A single token at 100 tokens per second is replenished after 10ms.
+		Thread.sleep(50);
+		Assertions.assertEquals(1, expirer.runPass());
+		Assertions.assertEquals(0, limiter.getStateStore().size());
+	}
+
+	@Test
+	public void testExpiryNeverDropsABucketThatWasJustCharged() throws Exception {
+		BurstableContextConfiguration configuration = ContextConfigurations.burstableConfiguration(1, 1);
+		this.assertExpiryNeverDropsACharge(states -> new BurstableInMemoryRateLimiter(
+				ContextProviderFactory.burstableInMemoryContextProvider(configuration), configuration, states));
+		this.assertExpiryNeverDropsACharge(states -> new StripedBurstableInMemoryRateLimiter(
+				ContextProviderFactory.burstableInMemoryContextProvider(configuration), configuration,
+				StripedBurstableInMemoryRateLimiter.DEFAULT_SEGMENTS, states));
+	}
+
+	/**
+	 * Charge a full and therefore expired bucket after a pass has found it expired but before it is removed. A single
+	 * token is replenished every second so the charged bucket must deny the next request.
+	 */
+	private void assertExpiryNeverDropsACharge(
+			Function<ContextStateStore<BurstableRateLimitState>, BurstableInMemoryRateLimiter> limiterFactory) throws Exception {
+		CountDownLatch checked = new CountDownLatch(1);
+		CountDownLatch charged = new CountDownLatch(1);
+		BurstableInMemoryRateLimiter limiter = limiterFactory.apply(StateStoreFactory.perContext(contextKey ->
+				new ConcurrentStateStore<BurstableRateLimitState>() {
+					@Override
+					public boolean remove(String key, BurstableRateLimitState expected) {
+						checked.countDown();
+						try {
+							charged.await(5, TimeUnit.SECONDS);
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+						}
+						return super.remove(key, expected);
+					}
+				}));
+		limiter.getStateStore().table("context").put("key", BurstableRateLimitState.builder().tokens(1L).replenishedAt(0).build());
+
+		StateExpirer expirer = new StateExpirer(limiter, new StateExpirerConfiguration(), null);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<Long> pass = executor.submit(() -> expirer.runPass());
+			Assertions.assertTrue(checked.await(5, TimeUnit.SECONDS));
+			Assertions.assertTrue(limiter.tryAcquire("context", "key", 1).isAllowed());
+			charged.countDown();
+			pass.get();
+		} finally {
+			executor.shutdownNow();
+		}
+
+		Assertions.assertFalse(limiter.tryAcquire("context", "key", 1).isAllowed(), "The charged bucket was dropped.");
+	}
+
+	@Test
+	public void testScheduledExpiry() throws RateLimitException, InterruptedException {
+		ConcurrentAtomicInMemoryRateLimiter limiter = new ConcurrentAtomicInMemoryRateLimiter(
+				ContextProviderFactory.atomicInMemoryContextProvider(ContextConfigurations.atomicConfiguration(5, 20)));
+
+		for(int x = 0; x < 100; x++) {
+			limiter.handle(ContextStateRateLimitRequest.of("context", "key-" + x));
+		}
+
+		StateExpirerConfiguration configuration = new StateExpirerConfiguration();
+		configuration.setInterval(10);
+		StateExpirer expirer = StateExpirer.start(limiter, configuration);
+
+		long deadline = System.currentTimeMillis() + 5000;
+		while(limiter.getStateStore().size() > 0 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		expirer.stop();
+
+		Assertions.assertEquals(0, limiter.getStateStore().size());
+		Assertions.assertEquals(100, expirer.getMetrics().getReclaimed());
+	}
+
+	@Test
+	public void testSelfPruningLimitersAreNotScheduled() {
+		AtomicInMemoryRateLimiter limiter = new AtomicInMemoryRateLimiter(
+				ContextProviderFactory.atomicInMemoryContextProvider(ContextConfigurations.atomicConfiguration(5, 60000))) {
+			@Override
+			public boolean isSelfPruning() {
+				return true;
+			}
+		};
+
+		ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+		try {
+			Assertions.assertFalse(new StateExpirer(limiter, new StateExpirerConfiguration(), scheduler).start());
+		} finally {
+			scheduler.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,57 @@
+package com.calebjonasson.ratelimiter.inmemory.inmemory;
+
+import com.calebjonasson.ratelimiter.core.common.exception.RateLimitException;
+import com.calebjonasson.ratelimiter.core.common.exception.RateLimitExceededException;
+import com.calebjonasson.ratelimiter.core.context.configuration.ContextConfigurations;
+import com.calebjonasson.ratelimiter.core.request.ContextStateRateLimitRequest;
+import com.calebjonasson.ratelimiter.core.response.RateLimitDecision;
+import com.calebjonasson.ratelimiter.inmemory.context.AtomicInMemoryContextProvider;
+import com.calebjonasson.ratelimiter.inmemory.context.ContextProviderFactory;
+import com.calebjonasson.ratelimiter.inmemory.limiter.CompactAtomicInMemoryRateLimiter;
+import com.calebjonasson.ratelimiter.inmemory.limiter.RateLimiterFactory;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class CompactAtomicInMemoryRateLimiterTest {
+
+	private static final String CONTEXT_KEY = "test-context-1";
+
+	@Test
+	public void testLimitAndWindowReset() throws RateLimitException, InterruptedException {
+		AtomicInMemoryContextProvider contextProvider = ContextProviderFactory.atomicInMemoryContextProvider(ContextConfigurations.atomicConfiguration(3, 200));
+		CompactAtomicInMemoryRateLimiter limiter = RateLimiterFactory.compactInMemoryRateLimiter(contextProvider, 1000);
+
+		Assertions.assertEquals(2, limiter.tryAcquire(CONTEXT_KEY, "state", 1).getRemainingCapacity());
+		Assertions.assertEquals(0L, limiter.handle(ContextStateRateLimitRequest.of(CONTEXT_KEY, "state", 2)).getRemainingCapacity());
+		RateLimitDecision denied = limiter.tryAcquire(CONTEXT_KEY, "state", 1);
+		Assertions.assertFalse(denied.isAllowed());
+		Assertions.assertTrue(denied.getRetryAfterMillis() > 0 && denied.getRetryAfterMillis() <= 200);
+		Assertions.assertThrows(RateLimitExceededException.class,
+				() -> limiter.handle(ContextStateRateLimitRequest.of(CONTEXT_KEY, "state")));
+		Assertions.assertEquals(3, limiter.getRateLimitState(CONTEXT_KEY, "state").get().getCount());
+
+		// The same state key under another context has its own window.
+		Assertions.assertTrue(limiter.tryAcquire("test-context-2", "state", 1).isAllowed());
+
+		Thread.sleep(250);
+		Assertions.assertEquals(2, limiter.tryAcquire(CONTEXT_KEY, "state", 1).getRemainingCapacity());
+	}
+
+	@Test
+	public void testPruneRemovesEndedWindows() throws RateLimitException, InterruptedException {
+		AtomicInMemoryContextProvider contextProvider = ContextProviderFactory.atomicInMemoryContextProvider(ContextConfigurations.atomicConfiguration(3, 50));
+		CompactAtomicInMemoryRateLimiter limiter = RateLimiterFactory.compactInMemoryRateLimiter(contextProvider, 1000);
+
+		for(int x = 0; x < 100; x++) {
+			limiter.tryAcquire(CONTEXT_KEY, "state-" + x, 1);
+		}
+		Assertions.assertEquals(100, limiter.getTable().size());
+
+		Thread.sleep(100);
+		limiter.tryAcquire(CONTEXT_KEY, "state-0", 1);
+		limiter.pruneExpiredStates();
+		Assertions.assertEquals(1, limiter.getTable().size());
+		Assertions.assertFalse(limiter.getRateLimitState(CONTEXT_KEY, "state-1").isPresent());
+		Assertions.assertEquals(1, limiter.getRateLimitState(CONTEXT_KEY, "state-0").get().getCount());
+	}
+}
@@ -0,0 +1,165 @@
+package com.calebjonasson.ratelimiter.inmemory.inmemory;
+
+import com.calebjonasson.ratelimiter.core.common.exception.RateLimitException;
+import com.calebjonasson.ratelimiter.core.common.exception.RateLimitExceededException;
+import com.calebjonasson.ratelimiter.core.context.AtomicRateLimitContext;
+import com.calebjonasson.ratelimiter.core.context.configuration.ContextConfigurations;
+import com.calebjonasson.ratelimiter.core.request.ContextStateRateLimitRequest;
+import com.calebjonasson.ratelimiter.core.response.RateLimitHandleResponse;
+import com.calebjonasson.ratelimiter.core.state.AtomicRateLimitState;
+import com.calebjonasson.ratelimiter.inmemory.context.AtomicInMemoryContextProvider;
+import com.calebjonasson.ratelimiter.inmemory.context.ContextProviderFactory;
+import com.calebjonasson.ratelimiter.inmemory.limiter.ConcurrentAtomicInMemoryRateLimiter;
+import com.calebjonasson.ratelimiter.inmemory.limiter.RateLimiterFactory;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ConcurrentAtomicInMemoryRateLimiterTest {
+
+	private static final String DEFAULT_CONTEXT_KEY = "test-context-1";
+
+	@Test
+	public void testLimitExceededException() throws RateLimitException {
+
+		AtomicInMemoryContextProvider contextProvider = ContextProviderFactory.atomicInMemoryContextProvider(ContextConfigurations.atomicConfiguration(5, 5000));
+		contextProvider.putContext(DEFAULT_CONTEXT_KEY, AtomicRateLimitContext.builder().limit(3).interval(5000).build());
+		ConcurrentAtomicInMemoryRateLimiter limiter = RateLimiterFactory.concurrentInMemoryRateLimiter(contextProvider);
+
+		final String stateKey = "test-1";
+
+		for(int x = 0; x < 3; x++) {
+			limiter.handle(ContextStateRateLimitRequest.of(DEFAULT_CONTEXT_KEY, stateKey));
+		}
+
+		Assertions.assertThrows(RateLimitExceededException.class, () -> limiter.handle(
+				ContextStateRateLimitRequest.of(DEFAULT_CONTEXT_KEY, stateKey))
+		);
+
+		AtomicRateLimitContext rateLimitContext = contextProvider.getContext(DEFAULT_CONTEXT_KEY);
+		AtomicRateLimitState rateLimitState = limiter.getRateLimitState(rateLimitContext, stateKey)
+				.orElseThrow(IllegalStateException::new);
+
+		Assertions.assertEquals(3, rateLimitState.getCount());
+	}
+
+	@Test
+	public void testOnExpiresANewWindowIsStarted() throws RateLimitException, InterruptedException {
+
+		long limit = 2;
+		long interval = 500;
+
+		AtomicInMemoryContextProvider contextProvider = ContextProviderFactory.atomicInMemoryContextProvider(ContextConfigurations.atomicConfiguration(limit, interval));
+		ConcurrentAtomicInMemoryRateLimiter limiter = RateLimiterFactory.concurrentInMemoryRateLimiter(contextProvider);
+
+		final String stateKey = "test-1";
+
+		limiter.handle(ContextStateRateLimitRequest.of(DEFAULT_CONTEXT_KEY, stateKey));
+		RateLimitHandleResponse response = limiter.handle(ContextStateRateLimitRequest.of(DEFAULT_CONTEXT_KEY, stateKey));
+		Assertions.assertEquals(0L, response.getRemainingCapacity());
+
+		Thread.sleep(interval + 100);
+
+		response = limiter.handle(ContextStateRateLimitRequest.of(DEFAULT_CONTEXT_KEY, stateKey));
+		Assertions.assertEquals(1L, response.getRemainingCapacity());
+	}
+
+	/**
+	 * Hammer a handful of keys from many threads across several short windows and make sure that no single window of any
+	 * key ever admits more than the context limit.
+	 */
+	@Test
+	public void testNoKeyExceedsTheLimitPerWindowUnderContention() throws Exception {
+
+		int limit = 50;
+		int interval = 20;
+		int threads = Math.max(8, Runtime.getRuntime().availableProcessors() * 2);
+		int operationsPerThread = 20000;
+		int keys = 4;
+
+		AtomicInMemoryContextProvider contextProvider = ContextProviderFactory.atomicInMemoryContextProvider(ContextConfigurations.atomicConfiguration(limit, interval));
+		contextProvider.putContext(DEFAULT_CONTEXT_KEY, AtomicRateLimitContext.builder().limit(limit).interval(interval).build());
+		ConcurrentAtomicInMemoryRateLimiter limiter = RateLimiterFactory.concurrentInMemoryRateLimiter(contextProvider);
+
+		// Admissions grouped by state key and the window (expires) they were admitted under.
+		Map<String, AtomicLong> admissions = new ConcurrentHashMap<>();
+		AtomicInteger successCount = new AtomicInteger();
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<?>> futures = new ArrayList<>();
+
+		for(int t = 0; t < threads; t++) {
+			futures.add(executor.submit(() -> {
+				start.await();
+				for(int x = 0; x < operationsPerThread; x++) {
+					String stateKey = "key-" + (x % keys);
+					try {
+						RateLimitHandleResponse response = limiter.handle(ContextStateRateLimitRequest.of(DEFAULT_CONTEXT_KEY, stateKey));
+						AtomicRateLimitState state = (AtomicRateLimitState) response.getState();
+						admissions.computeIfAbsent(stateKey + "@" + state.getExpires().getTime(), key -> new AtomicLong())
+								.incrementAndGet();
+						successCount.incrementAndGet();
+					} catch (RateLimitExceededException e) {
+						// Expected for most of the requests.
+					}
+				}
+				return null;
+			}));
+		}
+
+		start.countDown();
+		for(Future<?> future : futures) {
+			future.get(60, TimeUnit.SECONDS);
+		}
+		executor.shutdown();
+
+		Assertions.assertTrue(successCount.get() > 0, "Expected at least one request to be admitted.");
+		for(Map.Entry<String, AtomicLong> entry : admissions.entrySet()) {
+			Assertions.assertTrue(entry.getValue().get() <= limit,
+					"Window " + entry.getKey() + " admitted " + entry.getValue().get() + " requests with a limit of " + limit);
+		}
+	}
+
+	@Test
+	public void testPruneExpiredStatesRemovesOnlyExpiredStates() throws RateLimitException, InterruptedException {
+
+		AtomicInMemoryContextProvider contextProvider = ContextProviderFactory.atomicInMemoryContextProvider(ContextConfigurations.atomicConfiguration(5, 200));
+		contextProvider.putContext("long-context", AtomicRateLimitContext.builder().limit(5).interval(60000).build());
+		PruningLimiter limiter = new PruningLimiter(contextProvider);
+
+		limiter.handle(ContextStateRateLimitRequest.of(DEFAULT_CONTEXT_KEY, "short"));
+		limiter.handle(ContextStateRateLimitRequest.of("long-context", "long"));
+
+		Thread.sleep(300);
+		limiter.prune();
+
+		Assertions.assertFalse(limiter.getRateLimitState(DEFAULT_CONTEXT_KEY, "short").isPresent());
+		Assertions.assertTrue(limiter.getRateLimitState("long-context", "long").isPresent());
+	}
+
+	/**
+	 * Exposes the protected prune operation to the test.
+	 */
+	private static class PruningLimiter extends ConcurrentAtomicInMemoryRateLimiter {
+
+		PruningLimiter(AtomicInMemoryContextProvider contextProvider) {
+			super(contextProvider);
+		}
+
+		void prune() {
+			this.pruneExpiredStates();
+		}
+	}
+}
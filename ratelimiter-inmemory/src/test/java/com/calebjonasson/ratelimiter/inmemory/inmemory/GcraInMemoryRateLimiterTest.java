@@ -0,0 +1,123 @@
+package com.calebjonasson.ratelimiter.inmemory.inmemory;
+
+import com.calebjonasson.ratelimiter.core.common.exception.RateLimitException;
+import com.calebjonasson.ratelimiter.core.context.GcraRateLimitContext;
+import com.calebjonasson.ratelimiter.core.context.configuration.ContextConfigurations;
+import com.calebjonasson.ratelimiter.core.response.RateLimitDecision;
+import com.calebjonasson.ratelimiter.inmemory.context.ContextProviderFactory;
+import com.calebjonasson.ratelimiter.inmemory.context.GcraInMemoryContextProvider;
+import com.calebjonasson.ratelimiter.inmemory.limiter.GcraInMemoryRateLimiter;
+import com.calebjonasson.ratelimiter.inmemory.limiter.RateLimiterFactory;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class GcraInMemoryRateLimiterTest {
+
+	private static final String DEFAULT_CONTEXT_KEY = "test-context-1";
+
+	@Test
+	public void testBurstAndEmission() throws RateLimitException, InterruptedException {
+		// 10 permits a second with bursts of 5.
+		GcraInMemoryRateLimiter limiter = RateLimiterFactory.gcraInMemoryRateLimiter(
+				ContextProviderFactory.gcraInMemoryContextProvider(ContextConfigurations.gcraConfiguration(10, 1000, 5)));
+
+		for(int x = 4; x >= 0; x--) {
+			Assertions.assertEquals(x, limiter.tryAcquire(DEFAULT_CONTEXT_KEY, "state", 1).getRemainingCapacity());
+		}
+		RateLimitDecision denied = limiter.tryAcquire(DEFAULT_CONTEXT_KEY, "state", 1);
+		Assertions.assertFalse(denied.isAllowed());
+		long retryAfter = denied.getRetryAfterMillis();
+		Assertions.assertTrue(retryAfter > 0 && retryAfter <= 100, "retry after " + retryAfter);
+		Assertions.assertEquals(RateLimitDecision.RETRY_AFTER_NEVER, limiter.tryAcquire(DEFAULT_CONTEXT_KEY, "state", 6).getRetryAfterMillis());
+		Assertions.assertEquals(4, limiter.tryAcquire(DEFAULT_CONTEXT_KEY, "other-state", 1).getRemainingCapacity());
+
+		Thread.sleep(retryAfter + 20);
+		Assertions.assertTrue(limiter.tryAcquire(DEFAULT_CONTEXT_KEY, "state", 1).isAllowed());
+	}
+
+	@Test
+	public void testEmissionWithinAMillisecond() throws RateLimitException {
+		GcraInMemoryRateLimiter limiter = RateLimiterFactory.gcraInMemoryRateLimiter(
+				ContextProviderFactory.gcraInMemoryContextProvider(ContextConfigurations.gcraConfiguration(1_000_000, 1000, 1)));
+
+		Assertions.assertTrue(limiter.tryAcquire(DEFAULT_CONTEXT_KEY, "state", 1).isAllowed());
+
+		// A million permits per second emits a permit every microsecond, long before the millisecond clock ticks.
+		long start = System.nanoTime();
+		while(System.nanoTime() - start < 10_000) {
+			// Spin, sleeping would take at least a millisecond.
+		}
+		Assertions.assertTrue(limiter.tryAcquire(DEFAULT_CONTEXT_KEY, "state", 1).isAllowed());
+	}
+
+	/**
+	 * Hammer a single key from many threads and make sure no more than the burst plus what was emitted is admitted.
+	 */
+	@Test
+	public void testAdmissionsUnderContention() throws Exception {
+		long limit = 100;
+		long burst = 20;
+		int threads = Math.max(8, Runtime.getRuntime().availableProcessors() * 2);
+		int operationsPerThread = 20000;
+
+		GcraInMemoryContextProvider contextProvider = ContextProviderFactory.gcraInMemoryContextProvider(
+				ContextConfigurations.gcraConfiguration(limit, 1000, burst));
+		contextProvider.putContext(DEFAULT_CONTEXT_KEY, GcraRateLimitContext.builder().limit(limit).interval(1000).burstCapacity(burst).build());
+		GcraInMemoryRateLimiter limiter = RateLimiterFactory.gcraInMemoryRateLimiter(contextProvider);
+
+		AtomicLong admitted = new AtomicLong();
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<?>> futures = new ArrayList<>();
+		for(int t = 0; t < threads; t++) {
+			futures.add(executor.submit(() -> {
+				start.await();
+				RateLimitDecision decision = new RateLimitDecision();
+				for(int x = 0; x < operationsPerThread; x++) {
+					if(limiter.tryAcquire(DEFAULT_CONTEXT_KEY, "state", 1, decision).isAllowed()) {
+						admitted.incrementAndGet();
+					}
+				}
+				return null;
+			}));
+		}
+
+		long started = System.currentTimeMillis();
+		start.countDown();
+		for(Future<?> future : futures) {
+			future.get(60, TimeUnit.SECONDS);
+		}
+		long elapsed = System.currentTimeMillis() - started;
+		executor.shutdown();
+
+		Assertions.assertTrue(admitted.get() >= burst, "admitted " + admitted.get());
+		Assertions.assertTrue(admitted.get() <= burst + (elapsed + 1) * limit / 1000 + 1, "admitted " + admitted.get());
+	}
+
+	@Test
+	public void testPruneDiscardsOnlyFullStates() throws RateLimitException, InterruptedException {
+		GcraInMemoryContextProvider contextProvider = ContextProviderFactory.gcraInMemoryContextProvider(
+				ContextConfigurations.gcraConfiguration(10, 100, 10));
+		contextProvider.putContext("slow-context", GcraRateLimitContext.builder().limit(1).interval(60000).burstCapacity(1).build());
+		GcraInMemoryRateLimiter limiter = RateLimiterFactory.gcraInMemoryRateLimiter(contextProvider);
+
+		limiter.tryAcquire(DEFAULT_CONTEXT_KEY, "fast", 5);
+		limiter.tryAcquire("slow-context", "slow", 1);
+
+		Thread.sleep(100);
+		limiter.pruneExpiredStates();
+
+		Assertions.assertFalse(limiter.getRateLimitState(DEFAULT_CONTEXT_KEY, "fast").isPresent());
+		Assertions.assertTrue(limiter.getRateLimitState("slow-context", "slow").isPresent());
+		Assertions.assertEquals(9, limiter.tryAcquire(DEFAULT_CONTEXT_KEY, "fast", 1).getRemainingCapacity());
+	}
+}
@@ -0,0 +1,107 @@
+package com.calebjonasson.ratelimiter.inmemory.inmemory;
+
+import com.calebjonasson.ratelimiter.core.common.exception.RateLimitContextNotFoundException;
+import com.calebjonasson.ratelimiter.core.common.exception.RateLimitException;
+import com.calebjonasson.ratelimiter.core.context.AtomicRateLimitContext;
+import com.calebjonasson.ratelimiter.core.context.configuration.BurstableContextConfiguration;
+import com.calebjonasson.ratelimiter.core.context.configuration.ContextConfigurations;
+import com.calebjonasson.ratelimiter.core.limiter.ContextBasedRateLimiter;
+import com.calebjonasson.ratelimiter.core.request.ContextStateRateLimitRequest;
+import com.calebjonasson.ratelimiter.core.response.RateLimitDecision;
+import com.calebjonasson.ratelimiter.inmemory.context.AtomicInMemoryContextProvider;
+import com.calebjonasson.ratelimiter.inmemory.context.ContextProviderFactory;
+import com.calebjonasson.ratelimiter.inmemory.limiter.BurstableInMemoryRateLimiter;
+import com.calebjonasson.ratelimiter.inmemory.limiter.RateLimiterFactory;
+import com.calebjonasson.ratelimiter.inmemory.limiter.StripedBurstableInMemoryRateLimiter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class HandleAllTest {
+
+	private static final String CONTEXT_KEY = "test-context-1";
+
+	@Test
+	public void testAtomicLimiters() throws RateLimitException {
+		assertBatch(RateLimiterFactory.inMemoryRateLimiter(new CountingContextProvider()));
+		assertBatch(RateLimiterFactory.concurrentInMemoryRateLimiter(new CountingContextProvider()));
+		assertBatch(RateLimiterFactory.primitiveInMemoryRateLimiter(new CountingContextProvider()));
+	}
+
+	@Test
+	public void testBurstableLimiters() throws RateLimitException {
+		BurstableContextConfiguration configuration = ContextConfigurations.burstableConfiguration(0, 2);
+		assertBurstableBatch(new BurstableInMemoryRateLimiter(ContextProviderFactory.burstableInMemoryContextProvider(configuration), configuration));
+		assertBurstableBatch(new StripedBurstableInMemoryRateLimiter(ContextProviderFactory.burstableInMemoryContextProvider(configuration), configuration, 4));
+		assertBurstableBatch(RateLimiterFactory.primitiveBurstableInMemoryRateLimiter(ContextProviderFactory.burstableInMemoryContextProvider(configuration)));
+	}
+
+	@Test
+	public void testContextsAreLoadedOncePerBatch() throws RateLimitException {
+		CountingContextProvider contextProvider = new CountingContextProvider();
+		ContextBasedRateLimiter limiter = RateLimiterFactory.concurrentInMemoryRateLimiter(contextProvider);
+
+		List<ContextStateRateLimitRequest> requests = new ArrayList<>();
+		for(int x = 0; x < 100; x++) {
+			requests.add(ContextStateRateLimitRequest.of(x % 2 == 0 ? CONTEXT_KEY : "test-context-2", "state-" + x));
+		}
+		List<RateLimitDecision> decisions = limiter.handleAll(requests);
+
+		Assertions.assertEquals(100, decisions.size());
+		Assertions.assertTrue(decisions.stream().allMatch(RateLimitDecision::isAllowed));
+		Assertions.assertEquals(2, contextProvider.loads.get());
+	}
+
+	private static void assertBatch(ContextBasedRateLimiter limiter) throws RateLimitException {
+		List<RateLimitDecision> decisions = limiter.handleAll(Arrays.asList(
+				ContextStateRateLimitRequest.of(CONTEXT_KEY, "a", 2),
+				ContextStateRateLimitRequest.of(CONTEXT_KEY, "b"),
+				ContextStateRateLimitRequest.of(CONTEXT_KEY, "a", 2),
+				ContextStateRateLimitRequest.of(CONTEXT_KEY, "a")));
+
+		// The limit of the context is 3, a denial does not stop the rest of the batch.
+		Assertions.assertEquals(4, decisions.size());
+		Assertions.assertTrue(decisions.get(0).isAllowed());
+		Assertions.assertEquals(1, decisions.get(0).getRemainingCapacity());
+		Assertions.assertTrue(decisions.get(1).isAllowed());
+		Assertions.assertEquals(2, decisions.get(1).getRemainingCapacity());
+		Assertions.assertFalse(decisions.get(2).isAllowed());
+		Assertions.assertTrue(decisions.get(3).isAllowed());
+		Assertions.assertEquals(0, decisions.get(3).getRemainingCapacity());
+	}
+
+	private static void assertBurstableBatch(ContextBasedRateLimiter limiter) throws RateLimitException {
+		List<ContextStateRateLimitRequest> requests = new ArrayList<>();
+		for(int x = 0; x < 30; x++) {
+			requests.add(ContextStateRateLimitRequest.of(CONTEXT_KEY, "state-" + (x % 10)));
+		}
+		List<RateLimitDecision> decisions = limiter.handleAll(requests);
+
+		// Each state holds two tokens so only the first two requests per state are admitted.
+		for(int x = 0; x < 30; x++) {
+			Assertions.assertEquals(x < 20, decisions.get(x).isAllowed(), "request " + x);
+		}
+	}
+
+	/**
+	 * Counts how often a context is loaded.
+	 */
+	private static class CountingContextProvider extends AtomicInMemoryContextProvider {
+
+		private final AtomicInteger loads = new AtomicInteger();
+
+		CountingContextProvider() {
+			super(ContextConfigurations.atomicConfiguration(3, 60000));
+		}
+
+		@Override
+		public AtomicRateLimitContext getContext(String contextKey) throws RateLimitContextNotFoundException {
+			this.loads.incrementAndGet();
+			return super.getContext(contextKey);
+		}
+	}
+}
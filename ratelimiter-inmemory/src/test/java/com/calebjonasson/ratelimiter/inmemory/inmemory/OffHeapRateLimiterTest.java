@@ -0,0 +1,56 @@
+package com.calebjonasson.ratelimiter.inmemory.inmemory;
+
+import com.calebjonasson.ratelimiter.core.common.exception.RateLimitException;
+import com.calebjonasson.ratelimiter.core.common.exception.RateLimitExceededException;
+import com.calebjonasson.ratelimiter.core.context.configuration.ContextConfigurations;
+import com.calebjonasson.ratelimiter.core.request.ContextStateRateLimitRequest;
+import com.calebjonasson.ratelimiter.inmemory.context.ContextProviderFactory;
+import com.calebjonasson.ratelimiter.inmemory.limiter.OffHeapAtomicRateLimiter;
+import com.calebjonasson.ratelimiter.inmemory.limiter.OffHeapBurstableRateLimiter;
+import com.calebjonasson.ratelimiter.inmemory.limiter.RateLimiterFactory;
+import com.calebjonasson.ratelimiter.inmemory.store.OffHeapStateTable;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class OffHeapRateLimiterTest {
+
+	private static final String CONTEXT_KEY = "test-context-1";
+
+	@Test
+	public void testAtomicLimitAndWindowReset() throws RateLimitException, InterruptedException {
+		OffHeapAtomicRateLimiter limiter = RateLimiterFactory.offHeapRateLimiter(
+				ContextProviderFactory.atomicInMemoryContextProvider(ContextConfigurations.atomicConfiguration(3, 200)),
+				OffHeapStateTable.allocateDirect(1000, 4));
+
+		Assertions.assertEquals(2, limiter.tryAcquire(CONTEXT_KEY, "state", 1).getRemainingCapacity());
+		Assertions.assertEquals(0L, limiter.handle(ContextStateRateLimitRequest.of(CONTEXT_KEY, "state", 2)).getRemainingCapacity());
+		Assertions.assertThrows(RateLimitExceededException.class,
+				() -> limiter.handle(ContextStateRateLimitRequest.of(CONTEXT_KEY, "state")));
+		Assertions.assertEquals(3, limiter.getRateLimitState(CONTEXT_KEY, "state").get().getCount());
+		Assertions.assertTrue(limiter.tryAcquire("test-context-2", "state", 1).isAllowed());
+
+		Thread.sleep(250);
+		limiter.pruneExpiredStates();
+		Assertions.assertEquals(0, limiter.getTable().size());
+		Assertions.assertEquals(2, limiter.tryAcquire(CONTEXT_KEY, "state", 1).getRemainingCapacity());
+	}
+
+	@Test
+	public void testBurstableCapacityAndRefill() throws RateLimitException, InterruptedException {
+		OffHeapBurstableRateLimiter limiter = RateLimiterFactory.offHeapBurstableRateLimiter(
+				ContextProviderFactory.burstableInMemoryContextProvider(ContextConfigurations.burstableConfiguration(20, 5)),
+				OffHeapStateTable.allocateDirect(1000, 4));
+
+		for(int x = 4; x >= 0; x--) {
+			Assertions.assertEquals(x, limiter.tryAcquire(CONTEXT_KEY, "state", 1).getRemainingCapacity());
+		}
+		Assertions.assertFalse(limiter.tryAcquire(CONTEXT_KEY, "state", 1).isAllowed());
+
+		// 20 tokens per second refills a token every 50ms.
+		Thread.sleep(120);
+		Assertions.assertEquals(1, limiter.tryAcquire(CONTEXT_KEY, "state", 1).getRemainingCapacity());
+		Assertions.assertEquals(0, limiter.tryAcquire(CONTEXT_KEY, "state", 1).getRemainingCapacity());
+		Assertions.assertFalse(limiter.tryAcquire(CONTEXT_KEY, "state", 1).isAllowed());
+		Assertions.assertEquals(0, limiter.getRateLimitState(CONTEXT_KEY, "state").get().getTokens());
+	}
+}
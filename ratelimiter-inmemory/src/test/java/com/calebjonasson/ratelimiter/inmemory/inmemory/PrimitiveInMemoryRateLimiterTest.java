@@ -0,0 +1,138 @@
+package com.calebjonasson.ratelimiter.inmemory.inmemory;
+
+import com.calebjonasson.ratelimiter.core.common.exception.RateLimitException;
+import com.calebjonasson.ratelimiter.core.common.exception.RateLimitExceededException;
+import com.calebjonasson.ratelimiter.core.context.AtomicRateLimitContext;
+import com.calebjonasson.ratelimiter.core.context.BurstableRateLimitContext;
+import com.calebjonasson.ratelimiter.core.context.configuration.ContextConfigurations;
+import com.calebjonasson.ratelimiter.core.request.ContextStateRateLimitRequest;
+import com.calebjonasson.ratelimiter.inmemory.context.AtomicInMemoryContextProvider;
+import com.calebjonasson.ratelimiter.inmemory.context.BurstableInMemoryContextProvider;
+import com.calebjonasson.ratelimiter.inmemory.context.ContextProviderFactory;
+import com.calebjonasson.ratelimiter.inmemory.limiter.PrimitiveAtomicInMemoryRateLimiter;
+import com.calebjonasson.ratelimiter.inmemory.limiter.PrimitiveBurstableInMemoryRateLimiter;
+import com.calebjonasson.ratelimiter.inmemory.limiter.PrimitiveInMemoryRateLimiter;
+import com.calebjonasson.ratelimiter.inmemory.limiter.RateLimiterFactory;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+public class PrimitiveInMemoryRateLimiterTest {
+
+	private static final String CONTEXT_KEY = "test-context-1";
+
+	private static final int WARMUP_CALLS = 200000;
+
+	private static final int MEASURED_CALLS = 100000;
+
+	@Test
+	public void testAtomicLimitAndWindowReset() throws RateLimitException, InterruptedException {
+		AtomicInMemoryContextProvider contextProvider = ContextProviderFactory.atomicInMemoryContextProvider(ContextConfigurations.atomicConfiguration(3, 200));
+		PrimitiveAtomicInMemoryRateLimiter limiter = RateLimiterFactory.primitiveInMemoryRateLimiter(contextProvider);
+
+		Assertions.assertEquals(2, limiter.acquire(CONTEXT_KEY, "state"));
+		Assertions.assertEquals(1, limiter.acquire(CONTEXT_KEY, "state"));
+		Assertions.assertEquals(0L, limiter.handle(ContextStateRateLimitRequest.of(CONTEXT_KEY, "state")).getRemainingCapacity());
+		Assertions.assertEquals(PrimitiveInMemoryRateLimiter.DENIED, limiter.acquire(CONTEXT_KEY, "state"));
+		Assertions.assertThrows(RateLimitExceededException.class,
+				() -> limiter.handle(ContextStateRateLimitRequest.of(CONTEXT_KEY, "state")));
+
+		Thread.sleep(250);
+		Assertions.assertEquals(2, limiter.acquire(CONTEXT_KEY, "state"));
+	}
+
+	@Test
+	public void testBurstableCapacityAndRefill() throws RateLimitException, InterruptedException {
+		BurstableInMemoryContextProvider contextProvider = ContextProviderFactory.burstableInMemoryContextProvider(ContextConfigurations.burstableConfiguration(20, 5));
+		PrimitiveBurstableInMemoryRateLimiter limiter = RateLimiterFactory.primitiveBurstableInMemoryRateLimiter(contextProvider);
+
+		for(int x = 4; x >= 0; x--) {
+			Assertions.assertEquals(x, limiter.acquire(CONTEXT_KEY, "state"));
+		}
+		Assertions.assertEquals(PrimitiveInMemoryRateLimiter.DENIED, limiter.acquire(CONTEXT_KEY, "state"));
+
+		// 20 tokens per second refills a token every 50ms.
+		Thread.sleep(120);
+		Assertions.assertEquals(1, limiter.acquire(CONTEXT_KEY, "state"));
+		Assertions.assertEquals(0, limiter.acquire(CONTEXT_KEY, "state"));
+		Assertions.assertEquals(PrimitiveInMemoryRateLimiter.DENIED, limiter.acquire(CONTEXT_KEY, "state"));
+	}
+
+	@Test
+	public void testBurstableRefillsWithinAMillisecond() throws RateLimitException {
+		BurstableInMemoryContextProvider contextProvider = ContextProviderFactory.burstableInMemoryContextProvider(ContextConfigurations.burstableConfiguration(1_000_000, 1));
+		PrimitiveBurstableInMemoryRateLimiter limiter = RateLimiterFactory.primitiveBurstableInMemoryRateLimiter(contextProvider);
+
+		Assertions.assertEquals(0, limiter.acquire(CONTEXT_KEY, "state"));
+
+		// A million tokens per second refills a token every microsecond, long before the millisecond clock ticks.
+		long start = System.nanoTime();
+		while(System.nanoTime() - start < 10_000) {
+			// Spin, sleeping would take at least a millisecond.
+		}
+		Assertions.assertEquals(0, limiter.acquire(CONTEXT_KEY, "state"));
+	}
+
+	@Test
+	public void testPrunedStatesAreReplaced() throws RateLimitException, InterruptedException {
+		AtomicInMemoryContextProvider contextProvider = ContextProviderFactory.atomicInMemoryContextProvider(ContextConfigurations.atomicConfiguration(3, 50));
+		PrimitiveAtomicInMemoryRateLimiter limiter = RateLimiterFactory.primitiveInMemoryRateLimiter(contextProvider);
+
+		limiter.acquire(CONTEXT_KEY, "state");
+		Thread.sleep(100);
+		limiter.pruneExpiredStates();
+		Assertions.assertEquals(0, limiter.getStateStore().size());
+		Assertions.assertEquals(2, limiter.acquire(CONTEXT_KEY, "state"));
+	}
+
+	@Test
+	public void testAtomicAcquireDoesNotAllocate() throws RateLimitException {
+		AtomicInMemoryContextProvider contextProvider = ContextProviderFactory.atomicInMemoryContextProvider(ContextConfigurations.atomicConfiguration(1, 60000));
+		contextProvider.putContext(CONTEXT_KEY, AtomicRateLimitContext.builder().limit(Long.MAX_VALUE).interval(60000).build());
+		PrimitiveAtomicInMemoryRateLimiter limiter = RateLimiterFactory.primitiveInMemoryRateLimiter(contextProvider);
+
+		Assertions.assertEquals(0, allocatedBytesPerCall(() -> limiter.acquire(CONTEXT_KEY, "state")));
+	}
+
+	@Test
+	public void testBurstableAcquireDoesNotAllocate() throws RateLimitException {
+		BurstableInMemoryContextProvider contextProvider = ContextProviderFactory.burstableInMemoryContextProvider(ContextConfigurations.burstableConfiguration(1, 1));
+		contextProvider.putContext(CONTEXT_KEY, BurstableRateLimitContext.builder().replenishRate(1000).burstCapacity(100).build());
+		PrimitiveBurstableInMemoryRateLimiter limiter = RateLimiterFactory.primitiveBurstableInMemoryRateLimiter(contextProvider);
+
+		// The bucket is drained almost immediately so both admitted and denied requests are measured.
+		Assertions.assertEquals(0, allocatedBytesPerCall(() -> limiter.acquire(CONTEXT_KEY, "state")));
+	}
+
+	/**
+	 * Measure the bytes allocated by the current thread per call once the call has been warmed up.
+	 */
+	private static long allocatedBytesPerCall(Call call) throws RateLimitException {
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		Assumptions.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+		com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+		Assumptions.assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+		threadBean.setThreadAllocatedMemoryEnabled(true);
+
+		for(int x = 0; x < WARMUP_CALLS; x++) {
+			call.run();
+		}
+
+		long threadId = Thread.currentThread().getId();
+		long before = threadBean.getThreadAllocatedBytes(threadId);
+		for(int x = 0; x < MEASURED_CALLS; x++) {
+			call.run();
+		}
+		long after = threadBean.getThreadAllocatedBytes(threadId);
+
+		// Reading the counter has a small fixed cost which rounds away over the measured calls.
+		return (after - before) / MEASURED_CALLS;
+	}
+
+	@FunctionalInterface
+	private interface Call {
+		long run() throws RateLimitException;
+	}
+}
@@ -0,0 +1,113 @@
+package com.calebjonasson.ratelimiter.inmemory.inmemory;
+
+import com.calebjonasson.ratelimiter.core.common.exception.RateLimitException;
+import com.calebjonasson.ratelimiter.core.common.exception.RateLimitExceededException;
+import com.calebjonasson.ratelimiter.core.context.configuration.ContextConfigurations;
+import com.calebjonasson.ratelimiter.core.request.ContextStateRateLimitRequest;
+import com.calebjonasson.ratelimiter.core.response.RateLimitDecision;
+import com.calebjonasson.ratelimiter.inmemory.context.ContextProviderFactory;
+import com.calebjonasson.ratelimiter.inmemory.limiter.GcraInMemoryRateLimiter;
+import com.calebjonasson.ratelimiter.inmemory.limiter.PrimitiveBurstableInMemoryRateLimiter;
+import com.calebjonasson.ratelimiter.inmemory.limiter.RateLimiterFactory;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class ReservingRateLimiterTest {
+
+	private static final String DEFAULT_CONTEXT_KEY = "test-context-1";
+
+	private static final ContextStateRateLimitRequest REQUEST = ContextStateRateLimitRequest.of(DEFAULT_CONTEXT_KEY, "state");
+
+	@Test
+	public void testBlockedCallersArePacedByTheEmissionInterval() throws RateLimitException {
+		// 20 permits a second without a burst, a permit every 50ms.
+		GcraInMemoryRateLimiter limiter = RateLimiterFactory.gcraInMemoryRateLimiter(
+				ContextProviderFactory.gcraInMemoryContextProvider(ContextConfigurations.gcraConfiguration(20, 1000, 1)));
+
+		long started = System.nanoTime();
+		for(int x = 0; x < 6; x++) {
+			limiter.acquire(REQUEST);
+		}
+		long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+		// The first permit is available right away, the other five are 50ms apart. The clock has millisecond precision.
+		Assertions.assertTrue(elapsed >= 240 && elapsed < 1000, "elapsed " + elapsed);
+
+		Assertions.assertThrows(RateLimitExceededException.class,
+				() -> limiter.acquire(ContextStateRateLimitRequest.of(DEFAULT_CONTEXT_KEY, "state", 2)));
+	}
+
+	@Test
+	public void testTimedAcquireReservesNothingWhenItWouldTimeOut() throws RateLimitException {
+		// 10 permits a second without a burst, a permit every 100ms.
+		GcraInMemoryRateLimiter limiter = RateLimiterFactory.gcraInMemoryRateLimiter(
+				ContextProviderFactory.gcraInMemoryContextProvider(ContextConfigurations.gcraConfiguration(10, 1000, 1)));
+
+		Assertions.assertTrue(limiter.tryAcquire(REQUEST, 0, TimeUnit.MILLISECONDS));
+		long started = System.nanoTime();
+		Assertions.assertFalse(limiter.tryAcquire(REQUEST, 10, TimeUnit.MILLISECONDS));
+		Assertions.assertTrue(System.nanoTime() - started < TimeUnit.MILLISECONDS.toNanos(50));
+
+		// The failed attempt left the next permit where it was.
+		RateLimitDecision reserved = limiter.reserve(REQUEST, TimeUnit.SECONDS.toNanos(1), new RateLimitDecision());
+		Assertions.assertTrue(reserved.isAllowed());
+		Assertions.assertTrue(reserved.getWaitNanos() > TimeUnit.MILLISECONDS.toNanos(80), "wait " + reserved.getWaitNanos());
+		Assertions.assertTrue(reserved.getWaitNanos() <= TimeUnit.MILLISECONDS.toNanos(100), "wait " + reserved.getWaitNanos());
+	}
+
+	@Test
+	public void testInterruptDoesNotCutTheWaitShort() throws RateLimitException {
+		GcraInMemoryRateLimiter limiter = RateLimiterFactory.gcraInMemoryRateLimiter(
+				ContextProviderFactory.gcraInMemoryContextProvider(ContextConfigurations.gcraConfiguration(10, 1000, 1)));
+		limiter.acquire(REQUEST);
+
+		long started = System.nanoTime();
+		Thread.currentThread().interrupt();
+		limiter.acquire(REQUEST);
+		long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+		Assertions.assertTrue(Thread.interrupted());
+		Assertions.assertTrue(elapsed >= 80, "elapsed " + elapsed);
+	}
+
+	@Test
+	public void testReservationsPutTheBucketInDebt() throws RateLimitException {
+		// 10 tokens a second with a capacity of 2.
+		ClockedBurstableLimiter limiter = new ClockedBurstableLimiter();
+		long second = TimeUnit.SECONDS.toNanos(1);
+		long token = TimeUnit.MILLISECONDS.toNanos(100);
+
+		RateLimitDecision decision = new RateLimitDecision();
+		Assertions.assertEquals(0, limiter.reserve(ContextStateRateLimitRequest.of(DEFAULT_CONTEXT_KEY, "state", 2), second, decision).getWaitNanos());
+		Assertions.assertEquals(token, limiter.reserve(REQUEST, second, decision).getWaitNanos());
+		Assertions.assertEquals(2 * token, limiter.reserve(REQUEST, second, decision).getWaitNanos());
+
+		// Requests that do not wait queue behind the reservations.
+		Assertions.assertEquals(300, limiter.tryAcquire(DEFAULT_CONTEXT_KEY, "state", 1, decision).getRetryAfterMillis());
+		Assertions.assertFalse(limiter.reserve(REQUEST, 2 * token, decision).isAllowed());
+		Assertions.assertEquals(RateLimitDecision.RETRY_AFTER_NEVER,
+				limiter.reserve(ContextStateRateLimitRequest.of(DEFAULT_CONTEXT_KEY, "state", 3), second, decision).getRetryAfterMillis());
+
+		// Once the debt has been paid back the bucket fills up as usual.
+		limiter.nanos += 5 * token;
+		Assertions.assertEquals(1, limiter.tryAcquire(DEFAULT_CONTEXT_KEY, "state", 1, decision).getRemainingCapacity());
+	}
+
+	/**
+	 * A token bucket whose clock is set by the test.
+	 */
+	private static class ClockedBurstableLimiter extends PrimitiveBurstableInMemoryRateLimiter {
+
+		long nanos = TimeUnit.SECONDS.toNanos(1_000_000);
+
+		ClockedBurstableLimiter() {
+			super(ContextProviderFactory.burstableInMemoryContextProvider(ContextConfigurations.burstableConfiguration(10, 2)));
+		}
+
+		@Override
+		protected long now() {
+			return this.nanos;
+		}
+	}
+}
@@ -0,0 +1,113 @@
+package com.calebjonasson.ratelimiter.inmemory.inmemory;
+
+import com.calebjonasson.ratelimiter.core.common.exception.RateLimitException;
+import com.calebjonasson.ratelimiter.core.context.configuration.ContextConfigurations;
+import com.calebjonasson.ratelimiter.inmemory.context.ContextProviderFactory;
+import com.calebjonasson.ratelimiter.inmemory.limiter.RateLimiterFactory;
+import com.calebjonasson.ratelimiter.inmemory.limiter.SharedMemoryBurstableRateLimiter;
+import com.calebjonasson.ratelimiter.inmemory.store.SharedMemoryStateTable;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class SharedMemoryRateLimiterTest {
+
+	private static final int PROCESSES = 4;
+
+	private static final long CAPACITY = 2000;
+
+	@Test
+	public void testBucketsAreSharedAcrossProcesses(@TempDir Path directory) throws Exception {
+		Path file = directory.resolve("buckets");
+		long start = System.currentTimeMillis();
+
+		List<Process> workers = new ArrayList<>();
+		for(int x = 0; x < PROCESSES; x++) {
+			workers.add(worker(file, "state", CAPACITY));
+		}
+		long allowed = 0;
+		for(Process worker : workers) {
+			allowed += lastLine(worker);
+		}
+		long elapsedSeconds = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis() - start) + 1;
+
+		// The processes admit the capacity once between them, plus what was replenished at 1 token per second.
+		Assertions.assertTrue(allowed >= CAPACITY, "allowed " + allowed);
+		Assertions.assertTrue(allowed <= CAPACITY + elapsedSeconds, "allowed " + allowed);
+	}
+
+	@Test
+	public void testKilledProcessLeavesUsableBuckets(@TempDir Path directory) throws Exception {
+		Path file = directory.resolve("buckets");
+
+		// Kill a process while it is swapping buckets as fast as it can.
+		Process killed = worker(file, "state", -1);
+		BufferedReader output = new BufferedReader(new InputStreamReader(killed.getInputStream(), StandardCharsets.UTF_8));
+		Assertions.assertEquals("ready", output.readLine());
+		Thread.sleep(200);
+		killed.destroyForcibly().waitFor();
+
+		try(SharedMemoryStateTable table = SharedMemoryStateTable.open(file, SharedMemoryWorker.EXPECTED_KEYS)) {
+			SharedMemoryBurstableRateLimiter limiter = limiter(table);
+			// Nothing is left locked and the bucket of the dead process is still counted.
+			long remaining = 0;
+			while(limiter.tryAcquire("shared", "state", 1).isAllowed()) {
+				remaining++;
+			}
+			Assertions.assertTrue(remaining < CAPACITY, "remaining " + remaining);
+			Assertions.assertEquals(CAPACITY - 1, limiter.tryAcquire("shared", "other-state", 1).getRemainingCapacity());
+		}
+	}
+
+	@Test
+	public void testBurstableCapacityAndRefill(@TempDir Path directory) throws IOException, RateLimitException, InterruptedException {
+		try(SharedMemoryStateTable table = SharedMemoryStateTable.open(directory.resolve("buckets"), 1000)) {
+			SharedMemoryBurstableRateLimiter limiter = RateLimiterFactory.sharedMemoryBurstableRateLimiter(
+					ContextProviderFactory.burstableInMemoryContextProvider(ContextConfigurations.burstableConfiguration(20, 5)), table);
+
+			for(int x = 4; x >= 0; x--) {
+				Assertions.assertEquals(x, limiter.tryAcquire("context", "state", 1).getRemainingCapacity());
+			}
+			Assertions.assertFalse(limiter.tryAcquire("context", "state", 1).isAllowed());
+
+			// 20 tokens per second refills a token every 50ms.
+			Thread.sleep(120);
+			Assertions.assertEquals(1, limiter.tryAcquire("context", "state", 1).getRemainingCapacity());
+			Assertions.assertEquals(0, limiter.tryAcquire("context", "state", 1).getRemainingCapacity());
+			Assertions.assertFalse(limiter.tryAcquire("context", "state", 1).isAllowed());
+		}
+	}
+
+	private static SharedMemoryBurstableRateLimiter limiter(SharedMemoryStateTable table) {
+		return RateLimiterFactory.sharedMemoryBurstableRateLimiter(ContextProviderFactory.burstableInMemoryContextProvider(
+				ContextConfigurations.burstableConfiguration(1, CAPACITY)), table);
+	}
+
+	private static Process worker(Path file, String stateKey, long attempts) throws IOException {
+		String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+		return new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), SharedMemoryWorker.class.getName(),
+				file.toString(), stateKey, Long.toString(attempts), "1", Long.toString(CAPACITY))
+				.redirectError(ProcessBuilder.Redirect.INHERIT)
+				.start();
+	}
+
+	private static long lastLine(Process worker) throws IOException, InterruptedException {
+		BufferedReader output = new BufferedReader(new InputStreamReader(worker.getInputStream(), StandardCharsets.UTF_8));
+		String last = null;
+		for(String line = output.readLine(); line != null; line = output.readLine()) {
+			last = line;
+		}
+		Assertions.assertEquals(0, worker.waitFor());
+		return Long.parseLong(last);
+	}
+}
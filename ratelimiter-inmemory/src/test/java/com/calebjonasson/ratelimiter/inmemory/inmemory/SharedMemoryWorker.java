@@ -0,0 +1,41 @@
+package com.calebjonasson.ratelimiter.inmemory.inmemory;
+
+import com.calebjonasson.ratelimiter.core.context.configuration.ContextConfigurations;
+import com.calebjonasson.ratelimiter.inmemory.context.ContextProviderFactory;
+import com.calebjonasson.ratelimiter.inmemory.limiter.RateLimiterFactory;
+import com.calebjonasson.ratelimiter.inmemory.limiter.SharedMemoryBurstableRateLimiter;
+import com.calebjonasson.ratelimiter.inmemory.store.SharedMemoryStateTable;
+
+import java.nio.file.Paths;
+
+/**
+ * A process started by the {@link SharedMemoryRateLimiterTest} that acquires permits from a shared table and prints how
+ * many were admitted.
+ *
+ * Arguments: the file of the table, the state key, the amount of attempts or -1 to keep acquiring until killed, the
+ * replenish rate and the burst capacity.
+ */
+public class SharedMemoryWorker {
+
+	static final long EXPECTED_KEYS = 1000;
+
+	public static void main(String[] args) throws Exception {
+		String stateKey = args[1];
+		long attempts = Long.parseLong(args[2]);
+		try(SharedMemoryStateTable table = SharedMemoryStateTable.open(Paths.get(args[0]), EXPECTED_KEYS)) {
+			SharedMemoryBurstableRateLimiter limiter = RateLimiterFactory.sharedMemoryBurstableRateLimiter(
+					ContextProviderFactory.burstableInMemoryContextProvider(
+							ContextConfigurations.burstableConfiguration(Long.parseLong(args[3]), Long.parseLong(args[4]))),
+					table);
+
+			System.out.println("ready");
+			long allowed = 0;
+			for(long x = 0; attempts < 0 || x < attempts; x++) {
+				if(limiter.tryAcquire("shared", stateKey, 1).isAllowed()) {
+					allowed++;
+				}
+			}
+			System.out.println(allowed);
+		}
+	}
+}
@@ -0,0 +1,103 @@
+package com.calebjonasson.ratelimiter.inmemory.inmemory;
+
+import com.calebjonasson.ratelimiter.core.common.exception.RateLimitException;
+import com.calebjonasson.ratelimiter.core.context.configuration.ContextConfigurations;
+import com.calebjonasson.ratelimiter.core.response.RateLimitDecision;
+import com.calebjonasson.ratelimiter.core.state.SlidingLogRateLimitState;
+import com.calebjonasson.ratelimiter.inmemory.context.ContextProviderFactory;
+import com.calebjonasson.ratelimiter.inmemory.limiter.SlidingLogInMemoryRateLimiter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class SlidingLogInMemoryRateLimiterTest {
+
+	private static final String DEFAULT_CONTEXT_KEY = "test-context-1";
+
+	private static final long DAY = TimeUnit.DAYS.toMillis(1);
+
+	@Test
+	public void testRollingWindowIsExact() throws RateLimitException {
+		ClockedLimiter limiter = new ClockedLimiter(3, DAY);
+
+		limiter.millis = 1_000_000;
+		Assertions.assertEquals(2, limiter.tryAcquire(DEFAULT_CONTEXT_KEY, "state", 1).getRemainingCapacity());
+		limiter.millis += 1000;
+		Assertions.assertEquals(0, limiter.tryAcquire(DEFAULT_CONTEXT_KEY, "state", 2).getRemainingCapacity());
+
+		RateLimitDecision denied = limiter.tryAcquire(DEFAULT_CONTEXT_KEY, "state", 2);
+		Assertions.assertFalse(denied.isAllowed());
+		// Two permits fit once the first two requests are a day old.
+		Assertions.assertEquals(DAY, denied.getRetryAfterMillis());
+		Assertions.assertEquals(RateLimitDecision.RETRY_AFTER_NEVER, limiter.tryAcquire(DEFAULT_CONTEXT_KEY, "state", 4).getRetryAfterMillis());
+
+		// A millisecond before the first request leaves the window nothing is admitted, at that millisecond one is.
+		limiter.millis = 1_000_000 + DAY - 1;
+		Assertions.assertFalse(limiter.tryAcquire(DEFAULT_CONTEXT_KEY, "state", 1).isAllowed());
+		limiter.millis += 1;
+		Assertions.assertEquals(0, limiter.tryAcquire(DEFAULT_CONTEXT_KEY, "state", 1).getRemainingCapacity());
+		Assertions.assertFalse(limiter.tryAcquire(DEFAULT_CONTEXT_KEY, "state", 1).isAllowed());
+	}
+
+	@Test
+	public void testLogIsCappedAtTheLimit() throws RateLimitException {
+		ClockedLimiter limiter = new ClockedLimiter(100, 1000);
+
+		// Cycle through many windows, the ring wraps around and never grows past the limit.
+		for(limiter.millis = 5_000_000; limiter.millis < 5_010_000; limiter.millis += 3) {
+			limiter.tryAcquire(DEFAULT_CONTEXT_KEY, "state", 1);
+		}
+		SlidingLogRateLimitState state = limiter.getRateLimitState(DEFAULT_CONTEXT_KEY, "state").orElseThrow(IllegalStateException::new);
+		Assertions.assertEquals(100, state.capacity());
+		Assertions.assertEquals(100, state.getSize());
+		for(int x = 1; x < state.getSize(); x++) {
+			Assertions.assertTrue(state.get(x - 1) <= state.get(x));
+		}
+
+		Assertions.assertEquals(4, new ClockedLimiter(100, 1000).touch(1));
+	}
+
+	@Test
+	public void testTimestampsAreRebasedOverLongIntervals() throws RateLimitException {
+		ClockedLimiter limiter = new ClockedLimiter(2, Integer.MAX_VALUE);
+
+		limiter.millis = 1_000;
+		limiter.tryAcquire(DEFAULT_CONTEXT_KEY, "state", 1);
+		limiter.millis += Integer.MAX_VALUE - 10;
+		limiter.tryAcquire(DEFAULT_CONTEXT_KEY, "state", 1);
+		// The first request leaves the window and the offsets of the log no longer fit the first base.
+		limiter.millis += 20;
+		Assertions.assertEquals(0, limiter.tryAcquire(DEFAULT_CONTEXT_KEY, "state", 1).getRemainingCapacity());
+
+		SlidingLogRateLimitState state = limiter.getRateLimitState(DEFAULT_CONTEXT_KEY, "state").orElseThrow(IllegalStateException::new);
+		Assertions.assertEquals(1_000L + Integer.MAX_VALUE - 10, state.get(0));
+		Assertions.assertEquals(limiter.millis, state.get(1));
+	}
+
+	/**
+	 * A limiter whose clock is set by the test.
+	 */
+	private static class ClockedLimiter extends SlidingLogInMemoryRateLimiter {
+
+		long millis;
+
+		ClockedLimiter(long limit, long interval) {
+			super(ContextProviderFactory.slidingLogInMemoryContextProvider(ContextConfigurations.slidingLogConfiguration(limit, interval)));
+		}
+
+		/**
+		 * @param permits The permits to acquire on a new key.
+		 * @return The capacity of the log of the key.
+		 */
+		int touch(long permits) throws RateLimitException {
+			this.tryAcquire(DEFAULT_CONTEXT_KEY, "touched", permits);
+			return this.getRateLimitState(DEFAULT_CONTEXT_KEY, "touched").orElseThrow(IllegalStateException::new).capacity();
+		}
+
+		@Override
+		protected long now() {
+			return TimeUnit.MILLISECONDS.toNanos(this.millis);
+		}
+	}
+}
@@ -0,0 +1,109 @@
+package com.calebjonasson.ratelimiter.inmemory.inmemory;
+
+import com.calebjonasson.ratelimiter.core.common.exception.RateLimitException;
+import com.calebjonasson.ratelimiter.core.context.configuration.ContextConfigurations;
+import com.calebjonasson.ratelimiter.core.response.RateLimitDecision;
+import com.calebjonasson.ratelimiter.inmemory.context.ContextProviderFactory;
+import com.calebjonasson.ratelimiter.inmemory.context.SlidingWindowInMemoryContextProvider;
+import com.calebjonasson.ratelimiter.inmemory.limiter.SlidingWindowInMemoryRateLimiter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class SlidingWindowInMemoryRateLimiterTest {
+
+	private static final String DEFAULT_CONTEXT_KEY = "test-context-1";
+
+	/**
+	 * A window of 10 requests per second in sub windows of 100ms.
+	 */
+	private static final long LIMIT = 10;
+
+	private static final long INTERVAL = 1000;
+
+	private static final int SUB_WINDOWS = 10;
+
+	@Test
+	public void testBurstAcrossWindowBoundaryIsLimited() throws RateLimitException {
+		ClockedLimiter limiter = new ClockedLimiter(LIMIT, INTERVAL, SUB_WINDOWS);
+
+		// Fill the window at the end of a second, a fixed window would admit the limit again at the start of the next.
+		limiter.millis = 10_900;
+		for(long x = LIMIT - 1; x >= 0; x--) {
+			Assertions.assertEquals(x, limiter.tryAcquire(DEFAULT_CONTEXT_KEY, "state", 1).getRemainingCapacity());
+		}
+		limiter.millis = 11_000;
+		RateLimitDecision denied = limiter.tryAcquire(DEFAULT_CONTEXT_KEY, "state", 1);
+		Assertions.assertFalse(denied.isAllowed());
+		// The sub window the burst landed in starts leaving the window a second after it started.
+		Assertions.assertEquals(910, denied.getRetryAfterMillis());
+		Assertions.assertEquals(RateLimitDecision.RETRY_AFTER_NEVER,
+				limiter.tryAcquire(DEFAULT_CONTEXT_KEY, "state", LIMIT + 1).getRetryAfterMillis());
+
+		limiter.millis = 11_910;
+		Assertions.assertEquals(0, limiter.tryAcquire(DEFAULT_CONTEXT_KEY, "state", 1).getRemainingCapacity());
+		Assertions.assertFalse(limiter.tryAcquire(DEFAULT_CONTEXT_KEY, "state", 1).isAllowed());
+	}
+
+	@Test
+	public void testLeavingSubWindowIsWeighted() throws RateLimitException {
+		ClockedLimiter limiter = new ClockedLimiter(LIMIT, INTERVAL, SUB_WINDOWS);
+
+		limiter.millis = 20_000;
+		Assertions.assertTrue(limiter.tryAcquire(DEFAULT_CONTEXT_KEY, "state", LIMIT).isAllowed());
+
+		// Half of the sub window holding the 10 requests has left the window.
+		limiter.millis = 21_050;
+		Assertions.assertEquals(0, limiter.tryAcquire(DEFAULT_CONTEXT_KEY, "state", 5).getRemainingCapacity());
+		Assertions.assertFalse(limiter.tryAcquire(DEFAULT_CONTEXT_KEY, "state", 1).isAllowed());
+
+		// The 10 requests have left, the 5 are still inside.
+		limiter.millis = 22_000;
+		Assertions.assertEquals(4, limiter.tryAcquire(DEFAULT_CONTEXT_KEY, "state", 1).getRemainingCapacity());
+
+		// Long after every sub window went by the state is empty again.
+		limiter.millis = 60_000;
+		Assertions.assertEquals(LIMIT - 1, limiter.tryAcquire(DEFAULT_CONTEXT_KEY, "state", 1).getRemainingCapacity());
+	}
+
+	@Test
+	public void testPruneDiscardsOnlyEmptyWindows() throws RateLimitException {
+		ClockedLimiter limiter = new ClockedLimiter(LIMIT, INTERVAL, SUB_WINDOWS);
+
+		limiter.millis = 30_000;
+		limiter.tryAcquire(DEFAULT_CONTEXT_KEY, "old", 5);
+		limiter.millis = 30_900;
+		limiter.tryAcquire(DEFAULT_CONTEXT_KEY, "recent", 5);
+
+		limiter.prune(31_100);
+		Assertions.assertFalse(limiter.getRateLimitState(DEFAULT_CONTEXT_KEY, "old").isPresent());
+		Assertions.assertTrue(limiter.getRateLimitState(DEFAULT_CONTEXT_KEY, "recent").isPresent());
+	}
+
+	/**
+	 * A limiter whose clock is set by the test.
+	 */
+	private static class ClockedLimiter extends SlidingWindowInMemoryRateLimiter {
+
+		long millis;
+
+		ClockedLimiter(long limit, long interval, int subWindows) {
+			super(contextProvider(limit, interval, subWindows));
+		}
+
+		private static SlidingWindowInMemoryContextProvider contextProvider(long limit, long interval, int subWindows) {
+			return ContextProviderFactory.slidingWindowInMemoryContextProvider(
+					ContextConfigurations.slidingWindowConfiguration(limit, interval, subWindows));
+		}
+
+		void prune(long now) {
+			this.states.removeExpired(now, state -> this.isExpired(state, now));
+		}
+
+		@Override
+		protected long now() {
+			return TimeUnit.MILLISECONDS.toNanos(this.millis);
+		}
+	}
+}
@@ -0,0 +1,82 @@
+package com.calebjonasson.ratelimiter.inmemory.inmemory;
+
+import com.calebjonasson.ratelimiter.core.common.exception.RateLimitException;
+import com.calebjonasson.ratelimiter.core.common.exception.RateLimitExceededException;
+import com.calebjonasson.ratelimiter.core.context.configuration.BurstableContextConfiguration;
+import com.calebjonasson.ratelimiter.core.context.configuration.ContextConfigurations;
+import com.calebjonasson.ratelimiter.core.request.ContextStateRateLimitRequest;
+import com.calebjonasson.ratelimiter.inmemory.context.BurstableInMemoryContextProvider;
+import com.calebjonasson.ratelimiter.inmemory.limiter.StripedBurstableInMemoryRateLimiter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+public class StripedBurstableInMemoryRateLimiterTest {
+
+	@Test
+	public void testSegmentCountIsRoundedToAPowerOfTwo() {
+		BurstableContextConfiguration configuration = ContextConfigurations.burstableConfiguration(1, 5);
+		BurstableInMemoryContextProvider contextProvider = new BurstableInMemoryContextProvider(configuration);
+
+		Assertions.assertEquals(8, new StripedBurstableInMemoryRateLimiter(contextProvider, configuration, 5).getSegmentCount());
+		Assertions.assertEquals(1, new StripedBurstableInMemoryRateLimiter(contextProvider, configuration, 1).getSegmentCount());
+		Assertions.assertThrows(IllegalArgumentException.class, () -> new StripedBurstableInMemoryRateLimiter(contextProvider, configuration, 0));
+	}
+
+	@Test
+	public void testRateLimiterThrowsExceptionWhenCapacityIsExceeded() throws RateLimitException {
+
+		BurstableContextConfiguration configuration = ContextConfigurations.burstableConfiguration(0, 3);
+		BurstableInMemoryContextProvider contextProvider = new BurstableInMemoryContextProvider(configuration);
+		StripedBurstableInMemoryRateLimiter rateLimiter = new StripedBurstableInMemoryRateLimiter(contextProvider, configuration);
+
+		String contextKey = "testRateLimiterThrowsExceptionWhenCapacityIsExceeded";
+		String stateKey = "get:/api/users/v1/user/123827367254";
+
+		rateLimiter.handle(ContextStateRateLimitRequest.of(contextKey, stateKey));
+		rateLimiter.handle(ContextStateRateLimitRequest.of(contextKey, stateKey));
+		rateLimiter.handle(ContextStateRateLimitRequest.of(contextKey, stateKey));
+		Assertions.assertThrows(RateLimitExceededException.class, () -> rateLimiter.handle(ContextStateRateLimitRequest.of(contextKey, stateKey)));
+
+		// A different key has its own bucket.
+		rateLimiter.handle(ContextStateRateLimitRequest.of(contextKey, "another-state"));
+	}
+
+	/**
+	 * Many threads draining the same handful of buckets should never consume more than the burst capacity when the
+	 * bucket does not replenish.
+	 */
+	@Test
+	public void testAccuracyWithMultiThreadedOperations() {
+
+		long burstCapacity = 100;
+		int keys = 8;
+		int operations = 16000;
+
+		BurstableContextConfiguration configuration = ContextConfigurations.burstableConfiguration(0, burstCapacity);
+		BurstableInMemoryContextProvider contextProvider = new BurstableInMemoryContextProvider(configuration);
+		StripedBurstableInMemoryRateLimiter rateLimiter = new StripedBurstableInMemoryRateLimiter(contextProvider, configuration, 4);
+
+		List<Integer> requests = new ArrayList<>();
+		for(int x = 0; x < operations; x++) {
+			requests.add(x);
+		}
+
+		AtomicInteger successCount = new AtomicInteger();
+
+		requests.stream().parallel().peek(x -> {
+			try {
+				rateLimiter.handle(ContextStateRateLimitRequest.of("context", "key-" + (x % keys)));
+				successCount.getAndIncrement();
+			} catch (RateLimitException e) {
+				// Expected once the buckets are drained.
+			}
+		}).collect(Collectors.toList());
+
+		Assertions.assertEquals(burstCapacity * keys, successCount.get());
+	}
+}
@@ -0,0 +1,159 @@
+package com.calebjonasson.ratelimiter.inmemory.inmemory;
+
+import com.calebjonasson.ratelimiter.core.common.exception.RateLimitException;
+import com.calebjonasson.ratelimiter.core.common.exception.RateLimitExceededException;
+import com.calebjonasson.ratelimiter.core.context.configuration.AtomicContextConfiguration;
+import com.calebjonasson.ratelimiter.core.context.configuration.BurstableContextConfiguration;
+import com.calebjonasson.ratelimiter.core.context.configuration.ContextConfigurations;
+import com.calebjonasson.ratelimiter.core.limiter.ContextBasedRateLimiter;
+import com.calebjonasson.ratelimiter.core.request.ContextStateRateLimitRequest;
+import com.calebjonasson.ratelimiter.core.response.RateLimitDecision;
+import com.calebjonasson.ratelimiter.inmemory.context.AtomicInMemoryContextProvider;
+import com.calebjonasson.ratelimiter.inmemory.context.BurstableInMemoryContextProvider;
+import com.calebjonasson.ratelimiter.inmemory.context.ContextProviderFactory;
+import com.calebjonasson.ratelimiter.inmemory.limiter.BurstableInMemoryRateLimiter;
+import com.calebjonasson.ratelimiter.inmemory.limiter.RateLimiterFactory;
+import com.calebjonasson.ratelimiter.inmemory.limiter.StripedBurstableInMemoryRateLimiter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class TryAcquireTest {
+
+	private static final String CONTEXT_KEY = "test-context-1";
+
+	private static final String STATE_KEY = "get:/api/users/v1/user/123827367254";
+
+	@Test
+	public void testAtomicLimiters() throws RateLimitException {
+		AtomicContextConfiguration configuration = ContextConfigurations.atomicConfiguration(3, 60000);
+
+		assertAtomicDecisions(RateLimiterFactory.inMemoryRateLimiter(ContextProviderFactory.atomicInMemoryContextProvider(configuration)));
+		assertAtomicDecisions(RateLimiterFactory.concurrentInMemoryRateLimiter(ContextProviderFactory.atomicInMemoryContextProvider(configuration)));
+		assertAtomicDecisions(RateLimiterFactory.primitiveInMemoryRateLimiter(ContextProviderFactory.atomicInMemoryContextProvider(configuration)));
+	}
+
+	@Test
+	public void testBurstableLimiters() throws RateLimitException {
+		// One token per second so a denied request has to wait close to a second.
+		BurstableContextConfiguration configuration = ContextConfigurations.burstableConfiguration(1, 3);
+
+		BurstableInMemoryContextProvider contextProvider = ContextProviderFactory.burstableInMemoryContextProvider(configuration);
+		assertBurstableDecisions(new BurstableInMemoryRateLimiter(contextProvider, configuration));
+
+		contextProvider = ContextProviderFactory.burstableInMemoryContextProvider(configuration);
+		assertBurstableDecisions(new StripedBurstableInMemoryRateLimiter(contextProvider, configuration));
+
+		contextProvider = ContextProviderFactory.burstableInMemoryContextProvider(configuration);
+		assertBurstableDecisions(RateLimiterFactory.primitiveBurstableInMemoryRateLimiter(contextProvider));
+	}
+
+	@Test
+	public void testEmptyContextIsNeverAdmitted() throws RateLimitException {
+		BurstableContextConfiguration burstable = ContextConfigurations.burstableConfiguration(0, 0);
+		BurstableInMemoryContextProvider burstableProvider = ContextProviderFactory.burstableInMemoryContextProvider(burstable);
+		RateLimitDecision decision = new BurstableInMemoryRateLimiter(burstableProvider, burstable).tryAcquire(CONTEXT_KEY, STATE_KEY);
+		Assertions.assertFalse(decision.isAllowed());
+		Assertions.assertEquals(RateLimitDecision.RETRY_AFTER_NEVER, decision.getRetryAfterMillis());
+
+		AtomicInMemoryContextProvider atomicProvider = ContextProviderFactory.atomicInMemoryContextProvider(ContextConfigurations.atomicConfiguration(0, 1000));
+		decision = RateLimiterFactory.primitiveInMemoryRateLimiter(atomicProvider).tryAcquire(CONTEXT_KEY, STATE_KEY);
+		Assertions.assertFalse(decision.isAllowed());
+		Assertions.assertEquals(RateLimitDecision.RETRY_AFTER_NEVER, decision.getRetryAfterMillis());
+	}
+
+	@Test
+	public void testCallerOwnedDecisionIsReused() throws RateLimitException {
+		AtomicInMemoryContextProvider contextProvider = ContextProviderFactory.atomicInMemoryContextProvider(ContextConfigurations.atomicConfiguration(1, 60000));
+		ContextBasedRateLimiter limiter = RateLimiterFactory.inMemoryRateLimiter(contextProvider);
+
+		RateLimitDecision decision = new RateLimitDecision();
+		Assertions.assertSame(decision, limiter.tryAcquire(CONTEXT_KEY, STATE_KEY, decision));
+		Assertions.assertTrue(decision.isAllowed());
+		Assertions.assertNotNull(decision.getContext());
+
+		Assertions.assertSame(decision, limiter.tryAcquire(CONTEXT_KEY, STATE_KEY, decision));
+		Assertions.assertFalse(decision.isAllowed());
+		Assertions.assertEquals(0, decision.getRemainingCapacity());
+	}
+
+	@Test
+	public void testPermitsAreAcquiredAllOrNothing() throws RateLimitException {
+		AtomicContextConfiguration atomic = ContextConfigurations.atomicConfiguration(10, 60000);
+		assertPermitDecisions(RateLimiterFactory.inMemoryRateLimiter(ContextProviderFactory.atomicInMemoryContextProvider(atomic)));
+		assertPermitDecisions(RateLimiterFactory.concurrentInMemoryRateLimiter(ContextProviderFactory.atomicInMemoryContextProvider(atomic)));
+		assertPermitDecisions(RateLimiterFactory.primitiveInMemoryRateLimiter(ContextProviderFactory.atomicInMemoryContextProvider(atomic)));
+
+		BurstableContextConfiguration burstable = ContextConfigurations.burstableConfiguration(1, 10);
+		assertPermitDecisions(new BurstableInMemoryRateLimiter(ContextProviderFactory.burstableInMemoryContextProvider(burstable), burstable));
+		assertPermitDecisions(new StripedBurstableInMemoryRateLimiter(ContextProviderFactory.burstableInMemoryContextProvider(burstable), burstable));
+		assertPermitDecisions(RateLimiterFactory.primitiveBurstableInMemoryRateLimiter(ContextProviderFactory.burstableInMemoryContextProvider(burstable)));
+	}
+
+	@Test
+	public void testRequestPermitsAreHonouredByHandle() throws RateLimitException {
+		AtomicInMemoryContextProvider contextProvider = ContextProviderFactory.atomicInMemoryContextProvider(ContextConfigurations.atomicConfiguration(5, 60000));
+		ContextBasedRateLimiter limiter = RateLimiterFactory.concurrentInMemoryRateLimiter(contextProvider);
+
+		Assertions.assertEquals(2L, limiter.handle(ContextStateRateLimitRequest.of(CONTEXT_KEY, STATE_KEY, 3)).getRemainingCapacity());
+		Assertions.assertThrows(RateLimitExceededException.class,
+				() -> limiter.handle(ContextStateRateLimitRequest.of(CONTEXT_KEY, STATE_KEY, 3)));
+		Assertions.assertEquals(0L, limiter.handle(ContextStateRateLimitRequest.of(CONTEXT_KEY, STATE_KEY, 2)).getRemainingCapacity());
+
+		Assertions.assertThrows(IllegalArgumentException.class, () -> ContextStateRateLimitRequest.of(CONTEXT_KEY, STATE_KEY, 0));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> limiter.tryAcquire(CONTEXT_KEY, STATE_KEY, -1));
+	}
+
+	private static void assertPermitDecisions(ContextBasedRateLimiter limiter) throws RateLimitException {
+		RateLimitDecision decision = limiter.tryAcquire(CONTEXT_KEY, STATE_KEY, 7);
+		Assertions.assertTrue(decision.isAllowed());
+		Assertions.assertEquals(3, decision.getRemainingCapacity());
+
+		// A request that does not fit is denied without consuming the permits that are left.
+		Assertions.assertFalse(limiter.tryAcquirePermits(CONTEXT_KEY, STATE_KEY, 4));
+		Assertions.assertEquals(0, limiter.tryAcquire(CONTEXT_KEY, STATE_KEY, 3).getRemainingCapacity());
+		Assertions.assertFalse(limiter.tryAcquirePermit(CONTEXT_KEY, STATE_KEY));
+
+		// More permits than the limit can ever hold are never admitted.
+		decision = limiter.tryAcquire(CONTEXT_KEY, "another-state", 11);
+		Assertions.assertFalse(decision.isAllowed());
+		Assertions.assertEquals(RateLimitDecision.RETRY_AFTER_NEVER, decision.getRetryAfterMillis());
+	}
+
+	private static void assertAtomicDecisions(ContextBasedRateLimiter limiter) throws RateLimitException {
+		for(int x = 2; x >= 0; x--) {
+			RateLimitDecision decision = limiter.tryAcquire(CONTEXT_KEY, STATE_KEY);
+			Assertions.assertTrue(decision.isAllowed());
+			Assertions.assertEquals(x, decision.getRemainingCapacity());
+			Assertions.assertEquals(0, decision.getRetryAfterMillis());
+		}
+
+		RateLimitDecision decision = limiter.tryAcquire(CONTEXT_KEY, STATE_KEY);
+		Assertions.assertFalse(decision.isAllowed());
+		Assertions.assertEquals(0, decision.getRemainingCapacity());
+		Assertions.assertTrue(decision.getRetryAfterMillis() > 0 && decision.getRetryAfterMillis() <= 60000,
+				"retry after: " + decision.getRetryAfterMillis());
+		Assertions.assertNotNull(decision.getState());
+
+		Assertions.assertFalse(limiter.tryAcquirePermit(CONTEXT_KEY, STATE_KEY));
+		Assertions.assertTrue(limiter.tryAcquirePermit(CONTEXT_KEY, "another-state"));
+		Assertions.assertThrows(RateLimitExceededException.class,
+				() -> limiter.handle(ContextStateRateLimitRequest.of(CONTEXT_KEY, STATE_KEY)));
+	}
+
+	private static void assertBurstableDecisions(ContextBasedRateLimiter limiter) throws RateLimitException {
+		for(int x = 2; x >= 0; x--) {
+			RateLimitDecision decision = limiter.tryAcquire(CONTEXT_KEY, STATE_KEY);
+			Assertions.assertTrue(decision.isAllowed());
+			Assertions.assertEquals(x, decision.getRemainingCapacity());
+		}
+
+		RateLimitDecision decision = limiter.tryAcquire(CONTEXT_KEY, STATE_KEY);
+		Assertions.assertFalse(decision.isAllowed());
+		Assertions.assertTrue(decision.getRetryAfterMillis() >= 0 && decision.getRetryAfterMillis() <= 1000,
+				"retry after: " + decision.getRetryAfterMillis());
+
+		Assertions.assertFalse(limiter.tryAcquirePermit(CONTEXT_KEY, STATE_KEY));
+		Assertions.assertThrows(RateLimitExceededException.class,
+				() -> limiter.handle(ContextStateRateLimitRequest.of(CONTEXT_KEY, STATE_KEY)));
+	}
+}
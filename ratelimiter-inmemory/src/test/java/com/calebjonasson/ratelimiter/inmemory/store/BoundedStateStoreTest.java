@@ -0,0 +1,126 @@
+package com.calebjonasson.ratelimiter.inmemory.store;
+
+import com.calebjonasson.ratelimiter.core.common.exception.RateLimitException;
+import com.calebjonasson.ratelimiter.core.common.exception.RateLimitExceededException;
+import com.calebjonasson.ratelimiter.core.context.configuration.ContextConfigurations;
+import com.calebjonasson.ratelimiter.core.request.ContextStateRateLimitRequest;
+import com.calebjonasson.ratelimiter.core.state.AtomicRateLimitState;
+import com.calebjonasson.ratelimiter.inmemory.context.ContextProviderFactory;
+import com.calebjonasson.ratelimiter.inmemory.limiter.AtomicInMemoryRateLimiter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class BoundedStateStoreTest {
+
+	@Test
+	public void testSizeNeverExceedsTheMaximumSize() {
+		BoundedStateStore<String> store = new BoundedStateStore<>(100, 4);
+
+		for(int x = 0; x < 10000; x++) {
+			store.put("key-" + x, "value-" + x);
+			Assertions.assertTrue(store.size() <= 100, "The store exceeded its maximum size at " + store.size());
+		}
+	}
+
+	@Test
+	public void testHotKeysSurviveAScanOfOneHitKeys() {
+		BoundedStateStore<String> store = new BoundedStateStore<>(200, 1);
+
+		List<String> hotKeys = IntStream.range(0, 50).mapToObj(x -> "hot-" + x).collect(Collectors.toList());
+		for(String key : hotKeys) {
+			store.put(key, key);
+		}
+
+		// Establish the hot keys as frequently used.
+		for(int round = 0; round < 5; round++) {
+			for(String key : hotKeys) {
+				Assertions.assertNotNull(store.get(key));
+			}
+		}
+
+		// Scan far more one-hit keys than the store can hold while the hot keys keep receiving traffic.
+		for(int x = 0; x < 10000; x++) {
+			String key = "scan-" + x;
+			if(store.get(key) == null) {
+				store.put(key, key);
+			}
+
+			String hotKey = hotKeys.get(x % hotKeys.size());
+			if(store.get(hotKey) == null) {
+				store.put(hotKey, hotKey);
+			}
+		}
+
+		for(String key : hotKeys) {
+			Assertions.assertEquals(key, store.get(key), "Hot key " + key + " was evicted by the scan.");
+		}
+	}
+
+	@Test
+	public void testConditionalOperations() {
+		BoundedStateStore<String> store = new BoundedStateStore<>(10, 1);
+
+		Assertions.assertNull(store.putIfAbsent("key", "a"));
+		Assertions.assertEquals("a", store.putIfAbsent("key", "b"));
+		Assertions.assertFalse(store.replace("key", "b", "c"));
+		Assertions.assertTrue(store.replace("key", "a", "c"));
+		Assertions.assertFalse(store.remove("key", "a"));
+		Assertions.assertTrue(store.remove("key", "c"));
+		Assertions.assertNull(store.get("key"));
+		Assertions.assertEquals(0, store.size());
+	}
+
+	@Test
+	public void testForEachAllowsRemoval() {
+		BoundedStateStore<String> store = new BoundedStateStore<>(100, 2);
+		for(int x = 0; x < 50; x++) {
+			store.put("key-" + x, x % 2 == 0 ? "even" : "odd");
+		}
+
+		store.forEach((key, value) -> {
+			if("even".equals(value)) store.remove(key, value);
+		});
+
+		List<String> values = new ArrayList<>();
+		store.forEach((key, value) -> values.add(value));
+		Assertions.assertEquals(25, values.size());
+		Assertions.assertTrue(values.stream().allMatch("odd"::equals));
+	}
+
+	@Test
+	public void testConcurrentAccessStaysBounded() {
+		BoundedStateStore<Integer> store = new BoundedStateStore<>(1000);
+
+		IntStream.range(0, 200000).parallel().forEach(x -> {
+			String key = "key-" + (x % 5000);
+			if(store.get(key) == null) {
+				store.putIfAbsent(key, x);
+			}
+		});
+
+		Assertions.assertTrue(store.size() <= 1000);
+	}
+
+	@Test
+	public void testRateLimiterWithABoundedStateStore() throws RateLimitException {
+		BoundedStateStore<AtomicRateLimitState> store = StateStoreFactory.bounded(64);
+		AtomicInMemoryRateLimiter limiter = new AtomicInMemoryRateLimiter(
+				ContextProviderFactory.atomicInMemoryContextProvider(ContextConfigurations.atomicConfiguration(2, 60000)),
+				StateStoreFactory.perContext(contextKey -> store));
+
+		for(int x = 0; x < 1000; x++) {
+			limiter.handle(ContextStateRateLimitRequest.of("context", "scan-" + x));
+		}
+		Assertions.assertTrue(store.size() <= 64);
+
+		limiter.handle(ContextStateRateLimitRequest.of("context", "hot"));
+		limiter.handle(ContextStateRateLimitRequest.of("context", "hot"));
+		Assertions.assertThrows(RateLimitExceededException.class,
+				() -> limiter.handle(ContextStateRateLimitRequest.of("context", "hot")));
+	}
+}
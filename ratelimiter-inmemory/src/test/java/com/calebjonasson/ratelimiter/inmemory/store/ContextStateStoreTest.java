@@ -0,0 +1,105 @@
+package com.calebjonasson.ratelimiter.inmemory.store;
+
+import com.calebjonasson.ratelimiter.core.common.exception.RateLimitException;
+import com.calebjonasson.ratelimiter.core.context.AtomicRateLimitContext;
+import com.calebjonasson.ratelimiter.core.context.configuration.AtomicContextConfiguration;
+import com.calebjonasson.ratelimiter.core.context.configuration.BurstableContextConfiguration;
+import com.calebjonasson.ratelimiter.core.context.configuration.ContextConfigurations;
+import com.calebjonasson.ratelimiter.core.limiter.ContextBasedRateLimiter;
+import com.calebjonasson.ratelimiter.inmemory.context.AtomicInMemoryContextProvider;
+import com.calebjonasson.ratelimiter.inmemory.context.ContextProviderFactory;
+import com.calebjonasson.ratelimiter.inmemory.limiter.AtomicInMemoryRateLimiter;
+import com.calebjonasson.ratelimiter.inmemory.limiter.BurstableInMemoryRateLimiter;
+import com.calebjonasson.ratelimiter.inmemory.limiter.RateLimiterFactory;
+import com.calebjonasson.ratelimiter.inmemory.limiter.StripedBurstableInMemoryRateLimiter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ContextStateStoreTest {
+
+	private static final String STATE_KEY = "user-123827367254";
+
+	@Test
+	public void testAtomicLimitersIsolateContexts() throws RateLimitException {
+		AtomicContextConfiguration configuration = ContextConfigurations.atomicConfiguration(2, 60000);
+
+		assertIsolated(RateLimiterFactory.inMemoryRateLimiter(ContextProviderFactory.atomicInMemoryContextProvider(configuration)));
+		assertIsolated(RateLimiterFactory.concurrentInMemoryRateLimiter(ContextProviderFactory.atomicInMemoryContextProvider(configuration)));
+		assertIsolated(RateLimiterFactory.primitiveInMemoryRateLimiter(ContextProviderFactory.atomicInMemoryContextProvider(configuration)));
+	}
+
+	@Test
+	public void testBurstableLimitersIsolateContexts() throws RateLimitException {
+		BurstableContextConfiguration configuration = ContextConfigurations.burstableConfiguration(1, 2);
+
+		assertIsolated(new BurstableInMemoryRateLimiter(ContextProviderFactory.burstableInMemoryContextProvider(configuration), configuration));
+		assertIsolated(new StripedBurstableInMemoryRateLimiter(ContextProviderFactory.burstableInMemoryContextProvider(configuration), configuration));
+		assertIsolated(RateLimiterFactory.primitiveBurstableInMemoryRateLimiter(ContextProviderFactory.burstableInMemoryContextProvider(configuration)));
+	}
+
+	@Test
+	public void testDroppingAContextOnlyResetsItsStates() throws RateLimitException {
+		AtomicInMemoryRateLimiter limiter = RateLimiterFactory.inMemoryRateLimiter(
+				ContextProviderFactory.atomicInMemoryContextProvider(ContextConfigurations.atomicConfiguration(2, 60000)));
+		exhaust(limiter, "context-a");
+		exhaust(limiter, "context-b");
+		Assertions.assertEquals(2, limiter.getStateStore().contextCount());
+
+		Assertions.assertNotNull(limiter.getStateStore().dropContext("context-a"));
+		Assertions.assertTrue(limiter.tryAcquire("context-a", STATE_KEY, 1).isAllowed());
+		Assertions.assertFalse(limiter.tryAcquire("context-b", STATE_KEY, 1).isAllowed());
+		Assertions.assertEquals(2, limiter.getStateStore().size());
+	}
+
+	@Test
+	public void testOneContextStoredUnderTwoKeysKeepsSeparateStates() throws RateLimitException {
+		AtomicInMemoryContextProvider provider = ContextProviderFactory.atomicInMemoryContextProvider(
+				ContextConfigurations.atomicConfiguration(2, 60000, false));
+		AtomicRateLimitContext context = AtomicRateLimitContext.builder().limit(2).interval(60000).build();
+		provider.putContext("context-a", context);
+		provider.putContext("context-b", context);
+
+		assertIsolated(RateLimiterFactory.inMemoryRateLimiter(provider));
+		Assertions.assertNull(context.getContextKey());
+		Assertions.assertEquals("context-a", provider.getContext("context-a").getContextKey());
+		Assertions.assertEquals("context-b", provider.getContext("context-b").getContextKey());
+	}
+
+	@Test
+	public void testEachContextGetsItsOwnTable() throws RateLimitException {
+		ContextStateStore<Object> store = StateStoreFactory.perContext(
+				contextKey -> contextKey.startsWith("hot") ? StateStoreFactory.unbounded() : StateStoreFactory.bounded(1));
+		Assertions.assertTrue(store.table("hot-context") instanceof ConcurrentStateStore);
+		Assertions.assertTrue(store.table("cold-context") instanceof BoundedStateStore);
+		Assertions.assertSame(store.table("hot-context"), store.table("hot-context"));
+
+		store.table("cold-context").put(STATE_KEY, "cold");
+		store.table("hot-context").put(STATE_KEY, "hot");
+		Assertions.assertEquals("cold", store.get("cold-context", STATE_KEY));
+		Assertions.assertEquals("hot", store.get("hot-context", STATE_KEY));
+		Assertions.assertNull(store.get("missing-context", STATE_KEY));
+
+		// A context can be given a new table at runtime, its states are dropped with the old one.
+		StateStore<Object> resized = StateStoreFactory.bounded(1000);
+		store.replaceTable("cold-context", resized);
+		Assertions.assertSame(resized, store.table("cold-context"));
+		Assertions.assertNull(store.get("cold-context", STATE_KEY));
+		Assertions.assertEquals(1, store.size());
+	}
+
+	/**
+	 * Exhaust a state under one context and check the same state key is untouched under another.
+	 */
+	private static void assertIsolated(ContextBasedRateLimiter limiter) throws RateLimitException {
+		exhaust(limiter, "context-a");
+		Assertions.assertFalse(limiter.tryAcquire("context-a", STATE_KEY, 1).isAllowed());
+
+		Assertions.assertTrue(limiter.tryAcquire("context-b", STATE_KEY, 1).isAllowed(),
+				limiter.getClass().getSimpleName() + " shared a state between contexts.");
+		Assertions.assertEquals(0, limiter.tryAcquire("context-b", STATE_KEY, 1).getRemainingCapacity());
+	}
+
+	private static void exhaust(ContextBasedRateLimiter limiter, String contextKey) throws RateLimitException {
+		Assertions.assertTrue(limiter.tryAcquire(contextKey, STATE_KEY, 2).isAllowed());
+	}
+}
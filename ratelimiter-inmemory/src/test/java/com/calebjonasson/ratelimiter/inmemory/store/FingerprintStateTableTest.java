@@ -0,0 +1,70 @@
+package com.calebjonasson.ratelimiter.inmemory.store;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class FingerprintStateTableTest {
+
+	private static final int KEYS = 1_000_000;
+
+	@Test
+	public void testEntriesSurviveGrowthAndRemoval() {
+		// Sized for far fewer keys so every segment grows several times.
+		FingerprintStateTable table = new FingerprintStateTable(16, 4);
+		int keys = 20000;
+		for(int x = 0; x < keys; x++) {
+			write(table, table.fingerprint("context", "key-" + x), x, x % 2);
+		}
+		Assertions.assertEquals(keys, table.size());
+
+		// Half of the entries have a timestamp of 0, removing them shifts the rest of their probe runs.
+		Assertions.assertEquals(keys / 2, table.removeExpired(0));
+		Assertions.assertEquals(keys / 2, table.size());
+		for(int x = 0; x < keys; x++) {
+			long fingerprint = table.fingerprint("context", "key-" + x);
+			FingerprintStateTable.Segment segment = table.segment(fingerprint);
+			int slot = segment.find(fingerprint);
+			if(x % 2 == 0) {
+				Assertions.assertEquals(-1, slot);
+			} else {
+				Assertions.assertEquals(x, segment.counter(slot));
+			}
+		}
+
+		table.clear();
+		Assertions.assertEquals(0, table.size());
+	}
+
+	@Test
+	public void testFingerprintSeparatesContextAndStateKeys() {
+		FingerprintStateTable table = new FingerprintStateTable();
+		Assertions.assertEquals(table.fingerprint("context", "key"), table.fingerprint("context", "key"));
+		Assertions.assertEquals(table.fingerprint(null, "key"), table.fingerprint("", "key"));
+		Assertions.assertNotEquals(table.fingerprint("ab", "c"), table.fingerprint("a", "bc"));
+		Assertions.assertNotEquals(table.fingerprint("context-a", "key"), table.fingerprint("context-b", "key"));
+	}
+
+	@Test
+	public void testSizedTableStaysUnder32BytesPerKey() {
+		FingerprintStateTable table = new FingerprintStateTable(KEYS, FingerprintStateTable.DEFAULT_SEGMENTS);
+		long capacity = table.capacity();
+		for(int x = 0; x < KEYS; x++) {
+			write(table, table.fingerprint("context", Integer.toString(x)), 1, Long.MAX_VALUE);
+		}
+
+		// A million random 64 bit fingerprints collide with a chance of about 1 in 37 million.
+		Assertions.assertEquals(KEYS, table.size());
+		Assertions.assertEquals(capacity, table.capacity());
+		Assertions.assertTrue(table.footprintBytes() / (double) KEYS < 32, "bytes per key: " + table.footprintBytes() / (double) KEYS);
+	}
+
+	private static void write(FingerprintStateTable table, long fingerprint, long counter, long timestamp) {
+		FingerprintStateTable.Segment segment = table.segment(fingerprint);
+		segment.lock();
+		try {
+			segment.set(segment.findOrInsert(fingerprint), counter, timestamp);
+		} finally {
+			segment.unlock();
+		}
+	}
+}
@@ -0,0 +1,60 @@
+package com.calebjonasson.ratelimiter.inmemory.store;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+public class OffHeapStateTableTest {
+
+	@Test
+	public void testMappedTableResumesAfterReopen(@TempDir Path directory) throws IOException {
+		Path file = directory.resolve("states.table");
+		long fingerprint;
+		try(OffHeapStateTable table = OffHeapStateTable.map(file, 1000, 4)) {
+			fingerprint = table.fingerprint("context", "key");
+			write(table, fingerprint, 7, 11, 13);
+		}
+
+		try(OffHeapStateTable table = OffHeapStateTable.map(file, 1000, 4)) {
+			Assertions.assertEquals(fingerprint, table.fingerprint("context", "key"));
+			Assertions.assertEquals(1, table.size());
+			OffHeapStateTable.Segment segment = table.segment(fingerprint);
+			int slot = segment.find(fingerprint);
+			Assertions.assertEquals(7, segment.counter(slot));
+			Assertions.assertEquals(11, segment.timestamp(slot));
+			Assertions.assertEquals(13, segment.expiresAt(slot));
+		}
+
+		// A file holding a table of another size is not silently reinterpreted.
+		Assertions.assertThrows(IOException.class, () -> OffHeapStateTable.map(file, 100000, 4));
+	}
+
+	@Test
+	public void testFullSegmentForgetsTheEarliestExpiry() {
+		OffHeapStateTable table = OffHeapStateTable.allocateDirect(100, 1);
+		long maximum = (long) (table.capacity() * FingerprintStateTable.MAX_LOAD_FACTOR);
+		for(int x = 0; x < 1000; x++) {
+			// Later keys expire later so the earliest keys are the ones forgotten.
+			write(table, table.fingerprint("context", "key-" + x), 1, x, 1000 + x);
+		}
+		Assertions.assertEquals(maximum, table.size());
+		Assertions.assertEquals(-1, table.segment(0).find(table.fingerprint("context", "key-0")));
+		Assertions.assertTrue(table.segment(0).find(table.fingerprint("context", "key-999")) >= 0);
+
+		Assertions.assertEquals(maximum, table.removeExpired(Long.MAX_VALUE));
+		Assertions.assertEquals(0, table.size());
+	}
+
+	private static void write(OffHeapStateTable table, long fingerprint, long counter, long timestamp, long expiresAt) {
+		OffHeapStateTable.Segment segment = table.segment(fingerprint);
+		segment.lock();
+		try {
+			segment.set(segment.findOrInsert(fingerprint), counter, timestamp, expiresAt);
+		} finally {
+			segment.unlock();
+		}
+	}
+}
@@ -0,0 +1,98 @@
+package com.calebjonasson.ratelimiter.inmemory.store;
+
+import com.calebjonasson.ratelimiter.core.common.exception.RateLimitException;
+import com.calebjonasson.ratelimiter.core.context.configuration.ContextConfigurations;
+import com.calebjonasson.ratelimiter.core.request.ContextStateRateLimitRequest;
+import com.calebjonasson.ratelimiter.core.state.AtomicRateLimitState;
+import com.calebjonasson.ratelimiter.inmemory.context.ContextProviderFactory;
+import com.calebjonasson.ratelimiter.inmemory.limiter.AtomicInMemoryRateLimiter;
+import com.calebjonasson.ratelimiter.inmemory.limiter.ConcurrentAtomicInMemoryRateLimiter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TimingWheelStateStoreTest {
+
+	@Test
+	public void testOnlyExpiredStatesAreVisited() {
+		long now = System.currentTimeMillis();
+		TimingWheelStateStore<Long> store = new TimingWheelStateStore<>(Long::longValue);
+
+		for(int x = 0; x < 100000; x++) {
+			store.put("live-" + x, now + 3600000 + x);
+		}
+		for(int x = 0; x < 100; x++) {
+			store.put("expired-" + x, now + 100);
+		}
+
+		AtomicInteger visited = new AtomicInteger();
+		Assertions.assertEquals(0, store.removeExpired(now + 50, state -> visited.incrementAndGet() > 0 && state <= now + 50));
+
+		Assertions.assertEquals(100, store.removeExpired(now + 1000, state -> visited.incrementAndGet() > 0 && state <= now + 1000));
+		Assertions.assertEquals(100000, store.size());
+		Assertions.assertTrue(visited.get() < 1000, "Visited " + visited.get() + " states to expire 100.");
+	}
+
+	@Test
+	public void testStatesCascadeFromHigherLevels() {
+		long now = System.currentTimeMillis();
+		TimingWheelStateStore<Long> store = new TimingWheelStateStore<>(Long::longValue);
+
+		// Spread states over every level of the wheel.
+		long[] delays = {10, 1000, 60000, 3600000, 86400000L, 30L * 86400000L};
+		for(int x = 0; x < delays.length; x++) {
+			store.put("key-" + x, now + delays[x]);
+		}
+
+		for(int x = 0; x < delays.length; x++) {
+			long time = now + delays[x] + 200;
+			Assertions.assertEquals(1, store.removeExpired(time, state -> state <= time), "Delay " + delays[x]);
+			Assertions.assertEquals(delays.length - x - 1, store.size());
+		}
+	}
+
+	@Test
+	public void testUpdatedStatesAreNotRemovedEarly() {
+		long now = System.currentTimeMillis();
+		TimingWheelStateStore<Long> store = new TimingWheelStateStore<>(Long::longValue);
+
+		store.put("key", now + 100);
+		Assertions.assertTrue(store.replace("key", now + 100, now + 10000));
+
+		Assertions.assertEquals(0, store.removeExpired(now + 1000, state -> state <= now + 1000));
+		Assertions.assertEquals(Long.valueOf(now + 10000), store.get("key"));
+		Assertions.assertEquals(1, store.removeExpired(now + 11000, state -> state <= now + 11000));
+		Assertions.assertNull(store.get("key"));
+	}
+
+	@Test
+	public void testConditionalOperations() {
+		TimingWheelStateStore<Long> store = new TimingWheelStateStore<>(Long::longValue);
+
+		Assertions.assertNull(store.putIfAbsent("key", 1L));
+		Assertions.assertEquals(Long.valueOf(1), store.putIfAbsent("key", 2L));
+		Assertions.assertFalse(store.replace("key", 2L, 3L));
+		Assertions.assertTrue(store.replace("key", 1L, 3L));
+		Assertions.assertFalse(store.remove("key", 1L));
+		Assertions.assertTrue(store.remove("key", 3L));
+		Assertions.assertEquals(0, store.size());
+	}
+
+	@Test
+	public void testRateLimitersPruneThroughTheIndex() throws RateLimitException, InterruptedException {
+		TimingWheelStateStore<AtomicRateLimitState> store = StateStoreFactory.timingWheel(AtomicInMemoryRateLimiter::expiresAt);
+		ConcurrentAtomicInMemoryRateLimiter limiter = new ConcurrentAtomicInMemoryRateLimiter(
+				ContextProviderFactory.atomicInMemoryContextProvider(ContextConfigurations.atomicConfiguration(5, 50)), StateStoreFactory.perContext(contextKey -> store));
+
+		for(int x = 0; x < 1000; x++) {
+			limiter.handle(ContextStateRateLimitRequest.of("context", "key-" + x));
+		}
+		Assertions.assertEquals(1000, store.size());
+
+		// Expiry is detected once the 64ms bucket holding the window has passed.
+		Thread.sleep(250);
+		limiter.pruneExpiredStates();
+		Assertions.assertEquals(0, store.size());
+	}
+}
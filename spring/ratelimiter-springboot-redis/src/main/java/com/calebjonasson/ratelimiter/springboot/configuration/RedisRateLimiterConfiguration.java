@@ -2,15 +2,22 @@ package com.calebjonasson.ratelimiter.springboot.configuration;
 
 import com.calebjonasson.ratelimiter.core.context.BurstableRateLimitContext;
 import com.calebjonasson.ratelimiter.core.context.ContextProvider;
+import com.calebjonasson.ratelimiter.core.context.cache.NearCacheConfiguration;
 import com.calebjonasson.ratelimiter.core.context.configuration.BurstableContextConfiguration;
 import com.calebjonasson.ratelimiter.core.context.configuration.ContextConfigurations;
+import com.calebjonasson.ratelimiter.core.lease.LeaseConfiguration;
+import com.calebjonasson.ratelimiter.core.pipeline.PipelineConfiguration;
+import com.calebjonasson.ratelimiter.springboot.context.BurstableReactiveRedisContextProvider;
 import com.calebjonasson.ratelimiter.springboot.context.BurstableRedisContextProvider;
 import com.calebjonasson.ratelimiter.springboot.limiter.BurstableRedisRateLimiter;
+import com.calebjonasson.ratelimiter.springboot.limiter.LeasingBurstableRedisRateLimiter;
+import com.calebjonasson.ratelimiter.springboot.limiter.ReactiveBurstableRedisRateLimiter;
+import com.calebjonasson.ratelimiter.springboot.limiter.RedisStateLayout;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.io.ClassPathResource;
-import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
 import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.data.redis.core.script.RedisScript;
@@ -31,21 +38,81 @@ public class RedisRateLimiterConfiguration {
 	protected ReactiveStringRedisTemplate reactiveStringRedisTemplate;
 
 	/**
-	 * A redis template for context storage.
+	 * Gather the script calls of concurrent requests into pipelined EVALSHA batches.
 	 */
-	@Autowired
-	protected ReactiveRedisTemplate reactiveRedisTemplate;
+	@Value("${ratelimiter.redis.pipeline.enabled:false}")
+	protected boolean pipelineEnabled;
+
+	/**
+	 * The maximum amount of script calls sent in a single batch.
+	 */
+	@Value("${ratelimiter.redis.pipeline.max-batch-size:" + PipelineConfiguration.DEFAULT_MAX_BATCH_SIZE + "}")
+	protected int pipelineMaxBatchSize;
+
+	/**
+	 * The time in microseconds a batch waits for more script calls.
+	 */
+	@Value("${ratelimiter.redis.pipeline.linger:" + PipelineConfiguration.DEFAULT_LINGER + "}")
+	protected long pipelineLinger;
+
+	/**
+	 * Serve requests from tokens leased from redis in chunks instead of a round trip per request.
+	 */
+	@Value("${ratelimiter.redis.lease.enabled:false}")
+	protected boolean leaseEnabled;
+
+	/**
+	 * The largest amount of tokens a node leases for a state.
+	 */
+	@Value("${ratelimiter.redis.lease.max-size:" + LeaseConfiguration.DEFAULT_MAX_LEASE_SIZE + "}")
+	protected long leaseMaxSize;
+
+	/**
+	 * The time in milliseconds of traffic a lease is sized to cover.
+	 */
+	@Value("${ratelimiter.redis.lease.target:" + LeaseConfiguration.DEFAULT_LEASE_TARGET + "}")
+	protected long leaseTarget;
+
+	/**
+	 * The time in milliseconds leased tokens can be used for.
+	 */
+	@Value("${ratelimiter.redis.lease.ttl:" + LeaseConfiguration.DEFAULT_LEASE_TTL + "}")
+	protected long leaseTtl;
+
+	/**
+	 * How the buckets are stored in redis, STRING_KEYS or HASH.
+	 */
+	@Value("${ratelimiter.redis.state-layout:STRING_KEYS}")
+	protected RedisStateLayout stateLayout;
 
+	/**
+	 * The maximum amount of contexts held in the local cache.
+	 */
+	@Value("${ratelimiter.redis.context-cache.max-size:" + NearCacheConfiguration.DEFAULT_MAXIMUM_SIZE + "}")
+	protected int contextCacheMaxSize;
 
 	/**
-	 * Configuration for a RedisScript
+	 * The time in milliseconds a context is served from the local cache before it is read from redis again.
+	 */
+	@Value("${ratelimiter.redis.context-cache.ttl:" + NearCacheConfiguration.DEFAULT_TTL + "}")
+	protected long contextCacheTtl;
+
+	/**
+	 * The time in milliseconds after which a cached context is reloaded in the background.
+	 */
+	@Value("${ratelimiter.redis.context-cache.refresh-after:" + NearCacheConfiguration.DEFAULT_REFRESH_AFTER + "}")
+	protected long contextCacheRefreshAfter;
+
+
+	/**
+	 * Configuration for a RedisScript, the script of the configured {@link RedisStateLayout}.
 	 * @return a new instance of {@link RedisScript}
 	 */
 	@Bean
 	@SuppressWarnings("unchecked")
 	public RedisScript redisRequestRateLimiterScript() {
 		DefaultRedisScript redisScript = new DefaultRedisScript<>();
-		redisScript.setScriptSource(new ResourceScriptSource(new ClassPathResource("META-INF/scripts/request_rate_limiter.lua")));
+		redisScript.setScriptSource(new ResourceScriptSource(new ClassPathResource(this.stateLayout.getScriptLocation())));
 		redisScript.setResultType(List.class);
 		return redisScript;
 	}
@@ -58,13 +125,54 @@ public class RedisRateLimiterConfiguration {
 		return ContextConfigurations.burstableConfiguration(10, 20);
 	}
 
+	/**
+	 * Create the pipeline configuration from the ratelimiter.redis.pipeline properties.
+	 * @return the new pipeline configuration or null if pipelining is disabled.
+	 */
+	public PipelineConfiguration pipelineConfiguration() {
+		if(!this.pipelineEnabled) {
+			return null;
+		}
+		PipelineConfiguration configuration = new PipelineConfiguration();
+		configuration.setMaxBatchSize(this.pipelineMaxBatchSize);
+		configuration.setLinger(this.pipelineLinger);
+		return configuration;
+	}
+
+	/**
+	 * Create the lease configuration from the ratelimiter.redis.lease properties.
+	 * @return the new lease configuration or null if leasing is disabled.
+	 */
+	public LeaseConfiguration leaseConfiguration() {
+		if(!this.leaseEnabled) {
+			return null;
+		}
+		LeaseConfiguration configuration = new LeaseConfiguration();
+		configuration.setMaxLeaseSize(this.leaseMaxSize);
+		configuration.setLeaseTarget(this.leaseTarget);
+		configuration.setLeaseTtl(this.leaseTtl);
+		return configuration;
+	}
+
+	/**
+	 * Create the local context cache configuration from the ratelimiter.redis.context-cache properties.
+	 * @return the new near cache configuration.
+	 */
+	public NearCacheConfiguration nearCacheConfiguration() {
+		NearCacheConfiguration configuration = new NearCacheConfiguration();
+		configuration.setMaximumSize(this.contextCacheMaxSize);
+		configuration.setTtl(this.contextCacheTtl);
+		configuration.setRefreshAfter(this.contextCacheRefreshAfter);
+		return configuration;
+	}
+
 	/**
 	 * Create a default redis context provider from a redis template.
 	 * @return A new instance of the {@link ContextProvider}
 	 */
 	@Bean
 	public ContextProvider redisContextProvider() {
-		BurstableRedisContextProvider contextProvider = new BurstableRedisContextProvider(this.reactiveRedisTemplate, this.contextConfiguration()) {
+		BurstableRedisContextProvider contextProvider = new BurstableRedisContextProvider(this.reactiveStringRedisTemplate, this.contextConfiguration(), this.nearCacheConfiguration()) {
 			@Override
 			protected BurstableRateLimitContext createContext(String contextKey) {
 				return BurstableRateLimitContext.builder()
@@ -82,11 +190,45 @@ public class RedisRateLimiterConfiguration {
 	 */
 	@Bean
 	public BurstableRedisRateLimiter redisRateLimiter() {
+		LeaseConfiguration leaseConfiguration = this.leaseConfiguration();
+		if(leaseConfiguration != null) {
+			return new LeasingBurstableRedisRateLimiter(
+					this.redisContextProvider(),
+					this.reactiveStringRedisTemplate,
+					this.redisRequestRateLimiterScript(),
+					this.stateLayout,
+					leaseConfiguration);
+		}
+
 		BurstableRedisRateLimiter rateLimiter = new BurstableRedisRateLimiter(
 				this.redisContextProvider(),
 				this.reactiveStringRedisTemplate,
-				this.redisRequestRateLimiterScript());
+				this.redisRequestRateLimiterScript(),
+				this.stateLayout,
+				this.pipelineConfiguration());
 		return rateLimiter;
 	}
 
-}
\ No newline at end of file
+	/**
+	 * Create a non blocking redis context provider from a redis template.
+	 * @return A new instance of the {@link BurstableReactiveRedisContextProvider}
+	 */
+	@Bean
+	public BurstableReactiveRedisContextProvider reactiveRedisContextProvider() {
+		return new BurstableReactiveRedisContextProvider(this.reactiveStringRedisTemplate, this.contextConfiguration(), this.nearCacheConfiguration());
+	}
+
+	/**
+	 * Default {@link ReactiveBurstableRedisRateLimiter}
+	 * @return A new non blocking RedisRateLimiter
+	 */
+	@Bean
+	public ReactiveBurstableRedisRateLimiter<BurstableRateLimitContext> reactiveRedisRateLimiter() {
+		return new ReactiveBurstableRedisRateLimiter<>(
+				this.reactiveRedisContextProvider(),
+				this.reactiveStringRedisTemplate,
+				this.redisRequestRateLimiterScript(),
+				this.stateLayout);
+	}
+
+}
@@ -3,7 +3,9 @@ package com.calebjonasson.ratelimiter.springboot.context;
 import com.calebjonasson.ratelimiter.core.context.AtomicRateLimitContext;
 import com.calebjonasson.ratelimiter.core.context.configuration.AtomicContextConfiguration;
 import com.calebjonasson.ratelimiter.core.type.strategy.AtomicRateLimiterTypeStrategy;
-import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import com.calebjonasson.ratelimiter.core.context.cache.NearCacheConfiguration;
+import com.calebjonasson.ratelimiter.core.context.codec.ContextCodecs;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
 
 /**
  * This is an Atomic Context provider implementation for redis.
@@ -18,8 +20,19 @@ public class AtomicRedisContextProvider extends RedisContextProvider<
 	 * @param redisTemplate The redis template
 	 * @param configuration The configuration that is used to create contexts.
 	 */
-	public AtomicRedisContextProvider(final ReactiveRedisTemplate<String, AtomicRateLimitContext> redisTemplate, AtomicContextConfiguration configuration) {
-		super(redisTemplate, configuration);
+	public AtomicRedisContextProvider(final ReactiveStringRedisTemplate redisTemplate, AtomicContextConfiguration configuration) {
+		super(redisTemplate, ContextCodecs.atomicCodec(), configuration);
+	}
+
+	/**
+	 * Constructor that takes a redis template and the rules contexts are cached locally with.
+	 * @param redisTemplate The redis template
+	 * @param configuration The configuration that is used to create contexts.
+	 * @param cacheConfiguration The size, ttl and refresh rules of the local cache.
+	 */
+	public AtomicRedisContextProvider(final ReactiveStringRedisTemplate redisTemplate, AtomicContextConfiguration configuration,
+			NearCacheConfiguration cacheConfiguration) {
+		super(redisTemplate, ContextCodecs.atomicCodec(), configuration, cacheConfiguration);
 	}
 
 	@Override
@@ -0,0 +1,45 @@
+package com.calebjonasson.ratelimiter.springboot.context;
+
+import com.calebjonasson.ratelimiter.core.context.BurstableRateLimitContext;
+import com.calebjonasson.ratelimiter.core.context.configuration.BurstableContextConfiguration;
+import com.calebjonasson.ratelimiter.core.type.strategy.BurstableRateLimiterTypeStrategy;
+import com.calebjonasson.ratelimiter.core.context.cache.NearCacheConfiguration;
+import com.calebjonasson.ratelimiter.core.context.codec.ContextCodecs;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+
+/**
+ * A burstable non blocking redis rate limit context storage.
+ */
+public class BurstableReactiveRedisContextProvider extends ReactiveRedisContextProvider<
+		BurstableRateLimiterTypeStrategy,
+		BurstableRateLimitContext,
+		BurstableContextConfiguration> {
+
+	/**
+	 * Create a burstable reactive redis context provider.
+	 * @param redisTemplate The redis template that we will use to store contexts.
+	 * @param contextConfiguration The configuration used to create contexts.
+	 */
+	public BurstableReactiveRedisContextProvider(ReactiveStringRedisTemplate redisTemplate, BurstableContextConfiguration contextConfiguration) {
+		super(redisTemplate, ContextCodecs.burstableCodec(), contextConfiguration);
+	}
+
+	/**
+	 * Create a burstable reactive redis context provider.
+	 * @param redisTemplate The redis template that we will use to store contexts.
+	 * @param contextConfiguration The configuration used to create contexts.
+	 * @param cacheConfiguration The size, ttl and refresh rules of the local cache.
+	 */
+	public BurstableReactiveRedisContextProvider(ReactiveStringRedisTemplate redisTemplate, BurstableContextConfiguration contextConfiguration,
+			NearCacheConfiguration cacheConfiguration) {
+		super(redisTemplate, ContextCodecs.burstableCodec(), contextConfiguration, cacheConfiguration);
+	}
+
+	@Override
+	protected BurstableRateLimitContext createContext(String contextKey) {
+		return BurstableRateLimitContext.builder()
+				.replenishRate(this.contextConfiguration.getReplenishRate())
+				.burstCapacity(this.contextConfiguration.getBurstCapacity())
+				.build();
+	}
+}
@@ -3,7 +3,9 @@ package com.calebjonasson.ratelimiter.springboot.context;
 import com.calebjonasson.ratelimiter.core.context.BurstableRateLimitContext;
 import com.calebjonasson.ratelimiter.core.context.configuration.BurstableContextConfiguration;
 import com.calebjonasson.ratelimiter.core.type.strategy.BurstableRateLimiterTypeStrategy;
-import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import com.calebjonasson.ratelimiter.core.context.cache.NearCacheConfiguration;
+import com.calebjonasson.ratelimiter.core.context.codec.ContextCodecs;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
 
 /**
  * A burstable in redis rate limit context storage.
@@ -18,8 +20,19 @@ public class BurstableRedisContextProvider extends RedisContextProvider<
  	 * @param redisTemplate The redis template that we will use to store contexts.
 	 * @param contextConfiguration The configuration used to create contexts.
 	 */
-	public BurstableRedisContextProvider(ReactiveRedisTemplate<String, BurstableRateLimitContext> redisTemplate, BurstableContextConfiguration contextConfiguration) {
-		super(redisTemplate, contextConfiguration);
+	public BurstableRedisContextProvider(ReactiveStringRedisTemplate redisTemplate, BurstableContextConfiguration contextConfiguration) {
+		super(redisTemplate, ContextCodecs.burstableCodec(), contextConfiguration);
+	}
+
+	/**
+	 * Create a burstable redis context provider.
+	 * @param redisTemplate The redis template that we will use to store contexts.
+	 * @param contextConfiguration The configuration used to create contexts.
+	 * @param cacheConfiguration The size, ttl and refresh rules of the local cache.
+	 */
+	public BurstableRedisContextProvider(ReactiveStringRedisTemplate redisTemplate, BurstableContextConfiguration contextConfiguration,
+			NearCacheConfiguration cacheConfiguration) {
+		super(redisTemplate, ContextCodecs.burstableCodec(), contextConfiguration, cacheConfiguration);
 	}
 
 	@Override
@@ -0,0 +1,46 @@
+package com.calebjonasson.ratelimiter.springboot.context;
+
+import com.calebjonasson.ratelimiter.core.context.GcraRateLimitContext;
+import com.calebjonasson.ratelimiter.core.context.cache.NearCacheConfiguration;
+import com.calebjonasson.ratelimiter.core.context.codec.ContextCodecs;
+import com.calebjonasson.ratelimiter.core.context.configuration.GcraContextConfiguration;
+import com.calebjonasson.ratelimiter.core.type.strategy.GcraRateLimiterTypeStrategy;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+
+/**
+ * A generic cell rate algorithm in redis rate limit context storage.
+ */
+public class GcraRedisContextProvider extends RedisContextProvider<
+		GcraRateLimiterTypeStrategy,
+		GcraRateLimitContext,
+		GcraContextConfiguration> {
+
+	/**
+	 * Create a generic cell rate algorithm redis context provider.
+	 * @param redisTemplate The redis template that we will use to store contexts.
+	 * @param contextConfiguration The configuration used to create contexts.
+	 */
+	public GcraRedisContextProvider(ReactiveStringRedisTemplate redisTemplate, GcraContextConfiguration contextConfiguration) {
+		super(redisTemplate, ContextCodecs.gcraCodec(), contextConfiguration);
+	}
+
+	/**
+	 * Create a generic cell rate algorithm redis context provider.
+	 * @param redisTemplate The redis template that we will use to store contexts.
+	 * @param contextConfiguration The configuration used to create contexts.
+	 * @param cacheConfiguration The size, ttl and refresh rules of the local cache.
+	 */
+	public GcraRedisContextProvider(ReactiveStringRedisTemplate redisTemplate, GcraContextConfiguration contextConfiguration,
+			NearCacheConfiguration cacheConfiguration) {
+		super(redisTemplate, ContextCodecs.gcraCodec(), contextConfiguration, cacheConfiguration);
+	}
+
+	@Override
+	protected GcraRateLimitContext createContext(String contextKey) {
+		return GcraRateLimitContext.builder()
+				.limit(this.contextConfiguration.getLimit())
+				.interval(this.contextConfiguration.getInterval())
+				.burstCapacity(this.contextConfiguration.getBurstCapacity())
+				.build();
+	}
+}
@@ -0,0 +1,155 @@
+package com.calebjonasson.ratelimiter.springboot.context;
+
+import com.calebjonasson.ratelimiter.core.common.exception.RateLimitContextNotFoundException;
+import com.calebjonasson.ratelimiter.core.context.AbstractReactiveContextProvider;
+import com.calebjonasson.ratelimiter.core.context.cache.NearCacheConfiguration;
+import com.calebjonasson.ratelimiter.core.context.cache.ReactiveContextNearCache;
+import com.calebjonasson.ratelimiter.core.context.codec.ContextCodec;
+import com.calebjonasson.ratelimiter.core.context.configuration.AbstractContextConfiguration;
+import com.calebjonasson.ratelimiter.core.model.context.AbstractRateLimitContext;
+import com.calebjonasson.ratelimiter.core.type.strategy.RateLimiterTypeStrategy;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+/**
+ * The non blocking counterpart of the {@link RedisContextProvider}. Contexts are read from redis as part of the returned
+ * {@link Mono} instead of blocking on the reply.
+ *
+ * Contexts are stored in the same keys and format as the {@link RedisContextProvider} and changes are announced on the
+ * same channel, so both providers can share contexts. Contexts are read through a local {@link ReactiveContextNearCache}
+ * with the same size, ttl and refresh rules as the near cache of the {@link RedisContextProvider}.
+ */
+public abstract class ReactiveRedisContextProvider<
+		TYPE extends RateLimiterTypeStrategy,
+		CONTEXT extends AbstractRateLimitContext<TYPE>,
+		CONFIGURATION extends AbstractContextConfiguration<TYPE>>
+		extends AbstractReactiveContextProvider<TYPE, CONTEXT, CONFIGURATION> implements AutoCloseable {
+
+	/**
+	 * The redis template in which operations will be performed against.
+	 */
+	private final ReactiveStringRedisTemplate redisTemplate;
+
+	/**
+	 * Converts contexts to and from the values stored in redis.
+	 */
+	private final ContextCodec<CONTEXT> codec;
+
+	/**
+	 * The contexts that are cached locally.
+	 */
+	private final ReactiveContextNearCache<CONTEXT> cache;
+
+	/**
+	 * The subscription to the invalidation channel.
+	 */
+	private final Disposable invalidations;
+
+	/**
+	 * Constructor that takes a redis template and caches contexts with the default near cache configuration.
+	 * @param redisTemplate The redis template
+	 * @param codec Converts contexts to and from the values stored in redis.
+	 * @param configuration The configuration that is used to create contexts.
+	 */
+	public ReactiveRedisContextProvider(final ReactiveStringRedisTemplate redisTemplate, final ContextCodec<CONTEXT> codec,
+			CONFIGURATION configuration) {
+		this(redisTemplate, codec, configuration, new NearCacheConfiguration());
+	}
+
+	/**
+	 * Constructor that takes a redis template and the rules contexts are cached locally with.
+	 * @param redisTemplate The redis template
+	 * @param codec Converts contexts to and from the values stored in redis.
+	 * @param configuration The configuration that is used to create contexts.
+	 * @param cacheConfiguration The size, ttl and refresh rules of the local cache.
+	 */
+	public ReactiveRedisContextProvider(final ReactiveStringRedisTemplate redisTemplate, final ContextCodec<CONTEXT> codec,
+			CONFIGURATION configuration, final NearCacheConfiguration cacheConfiguration) {
+		super(configuration);
+		this.redisTemplate = redisTemplate;
+		this.codec = codec;
+		this.cache = new ReactiveContextNearCache<>(super::getContext, cacheConfiguration);
+		this.invalidations = this.redisTemplate.listenToChannel(RedisContextProvider.INVALIDATION_CHANNEL)
+				.doOnNext(message -> this.evictContext(message.getMessage()))
+				.doOnError(e -> {
+					this.cache.invalidateAll();
+					this.createdContexts.invalidateAll();
+				})
+				.retryWhen(Retry.fixedDelay(Long.MAX_VALUE, RedisContextProvider.RESUBSCRIBE_DELAY))
+				.subscribe();
+	}
+
+	/**
+	 * Get a context from the local cache, or from redis if it is not cached.
+	 * @param contextKey The context key that we are loading from the datasource.
+	 * @return The Context if one is found, a new context if we setting is configured to do so. Otherwise a
+	 * {@link RateLimitContextNotFoundException}.
+	 */
+	@Override
+	public Mono<CONTEXT> getContext(String contextKey) {
+		return this.cache.get(contextKey);
+	}
+
+	@Override
+	protected Mono<CONTEXT> getContextInternal(String contextKey) {
+		return this.redisTemplate.opsForValue().get(RedisContextProvider.CONTEXT_KEY_PREFIX + contextKey)
+				.map(value -> this.codec.decode(contextKey, value));
+	}
+
+	/**
+	 * Store a context in redis and tell every node to drop its cached copy.
+	 * @param contextKey The context key the context is stored under.
+	 * @param context The context that we are storing.
+	 * @return A {@link Mono} of true once the context is stored and announced.
+	 */
+	public Mono<Boolean> putContext(String contextKey, CONTEXT context) {
+		return this.redisTemplate.opsForValue().set(RedisContextProvider.CONTEXT_KEY_PREFIX + contextKey, this.codec.encode(context))
+				.flatMap(stored -> this.publishInvalidation(contextKey).thenReturn(stored));
+	}
+
+	/**
+	 * Remove a context from redis and tell every node to drop its cached copy.
+	 * @param contextKey The context key to remove.
+	 * @return A {@link Mono} of true if a context was removed.
+	 */
+	public Mono<Boolean> removeContext(String contextKey) {
+		return this.redisTemplate.delete(RedisContextProvider.CONTEXT_KEY_PREFIX + contextKey)
+				.flatMap(removed -> this.publishInvalidation(contextKey).thenReturn(removed > 0));
+	}
+
+	/**
+	 * Remove a context from the local cache so the next request reads it from redis.
+	 * @param contextKey The context key to evict.
+	 */
+	public void evictContext(String contextKey) {
+		this.cache.invalidate(contextKey);
+		this.createdContexts.invalidate(contextKey);
+	}
+
+	/**
+	 * @return The local cache of the contexts.
+	 */
+	public ReactiveContextNearCache<CONTEXT> getContextCache() {
+		return this.cache;
+	}
+
+	/**
+	 * Stop listening for invalidations.
+	 */
+	@Override
+	public void close() {
+		this.invalidations.dispose();
+	}
+
+	/**
+	 * Drop the local copy and announce the change to the other nodes.
+	 * @param contextKey The context key that changed.
+	 * @return A {@link Mono} of the amount of nodes that received the announcement.
+	 */
+	private Mono<Long> publishInvalidation(String contextKey) {
+		this.evictContext(contextKey);
+		return this.redisTemplate.convertAndSend(RedisContextProvider.INVALIDATION_CHANNEL, contextKey);
+	}
+}
@@ -1,13 +1,18 @@
 package com.calebjonasson.ratelimiter.springboot.context;
 
+import com.calebjonasson.ratelimiter.core.common.exception.RateLimitContextNotFoundException;
 import com.calebjonasson.ratelimiter.core.context.AbstractContextProvider;
+import com.calebjonasson.ratelimiter.core.context.cache.ContextNearCache;
+import com.calebjonasson.ratelimiter.core.context.cache.NearCacheConfiguration;
+import com.calebjonasson.ratelimiter.core.context.codec.ContextCodec;
 import com.calebjonasson.ratelimiter.core.context.configuration.AbstractContextConfiguration;
 import com.calebjonasson.ratelimiter.core.model.context.AbstractRateLimitContext;
 import com.calebjonasson.ratelimiter.core.type.strategy.RateLimiterTypeStrategy;
-import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import reactor.core.Disposable;
+import reactor.util.retry.Retry;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.time.Duration;
 import java.util.Optional;
 
 /**
@@ -20,48 +25,155 @@ import java.util.Optional;
  * limit
  * ... To be expanded on.
  *
- *
+ * Contexts are stored in redis under {@link #CONTEXT_KEY_PREFIX} in the compact format of a {@link ContextCodec} and
+ * read through a local {@link ContextNearCache}, so a lookup on the hot path is a map read. A context that is stored
+ * with {@link #putContext(String, AbstractRateLimitContext)} is announced on {@link #INVALIDATION_CHANNEL} and every
+ * node drops its cached copy, so a change is picked up on the next request rather than once the ttl has passed. If
+ * the subscription fails every cached context is dropped since announcements could have been missed.
  */
 public abstract class RedisContextProvider<
 		TYPE extends RateLimiterTypeStrategy,
 		CONTEXT extends AbstractRateLimitContext<TYPE>,
 		CONFIGURATION extends AbstractContextConfiguration<TYPE>>
-		extends AbstractContextProvider<TYPE, CONTEXT, CONFIGURATION> {
+		extends AbstractContextProvider<TYPE, CONTEXT, CONFIGURATION> implements AutoCloseable {
+
+	/**
+	 * The prefix of the redis keys contexts are stored under.
+	 */
+	public static final String CONTEXT_KEY_PREFIX = "ratelimiter:context:";
+
+	/**
+	 * The channel the keys of changed contexts are published on.
+	 */
+	public static final String INVALIDATION_CHANNEL = "ratelimiter:context:invalidate";
+
+	/**
+	 * The delay before the invalidation subscription is retried after it failed.
+	 */
+	static final Duration RESUBSCRIBE_DELAY = Duration.ofSeconds(1);
 
 	/**
 	 * The redis template in which operations will be performed against.
 	 */
-	private final ReactiveRedisTemplate<String, CONTEXT> redisTemplate;
+	private final ReactiveStringRedisTemplate redisTemplate;
+
+	/**
+	 * Converts contexts to and from the values stored in redis.
+	 */
+	private final ContextCodec<CONTEXT> codec;
+
+	/**
+	 * The contexts that are cached locally.
+	 */
+	private final ContextNearCache<CONTEXT> cache;
+
+	/**
+	 * The subscription to the invalidation channel.
+	 */
+	private final Disposable invalidations;
 
 	/**
-	 * The contexts that are being stored in memory.
-	 * TODO: remove this in favor of an actual redis context provider. This is just an in memory context provider..
+	 * Constructor that takes a redis template and caches contexts with the default near cache configuration.
+	 * @param redisTemplate The redis template
+	 * @param codec Converts contexts to and from the values stored in redis.
+	 * @param configuration The configuration that is used to create contexts.
 	 */
-	private Map<String, CONTEXT> contexts = new HashMap<>();
+	public RedisContextProvider(final ReactiveStringRedisTemplate redisTemplate, final ContextCodec<CONTEXT> codec,
+			CONFIGURATION configuration) {
+		this(redisTemplate, codec, configuration, new NearCacheConfiguration());
+	}
 
 	/**
-	 * Constructor that takes a redis template.
+	 * Constructor that takes a redis template and the rules contexts are cached locally with.
 	 * @param redisTemplate The redis template
+	 * @param codec Converts contexts to and from the values stored in redis.
 	 * @param configuration The configuration that is used to create contexts.
+	 * @param cacheConfiguration The size, ttl and refresh rules of the local cache.
 	 */
-	public RedisContextProvider(final ReactiveRedisTemplate<String, CONTEXT> redisTemplate, CONFIGURATION configuration) {
+	public RedisContextProvider(final ReactiveStringRedisTemplate redisTemplate, final ContextCodec<CONTEXT> codec,
+			CONFIGURATION configuration, final NearCacheConfiguration cacheConfiguration) {
 		super(configuration);
 		this.redisTemplate = redisTemplate;
+		this.codec = codec;
+		this.cache = new ContextNearCache<>(super::getContext, cacheConfiguration);
+		this.invalidations = this.redisTemplate.listenToChannel(INVALIDATION_CHANNEL)
+				.doOnNext(message -> this.evictContext(message.getMessage()))
+				.doOnError(e -> {
+					this.cache.invalidateAll();
+					this.createdContexts.invalidateAll();
+				})
+				.retryWhen(Retry.fixedDelay(Long.MAX_VALUE, RESUBSCRIBE_DELAY))
+				.subscribe();
+	}
+
+	/**
+	 * Get a context from the local cache, or from redis if it is not cached.
+	 * @param contextKey The context key that we are loading from the datasource.
+	 * @return The Context if one is found, a new context if we setting is configured to do so. Otherwise exception.
+	 * @throws RateLimitContextNotFoundException Thrown if we are unable to find the context and unable to create a new one.
+	 */
+	@Override
+	public CONTEXT getContext(String contextKey) throws RateLimitContextNotFoundException {
+		return this.cache.get(contextKey);
 	}
 
 	@Override
 	protected Optional<CONTEXT> getContextInternal(String contextKey) {
-		return Optional.of(redisTemplate.opsForValue().get(contextKey).block());
+		return Optional.ofNullable(this.redisTemplate.opsForValue().get(CONTEXT_KEY_PREFIX + contextKey).block())
+				.map(value -> this.codec.decode(contextKey, value));
 	}
 
 	/**
-	 * Add a context.
-	 * @param contextKey The context key to be added to the map.
-	 * @param context The context that we are adding to the map.
-	 * @return The added context.
+	 * Store a context in redis and tell every node to drop its cached copy.
+	 * @param contextKey The context key the context is stored under.
+	 * @param context The context that we are storing.
+	 * @return The stored context.
 	 */
-	public AbstractRateLimitContext putContext(String contextKey, CONTEXT context) {
-		this.contexts.put(contextKey, context);
+	public CONTEXT putContext(String contextKey, CONTEXT context) {
+		this.redisTemplate.opsForValue().set(CONTEXT_KEY_PREFIX + contextKey, this.codec.encode(context)).block();
+		this.publishInvalidation(contextKey);
 		return context;
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Remove a context from redis and tell every node to drop its cached copy.
+	 * @param contextKey The context key to remove.
+	 */
+	public void removeContext(String contextKey) {
+		this.redisTemplate.delete(CONTEXT_KEY_PREFIX + contextKey).block();
+		this.publishInvalidation(contextKey);
+	}
+
+	/**
+	 * Remove a context from the local cache so the next request reads it from redis.
+	 * @param contextKey The context key to evict.
+	 */
+	public void evictContext(String contextKey) {
+		this.cache.invalidate(contextKey);
+		this.createdContexts.invalidate(contextKey);
+	}
+
+	/**
+	 * @return The local cache of the contexts.
+	 */
+	public ContextNearCache<CONTEXT> getContextCache() {
+		return this.cache;
+	}
+
+	/**
+	 * Stop listening for invalidations.
+	 */
+	@Override
+	public void close() {
+		this.invalidations.dispose();
+	}
+
+	/**
+	 * Drop the local copy and announce the change to the other nodes.
+	 * @param contextKey The context key that changed.
+	 */
+	private void publishInvalidation(String contextKey) {
+		this.evictContext(contextKey);
+		this.redisTemplate.convertAndSend(INVALIDATION_CHANNEL, contextKey).block();
+	}
+}
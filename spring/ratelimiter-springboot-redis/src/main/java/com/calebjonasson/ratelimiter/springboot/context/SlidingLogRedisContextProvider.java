@@ -0,0 +1,45 @@
+package com.calebjonasson.ratelimiter.springboot.context;
+
+import com.calebjonasson.ratelimiter.core.context.SlidingLogRateLimitContext;
+import com.calebjonasson.ratelimiter.core.context.cache.NearCacheConfiguration;
+import com.calebjonasson.ratelimiter.core.context.codec.ContextCodecs;
+import com.calebjonasson.ratelimiter.core.context.configuration.SlidingLogContextConfiguration;
+import com.calebjonasson.ratelimiter.core.type.strategy.SlidingLogRateLimiterTypeStrategy;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+
+/**
+ * A sliding log in redis rate limit context storage.
+ */
+public class SlidingLogRedisContextProvider extends RedisContextProvider<
+		SlidingLogRateLimiterTypeStrategy,
+		SlidingLogRateLimitContext,
+		SlidingLogContextConfiguration> {
+
+	/**
+	 * Create a sliding log redis context provider.
+	 * @param redisTemplate The redis template that we will use to store contexts.
+	 * @param contextConfiguration The configuration used to create contexts.
+	 */
+	public SlidingLogRedisContextProvider(ReactiveStringRedisTemplate redisTemplate, SlidingLogContextConfiguration contextConfiguration) {
+		super(redisTemplate, ContextCodecs.slidingLogCodec(), contextConfiguration);
+	}
+
+	/**
+	 * Create a sliding log redis context provider.
+	 * @param redisTemplate The redis template that we will use to store contexts.
+	 * @param contextConfiguration The configuration used to create contexts.
+	 * @param cacheConfiguration The size, ttl and refresh rules of the local cache.
+	 */
+	public SlidingLogRedisContextProvider(ReactiveStringRedisTemplate redisTemplate, SlidingLogContextConfiguration contextConfiguration,
+			NearCacheConfiguration cacheConfiguration) {
+		super(redisTemplate, ContextCodecs.slidingLogCodec(), contextConfiguration, cacheConfiguration);
+	}
+
+	@Override
+	protected SlidingLogRateLimitContext createContext(String contextKey) {
+		return SlidingLogRateLimitContext.builder()
+				.limit(this.contextConfiguration.getLimit())
+				.interval(this.contextConfiguration.getInterval())
+				.build();
+	}
+}
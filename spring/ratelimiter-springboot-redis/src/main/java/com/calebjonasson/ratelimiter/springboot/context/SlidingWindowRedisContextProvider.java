@@ -0,0 +1,46 @@
+package com.calebjonasson.ratelimiter.springboot.context;
+
+import com.calebjonasson.ratelimiter.core.context.SlidingWindowRateLimitContext;
+import com.calebjonasson.ratelimiter.core.context.cache.NearCacheConfiguration;
+import com.calebjonasson.ratelimiter.core.context.codec.ContextCodecs;
+import com.calebjonasson.ratelimiter.core.context.configuration.SlidingWindowContextConfiguration;
+import com.calebjonasson.ratelimiter.core.type.strategy.SlidingWindowRateLimiterTypeStrategy;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+
+/**
+ * A sliding window in redis rate limit context storage.
+ */
+public class SlidingWindowRedisContextProvider extends RedisContextProvider<
+		SlidingWindowRateLimiterTypeStrategy,
+		SlidingWindowRateLimitContext,
+		SlidingWindowContextConfiguration> {
+
+	/**
+	 * Create a sliding window redis context provider.
+	 * @param redisTemplate The redis template that we will use to store contexts.
+	 * @param contextConfiguration The configuration used to create contexts.
+	 */
+	public SlidingWindowRedisContextProvider(ReactiveStringRedisTemplate redisTemplate, SlidingWindowContextConfiguration contextConfiguration) {
+		super(redisTemplate, ContextCodecs.slidingWindowCodec(), contextConfiguration);
+	}
+
+	/**
+	 * Create a sliding window redis context provider.
+	 * @param redisTemplate The redis template that we will use to store contexts.
+	 * @param contextConfiguration The configuration used to create contexts.
+	 * @param cacheConfiguration The size, ttl and refresh rules of the local cache.
+	 */
+	public SlidingWindowRedisContextProvider(ReactiveStringRedisTemplate redisTemplate, SlidingWindowContextConfiguration contextConfiguration,
+			NearCacheConfiguration cacheConfiguration) {
+		super(redisTemplate, ContextCodecs.slidingWindowCodec(), contextConfiguration, cacheConfiguration);
+	}
+
+	@Override
+	protected SlidingWindowRateLimitContext createContext(String contextKey) {
+		return SlidingWindowRateLimitContext.builder()
+				.limit(this.contextConfiguration.getLimit())
+				.interval(this.contextConfiguration.getInterval())
+				.subWindows(this.contextConfiguration.getSubWindows())
+				.build();
+	}
+}
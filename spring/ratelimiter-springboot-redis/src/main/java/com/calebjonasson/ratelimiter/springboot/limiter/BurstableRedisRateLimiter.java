@@ -3,36 +3,54 @@ package com.calebjonasson.ratelimiter.springboot.limiter;
 import com.calebjonasson.ratelimiter.core.context.BurstableRateLimitContext;
 import com.calebjonasson.ratelimiter.core.context.ContextProvider;
 import com.calebjonasson.ratelimiter.core.limiter.AbstractRateLimiter;
+import com.calebjonasson.ratelimiter.core.limiter.ReservingRateLimiter;
 import com.calebjonasson.ratelimiter.core.model.context.AbstractRateLimitContext;
 import com.calebjonasson.ratelimiter.core.model.state.RateLimitState;
-import com.calebjonasson.ratelimiter.core.common.exception.RateLimitExceededException;
 import com.calebjonasson.ratelimiter.core.common.exception.RateLimitException;
+import com.calebjonasson.ratelimiter.core.pipeline.CommandPipeline;
+import com.calebjonasson.ratelimiter.core.pipeline.PipelineConfiguration;
+import com.calebjonasson.ratelimiter.core.pipeline.PipelineTransport;
 
+import com.calebjonasson.ratelimiter.core.request.ContextStateRateLimitRequest;
+import com.calebjonasson.ratelimiter.core.response.RateLimitDecision;
 import com.calebjonasson.ratelimiter.core.response.RateLimitHandleResponse;
 import com.calebjonasson.ratelimiter.core.state.BurstableRateLimitState;
 import com.calebjonasson.ratelimiter.core.type.strategy.BurstableRateLimiterTypeStrategy;
+import com.calebjonasson.ratelimiter.springboot.pipeline.EvalShaPipelineTransport;
+import com.calebjonasson.ratelimiter.springboot.pipeline.ScriptCall;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
 import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.util.StringUtils;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
-import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A redis implementation of the rate limiter.
  *
+ * By default each request runs the script with its own round trip. When created with a {@link PipelineConfiguration}
+ * the script calls of concurrent requests are gathered into short lived batches and sent as back to back EVALSHA
+ * commands over a dedicated connection, see {@link CommandPipeline}.
+ *
+ * The script updates each bucket atomically in redis so requests never take the limiter wide monitor, which is what
+ * lets the script calls of concurrent requests be in flight, and batched, at the same time.
+ *
+ * Tokens can be reserved ahead of time, see {@link ReservingRateLimiter}. The reservation is the same single script
+ * call with the longest wait the caller accepts, the bucket is left in debt and the caller parks locally, so waiting
+ * callers send nothing to redis until their turn.
+ *
  * TODO: Implement the pruning operation although this isn't really needed because of the built in ttl.
  */
 public class BurstableRedisRateLimiter<
 		CONTEXT extends BurstableRateLimitContext>
-		extends AbstractRateLimiter<BurstableRateLimiterTypeStrategy, CONTEXT, BurstableRateLimitState> {
+		extends AbstractRateLimiter<BurstableRateLimiterTypeStrategy, CONTEXT, BurstableRateLimitState>
+		implements ReservingRateLimiter, AutoCloseable {
 
 	private static final Logger log = LoggerFactory.getLogger(BurstableRedisRateLimiter.class);
-	private static final String REDIS_PROPERTY_TOKENS = "tokens";
-	private static final String REDIS_PROPERTY_TIMESTAMP = "timestamp";
 
 	/**
 	 * The redis template provided by spring.
@@ -44,6 +62,21 @@ public class BurstableRedisRateLimiter<
 	 */
 	protected final RedisScript redisScript;
 
+	/**
+	 * How the buckets are stored in redis.
+	 */
+	protected final RedisStateLayout stateLayout;
+
+	/**
+	 * The pipeline the script calls are sent over, null if every call makes its own round trip.
+	 */
+	protected final CommandPipeline<ScriptCall, List<Long>> pipeline;
+
+	/**
+	 * The transport the pipeline sends its batches over, null if not pipelined.
+	 */
+	protected final PipelineTransport<ScriptCall, List<Long>> pipelineTransport;
+
 	/**
 	 * Create a new concrete redis rate limiter.
 	 * @param contextProvider The context we want to use for the rate limiter state configuration.
@@ -54,73 +87,143 @@ public class BurstableRedisRateLimiter<
 			final ContextProvider contextProvider,
 			final ReactiveStringRedisTemplate redisTemplate,
 			final RedisScript redisScript) {
+		this(contextProvider, redisTemplate, redisScript, RedisStateLayout.STRING_KEYS, null);
+	}
+
+	/**
+	 * Create a new concrete redis rate limiter that pipelines the script calls of concurrent requests.
+	 * @param contextProvider The context we want to use for the rate limiter state configuration.
+	 * @param redisTemplate The redis template that is used to perform redis operations.
+	 * @param redisScript The redis lua script used to perform burstable rate limiting.
+	 * @param pipelineConfiguration The size and linger limits of the batches.
+	 */
+	public BurstableRedisRateLimiter(
+			final ContextProvider contextProvider,
+			final ReactiveStringRedisTemplate redisTemplate,
+			final RedisScript redisScript,
+			final PipelineConfiguration pipelineConfiguration) {
+		this(contextProvider, redisTemplate, redisScript, RedisStateLayout.STRING_KEYS, pipelineConfiguration);
+	}
+
+	/**
+	 * Create a new concrete redis rate limiter that stores its buckets with the provided layout.
+	 * @param contextProvider The context we want to use for the rate limiter state configuration.
+	 * @param redisTemplate The redis template that is used to perform redis operations.
+	 * @param redisScript The redis lua script of the layout, see {@link RedisStateLayout#getScriptLocation()}.
+	 * @param stateLayout How the buckets are stored in redis.
+	 * @param pipelineConfiguration The size and linger limits of the batches, null if every call makes its own round trip.
+	 */
+	public BurstableRedisRateLimiter(
+			final ContextProvider contextProvider,
+			final ReactiveStringRedisTemplate redisTemplate,
+			final RedisScript redisScript,
+			final RedisStateLayout stateLayout,
+			final PipelineConfiguration pipelineConfiguration) {
+		this(contextProvider, redisTemplate, redisScript, stateLayout,
+				pipelineConfiguration == null ? null : new EvalShaPipelineTransport(redisTemplate.getConnectionFactory(), redisScript),
+				pipelineConfiguration);
+	}
+
+	/**
+	 * Create a new concrete redis rate limiter that pipelines the script calls of concurrent requests over a transport.
+	 * @param contextProvider The context we want to use for the rate limiter state configuration.
+	 * @param redisTemplate The redis template that is used to perform redis operations.
+	 * @param redisScript The redis lua script of the layout, see {@link RedisStateLayout#getScriptLocation()}.
+	 * @param stateLayout How the buckets are stored in redis.
+	 * @param pipelineTransport The transport the batches are sent over, closed with the limiter if it is
+	 *                          {@link AutoCloseable}. Null if every call makes its own round trip.
+	 * @param pipelineConfiguration The size and linger limits of the batches, null if every call makes its own round trip.
+	 */
+	public BurstableRedisRateLimiter(
+			final ContextProvider contextProvider,
+			final ReactiveStringRedisTemplate redisTemplate,
+			final RedisScript redisScript,
+			final RedisStateLayout stateLayout,
+			final PipelineTransport<ScriptCall, List<Long>> pipelineTransport,
+			final PipelineConfiguration pipelineConfiguration) {
 		super(contextProvider);
 		this.redisTemplate = redisTemplate;
 		this.redisScript = redisScript;
+		this.stateLayout = stateLayout;
+		if(pipelineTransport == null || pipelineConfiguration == null) {
+			this.pipelineTransport = null;
+			this.pipeline = null;
+		} else {
+			this.pipelineTransport = pipelineTransport;
+			this.pipeline = new CommandPipeline<>(pipelineTransport, pipelineConfiguration, "ratelimiter-redis-pipeline");
+		}
+	}
+
+	/**
+	 * Handle the request without taking the limiter wide monitor, the script updates the bucket atomically.
+	 * @param request The rate limit request we are looking to handle.
+	 * @return A {@link RateLimitHandleResponse} containing the state and available capacity.
+	 * @throws RateLimitException thrown if the rate limit is exceeded or redis could not be reached.
+	 */
+	@Override
+	public RateLimitHandleResponse handle(ContextStateRateLimitRequest request) throws RateLimitException {
+		return this.handleInternal(request);
 	}
 
 	/**
-	 * Generate a redis key prefix.
-	 * @param contextKey The context key that we are looking to generate.
-	 * @param stateKey The specific state that we are creating a key with.
-	 * @return a string that resembles `<contextKey>.{<stateKey>}` without the `<>`
+	 * Acquire without taking the limiter wide monitor, the script updates the bucket atomically.
+	 * @param contextKey The context to use to group states under for configuration values.
+	 * @param stateKey The state we are grouping requests under.
+	 * @param permits The amount of permits to acquire, must be greater than 0.
+	 * @param decision The decision to reset and fill, owned by the caller.
+	 * @return The passed in decision.
+	 * @throws RateLimitException thrown if the context cannot be loaded or redis could not be reached.
 	 */
-	private String redisKeyPrefix(String contextKey, String stateKey) {
-		return contextKey+".{" + stateKey + "}";
+	@Override
+	public RateLimitDecision tryAcquire(String contextKey, String stateKey, long permits, RateLimitDecision decision)
+			throws RateLimitException {
+		return this.tryAcquireInternal(contextKey, stateKey, permits, decision);
 	}
 
 	@Override
 	public Optional<BurstableRateLimitState> getRateLimitState(AbstractRateLimitContext context, String stateKey) {
 
-		String index = this.redisKeyPrefix(context.getContextKey(), stateKey) + "." + REDIS_PROPERTY_TOKENS;
-		String value = this.redisTemplate.opsForValue().get(index).block();
+		String prefix = RedisTokenBucket.keyPrefix(context.getContextKey(), stateKey);
+		String value = this.stateLayout == RedisStateLayout.HASH
+				? (String) this.redisTemplate.opsForHash().get(prefix, RedisTokenBucket.REDIS_HASH_FIELD_TOKENS).block()
+				: this.redisTemplate.opsForValue().get(prefix + "." + RedisTokenBucket.REDIS_PROPERTY_TOKENS).block();
 
-		if(!StringUtils.hasText(value)) {
-			BurstableRateLimitState result = BurstableRateLimitState.builder().tokens(Long.parseLong(value)).build();
+		if(StringUtils.hasText(value)) {
+			// The hash layout keeps fractions of a token.
+			BurstableRateLimitState result = BurstableRateLimitState.builder().tokens((long) Double.parseDouble(value)).build();
 			return Optional.ofNullable(result);
 		}
 		return Optional.empty();
 	}
 
+	/**
+	 * The script reads, validates and updates the state itself so the state is not loaded up front. A decision is a
+	 * single script call and the only round trip of a request once the context is cached by the provider.
+	 * @param context The context of the request.
+	 * @param stateKey The state key that we are updating.
+	 * @param permits The amount of permits requested, always greater than 0.
+	 * @param decision The decision to fill.
+	 * @return The passed in decision.
+	 * @throws RateLimitException thrown if redis could not be reached.
+	 */
 	@Override
-	protected RateLimitHandleResponse internalIncrement(CONTEXT context, String stateKey, BurstableRateLimitState state)
+	protected RateLimitDecision acquireInternal(CONTEXT context, String stateKey, long permits, RateLimitDecision decision)
 			throws RateLimitException {
+		decision.reset().context(context);
 
-		// Make a unique key per user.
-		String prefix = this.redisKeyPrefix(context.getContextKey(), stateKey);
+		// Check to see if the context allows for rate limiting or if it's blocked.
+		if(!this.isContextEnable(context)) return decision.deny(null, RateLimitDecision.RETRY_AFTER_UNKNOWN);
 
-		// You need two Redis keys for Token Bucket.
-		String tokenKey = prefix + "." + REDIS_PROPERTY_TOKENS;
-		String timestampKey = prefix + "." + REDIS_PROPERTY_TIMESTAMP;
+		return this.decide(context, stateKey, permits, null, decision);
+	}
 
-		List tokens = Arrays.asList(tokenKey, timestampKey);
+	@Override
+	protected RateLimitDecision decide(CONTEXT context, String stateKey, long permits, BurstableRateLimitState state,
+			RateLimitDecision decision) throws RateLimitException {
 
+		List<Long> redisResult;
 		try {
-			int replenishRate = (int)context.getReplenishRate();
-			int burstCapacity = (int)context.getBurstCapacity();
-			int requestedTokens = 1;
-			// The arguments to the LUA script. time() returns unixtime in seconds.
-			List<String> scriptArgs = Arrays.asList(replenishRate + "", burstCapacity + "",
-					Instant.now().getEpochSecond() + "", requestedTokens + "");
-
-			// allowed, tokens_left = redis.eval(SCRIPT, keys, args)
-			Flux<List<Long>> flux = this.redisTemplate.execute(this.redisScript, tokens, scriptArgs);
-
-			ArrayList<Long> redisResult = flux.onErrorResume(throwable -> {
-				log.info("error calling rate limiter lua", throwable);
-				if (log.isDebugEnabled()) {
-					log.debug("Error calling rate limiter lua", throwable);
-				}
-				return Flux.just(Arrays.asList(1L, -1L));
-			}).reduce(new ArrayList<Long>(), (longs, l) -> {
-				log.info("reduce longs={}", l);
-				longs.addAll(l);
-				return longs;
-			}).block();
-
-			if(redisResult.get(0) != 1L) throw new RateLimitExceededException();
-
-			return RateLimitHandleResponse.of(BurstableRateLimitState.builder().tokens(redisResult.get(1)).build().refresh());
+			redisResult = this.execute(context, stateKey, permits).block();
 		}
 		catch (Exception e) {
 			/*
@@ -130,6 +233,128 @@ public class BurstableRedisRateLimiter<
 			 */
 			throw new RateLimitException("An error occurred during rate limiting.", e);
 		}
+		return this.toDecision(context, permits, redisResult, decision);
+	}
+
+	/**
+	 * Reserve tokens with a single script call.
+	 * @param request The request holding the context, state and permits.
+	 * @param maxWaitNanos The longest the caller is willing to wait for the tokens, rounded down to millis.
+	 * @param decision The decision to reset and fill, owned by the caller.
+	 * @return The passed in decision.
+	 * @throws RateLimitException thrown if the context cannot be loaded or redis could not be reached.
+	 */
+	@Override
+	public RateLimitDecision reserve(ContextStateRateLimitRequest request, long maxWaitNanos, RateLimitDecision decision)
+			throws RateLimitException {
+		CONTEXT context = this.getContextProvider().getContext(request.getContextKey());
+		decision.reset().context(context);
+		if(!this.isContextEnable(context)) {
+			return decision.deny(null, RateLimitDecision.RETRY_AFTER_UNKNOWN);
+		}
+
+		List<String> scriptArgs = new ArrayList<>(this.stateLayout.args(context, request.getPermits()));
+		// No lease minimum, then the longest wait in millis.
+		scriptArgs.add("");
+		scriptArgs.add(Long.toString(TimeUnit.NANOSECONDS.toMillis(Math.max(0, maxWaitNanos))));
+		List<Long> redisResult;
+		try {
+			redisResult = this.execute(context, request.getStateKey(), scriptArgs).block();
+		}
+		catch (Exception e) {
+			throw new RateLimitException("An error occurred during rate limiting.", e);
+		}
+		return this.toDecision(context, request.getPermits(), redisResult, decision);
+	}
+
+	/**
+	 * Handle a batch of requests with a single round trip. Each context is loaded once and every script call of the batch
+	 * is subscribed to at the same time so the driver pipelines them over the shared connection instead of waiting for
+	 * each reply.
+	 * @param requests The requests we are looking to handle.
+	 * @return A new {@link RateLimitDecision} per request in the iteration order of the requests.
+	 * @throws RateLimitException thrown if a context cannot be loaded or redis could not be reached.
+	 */
+	@Override
+	public List<RateLimitDecision> handleAll(Collection<ContextStateRateLimitRequest> requests) throws RateLimitException {
+		List<CONTEXT> contexts = this.loadContexts(requests);
+		List<RateLimitDecision> decisions = new ArrayList<>(requests.size());
+		List<Mono<RateLimitDecision>> pending = new ArrayList<>(requests.size());
+
+		int index = 0;
+		for(ContextStateRateLimitRequest request : requests) {
+			CONTEXT context = contexts.get(index++);
+			RateLimitDecision decision = new RateLimitDecision().context(context);
+			decisions.add(decision);
+
+			if(!this.isContextEnable(context)) {
+				decision.deny(null, RateLimitDecision.RETRY_AFTER_UNKNOWN);
+				continue;
+			}
+			pending.add(this.execute(context, request.getStateKey(), request.getPermits())
+					.map(result -> this.toDecision(context, request.getPermits(), result, decision)));
+		}
+
+		try {
+			Flux.merge(pending).then().block();
+		}
+		catch (Exception e) {
+			throw new RateLimitException("An error occurred during rate limiting.", e);
+		}
+		return decisions;
+	}
+
+	/**
+	 * Run the token bucket script for a state.
+	 * @param context The context that holds the replenish rate and burst capacity.
+	 * @param stateKey The state key that we are updating.
+	 * @param permits The amount of tokens requested. All of them are taken by the single script call or none are.
+	 * @return The allowed flag and the tokens left, allowed with -1 tokens left if the script failed.
+	 */
+	protected Mono<List<Long>> execute(CONTEXT context, String stateKey, long permits) {
+		return this.execute(context, stateKey, this.stateLayout.args(context, permits));
+	}
+
+	/**
+	 * Run the token bucket script for a state with custom arguments.
+	 * @param context The context that holds the replenish rate and burst capacity.
+	 * @param stateKey The state key that we are updating.
+	 * @param scriptArgs The arguments of the script call, see {@link RedisStateLayout#args(BurstableRateLimitContext, long)}.
+	 * @return The allowed flag and the tokens left, allowed with -1 tokens left if the script failed.
+	 */
+	protected Mono<List<Long>> execute(CONTEXT context, String stateKey, List<String> scriptArgs) {
+
+		// Make a unique key per user.
+		List<String> tokens = this.stateLayout.keys(context.getContextKey(), stateKey);
+
+		// allowed, tokens_left = redis.eval(SCRIPT, keys, args)
+		Flux<List<Long>> flux = this.pipeline == null
+				? this.redisTemplate.execute(this.redisScript, tokens, scriptArgs)
+				: Mono.fromFuture(this.pipeline.submit(new ScriptCall(tokens, scriptArgs))).flux();
+
+		return flux.onErrorResume(throwable -> {
+			if (log.isDebugEnabled()) {
+				log.debug("Error calling rate limiter lua, allowing the request", throwable);
+			} else {
+				log.warn("Error calling rate limiter lua, allowing the request: {}", throwable.toString());
+			}
+			return Flux.just(RedisTokenBucket.FALLBACK_REPLY);
+		}).reduce(new ArrayList<Long>(), (longs, l) -> {
+			longs.addAll(l);
+			return longs;
+		});
+	}
+
+	/**
+	 * Fill a decision from the reply of the token bucket script.
+	 * @param context The context that holds the replenish rate and burst capacity.
+	 * @param permits The amount of tokens requested.
+	 * @param redisResult The allowed flag and the tokens left.
+	 * @param decision The decision to fill.
+	 * @return The passed in decision.
+	 */
+	protected RateLimitDecision toDecision(CONTEXT context, long permits, List<Long> redisResult, RateLimitDecision decision) {
+		return RedisTokenBucket.toDecision(context, permits, redisResult, decision);
 	}
 
 	@Override
@@ -154,4 +379,38 @@ public class BurstableRedisRateLimiter<
 	protected boolean isSelfPruning() {
 		return true;
 	}
+
+	/**
+	 * @return How the buckets are stored in redis.
+	 */
+	public RedisStateLayout getStateLayout() {
+		return this.stateLayout;
+	}
+
+	/**
+	 * @return The pipeline the script calls are sent over, null if every call makes its own round trip.
+	 */
+	public CommandPipeline<ScriptCall, List<Long>> getPipeline() {
+		return this.pipeline;
+	}
+
+	/**
+	 * Send the script calls that are still queued and stop the pipeline, if any.
+	 * @throws InterruptedException thrown if interrupted while waiting for the pipeline to stop.
+	 */
+	@Override
+	public void close() throws InterruptedException {
+		if(this.pipeline != null) {
+			this.pipeline.close();
+			if(this.pipelineTransport instanceof AutoCloseable) {
+				try {
+					((AutoCloseable) this.pipelineTransport).close();
+				} catch (InterruptedException e) {
+					throw e;
+				} catch (Exception e) {
+					log.warn("Error closing the redis pipeline transport", e);
+				}
+			}
+		}
+	}
 }
\ No newline at end of file
@@ -0,0 +1,129 @@
+package com.calebjonasson.ratelimiter.springboot.limiter;
+
+import com.calebjonasson.ratelimiter.core.common.exception.RateLimitException;
+import com.calebjonasson.ratelimiter.core.context.ContextProvider;
+import com.calebjonasson.ratelimiter.core.context.GcraRateLimitContext;
+import com.calebjonasson.ratelimiter.core.limiter.ReservingRateLimiter;
+import com.calebjonasson.ratelimiter.core.model.context.AbstractRateLimitContext;
+import com.calebjonasson.ratelimiter.core.request.ContextStateRateLimitRequest;
+import com.calebjonasson.ratelimiter.core.response.RateLimitDecision;
+import com.calebjonasson.ratelimiter.core.state.GcraRateLimitState;
+import com.calebjonasson.ratelimiter.core.type.strategy.GcraRateLimiterTypeStrategy;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A redis implementation of the generic cell rate algorithm rate limiter.
+ *
+ * A state is a single string key holding the theoretical arrival time, see {@link GcraRateLimitState}, so the script is
+ * one GET and one SET with a PX that expires the key once the full burst is available again. This admits the same
+ * requests as the {@link BurstableRedisRateLimiter} with half the keys and commands of its string layout.
+ *
+ * Permits can be reserved ahead of time, see {@link ReservingRateLimiter}. The reservation is the same single script
+ * call with the longest wait the caller accepts, after which the caller parks locally, so waiting callers send nothing
+ * to redis until their turn.
+ */
+public class GcraRedisRateLimiter
+		extends ScriptRedisRateLimiter<GcraRateLimiterTypeStrategy, GcraRateLimitContext, GcraRateLimitState>
+		implements ReservingRateLimiter {
+
+	/**
+	 * The location of the script on the classpath.
+	 */
+	public static final String SCRIPT_LOCATION = "META-INF/scripts/gcra_rate_limiter.lua";
+
+	/**
+	 * The suffix of the key holding the theoretical arrival time.
+	 */
+	static final String REDIS_PROPERTY_ARRIVAL = "tat";
+
+	/**
+	 * Create a new generic cell rate algorithm redis rate limiter.
+	 * @param contextProvider The context we want to use for the rate limiter state configuration.
+	 * @param redisTemplate The redis template that is used to perform redis operations.
+	 * @param redisScript The redis lua script loaded from {@link #SCRIPT_LOCATION}.
+	 */
+	public GcraRedisRateLimiter(
+			final ContextProvider contextProvider,
+			final ReactiveStringRedisTemplate redisTemplate,
+			final RedisScript redisScript) {
+		super(contextProvider, redisTemplate, redisScript);
+	}
+
+	/**
+	 * Generate the key of a state.
+	 * @param contextKey The context key of the state.
+	 * @param stateKey The state key of the state.
+	 * @return a string that resembles `<contextKey>.{<stateKey>}.tat` without the `<>`
+	 */
+	@Override
+	protected String key(String contextKey, String stateKey) {
+		return RedisTokenBucket.keyPrefix(contextKey, stateKey) + "." + REDIS_PROPERTY_ARRIVAL;
+	}
+
+	/**
+	 * @param context The context that holds the limit, interval and burst capacity.
+	 * @param permits The amount of permits requested.
+	 * @return The emission interval in millis, the burst capacity, the current epoch millis and the permits.
+	 */
+	@Override
+	protected List<String> args(GcraRateLimitContext context, long permits) {
+		double emissionInterval = context.getLimit() <= 0 ? 0 : context.getInterval() / (double) context.getLimit();
+		return Arrays.asList(
+				Double.toString(emissionInterval),
+				Long.toString(context.getBurstCapacity()),
+				Long.toString(System.currentTimeMillis()),
+				Long.toString(permits));
+	}
+
+	/**
+	 * Reserve permits with a single script call.
+	 * @param request The request holding the context, state and permits.
+	 * @param maxWaitNanos The longest the caller is willing to wait for the permits, rounded down to millis.
+	 * @param decision The decision to reset and fill, owned by the caller.
+	 * @return The passed in decision.
+	 * @throws RateLimitException thrown if the context cannot be loaded or redis could not be reached.
+	 */
+	@Override
+	public RateLimitDecision reserve(ContextStateRateLimitRequest request, long maxWaitNanos, RateLimitDecision decision)
+			throws RateLimitException {
+		GcraRateLimitContext context = this.getContextProvider().getContext(request.getContextKey());
+		decision.reset().context(context);
+		if(!this.isContextEnable(context)) {
+			return decision.deny(null, RateLimitDecision.RETRY_AFTER_UNKNOWN);
+		}
+
+		List<String> args = new ArrayList<>(this.args(context, request.getPermits()));
+		args.add(Long.toString(TimeUnit.NANOSECONDS.toMillis(Math.max(0, maxWaitNanos))));
+		List<Long> redisResult;
+		try {
+			redisResult = this.execute(context, request.getStateKey(), args).block();
+		}
+		catch (Exception e) {
+			throw new RateLimitException("An error occurred during rate limiting.", e);
+		}
+		return this.toDecision(redisResult, decision);
+	}
+
+	@Override
+	public Optional<GcraRateLimitState> getRateLimitState(AbstractRateLimitContext context, String stateKey) {
+		String value = this.redisTemplate.opsForValue().get(this.key(context.getContextKey(), stateKey)).block();
+		if(StringUtils.hasText(value)) {
+			long arrival = (long) (Double.parseDouble(value) * TimeUnit.MILLISECONDS.toNanos(1));
+			return Optional.of(new GcraRateLimitState(arrival));
+		}
+		return Optional.empty();
+	}
+
+	@Override
+	protected GcraRateLimitState createRateLimitState(GcraRateLimitContext context) {
+		return new GcraRateLimitState(TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis()));
+	}
+}
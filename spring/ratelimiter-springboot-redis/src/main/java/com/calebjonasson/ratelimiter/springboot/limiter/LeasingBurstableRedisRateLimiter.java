@@ -0,0 +1,119 @@
+package com.calebjonasson.ratelimiter.springboot.limiter;
+
+import com.calebjonasson.ratelimiter.core.common.exception.RateLimitException;
+import com.calebjonasson.ratelimiter.core.context.BurstableRateLimitContext;
+import com.calebjonasson.ratelimiter.core.context.ContextProvider;
+import com.calebjonasson.ratelimiter.core.lease.LeaseConfiguration;
+import com.calebjonasson.ratelimiter.core.lease.TokenLeaseCache;
+import com.calebjonasson.ratelimiter.core.request.ContextStateRateLimitRequest;
+import com.calebjonasson.ratelimiter.core.response.RateLimitDecision;
+import com.calebjonasson.ratelimiter.core.response.RateLimitHandleResponse;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A two tier redis rate limiter. Each node leases chunks of tokens from the redis bucket of a state and serves requests
+ * from its lease in memory, see {@link TokenLeaseCache} for the sizing of the leases and the error bound.
+ *
+ * Meant for high volume, low risk states where a round trip per request costs more than the bounded burst the leases
+ * allow.
+ */
+public class LeasingBurstableRedisRateLimiter<
+		CONTEXT extends BurstableRateLimitContext>
+		extends BurstableRedisRateLimiter<CONTEXT> {
+
+	/**
+	 * The leases held by this node.
+	 */
+	protected final TokenLeaseCache<BurstableRateLimitContext> leases;
+
+	/**
+	 * Create a new leasing redis rate limiter.
+	 * @param contextProvider The context we want to use for the rate limiter state configuration.
+	 * @param redisTemplate The redis template that is used to perform redis operations.
+	 * @param redisScript The redis lua script of the layout, see {@link RedisStateLayout#getScriptLocation()}.
+	 * @param stateLayout How the buckets are stored in redis.
+	 * @param leaseConfiguration The size, renewal and expiry rules of the leases.
+	 */
+	public LeasingBurstableRedisRateLimiter(
+			final ContextProvider contextProvider,
+			final ReactiveStringRedisTemplate redisTemplate,
+			final RedisScript redisScript,
+			final RedisStateLayout stateLayout,
+			final LeaseConfiguration leaseConfiguration) {
+		super(contextProvider, redisTemplate, redisScript, stateLayout, null);
+		this.leases = new TokenLeaseCache<>(new RedisTokenLeaseSource(redisTemplate, redisScript, stateLayout), leaseConfiguration);
+	}
+
+	/**
+	 * Handle the request without taking the limiter wide monitor, the leases are safe for concurrent use.
+	 * @param request The rate limit request we are looking to handle.
+	 * @return A {@link RateLimitHandleResponse} containing the state and available capacity.
+	 * @throws RateLimitException thrown if the rate limit is exceeded or another internal exception is thrown.
+	 */
+	@Override
+	public RateLimitHandleResponse handle(ContextStateRateLimitRequest request) throws RateLimitException {
+		return this.handleInternal(request);
+	}
+
+	/**
+	 * Handle a batch of requests from the leases without taking the limiter wide monitor.
+	 * @param requests The requests we are looking to handle.
+	 * @return A new {@link RateLimitDecision} per request in the iteration order of the requests.
+	 * @throws RateLimitException thrown if a context cannot be loaded or the tokens could not be leased.
+	 */
+	@Override
+	public List<RateLimitDecision> handleAll(Collection<ContextStateRateLimitRequest> requests) throws RateLimitException {
+		return this.handleAllInternal(requests);
+	}
+
+	/**
+	 * Acquire without taking the limiter wide monitor.
+	 * @param contextKey The context to use to group states under for configuration values.
+	 * @param stateKey The state we are grouping requests under.
+	 * @param permits The amount of permits to acquire, must be greater than 0.
+	 * @param decision The decision to reset and fill, owned by the caller.
+	 * @return The passed in decision.
+	 * @throws RateLimitException thrown if the context cannot be loaded or the tokens could not be leased.
+	 */
+	@Override
+	public RateLimitDecision tryAcquire(String contextKey, String stateKey, long permits, RateLimitDecision decision)
+			throws RateLimitException {
+		return this.tryAcquireInternal(contextKey, stateKey, permits, decision);
+	}
+
+	@Override
+	protected RateLimitDecision acquireInternal(CONTEXT context, String stateKey, long permits, RateLimitDecision decision)
+			throws RateLimitException {
+		decision.reset().context(context);
+
+		// Check to see if the context allows for rate limiting or if it's blocked.
+		if(!this.isContextEnable(context)) return decision.deny(null, RateLimitDecision.RETRY_AFTER_UNKNOWN);
+
+		return this.leases.tryAcquire(context, stateKey, permits, decision);
+	}
+
+	@Override
+	protected void pruneExpiredStates() {
+		// The buckets expire in redis, only the local leases are pruned.
+		this.leases.pruneExpiredLeases();
+	}
+
+	/**
+	 * @return true, the buckets expire in redis and idle leases are dropped as leases for new states are created.
+	 */
+	@Override
+	protected boolean isSelfPruning() {
+		return true;
+	}
+
+	/**
+	 * @return The leases held by this node.
+	 */
+	public TokenLeaseCache<BurstableRateLimitContext> getLeases() {
+		return this.leases;
+	}
+}
@@ -0,0 +1,92 @@
+package com.calebjonasson.ratelimiter.springboot.limiter;
+
+import com.calebjonasson.ratelimiter.core.context.BurstableRateLimitContext;
+import com.calebjonasson.ratelimiter.core.context.ReactiveContextProvider;
+import com.calebjonasson.ratelimiter.core.limiter.AbstractReactiveRateLimiter;
+import com.calebjonasson.ratelimiter.core.response.RateLimitDecision;
+import com.calebjonasson.ratelimiter.core.state.BurstableRateLimitState;
+import com.calebjonasson.ratelimiter.core.type.strategy.BurstableRateLimiterTypeStrategy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A non blocking redis implementation of the burstable rate limiter. It runs the same token bucket script as the
+ * {@link BurstableRedisRateLimiter} but returns the decision as part of the {@link Mono} instead of blocking on the reply,
+ * so it can be used from event loop threads, eg: in a webflux filter.
+ */
+public class ReactiveBurstableRedisRateLimiter<
+		CONTEXT extends BurstableRateLimitContext>
+		extends AbstractReactiveRateLimiter<BurstableRateLimiterTypeStrategy, CONTEXT, BurstableRateLimitState> {
+
+	private static final Logger log = LoggerFactory.getLogger(ReactiveBurstableRedisRateLimiter.class);
+
+	/**
+	 * The redis template provided by spring.
+	 */
+	protected final ReactiveStringRedisTemplate redisTemplate;
+
+	/**
+	 * Used to perform lua operations against the redis template.
+	 */
+	protected final RedisScript redisScript;
+
+	/**
+	 * How the buckets are stored in redis.
+	 */
+	protected final RedisStateLayout stateLayout;
+
+	/**
+	 * Create a new reactive redis rate limiter.
+	 * @param contextProvider The provider the contexts are loaded from.
+	 * @param redisTemplate The redis template that is used to perform redis operations.
+	 * @param redisScript The redis lua script used to perform burstable rate limiting.
+	 */
+	public ReactiveBurstableRedisRateLimiter(
+			final ReactiveContextProvider<BurstableRateLimiterTypeStrategy, CONTEXT> contextProvider,
+			final ReactiveStringRedisTemplate redisTemplate,
+			final RedisScript redisScript) {
+		this(contextProvider, redisTemplate, redisScript, RedisStateLayout.STRING_KEYS);
+	}
+
+	/**
+	 * Create a new reactive redis rate limiter that stores its buckets with the provided layout.
+	 * @param contextProvider The provider the contexts are loaded from.
+	 * @param redisTemplate The redis template that is used to perform redis operations.
+	 * @param redisScript The redis lua script of the layout, see {@link RedisStateLayout#getScriptLocation()}.
+	 * @param stateLayout How the buckets are stored in redis.
+	 */
+	public ReactiveBurstableRedisRateLimiter(
+			final ReactiveContextProvider<BurstableRateLimiterTypeStrategy, CONTEXT> contextProvider,
+			final ReactiveStringRedisTemplate redisTemplate,
+			final RedisScript redisScript,
+			final RedisStateLayout stateLayout) {
+		super(contextProvider);
+		this.redisTemplate = redisTemplate;
+		this.redisScript = redisScript;
+		this.stateLayout = stateLayout;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	protected Mono<RateLimitDecision> decide(CONTEXT context, String stateKey, long permits, RateLimitDecision decision) {
+		List<String> keys = this.stateLayout.keys(context.getContextKey(), stateKey);
+		List<String> args = this.stateLayout.args(context, permits);
+
+		Flux<List<Long>> flux = this.redisTemplate.execute(this.redisScript, keys, args);
+		return flux.onErrorResume(throwable -> {
+			// Allow the traffic through rather than failing every request while redis is unavailable.
+			log.info("error calling rate limiter lua", throwable);
+			return Flux.just(RedisTokenBucket.FALLBACK_REPLY);
+		}).reduce(new ArrayList<Long>(), (longs, l) -> {
+			longs.addAll(l);
+			return longs;
+		}).map(result -> RedisTokenBucket.toDecision(context, permits, result, decision));
+	}
+}
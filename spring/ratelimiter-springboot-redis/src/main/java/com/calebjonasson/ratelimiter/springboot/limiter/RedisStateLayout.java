@@ -0,0 +1,84 @@
+package com.calebjonasson.ratelimiter.springboot.limiter;
+
+import com.calebjonasson.ratelimiter.core.context.BurstableRateLimitContext;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * How the token bucket of a state is stored in redis. Each layout has its own lua script, the script and the layout of a
+ * limiter have to match.
+ */
+public enum RedisStateLayout {
+
+	/**
+	 * Two string keys per bucket, `<contextKey>.{<stateKey>}.tokens` and `.timestamp`, refilled once a second and
+	 * expired with SETEX.
+	 */
+	STRING_KEYS("META-INF/scripts/request_rate_limiter.lua") {
+		@Override
+		public List<String> keys(String contextKey, String stateKey) {
+			String prefix = RedisTokenBucket.keyPrefix(contextKey, stateKey);
+			return Arrays.asList(prefix + "." + RedisTokenBucket.REDIS_PROPERTY_TOKENS,
+					prefix + "." + RedisTokenBucket.REDIS_PROPERTY_TIMESTAMP);
+		}
+
+		@Override
+		public List<String> args(BurstableRateLimitContext context, long permits) {
+			// time() returns unixtime in seconds.
+			return Arrays.asList((int)context.getReplenishRate() + "", (int)context.getBurstCapacity() + "",
+					Instant.now().getEpochSecond() + "", permits + "");
+		}
+	},
+
+	/**
+	 * A single hash per bucket, `<contextKey>.{<stateKey>}` with the fields t and ts, refilled with millisecond precision
+	 * and expired with PEXPIRE. Halves the keys and the expiry bookkeeping of {@link #STRING_KEYS}.
+	 */
+	HASH("META-INF/scripts/request_rate_limiter_hash.lua") {
+		@Override
+		public List<String> keys(String contextKey, String stateKey) {
+			return Collections.singletonList(RedisTokenBucket.keyPrefix(contextKey, stateKey));
+		}
+
+		@Override
+		public List<String> args(BurstableRateLimitContext context, long permits) {
+			return Arrays.asList(context.getReplenishRate() + "", context.getBurstCapacity() + "",
+					System.currentTimeMillis() + "", permits + "");
+		}
+	};
+
+	/**
+	 * The class path location of the lua script of the layout.
+	 */
+	private final String scriptLocation;
+
+	RedisStateLayout(String scriptLocation) {
+		this.scriptLocation = scriptLocation;
+	}
+
+	/**
+	 * @return The class path location of the lua script of the layout.
+	 */
+	public String getScriptLocation() {
+		return this.scriptLocation;
+	}
+
+	/**
+	 * The keys passed to the script.
+	 * @param contextKey The context key of the request.
+	 * @param stateKey The state key of the request.
+	 * @return The keys the bucket of the state is stored under.
+	 */
+	public abstract List<String> keys(String contextKey, String stateKey);
+
+	/**
+	 * The arguments passed to the script.
+	 * @param context The context that holds the replenish rate and burst capacity.
+	 * @param permits The amount of tokens requested.
+	 * @return The rate, capacity, now and requested arguments.
+	 */
+	public abstract List<String> args(BurstableRateLimitContext context, long permits);
+}
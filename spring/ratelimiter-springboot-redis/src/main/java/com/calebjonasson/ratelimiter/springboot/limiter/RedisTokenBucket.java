@@ -0,0 +1,66 @@
+package com.calebjonasson.ratelimiter.springboot.limiter;
+
+import com.calebjonasson.ratelimiter.core.context.BurstableRateLimitContext;
+import com.calebjonasson.ratelimiter.core.response.RateLimitDecision;
+import com.calebjonasson.ratelimiter.core.state.BurstableRateLimitState;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The keys and reply of the token bucket lua scripts shared by the blocking and reactive redis limiters, see
+ * {@link RedisStateLayout} for the keys and arguments of each layout.
+ */
+final class RedisTokenBucket {
+
+	static final String REDIS_PROPERTY_TOKENS = "tokens";
+	static final String REDIS_PROPERTY_TIMESTAMP = "timestamp";
+	static final String REDIS_HASH_FIELD_TOKENS = "t";
+
+	/**
+	 * The reply used when the script could not be run, the request is allowed with an unknown amount of tokens left.
+	 */
+	static final List<Long> FALLBACK_REPLY = Arrays.asList(1L, -1L, 0L);
+
+	/**
+	 * The retry after in the reply of a request that can never be allowed.
+	 */
+	static final long SCRIPT_RETRY_AFTER_NEVER = -1;
+
+	private RedisTokenBucket() {
+	}
+
+	/**
+	 * Generate a redis key prefix.
+	 * @param contextKey The context key that we are looking to generate.
+	 * @param stateKey The specific state that we are creating a key with.
+	 * @return a string that resembles `<contextKey>.{<stateKey>}` without the `<>`
+	 */
+	static String keyPrefix(String contextKey, String stateKey) {
+		return contextKey + ".{" + stateKey + "}";
+	}
+
+	/**
+	 * Fill a decision from the reply of the token bucket script.
+	 * @param context The context that holds the replenish rate and burst capacity.
+	 * @param permits The amount of tokens requested.
+	 * @param redisResult The allowed flag, the tokens left and the retry after in millis, or the wait of reserved tokens.
+	 * @param decision The decision to fill.
+	 * @return The passed in decision.
+	 */
+	static RateLimitDecision toDecision(BurstableRateLimitContext context, long permits, List<Long> redisResult,
+			RateLimitDecision decision) {
+		BurstableRateLimitState result = BurstableRateLimitState.builder().tokens(redisResult.get(1)).build().refresh();
+		if(redisResult.get(0) == 1L) {
+			long wait = redisResult.size() > 2 ? redisResult.get(2) : 0;
+			if(wait > 0) {
+				return decision.reserve(result, 0, TimeUnit.MILLISECONDS.toNanos(wait));
+			}
+			return decision.allow(result, Math.max(0, redisResult.get(1)));
+		}
+
+		long retryAfter = redisResult.get(2);
+		return decision.deny(result, retryAfter == SCRIPT_RETRY_AFTER_NEVER ? RateLimitDecision.RETRY_AFTER_NEVER : retryAfter);
+	}
+}
@@ -0,0 +1,66 @@
+package com.calebjonasson.ratelimiter.springboot.limiter;
+
+import com.calebjonasson.ratelimiter.core.context.BurstableRateLimitContext;
+import com.calebjonasson.ratelimiter.core.lease.LeaseGrant;
+import com.calebjonasson.ratelimiter.core.lease.TokenLeaseSource;
+import com.calebjonasson.ratelimiter.core.response.RateLimitDecision;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Leases tokens from the redis bucket of a state by running the token bucket script in lease mode. The script takes as
+ * many of the requested tokens as are available in one atomic call, none if fewer than the minimum are.
+ */
+public class RedisTokenLeaseSource implements TokenLeaseSource<BurstableRateLimitContext> {
+
+	/**
+	 * The redis template provided by spring.
+	 */
+	private final ReactiveStringRedisTemplate redisTemplate;
+
+	/**
+	 * The redis lua script of the layout.
+	 */
+	private final RedisScript redisScript;
+
+	/**
+	 * How the buckets are stored in redis.
+	 */
+	private final RedisStateLayout stateLayout;
+
+	/**
+	 * Create a new redis lease source.
+	 * @param redisTemplate The redis template that is used to perform redis operations.
+	 * @param redisScript The redis lua script of the layout, see {@link RedisStateLayout#getScriptLocation()}.
+	 * @param stateLayout How the buckets are stored in redis.
+	 */
+	public RedisTokenLeaseSource(final ReactiveStringRedisTemplate redisTemplate, final RedisScript redisScript,
+			final RedisStateLayout stateLayout) {
+		this.redisTemplate = redisTemplate;
+		this.redisScript = redisScript;
+		this.stateLayout = stateLayout;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public CompletableFuture<LeaseGrant> lease(BurstableRateLimitContext context, String stateKey, long minimum, long requested) {
+		List<String> keys = this.stateLayout.keys(context.getContextKey(), stateKey);
+		List<String> args = new ArrayList<>(this.stateLayout.args(context, requested));
+		args.add(minimum + "");
+
+		Flux<List<Long>> flux = this.redisTemplate.execute(this.redisScript, keys, args);
+		return flux.reduce(new ArrayList<Long>(), (longs, l) -> {
+			longs.addAll(l);
+			return longs;
+		}).map(reply -> {
+			long retryAfter = reply.get(2);
+			return new LeaseGrant(reply.get(0),
+					retryAfter == RedisTokenBucket.SCRIPT_RETRY_AFTER_NEVER ? RateLimitDecision.RETRY_AFTER_NEVER : retryAfter);
+		}).toFuture();
+	}
+}
@@ -0,0 +1,243 @@
+package com.calebjonasson.ratelimiter.springboot.limiter;
+
+import com.calebjonasson.ratelimiter.core.common.exception.RateLimitException;
+import com.calebjonasson.ratelimiter.core.context.ContextProvider;
+import com.calebjonasson.ratelimiter.core.limiter.AbstractRateLimiter;
+import com.calebjonasson.ratelimiter.core.model.context.AbstractRateLimitContext;
+import com.calebjonasson.ratelimiter.core.model.state.RateLimitState;
+import com.calebjonasson.ratelimiter.core.request.ContextStateRateLimitRequest;
+import com.calebjonasson.ratelimiter.core.response.RateLimitDecision;
+import com.calebjonasson.ratelimiter.core.response.RateLimitHandleResponse;
+import com.calebjonasson.ratelimiter.core.type.strategy.RateLimiterTypeStrategy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A redis rate limiter that decides every request with a single call of a lua script over one key per state.
+ *
+ * The script is run with the key of the state, the arguments of {@link #args(AbstractRateLimitContext, long)} and
+ * replies with the allowed flag, the permits left and the retry after in millis, -1 if the permits can never be
+ * acquired. A script that reserves permits ahead of time replies allowed with the wait in millis in place of the retry
+ * after. States expire in redis once they are equivalent to new states so nothing is pruned.
+ */
+public abstract class ScriptRedisRateLimiter<
+		TYPE extends RateLimiterTypeStrategy,
+		CONTEXT extends AbstractRateLimitContext<TYPE>,
+		STATE extends RateLimitState<TYPE>>
+		extends AbstractRateLimiter<TYPE, CONTEXT, STATE> {
+
+	private static final Logger log = LoggerFactory.getLogger(ScriptRedisRateLimiter.class);
+
+	/**
+	 * The redis template provided by spring.
+	 */
+	protected final ReactiveStringRedisTemplate redisTemplate;
+
+	/**
+	 * The script that decides the requests.
+	 */
+	protected final RedisScript redisScript;
+
+	/**
+	 * Create a new script redis rate limiter.
+	 * @param contextProvider The context we want to use for the rate limiter state configuration.
+	 * @param redisTemplate The redis template that is used to perform redis operations.
+	 * @param redisScript The redis lua script that decides the requests.
+	 */
+	public ScriptRedisRateLimiter(
+			final ContextProvider contextProvider,
+			final ReactiveStringRedisTemplate redisTemplate,
+			final RedisScript redisScript) {
+		super(contextProvider);
+		this.redisTemplate = redisTemplate;
+		this.redisScript = redisScript;
+	}
+
+	/**
+	 * Generate the key of a state.
+	 * @param contextKey The context key of the state.
+	 * @param stateKey The state key of the state.
+	 * @return The redis key the state is stored under.
+	 */
+	protected abstract String key(String contextKey, String stateKey);
+
+	/**
+	 * Build the arguments of the script.
+	 * @param context The context that holds the limits.
+	 * @param permits The amount of permits requested.
+	 * @return The arguments of the script call.
+	 */
+	protected abstract List<String> args(CONTEXT context, long permits);
+
+	/**
+	 * Handle the request without taking the limiter wide monitor, the script updates the state atomically.
+	 * @param request The rate limit request we are looking to handle.
+	 * @return A {@link RateLimitHandleResponse} containing the state and available capacity.
+	 * @throws RateLimitException thrown if the rate limit is exceeded or redis could not be reached.
+	 */
+	@Override
+	public RateLimitHandleResponse handle(ContextStateRateLimitRequest request) throws RateLimitException {
+		return this.handleInternal(request);
+	}
+
+	/**
+	 * Acquire without taking the limiter wide monitor, the script updates the state atomically.
+	 * @param contextKey The context to use to group states under for configuration values.
+	 * @param stateKey The state we are grouping requests under.
+	 * @param permits The amount of permits to acquire, must be greater than 0.
+	 * @param decision The decision to reset and fill, owned by the caller.
+	 * @return The passed in decision.
+	 * @throws RateLimitException thrown if the context cannot be loaded or redis could not be reached.
+	 */
+	@Override
+	public RateLimitDecision tryAcquire(String contextKey, String stateKey, long permits, RateLimitDecision decision)
+			throws RateLimitException {
+		return this.tryAcquireInternal(contextKey, stateKey, permits, decision);
+	}
+
+	/**
+	 * The script reads, validates and updates the state itself so the state is not loaded up front.
+	 * @param context The context of the request.
+	 * @param stateKey The state key that we are updating.
+	 * @param permits The amount of permits requested, always greater than 0.
+	 * @param decision The decision to fill.
+	 * @return The passed in decision.
+	 * @throws RateLimitException thrown if redis could not be reached.
+	 */
+	@Override
+	protected RateLimitDecision acquireInternal(CONTEXT context, String stateKey, long permits, RateLimitDecision decision)
+			throws RateLimitException {
+		decision.reset().context(context);
+
+		// Check to see if the context allows for rate limiting or if it's blocked.
+		if(!this.isContextEnable(context)) return decision.deny(null, RateLimitDecision.RETRY_AFTER_UNKNOWN);
+
+		return this.decide(context, stateKey, permits, null, decision);
+	}
+
+	@Override
+	protected RateLimitDecision decide(CONTEXT context, String stateKey, long permits, STATE state, RateLimitDecision decision)
+			throws RateLimitException {
+
+		List<Long> redisResult;
+		try {
+			redisResult = this.execute(context, stateKey, permits).block();
+		}
+		catch (Exception e) {
+			throw new RateLimitException("An error occurred during rate limiting.", e);
+		}
+		return this.toDecision(redisResult, decision);
+	}
+
+	/**
+	 * Handle a batch of requests with a single round trip, see
+	 * {@link BurstableRedisRateLimiter#handleAll(Collection)}.
+	 * @param requests The requests we are looking to handle.
+	 * @return A new {@link RateLimitDecision} per request in the iteration order of the requests.
+	 * @throws RateLimitException thrown if a context cannot be loaded or redis could not be reached.
+	 */
+	@Override
+	public List<RateLimitDecision> handleAll(Collection<ContextStateRateLimitRequest> requests) throws RateLimitException {
+		List<CONTEXT> contexts = this.loadContexts(requests);
+		List<RateLimitDecision> decisions = new ArrayList<>(requests.size());
+		List<Mono<RateLimitDecision>> pending = new ArrayList<>(requests.size());
+
+		int index = 0;
+		for(ContextStateRateLimitRequest request : requests) {
+			CONTEXT context = contexts.get(index++);
+			RateLimitDecision decision = new RateLimitDecision().context(context);
+			decisions.add(decision);
+
+			if(!this.isContextEnable(context)) {
+				decision.deny(null, RateLimitDecision.RETRY_AFTER_UNKNOWN);
+				continue;
+			}
+			pending.add(this.execute(context, request.getStateKey(), request.getPermits())
+					.map(result -> this.toDecision(result, decision)));
+		}
+
+		try {
+			Flux.merge(pending).then().block();
+		}
+		catch (Exception e) {
+			throw new RateLimitException("An error occurred during rate limiting.", e);
+		}
+		return decisions;
+	}
+
+	/**
+	 * Run the script for a state.
+	 * @param context The context that holds the limits.
+	 * @param stateKey The state key that we are updating.
+	 * @param permits The amount of permits requested. All of them are taken by the single script call or none are.
+	 * @return The allowed flag, the permits left and the retry after, allowed with -1 permits left if the script failed.
+	 */
+	protected Mono<List<Long>> execute(CONTEXT context, String stateKey, long permits) {
+		return this.execute(context, stateKey, this.args(context, permits));
+	}
+
+	/**
+	 * Run the script for a state with custom arguments.
+	 * @param context The context that holds the limits.
+	 * @param stateKey The state key that we are updating.
+	 * @param args The arguments of the script call.
+	 * @return The allowed flag, the permits left and the retry after, allowed with -1 permits left if the script failed.
+	 */
+	protected Mono<List<Long>> execute(CONTEXT context, String stateKey, List<String> args) {
+		List<String> keys = Collections.singletonList(this.key(context.getContextKey(), stateKey));
+
+		Flux<List<Long>> flux = this.redisTemplate.execute(this.redisScript, keys, args);
+		return flux.onErrorResume(throwable -> {
+			if (log.isDebugEnabled()) {
+				log.debug("Error calling rate limiter lua, allowing the request", throwable);
+			} else {
+				log.warn("Error calling rate limiter lua, allowing the request: {}", throwable.toString());
+			}
+			return Flux.just(RedisTokenBucket.FALLBACK_REPLY);
+		}).reduce(new ArrayList<Long>(), (longs, l) -> {
+			longs.addAll(l);
+			return longs;
+		});
+	}
+
+	/**
+	 * Fill a decision from the reply of the script.
+	 * @param redisResult The allowed flag, the permits left and the retry after in millis, or the wait of reserved
+	 *                    permits.
+	 * @param decision The decision to fill.
+	 * @return The passed in decision.
+	 */
+	protected RateLimitDecision toDecision(List<Long> redisResult, RateLimitDecision decision) {
+		if(redisResult.get(0) == 1L) {
+			long wait = redisResult.size() > 2 ? redisResult.get(2) : 0;
+			if(wait > 0) {
+				return decision.reserve(null, 0, TimeUnit.MILLISECONDS.toNanos(wait));
+			}
+			return decision.allow(null, Math.max(0, redisResult.get(1)));
+		}
+		long retryAfter = redisResult.get(2);
+		return decision.deny(null, retryAfter == RedisTokenBucket.SCRIPT_RETRY_AFTER_NEVER ? RateLimitDecision.RETRY_AFTER_NEVER : retryAfter);
+	}
+
+	@Override
+	protected boolean isValid(Optional<STATE> state) {
+		return Objects.nonNull(state) && state.isPresent();
+	}
+
+	@Override
+	protected void pruneExpiredStates() {
+		// Every state is written with an expiry for when it is equivalent to a new state.
+	}
+
+	@Override
+	protected boolean isSelfPruning() {
+		return true;
+	}
+}
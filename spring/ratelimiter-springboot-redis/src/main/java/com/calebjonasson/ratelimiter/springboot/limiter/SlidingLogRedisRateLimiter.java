@@ -0,0 +1,107 @@
+package com.calebjonasson.ratelimiter.springboot.limiter;
+
+import com.calebjonasson.ratelimiter.core.context.ContextProvider;
+import com.calebjonasson.ratelimiter.core.context.SlidingLogRateLimitContext;
+import com.calebjonasson.ratelimiter.core.model.context.AbstractRateLimitContext;
+import com.calebjonasson.ratelimiter.core.state.SlidingLogRateLimitState;
+import com.calebjonasson.ratelimiter.core.type.strategy.SlidingLogRateLimiterTypeStrategy;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * A redis implementation of the exact sliding log rate limiter, see the {@code SlidingLogInMemoryRateLimiter}.
+ *
+ * A state is a single sorted set with a member per admitted permit scored by the epoch millis it was admitted at. The
+ * script trims the members that left the window before counting, so the set never holds more than the limit of its
+ * context, and the set expires once its latest member has left the window. Each member costs far more than the 4 bytes
+ * of the in memory log, so this suits low limits over long windows.
+ */
+public class SlidingLogRedisRateLimiter
+		extends ScriptRedisRateLimiter<SlidingLogRateLimiterTypeStrategy, SlidingLogRateLimitContext, SlidingLogRateLimitState> {
+
+	/**
+	 * The location of the script on the classpath.
+	 */
+	public static final String SCRIPT_LOCATION = "META-INF/scripts/sliding_log_rate_limiter.lua";
+
+	/**
+	 * The suffix of the key holding the log.
+	 */
+	static final String REDIS_PROPERTY_LOG = "log";
+
+	/**
+	 * Create a new sliding log redis rate limiter.
+	 * @param contextProvider The context we want to use for the rate limiter state configuration.
+	 * @param redisTemplate The redis template that is used to perform redis operations.
+	 * @param redisScript The redis lua script loaded from {@link #SCRIPT_LOCATION}.
+	 */
+	public SlidingLogRedisRateLimiter(
+			final ContextProvider contextProvider,
+			final ReactiveStringRedisTemplate redisTemplate,
+			final RedisScript redisScript) {
+		super(contextProvider, redisTemplate, redisScript);
+	}
+
+	/**
+	 * Generate the key of a state.
+	 * @param contextKey The context key of the state.
+	 * @param stateKey The state key of the state.
+	 * @return a string that resembles `<contextKey>.{<stateKey>}.log` without the `<>`
+	 */
+	@Override
+	protected String key(String contextKey, String stateKey) {
+		return RedisTokenBucket.keyPrefix(contextKey, stateKey) + "." + REDIS_PROPERTY_LOG;
+	}
+
+	/**
+	 * @param context The context that holds the limit and interval.
+	 * @param permits The amount of permits requested.
+	 * @return The limit, the interval in millis, the current epoch millis and the permits.
+	 */
+	@Override
+	protected List<String> args(SlidingLogRateLimitContext context, long permits) {
+		return Arrays.asList(
+				Long.toString(context.getLimit()),
+				Long.toString(context.getInterval()),
+				Long.toString(System.currentTimeMillis()),
+				Long.toString(permits));
+	}
+
+	/**
+	 * Read the log of a state into a {@link SlidingLogRateLimitState}.
+	 * @param context The context of the state.
+	 * @param stateKey The state key of the state.
+	 * @return The requests still inside the window as of now, or empty if the state has expired.
+	 */
+	@Override
+	public Optional<SlidingLogRateLimitState> getRateLimitState(AbstractRateLimitContext context, String stateKey) {
+		SlidingLogRateLimitContext slidingLog = (SlidingLogRateLimitContext) context;
+		double cutoff = System.currentTimeMillis() - slidingLog.getInterval();
+		List<ZSetOperations.TypedTuple<String>> members = this.redisTemplate.opsForZSet()
+				.rangeByScoreWithScores(this.key(context.getContextKey(), stateKey), Range.rightUnbounded(Range.Bound.exclusive(cutoff)))
+				.collectList()
+				.block();
+		if(members == null || members.isEmpty()) {
+			return Optional.empty();
+		}
+
+		SlidingLogRateLimitState state = new SlidingLogRateLimitState();
+		int limit = (int) Math.min(Integer.MAX_VALUE, Math.max(slidingLog.getLimit(), members.size()));
+		for(ZSetOperations.TypedTuple<String> member : members) {
+			state.append(member.getScore().longValue(), 1, limit);
+		}
+		state.setExpiresAt(state.newest() + slidingLog.getInterval());
+		return Optional.of(state);
+	}
+
+	@Override
+	protected SlidingLogRateLimitState createRateLimitState(SlidingLogRateLimitContext context) {
+		return new SlidingLogRateLimitState();
+	}
+}
@@ -0,0 +1,130 @@
+package com.calebjonasson.ratelimiter.springboot.limiter;
+
+import com.calebjonasson.ratelimiter.core.context.ContextProvider;
+import com.calebjonasson.ratelimiter.core.context.SlidingWindowRateLimitContext;
+import com.calebjonasson.ratelimiter.core.model.context.AbstractRateLimitContext;
+import com.calebjonasson.ratelimiter.core.state.SlidingWindowRateLimitState;
+import com.calebjonasson.ratelimiter.core.type.strategy.SlidingWindowRateLimiterTypeStrategy;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A redis implementation of the sliding window rate limiter with the same estimate as the
+ * {@code SlidingWindowInMemoryRateLimiter}.
+ *
+ * A state is a single hash with a field per sub window that still holds counted requests, so it never holds more than
+ * the sub windows of its context plus one. The script reads the hash, deletes the sub windows that left the window and
+ * counts the request in the current one, and the hash expires once every counted request has left the window. Sub
+ * windows are at least a millisecond long.
+ */
+public class SlidingWindowRedisRateLimiter
+		extends ScriptRedisRateLimiter<SlidingWindowRateLimiterTypeStrategy, SlidingWindowRateLimitContext, SlidingWindowRateLimitState> {
+
+	/**
+	 * The location of the script on the classpath.
+	 */
+	public static final String SCRIPT_LOCATION = "META-INF/scripts/sliding_window_rate_limiter.lua";
+
+	/**
+	 * The suffix of the key holding the sub windows.
+	 */
+	static final String REDIS_PROPERTY_SUB_WINDOWS = "sw";
+
+	/**
+	 * Create a new sliding window redis rate limiter.
+	 * @param contextProvider The context we want to use for the rate limiter state configuration.
+	 * @param redisTemplate The redis template that is used to perform redis operations.
+	 * @param redisScript The redis lua script loaded from {@link #SCRIPT_LOCATION}.
+	 */
+	public SlidingWindowRedisRateLimiter(
+			final ContextProvider contextProvider,
+			final ReactiveStringRedisTemplate redisTemplate,
+			final RedisScript redisScript) {
+		super(contextProvider, redisTemplate, redisScript);
+	}
+
+	/**
+	 * Generate the key of a state.
+	 * @param contextKey The context key of the state.
+	 * @param stateKey The state key of the state.
+	 * @return a string that resembles `<contextKey>.{<stateKey>}.sw` without the `<>`
+	 */
+	@Override
+	protected String key(String contextKey, String stateKey) {
+		return RedisTokenBucket.keyPrefix(contextKey, stateKey) + "." + REDIS_PROPERTY_SUB_WINDOWS;
+	}
+
+	/**
+	 * @param context The context that holds the limit, interval and sub windows.
+	 * @param permits The amount of permits requested.
+	 * @return The limit, the length of a sub window in millis, the amount of sub windows, the current epoch millis and
+	 * the permits.
+	 */
+	@Override
+	protected List<String> args(SlidingWindowRateLimitContext context, long permits) {
+		return Arrays.asList(
+				Long.toString(context.getLimit()),
+				Long.toString(subWindowLength(context)),
+				Integer.toString(subWindows(context)),
+				Long.toString(System.currentTimeMillis()),
+				Long.toString(permits));
+	}
+
+	/**
+	 * Read the sub windows of a state into a {@link SlidingWindowRateLimitState}.
+	 * @param context The context of the state.
+	 * @param stateKey The state key of the state.
+	 * @return The sub windows still inside the window as of now, or empty if the state has expired.
+	 */
+	@Override
+	public Optional<SlidingWindowRateLimitState> getRateLimitState(AbstractRateLimitContext context, String stateKey) {
+		Map<Object, Object> fields = this.redisTemplate.opsForHash().entries(this.key(context.getContextKey(), stateKey))
+				.collectMap(Map.Entry::getKey, Map.Entry::getValue)
+				.block();
+		if(fields == null || fields.isEmpty()) {
+			return Optional.empty();
+		}
+
+		SlidingWindowRateLimitContext slidingWindow = (SlidingWindowRateLimitContext) context;
+		int subWindows = subWindows(slidingWindow);
+		long length = subWindowLength(slidingWindow);
+		long current = System.currentTimeMillis() / length;
+		SlidingWindowRateLimitState state = new SlidingWindowRateLimitState(subWindows, TimeUnit.MILLISECONDS.toNanos(length), current);
+		long[] counts = state.getCounts();
+		for(Map.Entry<Object, Object> field : fields.entrySet()) {
+			long subWindow = Long.parseLong(field.getKey().toString());
+			long count = Long.parseLong(field.getValue().toString());
+			if(subWindow >= current - subWindows && subWindow <= current) {
+				counts[(int) (subWindow % counts.length)] = count;
+				if(subWindow > current - subWindows) {
+					state.setTotal(state.getTotal() + count);
+				}
+			}
+		}
+		return Optional.of(state);
+	}
+
+	@Override
+	protected SlidingWindowRateLimitState createRateLimitState(SlidingWindowRateLimitContext context) {
+		long length = subWindowLength(context);
+		return new SlidingWindowRateLimitState(subWindows(context), TimeUnit.MILLISECONDS.toNanos(length),
+				System.currentTimeMillis() / length);
+	}
+
+	private static int subWindows(SlidingWindowRateLimitContext context) {
+		return Math.max(1, context.getSubWindows());
+	}
+
+	/**
+	 * @return The length of a sub window in millis.
+	 */
+	private static long subWindowLength(SlidingWindowRateLimitContext context) {
+		return Math.max(1, context.getInterval() / subWindows(context));
+	}
+}
@@ -0,0 +1,98 @@
+package com.calebjonasson.ratelimiter.springboot.pipeline;
+
+import com.calebjonasson.ratelimiter.core.pipeline.PipelineTransport;
+import org.springframework.data.redis.connection.ReactiveRedisConnection;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.connection.ReactiveScriptingCommands;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.script.RedisScript;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Sends a batch of calls to a lua script as back to back EVALSHA commands over a single reactive connection.
+ *
+ * Every call of the batch is subscribed to at once so the driver writes all of the commands before any reply is read.
+ * A call that fails with NOSCRIPT, eg: after a redis restart or a SCRIPT FLUSH, loads the script and is retried once.
+ */
+public class EvalShaPipelineTransport implements PipelineTransport<ScriptCall, List<Long>>, AutoCloseable {
+
+	/**
+	 * The prefix of the error returned by redis when the sha is not in its script cache.
+	 */
+	private static final String NO_SCRIPT = "NOSCRIPT";
+
+	/**
+	 * The connection every batch is sent over.
+	 */
+	private final ReactiveRedisConnection connection;
+
+	/**
+	 * The script that is called.
+	 */
+	private final RedisScript<?> script;
+
+	/**
+	 * Open a connection for the transport.
+	 * @param connectionFactory The factory used to open the connection.
+	 * @param script The script that is called.
+	 */
+	public EvalShaPipelineTransport(final ReactiveRedisConnectionFactory connectionFactory, final RedisScript<?> script) {
+		this.connection = connectionFactory.getReactiveConnection();
+		this.script = script;
+	}
+
+	@Override
+	public List<List<Long>> send(List<ScriptCall> calls) {
+		ReactiveScriptingCommands scripting = this.connection.scriptingCommands();
+		return Flux.fromIterable(calls)
+				.flatMapSequential(call -> this.evalSha(scripting, call)
+						.onErrorResume(this::isNoScript, e -> this.load(scripting).then(this.evalSha(scripting, call))),
+						Math.max(1, calls.size()))
+				.collectList()
+				.block();
+	}
+
+	/**
+	 * Call the script by its sha.
+	 * @param scripting The scripting commands of the connection.
+	 * @param call The keys and arguments of the call.
+	 * @return The values returned by the script.
+	 */
+	private Mono<List<Long>> evalSha(ReactiveScriptingCommands scripting, ScriptCall call) {
+		return scripting.evalSha(this.script.getSha1(), ReturnType.MULTI, call.getKeys().size(), call.keysAndArgs())
+				.cast(Long.class)
+				.collectList();
+	}
+
+	/**
+	 * Load the script into the script cache of redis.
+	 * @param scripting The scripting commands of the connection.
+	 * @return The sha of the loaded script.
+	 */
+	private Mono<String> load(ReactiveScriptingCommands scripting) {
+		return scripting.scriptLoad(ByteBuffer.wrap(this.script.getScriptAsString().getBytes(StandardCharsets.UTF_8)));
+	}
+
+	/**
+	 * @param throwable The error returned for a call.
+	 * @return true if redis did not know the sha of the script.
+	 */
+	private boolean isNoScript(Throwable throwable) {
+		for(Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+			if(cause.getMessage() != null && cause.getMessage().contains(NO_SCRIPT)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public void close() {
+		this.connection.close();
+	}
+}
@@ -0,0 +1,39 @@
+package com.calebjonasson.ratelimiter.springboot.pipeline;
+
+import lombok.Data;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * A single invocation of a lua script queued on a {@link com.calebjonasson.ratelimiter.core.pipeline.CommandPipeline}.
+ */
+@Data
+public class ScriptCall {
+
+	/**
+	 * The redis keys passed to the script.
+	 */
+	private final List<String> keys;
+
+	/**
+	 * The arguments passed to the script.
+	 */
+	private final List<String> args;
+
+	/**
+	 * @return The keys followed by the arguments encoded as the wire format of EVALSHA expects them.
+	 */
+	public ByteBuffer[] keysAndArgs() {
+		ByteBuffer[] keysAndArgs = new ByteBuffer[this.keys.size() + this.args.size()];
+		int index = 0;
+		for(String key : this.keys) {
+			keysAndArgs[index++] = ByteBuffer.wrap(key.getBytes(StandardCharsets.UTF_8));
+		}
+		for(String arg : this.args) {
+			keysAndArgs[index++] = ByteBuffer.wrap(arg.getBytes(StandardCharsets.UTF_8));
+		}
+		return keysAndArgs;
+	}
+}
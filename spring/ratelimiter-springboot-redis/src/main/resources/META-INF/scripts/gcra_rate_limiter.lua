@@ -0,0 +1,40 @@
+-- The generic cell rate algorithm. A state is a single string key holding the theoretical arrival time in epoch millis,
+-- the time the next permit is due, read with one GET and written with one SET that expires the key once the full burst
+-- is available again.
+--
+-- A request may reserve permits past the burst by passing how long the caller is willing to wait for them, in millis.
+-- The arrival time is moved forward anyway and the reply is allowed with the wait in place of the retry after.
+local key = KEYS[1]
+
+local emission_interval = tonumber(ARGV[1])
+local burst_capacity = tonumber(ARGV[2])
+local now = tonumber(ARGV[3])
+local requested = tonumber(ARGV[4])
+local max_wait = tonumber(ARGV[5]) or 0
+
+if emission_interval <= 0 or requested > burst_capacity then
+  -- The permits will never be emitted or can never be taken at once.
+  return { 0, 0, -1 }
+end
+
+local tolerance = emission_interval * burst_capacity
+
+-- A missing key or a time that has passed is a full burst. The clocks of the callers can drift apart, never move the
+-- state back in time.
+local tat = tonumber(redis.call("get", key))
+if tat == nil or tat < now then
+  tat = now
+end
+
+local new_tat = tat + requested * emission_interval
+local needed = new_tat - now
+local wait = needed - tolerance
+if wait > max_wait then
+  return { 0, math.floor((tolerance - (tat - now)) / emission_interval), math.ceil(needed - tolerance) }
+end
+
+redis.call("set", key, string.format("%.3f", new_tat), "PX", math.ceil(needed))
+if wait > 0 then
+  return { 1, 0, math.ceil(wait) }
+end
+return { 1, math.floor((tolerance - needed) / emission_interval), 0 }
@@ -26,20 +26,59 @@ end
 
 local delta = math.max(0, now-last_refreshed)
 local filled_tokens = math.min(capacity, last_tokens+(delta*rate))
-local allowed = filled_tokens >= requested
+-- In lease mode (ARG 5) as many of the requested tokens as are available are granted, none if fewer than the minimum
+-- are, and the amount granted is returned in place of the allowed flag. An empty ARG 5 turns lease mode off.
+local minimum = tonumber(ARGV[5])
+-- A request may reserve tokens that are not available yet by passing how long the caller is willing to wait for them
+-- in millis (ARG 6). The tokens are taken anyway, leaving the bucket in debt, and the reply is allowed with the wait in
+-- place of the retry after.
+local max_wait = tonumber(ARGV[6])
+local needed = requested
+if minimum ~= nil then
+  needed = minimum
+end
+
+local allowed = filled_tokens >= needed
 local new_tokens = filled_tokens
 local allowed_num = 0
 if allowed then
-  new_tokens = filled_tokens - requested
+  local granted = requested
   allowed_num = 1
+  if minimum ~= nil then
+    granted = math.min(requested, math.floor(filled_tokens))
+    allowed_num = granted
+  end
+  new_tokens = filled_tokens - granted
 end
 
 --redis.log(redis.LOG_WARNING, "delta " .. delta)
 
+-- The time in millis until the needed tokens are available, -1 if they never will be. Tokens are refilled once a
+-- second so the wait is rounded up to the next second.
+local retry_after = 0
+if not allowed then
+  if rate <= 0 or needed > capacity then
+    retry_after = -1
+  else
+    retry_after = math.ceil((needed - filled_tokens) / rate) * 1000
+    if max_wait ~= nil and minimum == nil and retry_after <= max_wait then
+      allowed_num = 1
+      new_tokens = filled_tokens - requested
+      -- Keep the bucket until its debt is paid back and it is full again.
+      ttl = math.floor((capacity - new_tokens) / rate * 2)
+    end
+  end
+end
+
 if ttl > 0 then
   redis.call("setex", tokens_key, ttl, new_tokens)
   redis.call("setex", timestamp_key, ttl, now)
 end
 
+if allowed_num == 1 and retry_after > 0 then
+  return { 1, 0, retry_after }
+end
+
 -- return { allowed_num, new_tokens, capacity, filled_tokens, requested, new_tokens }
-return { allowed_num, new_tokens, ttl }
\ No newline at end of file
+-- Everything needed for a decision is returned so a request makes a single round trip.
+return { allowed_num, new_tokens, retry_after }
@@ -0,0 +1,73 @@
+-- A token bucket stored as a single hash with the fields t (tokens) and ts (last refreshed in epoch millis). Tokens are
+-- refilled with millisecond precision and the hash expires with PEXPIRE once the bucket would be full again.
+local key = KEYS[1]
+
+local rate = tonumber(ARGV[1])
+local capacity = tonumber(ARGV[2])
+local now = tonumber(ARGV[3])
+local requested = tonumber(ARGV[4])
+
+-- Get the current bucket. if nil then it is full (ARG 2)
+local bucket = redis.call("hmget", key, "t", "ts")
+local last_tokens = tonumber(bucket[1])
+local last_refreshed = tonumber(bucket[2])
+if last_tokens == nil or last_refreshed == nil then
+  last_tokens = capacity
+  last_refreshed = now
+end
+
+-- The clocks of the callers can drift apart, never move the bucket back in time.
+local refreshed = math.max(now, last_refreshed)
+
+local filled_tokens = last_tokens
+if rate > 0 then
+  filled_tokens = math.min(capacity, last_tokens + ((refreshed - last_refreshed) * rate / 1000))
+end
+
+-- In lease mode (ARG 5) as many of the requested tokens as are available are granted, none if fewer than the minimum
+-- are, and the amount granted is returned in place of the allowed flag. An empty ARG 5 turns lease mode off.
+local minimum = tonumber(ARGV[5])
+-- A request may reserve tokens that are not available yet by passing how long the caller is willing to wait for them
+-- in millis (ARG 6). The tokens are taken anyway, leaving the bucket in debt, and the reply is allowed with the wait in
+-- place of the retry after.
+local max_wait = tonumber(ARGV[6])
+local needed = requested
+if minimum ~= nil then
+  needed = minimum
+end
+
+local allowed_num = 0
+local retry_after = 0
+local new_tokens = filled_tokens
+if filled_tokens >= needed then
+  local granted = requested
+  allowed_num = 1
+  if minimum ~= nil then
+    granted = math.min(requested, math.floor(filled_tokens))
+    allowed_num = granted
+  end
+  new_tokens = filled_tokens - granted
+elseif rate <= 0 or needed > capacity then
+  -- The needed tokens will never be available.
+  retry_after = -1
+else
+  retry_after = math.ceil((needed - filled_tokens) * 1000 / rate)
+  if max_wait ~= nil and minimum == nil and retry_after <= max_wait then
+    allowed_num = 1
+    new_tokens = filled_tokens - requested
+  end
+end
+
+-- A bucket that is never refilled, eg: with a replenish rate of 0, still expires once it has not been used for a day.
+local ttl = 86400000
+if rate > 0 then
+  -- A bucket in debt is kept until the debt is paid back and it is full again.
+  ttl = math.ceil((capacity - math.min(0, new_tokens)) * 1000 / rate) * 2
+end
+redis.call("hset", key, "t", new_tokens, "ts", refreshed)
+redis.call("pexpire", key, ttl)
+
+if allowed_num == 1 and retry_after > 0 then
+  return { 1, 0, retry_after }
+end
+return { allowed_num, math.floor(new_tokens), retry_after }
@@ -0,0 +1,47 @@
+-- A sliding log stored as a sorted set holding a member per admitted permit, scored by the epoch millis it was admitted
+-- at. Members that left the window are trimmed lazily with ZREMRANGEBYSCORE before counting, so the set never holds
+-- more than the limit, and the set expires with PEXPIRE once its latest member has left the window. Members are
+-- "<millis>:<position>" so permits admitted in the same millisecond stay distinct.
+local key = KEYS[1]
+
+local limit = tonumber(ARGV[1])
+local interval = tonumber(ARGV[2])
+local now = tonumber(ARGV[3])
+local requested = tonumber(ARGV[4])
+
+if requested > limit or interval <= 0 then
+  -- The requests can never fit in the window.
+  return { 0, 0, -1 }
+end
+
+-- Never log a request before the latest one so the log stays ordered if the clocks of the callers disagree.
+local time = now
+local newest = redis.call("zrange", key, -1, -1, "withscores")
+if #newest > 0 then
+  time = math.max(now, tonumber(newest[2]))
+end
+
+redis.call("zremrangebyscore", key, "-inf", time - interval)
+local size = redis.call("zcard", key)
+
+if size + requested <= limit then
+  -- Added in batches, unpack is limited by the size of the lua stack.
+  local members = {}
+  for i = 1, requested do
+    members[#members + 1] = time
+    members[#members + 1] = time .. ":" .. (size + i)
+    if #members == 2000 or i == requested then
+      redis.call("zadd", key, unpack(members))
+      members = {}
+    end
+  end
+  redis.call("pexpire", key, time + interval - now)
+  return { 1, limit - size - requested, 0 }
+end
+
+-- The permits fit once enough of the oldest members have left the window.
+local index = size + requested - limit - 1
+local oldest = redis.call("zrange", key, index, index, "withscores")
+local leaves = tonumber(oldest[2]) + interval
+
+return { 0, math.max(0, limit - size), math.max(1, leaves - now) }
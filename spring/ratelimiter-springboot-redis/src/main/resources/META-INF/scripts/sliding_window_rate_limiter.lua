@@ -0,0 +1,71 @@
+-- A sliding window counter stored as a single hash with a field per sub window, keyed by the sub window number (the
+-- epoch millis it starts at divided by its length). The rolling count is the sum of the sub windows inside the window
+-- plus the one leaving it, weighted by the share of it still inside. Sub windows that left are deleted and the hash
+-- expires with PEXPIRE once every counted request has left the window.
+local key = KEYS[1]
+
+local limit = tonumber(ARGV[1])
+local length = tonumber(ARGV[2])
+local sub_windows = tonumber(ARGV[3])
+local now = tonumber(ARGV[4])
+local requested = tonumber(ARGV[5])
+
+if requested > limit then
+  -- The requests can never fit in the window.
+  return { 0, 0, -1 }
+end
+
+local current = math.floor(now / length)
+local leaving = current - sub_windows
+local until_next = length - (now % length)
+
+local counts = {}
+local total = 0
+local stale = {}
+local fields = redis.call("hgetall", key)
+for i = 1, #fields, 2 do
+  local sub_window = tonumber(fields[i])
+  local count = tonumber(fields[i + 1])
+  if sub_window < leaving then
+    stale[#stale + 1] = fields[i]
+  else
+    counts[sub_window] = count
+    if sub_window > leaving then
+      total = total + count
+    end
+  end
+end
+if #stale > 0 then
+  redis.call("hdel", key, unpack(stale))
+end
+
+local leaving_count = counts[leaving] or 0
+local estimate = total + leaving_count * until_next / length
+
+if estimate + requested <= limit then
+  redis.call("hincrby", key, current, requested)
+  redis.call("pexpire", key, (sub_windows + 1) * length)
+  return { 1, math.floor(limit - estimate - requested), 0 }
+end
+
+-- The rolling count falls as the leaving sub window slides out and then as each sub window after it does.
+local excess = estimate + requested - limit
+local leaving_inside = leaving_count * until_next / length
+local wait
+if leaving_inside >= excess then
+  wait = excess * length / leaving_count
+else
+  excess = excess - leaving_inside
+  wait = until_next
+  for sub_window = leaving + 1, current do
+    local count = counts[sub_window] or 0
+    if count >= excess then
+      wait = wait + excess * length / count
+      break
+    end
+    excess = excess - count
+    wait = wait + length
+  end
+end
+
+return { 0, math.max(0, math.floor(limit - estimate)), math.max(1, math.ceil(wait)) }
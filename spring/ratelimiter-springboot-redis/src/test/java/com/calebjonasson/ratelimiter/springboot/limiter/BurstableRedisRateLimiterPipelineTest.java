@@ -0,0 +1,133 @@
+package com.calebjonasson.ratelimiter.springboot.limiter;
+
+import com.calebjonasson.ratelimiter.core.context.BurstableRateLimitContext;
+import com.calebjonasson.ratelimiter.core.context.ContextProvider;
+import com.calebjonasson.ratelimiter.core.context.configuration.AbstractContextConfiguration;
+import com.calebjonasson.ratelimiter.core.model.context.RateLimitContext;
+import com.calebjonasson.ratelimiter.core.pipeline.PipelineConfiguration;
+import com.calebjonasson.ratelimiter.core.pipeline.PipelineTransport;
+import com.calebjonasson.ratelimiter.core.request.ContextStateRateLimitRequest;
+import com.calebjonasson.ratelimiter.core.response.RateLimitDecision;
+import com.calebjonasson.ratelimiter.core.type.strategy.BurstableRateLimiterTypeStrategy;
+import com.calebjonasson.ratelimiter.springboot.pipeline.ScriptCall;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BurstableRedisRateLimiterPipelineTest {
+
+	private static final int THREADS = 16;
+
+	private static final int REQUESTS_PER_THREAD = 50;
+
+	@Test
+	public void testConcurrentRequestsShareBatches() throws Exception {
+		AtomicInteger largestBatch = new AtomicInteger();
+		// Every batch costs a simulated round trip, the script allows every call.
+		PipelineTransport<ScriptCall, List<Long>> transport = calls -> {
+			largestBatch.accumulateAndGet(calls.size(), Math::max);
+			Thread.sleep(2);
+			List<List<Long>> replies = new ArrayList<>(calls.size());
+			for(int x = 0; x < calls.size(); x++) {
+				replies.add(Arrays.asList(1L, 10L, 0L));
+			}
+			return replies;
+		};
+
+		BurstableRedisRateLimiter<BurstableRateLimitContext> limiter = new BurstableRedisRateLimiter<>(
+				contextProvider(), null, null, RedisStateLayout.HASH, transport, new PipelineConfiguration());
+
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+		try {
+			List<Future<?>> workers = new ArrayList<>();
+			for(int thread = 0; thread < THREADS; thread++) {
+				int id = thread;
+				workers.add(executor.submit(() -> {
+					start.await();
+					for(int x = 0; x < REQUESTS_PER_THREAD; x++) {
+						String stateKey = "state-" + id + "-" + x;
+						if(x % 2 == 0) {
+							Assertions.assertTrue(limiter.tryAcquire("context", stateKey, 1).isAllowed());
+						} else {
+							limiter.handle(ContextStateRateLimitRequest.of("context", stateKey));
+						}
+					}
+					return null;
+				}));
+			}
+
+			start.countDown();
+			for(Future<?> worker : workers) {
+				worker.get();
+			}
+		} finally {
+			executor.shutdownNow();
+			limiter.close();
+		}
+
+		Assertions.assertEquals(THREADS * REQUESTS_PER_THREAD, limiter.getPipeline().getCommands());
+		Assertions.assertTrue(largestBatch.get() > 1, "Every batch held a single call.");
+		Assertions.assertTrue(limiter.getPipeline().getAverageBatchSize() > 1,
+				"Average batch size " + limiter.getPipeline().getAverageBatchSize());
+	}
+
+	@Test
+	public void testReservationsPassTheirMaxWaitToTheScript() throws Exception {
+		List<ScriptCall> sent = new ArrayList<>();
+		// The bucket is empty, the script reserves the tokens with a 1.5 second wait.
+		PipelineTransport<ScriptCall, List<Long>> transport = calls -> {
+			sent.addAll(calls);
+			List<List<Long>> replies = new ArrayList<>(calls.size());
+			for(int x = 0; x < calls.size(); x++) {
+				replies.add(calls.get(x).getArgs().size() > 4 ? Arrays.asList(1L, 0L, 1500L) : Arrays.asList(0L, 0L, 1500L));
+			}
+			return replies;
+		};
+
+		BurstableRedisRateLimiter<BurstableRateLimitContext> limiter = new BurstableRedisRateLimiter<>(
+				contextProvider(), null, null, RedisStateLayout.HASH, transport, new PipelineConfiguration());
+		try {
+			RateLimitDecision denied = limiter.tryAcquire("context", "state", 1);
+			Assertions.assertFalse(denied.isAllowed());
+			Assertions.assertEquals(1500, denied.getRetryAfterMillis());
+
+			RateLimitDecision reserved = limiter.reserve(
+					ContextStateRateLimitRequest.of("context", "state"), TimeUnit.SECONDS.toNanos(2), new RateLimitDecision());
+			Assertions.assertTrue(reserved.isAllowed());
+			Assertions.assertEquals(TimeUnit.MILLISECONDS.toNanos(1500), reserved.getWaitNanos());
+		} finally {
+			limiter.close();
+		}
+
+		Assertions.assertEquals(4, sent.get(0).getArgs().size());
+		// No lease minimum and the max wait in millis.
+		Assertions.assertEquals(Arrays.asList("", "2000"), sent.get(1).getArgs().subList(4, 6));
+	}
+
+	private static ContextProvider<BurstableRateLimiterTypeStrategy, BurstableRateLimitContext> contextProvider() {
+		BurstableRateLimitContext context = BurstableRateLimitContext.builder().replenishRate(100).burstCapacity(200).build();
+		context.setContextKey("context");
+		return new ContextProvider<BurstableRateLimiterTypeStrategy, BurstableRateLimitContext>() {
+			@Override
+			@SuppressWarnings("unchecked")
+			public <T extends RateLimitContext<BurstableRateLimiterTypeStrategy>> T getContext(String contextKey) {
+				return (T) context;
+			}
+
+			@Override
+			public <T extends AbstractContextConfiguration<BurstableRateLimiterTypeStrategy>> T getContextConfiguration() {
+				return null;
+			}
+		};
+	}
+}
@@ -0,0 +1,74 @@
+package com.calebjonasson.ratelimiter.springboot.limiter;
+
+import com.calebjonasson.ratelimiter.core.context.BurstableRateLimitContext;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.sync.RedisCommands;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares the memory used per bucket by each {@link RedisStateLayout}. Runs against the redis at REDIS_URL, by default a
+ * local redis on the default port, and is skipped when none is reachable.
+ *
+ * mvn test -Pbenchmark -Dtest=RedisStateLayoutBenchmarkTest
+ */
+@Tag("benchmark")
+public class RedisStateLayoutBenchmarkTest {
+
+	private static final int BUCKETS = 10000;
+
+	@Test
+	public void testMemoryPerBucket() throws IOException {
+		String url = System.getenv().getOrDefault("REDIS_URL", "redis://localhost:6379");
+		RedisClient client = RedisClient.create(url);
+		StatefulRedisConnection<String, String> connection;
+		try {
+			connection = client.connect();
+		} catch (Exception e) {
+			client.shutdown();
+			Assumptions.assumeTrue(false, "No redis reachable at " + url);
+			return;
+		}
+
+		BurstableRateLimitContext context = BurstableRateLimitContext.builder().replenishRate(100).burstCapacity(200).build();
+		context.setContextKey("benchmark-layout");
+		try {
+			RedisCommands<String, String> redis = connection.sync();
+			for(RedisStateLayout layout : RedisStateLayout.values()) {
+				String script = StreamUtils.copyToString(new ClassPathResource(layout.getScriptLocation()).getInputStream(), StandardCharsets.UTF_8);
+				String sha = redis.scriptLoad(script);
+
+				List<String> keys = new ArrayList<>();
+				for(int x = 0; x < BUCKETS; x++) {
+					List<String> bucketKeys = layout.keys(context.getContextKey(), "state-" + x);
+					List<String> args = layout.args(context, 1);
+					List<Object> reply = redis.evalsha(sha, ScriptOutputType.MULTI, bucketKeys.toArray(new String[0]), args.toArray(new String[0]));
+					Assertions.assertEquals(1L, reply.get(0));
+					keys.addAll(bucketKeys);
+				}
+
+				long bytes = 0;
+				for(String key : keys) {
+					bytes += redis.memoryUsage(key);
+				}
+				System.out.printf("%-12s %6d keys %8.1f bytes per bucket %8d ms ttl%n", layout, keys.size(),
+						(double) bytes / BUCKETS, redis.pttl(keys.get(0)));
+				redis.del(keys.toArray(new String[0]));
+			}
+		} finally {
+			connection.close();
+			client.shutdown();
+		}
+	}
+}